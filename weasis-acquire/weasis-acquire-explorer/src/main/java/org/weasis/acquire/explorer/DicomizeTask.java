@@ -2,8 +2,14 @@ package org.weasis.acquire.explorer;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.SwingWorker;
 
@@ -12,12 +18,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.acquire.explorer.dicom.Transform2Dicom;
 import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.service.BundleTools;
 import org.weasis.core.api.util.FileUtil;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.dicom.codec.TagD;
+import org.weasis.dicom.codec.TagD.Level;
 
 /**
- * Do the process of convert to JPEG and dicomize given image collection to a temporary folder. All the job is done
- * outside of the EDT instead of setting AcquireImageStatus change. But, full process progression can still be listened
- * with propertyChange notification of this workerTask.
+ * Do the process of convert to JPEG and dicomize given image collection to the folder of the publishing task. The
+ * images are dicomized in parallel and each DICOM object is given to the publishing task as soon as it is written, so
+ * sending can start before the end of the whole process. All the job is done outside of the EDT instead of setting
+ * AcquireImageStatus change. But, full process progression can still be listened with propertyChange notification of
+ * this workerTask.
  *
  * @version $Rev$ $Date$
  */
@@ -26,50 +38,93 @@ public class DicomizeTask extends SwingWorker<File, AcquireImageInfo> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DicomizeTask.class);
 
-    private final Collection<AcquireImageInfo> toDicomize;
+    public static final String DICOMIZE_THREADS = "weasis.acquire.dicomize.threads"; //$NON-NLS-1$
 
-    public DicomizeTask(Collection<AcquireImageInfo> toDicomize) {
+    private final Collection<AcquireImageInfo> toDicomize;
+    private final PublishDicomTask publishTask;
+
+    /**
+     * @param toDicomize
+     *            the images to dicomize
+     * @param publishTask
+     *            the task receiving the DICOM files. It is always completed at the end of this task.
+     */
+    public DicomizeTask(Collection<AcquireImageInfo> toDicomize, PublishDicomTask publishTask) {
         this.toDicomize = Objects.requireNonNull(toDicomize);
+        this.publishTask = Objects.requireNonNull(publishTask);
     }
 
     @Override
     protected File doInBackground() throws Exception {
-
-        File exportDirDicom =
-            FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "dicomize", "dcm")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        File exportDirDicom = publishTask.getExportDir();
         File exportDirImage =
             FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "dicomize", "img")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
         final int nbImageToProcess = toDicomize.size();
         int nbImageProcessed = 0;
+        boolean success = false;
 
+        // Decoding and encoding large images requires a lot of memory, do not use all the processors by default
+        int nbThreads = Math.max(1, BundleTools.SYSTEM_PREFERENCES.getIntProperty(DICOMIZE_THREADS,
+            Math.min(4, Runtime.getRuntime().availableProcessors())));
+        ExecutorService pool = ThreadUtil.buildNewFixedThreadExecutor(nbThreads, "Dicomize Image"); //$NON-NLS-1$
         try {
             Transform2Dicom.buildStudySeriesDate(toDicomize, AcquireManager.GLOBAL);
 
             String seriesInstanceUID = UIDUtils.createUID(); // Global series for all PR
 
+            CompletionService<List<File>> service = new ExecutorCompletionService<>(pool);
             for (AcquireImageInfo imageInfo : toDicomize) {
-                if (!Transform2Dicom.dicomize(imageInfo, exportDirDicom, exportDirImage, seriesInstanceUID)) {
-                    FileUtil.recursiveDelete(exportDirDicom);
+                service.submit(() -> Transform2Dicom.dicomize(imageInfo, exportDirDicom, exportDirImage,
+                    seriesInstanceUID));
+            }
+            Map<File, AcquireImageInfo> images = new HashMap<>();
+            toDicomize.forEach(i -> images.put(getDicomFile(i, exportDirDicom), i));
+
+            while (nbImageProcessed < nbImageToProcess) {
+                if (publishTask.isDone()) {
+                    // The publishing has failed, the error is reported by the publishing task
+                    success = true;
+                    return exportDirDicom;
+                }
+                List<File> files = service.take().get();
+                if (files == null) {
                     return null;
                 }
+                publishTask.addFiles(files);
                 setProgress(++nbImageProcessed * 100 / nbImageToProcess);
-                publish(imageInfo);
+                files.stream().map(images::get).filter(Objects::nonNull).forEach(this::publish);
             }
+            success = true;
+        } catch (InterruptedException e) {
+            LOGGER.warn("Dicomize process interrupted"); //$NON-NLS-1$
+            return null;
         } catch (Exception ex) {
             LOGGER.error("Dicomize process", ex); //$NON-NLS-1$
-            FileUtil.recursiveDelete(exportDirDicom);
             return null;
         } finally {
+            pool.shutdownNow();
+            publishTask.complete(!success);
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
             FileUtil.recursiveDelete(exportDirImage);
         }
 
         return exportDirDicom;
     }
 
+    private static File getDicomFile(AcquireImageInfo imageInfo, File exportDirDicom) {
+        return new File(exportDirDicom, (String) imageInfo.getImage().getTagValue(TagD.getUID(Level.INSTANCE)));
+    }
+
     @Override
     protected void process(List<AcquireImageInfo> chunks) {
-        chunks.stream().forEach(AcquireImageInfo.changeStatus(AcquireImageStatus.SUBMITTED));
+        // The image can already be published
+        chunks.stream().filter(i -> !AcquireImageStatus.PUBLISHED.equals(i.getStatus()))
+            .forEach(AcquireImageInfo.changeStatus(AcquireImageStatus.SUBMITTED));
     }
 
 }
@@ -2,15 +2,21 @@ package org.weasis.acquire.explorer;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.SwingWorker;
 
 import org.dcm4che3.data.Tag;
+import org.dcm4che3.net.Status;
 import org.dcm4che3.util.UIDUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.service.BundleTools;
 import org.weasis.core.api.util.FileUtil;
@@ -23,10 +29,12 @@ import org.weasis.dicom.param.DicomProgress;
 import org.weasis.dicom.param.DicomState;
 
 /**
- * Do the process of publish DICOM files from the given temporary folder. Operation is a CSTORE to a DICOM node
- * destination. All the job is done outside of the EDT instead of setting AcquireImageStatus change and removing related
- * Acquired Images from the dataModel. But, full process progression can still be listened with propertyChange
- * notification of this workerTask.
+ * Do the process of publish DICOM files to a DICOM node destination (CSTORE). The files are given incrementally by
+ * {@link #addFiles(List)} while they are being dicomized: the task sends all the files available, then waits for the
+ * next ones until {@link #complete(boolean)} is called. Each group of files is sent in one association, so sending
+ * starts as soon as the first object is ready. All the job is done outside of the EDT instead of setting
+ * AcquireImageStatus change and removing related Acquired Images from the dataModel. But, full process progression can
+ * still be listened with propertyChange notification of this workerTask.
  *
  * @version $Rev$ $Date$
  */
@@ -34,41 +42,118 @@ import org.weasis.dicom.param.DicomState;
 public class PublishDicomTask extends SwingWorker<DicomState, File> {
     private static final Logger LOGGER = LoggerFactory.getLogger(PublishDicomTask.class);
 
+    // Marker of the end of the files to publish
+    private static final List<File> END = Collections.emptyList();
+
     private final File exportDirDicom;
     private final DicomNode callingNode;
     private final DicomNode destinationNode;
+    private final BlockingQueue<List<File>> pending = new LinkedBlockingQueue<>();
+    private final AtomicInteger nbPending = new AtomicInteger();
+    private volatile boolean aborted = false;
+    private int nbSent = 0;
 
     private final DicomProgress dicomProgress = new DicomProgress();
 
-    public PublishDicomTask(File exportDirDicom, DicomNode destinationNode) {
-        this.exportDirDicom = Objects.requireNonNull(exportDirDicom);
+    /**
+     * @param destinationNode
+     *            the DICOM node receiving the files
+     */
+    public PublishDicomTask(DicomNode destinationNode) {
+        this.exportDirDicom =
+            FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "dicomize", "dcm")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         this.destinationNode = Objects.requireNonNull(destinationNode);
         this.callingNode = new DicomNode(BundleTools.SYSTEM_PREFERENCES.getProperty("weasis.aet", "WEASIS_AE")); //$NON-NLS-1$ //$NON-NLS-2$
         LOGGER.debug("destinationNode is : {}", destinationNode); //$NON-NLS-1$
         initDicomProgress();
     }
 
+    /**
+     * @return the folder where the files to publish must be written. It is deleted at the end of the task.
+     */
+    public File getExportDir() {
+        return exportDirDicom;
+    }
+
+    /**
+     * Adds files to send. The files of the same group (an image and its presentation state) are sent in the same
+     * association. This method can be called from any thread.
+     *
+     * @param files
+     *            the DICOM files written in the export folder
+     */
+    public void addFiles(List<File> files) {
+        if (files != null && !files.isEmpty()) {
+            nbPending.addAndGet(files.size());
+            pending.add(new ArrayList<>(files));
+        }
+    }
+
+    /**
+     * Indicates that no more file will be added.
+     *
+     * @param abort
+     *            if true, the files which are not sent yet are discarded
+     */
+    public void complete(boolean abort) {
+        if (abort) {
+            aborted = true;
+        }
+        pending.add(END);
+    }
+
     private void initDicomProgress() {
         dicomProgress.addProgressListener(progress -> {
             int completed = progress.getNumberOfCompletedSuboperations() + progress.getNumberOfFailedSuboperations();
             int remaining = progress.getNumberOfRemainingSuboperations();
+            int total = nbSent + completed + remaining + nbPending.get();
 
-            setProgress((completed * 100) / (completed + remaining));
+            setProgress(total == 0 ? 0 : ((nbSent + completed) * 100) / total);
             publish(progress.getProcessedFile());
         });
     }
 
     @Override
     protected DicomState doInBackground() throws Exception {
-        List<String> exportFilesDicomPath = new ArrayList<>();
-        exportFilesDicomPath.add(exportDirDicom.getPath());
         AdvancedParams params = new AdvancedParams();
         ConnectOptions connectOptions = new ConnectOptions();
         connectOptions.setConnectTimeout(3000);
         connectOptions.setAcceptTimeout(5000);
         params.setConnectOptions(connectOptions);
+
+        DicomState state = new DicomState(Status.Success, null, null);
         try {
-            return CStore.process(params, callingNode, destinationNode, exportFilesDicomPath, dicomProgress);
+            boolean end = false;
+            while (!end) {
+                // Wait for the first files, then take all the files ready to be sent
+                List<List<File>> groups = new ArrayList<>();
+                groups.add(pending.take());
+                pending.drainTo(groups);
+
+                List<String> batch = new ArrayList<>();
+                for (List<File> group : groups) {
+                    if (group == END) {
+                        end = true;
+                    } else {
+                        group.forEach(f -> batch.add(f.getPath()));
+                    }
+                }
+                if (aborted || isCancelled()) {
+                    return new DicomState(Status.Cancel, null, null);
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                nbPending.addAndGet(-batch.size());
+                state = CStore.process(params, callingNode, destinationNode, batch, dicomProgress);
+                nbSent += batch.size();
+                if (state.getStatus() != Status.Success) {
+                    LOGGER.error("Cannot send {} files to {}: {}", batch.size(), destinationNode, state.getMessage()); //$NON-NLS-1$
+                    return state;
+                }
+                batch.forEach(path -> FileUtil.delete(new File(path)));
+            }
+            return state;
         } finally {
             FileUtil.recursiveDelete(exportDirDicom);
         }
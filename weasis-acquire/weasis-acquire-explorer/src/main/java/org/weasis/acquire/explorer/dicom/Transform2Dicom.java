@@ -14,7 +14,9 @@ import java.awt.Rectangle;
 import java.awt.geom.Point2D;
 import java.io.File;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -37,6 +39,7 @@ import org.weasis.core.api.image.util.Unit;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.media.data.Tagable;
+import org.weasis.core.api.util.FileUtil;
 import org.weasis.core.ui.model.GraphicModel;
 import org.weasis.dicom.codec.TagD;
 import org.weasis.dicom.codec.TagD.Level;
@@ -57,26 +60,29 @@ public final class Transform2Dicom {
      * AcquireImageInfo. The temporary image file is then encapsulated in a standard DICOM format according to the
      * proper Dicom attributes set in the AcquireImageInfo. This Dicom is written in the exportDirDicom with its
      * sopInstanceUID as filename.
-     *
+     * <p>
+     * When the original image is a JPEG file without any change, its bitstream is encapsulated without being decoded
+     * and encoded again. This method can be called concurrently for different images.
      *
      * @param imageInfo
      * @param exportDirDicom
      * @param exportDirImage
      * @param seriesInstanceUID
      *            Global series for all PR
-     * @return
+     * @return the DICOM files written in exportDirDicom (the image and its presentation state) or null if the image
+     *         cannot be dicomized
      */
 
-    public static boolean dicomize(AcquireImageInfo imageInfo, File exportDirDicom, File exportDirImage,
+    public static List<File> dicomize(AcquireImageInfo imageInfo, File exportDirDicom, File exportDirImage,
         String seriesInstanceUID) {
 
         ImageElement imageElement = imageInfo.getImage();
         String sopInstanceUID = Objects.requireNonNull((String) imageElement.getTagValue(TagD.getUID(Level.INSTANCE)));
 
         // Transform to JPEG
-        File imgFile = imageElement.getFileCache().getOriginalFile().get();
-        if (imgFile == null || !imageElement.getMimeType().contains("jpg") //$NON-NLS-1$
-            || !imageInfo.getCurrentValues().equals(imageInfo.getDefaultValues())) {
+        File imgFile = imageElement.getFileCache().getOriginalFile().orElse(null);
+        boolean transcoded = !isUnchangedJpeg(imageInfo, imgFile);
+        if (transcoded) {
 
             imgFile = new File(exportDirImage, sopInstanceUID + ".jpg"); //$NON-NLS-1$
             SimpleOpManager opManager = imageInfo.getPostProcessOpManager();
@@ -93,11 +99,12 @@ public final class Transform2Dicom {
                 // out of memory ??
                 imgFile.delete();
                 LOGGER.error("Cannot Transform to jpeg {}", imageElement.getName()); //$NON-NLS-1$
-                return false;
+                return null;
             }
         }
 
         // Dicomize
+        List<File> files = new ArrayList<>(2);
         if (imgFile.canRead()) {
             Attributes attrs = imageInfo.getAttributes();
             DicomMediaUtils.fillAttributes(AcquireManager.GLOBAL.getTagEntrySetIterator(), attrs);
@@ -111,12 +118,19 @@ public final class Transform2Dicom {
                 attrs.setDouble(Tag.PixelSpacing, VR.DS, unitRatio, unitRatio);
             }
 
+            File dcmFile = new File(exportDirDicom, sopInstanceUID);
             try {
-                Dicomizer.jpeg(attrs, imgFile, new File(exportDirDicom, sopInstanceUID), false);
+                Dicomizer.jpeg(attrs, imgFile, dcmFile, false);
             } catch (Exception e) {
                 LOGGER.error("Cannot Dicomize {}", imageElement.getName(), e); //$NON-NLS-1$
-                return false;
+                return null;
+            } finally {
+                if (transcoded) {
+                    // Free the disk space while the other images are being processed
+                    FileUtil.delete(imgFile);
+                }
             }
+            files.add(dcmFile);
 
             // Presentation State
             GraphicModel grModel = (GraphicModel) imageElement.getTagValue(TagW.PresentationModel);
@@ -137,13 +151,28 @@ public final class Transform2Dicom {
                 String prUid = UIDUtils.createUID();
                 File outputFile = new File(exportDirDicom, prUid);
                 PrSerializer.writePresentation(grModel, attrs, outputFile, seriesInstanceUID, prUid, offset);
+                if (outputFile.isFile()) {
+                    files.add(outputFile);
+                }
             }
         } else {
             LOGGER.error("Cannot read JPEG image {}", imageElement.getName()); //$NON-NLS-1$
-            return false;
+            return null;
         }
 
-        return true;
+        return files;
+    }
+
+    private static boolean isUnchangedJpeg(AcquireImageInfo imageInfo, File imgFile) {
+        if (imgFile == null || !imgFile.canRead()) {
+            return false;
+        }
+        // The mime type comes from the magic number of the file (image/jpeg)
+        String mime = imageInfo.getImage().getMimeType();
+        if (mime == null || !(mime.contains("jpeg") || mime.contains("jpg"))) { //$NON-NLS-1$ //$NON-NLS-2$
+            return false;
+        }
+        return imageInfo.getCurrentValues().equals(imageInfo.getDefaultValues());
     }
 
     /**
@@ -62,12 +62,20 @@ public class AcquirePublishPanel extends JPanel {
         progressBar.setVisible(false);
     }
 
-    public void publishDirDicom(File exportDirDicom, DicomNode destinationNode) {
+    /**
+     * Starts publishing to the destination. The task waits for the DICOM files to be added until it is completed.
+     *
+     * @param destinationNode
+     *            the DICOM node receiving the files
+     * @return the publishing task
+     */
+    public PublishDicomTask publishDicom(DicomNode destinationNode) {
 
-        SwingWorker<DicomState, File> publishDicomTask = new PublishDicomTask(exportDirDicom, destinationNode);
+        PublishDicomTask publishDicomTask = new PublishDicomTask(destinationNode);
         publishDicomTask.addPropertyChangeListener(this::publishChanged);
 
         PUBLISH_DICOM.execute(publishDicomTask);
+        return publishDicomTask;
     }
     
     private void publishChanged(PropertyChangeEvent evt) {
@@ -47,6 +47,7 @@ import org.weasis.acquire.explorer.AcquireImageInfo;
 import org.weasis.acquire.explorer.AcquireManager;
 import org.weasis.acquire.explorer.DicomizeTask;
 import org.weasis.acquire.explorer.Messages;
+import org.weasis.acquire.explorer.PublishDicomTask;
 import org.weasis.acquire.explorer.gui.central.meta.model.imp.AcquireGlobalMeta;
 import org.weasis.acquire.explorer.gui.central.meta.model.imp.AcquireImageMeta;
 import org.weasis.acquire.explorer.gui.central.meta.model.imp.AcquireSerieMeta;
@@ -282,7 +283,13 @@ public class AcquirePublishDialog extends JDialog {
             }
         }
 
-        SwingWorker<File, AcquireImageInfo> dicomizeTask = new DicomizeTask(toPublish);
+        AbstractDicomNode node = (AbstractDicomNode) comboNode.getSelectedItem();
+        if (!(node instanceof DefaultDicomNode)) {
+            return;
+        }
+        // Sending starts as soon as the first image is dicomized
+        PublishDicomTask publishTask = publishPanel.publishDicom(((DefaultDicomNode) node).getDicomNode());
+        SwingWorker<File, AcquireImageInfo> dicomizeTask = new DicomizeTask(toPublish, publishTask);
         ActionListener taskCancelActionListener = e -> dicomizeTask.cancel(true);
 
         dicomizeTask.addPropertyChangeListener(evt -> {
@@ -312,11 +319,7 @@ public class AcquirePublishDialog extends JDialog {
                         }
 
                         if (exportDirDicom != null) {
-                            AbstractDicomNode node = (AbstractDicomNode) comboNode.getSelectedItem();
-                            if (node instanceof DefaultDicomNode) {
-                                publishPanel.publishDirDicom(exportDirDicom, ((DefaultDicomNode) node).getDicomNode());
-                                clearAndHide();
-                            }
+                            clearAndHide();
                         } else {
                             JOptionPane.showMessageDialog(this,
                                 Messages.getString("AcquirePublishDialog.dicomize_error_msg"), //$NON-NLS-1$
@@ -326,6 +329,8 @@ public class AcquirePublishDialog extends JDialog {
                     }
 
                     if (exportDirDicom == null) {
+                        // Release the publishing task when the dicomizing task has been cancelled before starting
+                        publishTask.complete(true);
                         resolutionPane.setVisible(!getOversizedSelected(publishTree).isEmpty());
                         progressBar.setValue(0);
                         progressBar.setVisible(false);
@@ -441,6 +441,16 @@ public abstract class NativeImageReader extends ImageReader {
     }
 
     protected static DataBuffer createDataBuffer(NativeImage img) {
+        if (img == null) {
+            return null;
+        }
+        // The output buffer is consumed once, the same image can be requested by several threads
+        synchronized (img) {
+            return createDataBufferFromOutput(img);
+        }
+    }
+
+    private static DataBuffer createDataBufferFromOutput(NativeImage img) {
         DataBuffer db = null;
         if (img != null) {
             ImageParameters p = img.getImageParameters();
@@ -457,11 +467,9 @@ public abstract class NativeImageReader extends ImageReader {
                     if (buf.hasArray()) {
                         byteData = (byte[]) buf.array();
                     } else {
-                        ByteBuffer byteBuffer = (ByteBuffer) buf;
+                        // Bulk copy of the direct buffer of the native decoder
                         byteData = new byte[limit];
-                        for (int i = 0; i < byteData.length; i++) {
-                            byteData[i] = byteBuffer.get();
-                        }
+                        ((ByteBuffer) buf).get(byteData);
                     }
                     db = new DataBufferByte(byteData, byteData.length - dataOffset, dataOffset);
                     // } else {
@@ -482,13 +490,9 @@ public abstract class NativeImageReader extends ImageReader {
                     short[] shortData;
                     if (buf.hasArray()) {
                         shortData = (short[]) buf.array();
-
                     } else {
-                        ShortBuffer byteBuffer = (ShortBuffer) buf;
                         shortData = new short[limit];
-                        for (int i = 0; i < shortData.length; i++) {
-                            shortData[i] = byteBuffer.get();
-                        }
+                        ((ShortBuffer) buf).get(shortData);
                     }
                     // By default short buffer is unsigned, must be explicitly set before to be signed short.
                     // If not, RectifyUShortToShortDataDescriptor will fix this issue
@@ -505,14 +509,18 @@ public abstract class NativeImageReader extends ImageReader {
     }
 
     @Override
-    public synchronized RenderedImage readAsRenderedImage(int imageIndex, ImageReadParam param) throws IOException {
+    public RenderedImage readAsRenderedImage(int imageIndex, ImageReadParam param) throws IOException {
         return read(imageIndex, param);
         // TODO must be validated as the image reading concurrency is outside the pool thread
         // return new NativeRenderedImage(this, param, imageIndex);
     }
 
+    /**
+     * Reads the image. Only the native decoding, which uses the input stream, is serialized: several reader instances
+     * can decode frames concurrently and building the raster is done outside the lock of the reader.
+     */
     @Override
-    public synchronized BufferedImage read(int imageIndex, ImageReadParam param) throws IOException {
+    public BufferedImage read(int imageIndex, ImageReadParam param) throws IOException {
         long start = System.currentTimeMillis();
         NativeImage img = getImage(imageIndex, param);
         if (img == null) {
@@ -12,12 +12,14 @@ package org.weasis.core.api.image;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 import org.weasis.core.api.gui.util.JMVUtils;
 
 public abstract class AbstractOp implements ImageOpNode {
 
     protected HashMap<String, Object> params;
+    private volatile boolean dirty = true;
 
     public AbstractOp() {
         params = new HashMap<>();
@@ -31,15 +33,36 @@ public abstract class AbstractOp implements ImageOpNode {
     @Override
     public void clearParams() {
         params.clear();
+        dirty = true;
     }
 
     @Override
     public void clearIOCache() {
         for (String key : params.keySet()) {
-            if (key.startsWith("op.input") || key.startsWith("op.output")) { //$NON-NLS-1$ //$NON-NLS-2$
+            if (isIOParam(key)) {
                 params.put(key, null);
             }
         }
+        dirty = true;
+    }
+
+    @Override
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    @Override
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    private static boolean isIOParam(String key) {
+        return key.startsWith("op.input") || key.startsWith("op.output"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null || value instanceof Number || value instanceof Boolean || value instanceof String
+            || value instanceof Enum;
     }
 
     @Override
@@ -53,7 +76,16 @@ public abstract class AbstractOp implements ImageOpNode {
     @Override
     public void setParam(String key, Object value) {
         if (key != null) {
-            params.put(key, value);
+            Object old = params.put(key, value);
+            if (isIOParam(key)) {
+                // Only a new input image requires to execute again the operation
+                if (Param.INPUT_IMG.equals(key) && old != value) {
+                    dirty = true;
+                }
+            } else if (!Objects.equals(old, value) || !isImmutable(value)) {
+                // A mutable object may have been modified even when it is the same instance
+                dirty = true;
+            }
         }
     }
 
@@ -61,13 +93,15 @@ public abstract class AbstractOp implements ImageOpNode {
     public void setAllParameters(Map<String, Object> map) {
         if (map != null) {
             params.putAll(map);
+            dirty = true;
         }
     }
 
     @Override
     public void removeParam(String key) {
-        if (key != null) {
+        if (key != null && params.containsKey(key)) {
             params.remove(key);
+            dirty = true;
         }
     }
 
@@ -78,7 +112,7 @@ public abstract class AbstractOp implements ImageOpNode {
 
     @Override
     public void setEnabled(boolean enabled) {
-        params.put(Param.ENABLE, enabled);
+        setParam(Param.ENABLE, enabled);
     }
 
     @Override
@@ -53,6 +53,14 @@ public interface ImageOpNode extends Copyable<ImageOpNode> {
      */
     void clearIOCache();
 
+    /**
+     * @return true if the operation must be executed again because a parameter or the input image has changed since
+     *         the last execution
+     */
+    boolean isDirty();
+
+    void setDirty(boolean dirty);
+
     void handleImageOpEvent(ImageOpEvent event);
 
 }
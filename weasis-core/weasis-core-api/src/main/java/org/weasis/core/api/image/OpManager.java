@@ -48,7 +48,7 @@ public interface OpManager extends OpEventListener, Copyable<OpManager> {
     
     default boolean needProcessing() {
         for (ImageOpNode op : getOperations()) {
-            if (op.getParam(Param.INPUT_IMG) == null || op.getParam(Param.OUTPUT_IMG) == null) {
+            if (op.isDirty() || op.getParam(Param.INPUT_IMG) == null || op.getParam(Param.OUTPUT_IMG) == null) {
                 return true;
             }
         }
@@ -35,6 +35,12 @@ public class SimpleOpManager implements OpManager {
     private final List<ImageOpNode> operations;
     private String name;
 
+    // Number of operations executed and skipped during the last process() and since the creation
+    private int lastExecutedNodes;
+    private int lastSkippedNodes;
+    private long executedNodes;
+    private long skippedNodes;
+
     public SimpleOpManager() {
         this(IMAGE_OP_NAME);
     }
@@ -209,22 +215,35 @@ public class SimpleOpManager implements OpManager {
         }
     }
 
+    /**
+     * Executes the operations from the first one which has changed (see {@link ImageOpNode#isDirty()}). The output
+     * images of the previous operations are reused.
+     */
     @Override
     public RenderedImage process() {
         RenderedImage source = getFirstNodeInputImage();
+        int executed = 0;
+        int skipped = 0;
         if (source != null) {
             for (int i = 0; i < operations.size(); i++) {
                 ImageOpNode op = operations.get(i);
                 try {
                     if (i > 0) {
+                        // Set a new input makes the operation dirty when the previous one has produced a new image
                         op.setParam(Param.INPUT_IMG, operations.get(i - 1).getParam(Param.OUTPUT_IMG));
                     }
+                    if (!op.isDirty() && op.getParam(Param.OUTPUT_IMG) != null) {
+                        skipped++;
+                        continue;
+                    }
+                    executed++;
                     if (op.isEnabled()) {
                         op.process();
                     } else {
                         // Skip this operation
                         op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
                     }
+                    op.setDirty(false);
                 } catch (Exception e) {
                     LOGGER.error("Image {} failed: {}", op.getParam(Param.NAME), e); //$NON-NLS-1$
                     op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
@@ -233,9 +252,36 @@ public class SimpleOpManager implements OpManager {
         } else {
             clearNodeIOCache();
         }
+        lastExecutedNodes = executed;
+        lastSkippedNodes = skipped;
+        executedNodes += executed;
+        skippedNodes += skipped;
+        LOGGER.trace("{}: {} operations executed, {} skipped", name, executed, skipped); //$NON-NLS-1$
         return getLastNodeOutputImage();
     }
 
+    /**
+     * @return the number of operations executed during the last {@link #process()}
+     */
+    public int getLastExecutedNodes() {
+        return lastExecutedNodes;
+    }
+
+    /**
+     * @return the number of operations reused (not executed) during the last {@link #process()}
+     */
+    public int getLastSkippedNodes() {
+        return lastSkippedNodes;
+    }
+
+    public long getExecutedNodes() {
+        return executedNodes;
+    }
+
+    public long getSkippedNodes() {
+        return skippedNodes;
+    }
+
     @Override
     public Object getParamValue(String opName, String param) {
         if (opName != null && param != null) {
@@ -18,7 +18,7 @@ import javax.media.jai.JAI;
 
 import org.weasis.core.api.Messages;
 import org.weasis.core.api.gui.util.MathUtil;
-import org.weasis.core.api.image.util.ImageToolkit;
+import org.weasis.core.api.image.util.DisplayTileCache;
 
 public class ZoomOp extends AbstractOp {
 
@@ -66,6 +66,8 @@ public class ZoomOp extends AbstractOp {
     public void process() throws Exception {
         RenderedImage source = (RenderedImage) params.get(Param.INPUT_IMG);
         RenderedImage result = source;
+        // This op is re-processed only when the source or the zoom changes, the previous tiles cannot be reused
+        DisplayTileCache.removeTiles(params.get(Param.OUTPUT_IMG));
         Double zoomFactorX = (Double) params.get(P_RATIO_X);
         Double zoomFactorY = (Double) params.get(P_RATIO_Y);
 
@@ -78,7 +80,8 @@ public class ZoomOp extends AbstractOp {
             pb.add(0.0f);
             pb.add(getInterpolation());
 
-            result = JAI.create("scale", pb, ImageToolkit.NOCACHE_HINT); //$NON-NLS-1$
+            // Keep the scaled tiles out of the JAI cache to not evict the tiles of the other operations
+            result = JAI.create("scale", pb, DisplayTileCache.createHints()); //$NON-NLS-1$
         }
 
         params.put(Param.OUTPUT_IMG, result);
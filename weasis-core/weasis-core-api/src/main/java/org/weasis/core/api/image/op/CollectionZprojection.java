@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.image.op;
+
+import java.util.List;
+
+import javax.media.jai.PlanarImage;
+
+import org.weasis.core.api.Messages;
+import org.weasis.core.api.gui.task.TaskInterruptionException;
+import org.weasis.core.api.gui.task.TaskMonitor;
+import org.weasis.core.api.gui.util.GuiExecutor;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.api.util.StringUtil;
+
+/**
+ * Projection of a collection of images along the z axis. Each image is split in bands of rows which are folded in
+ * parallel.
+ */
+public class CollectionZprojection {
+
+    public enum Operation {
+        MIN, MAX, MEAN
+    }
+
+    private final Operation operation;
+    private final List<ImageElement> sources;
+    private final TaskMonitor taskMonitor;
+
+    public CollectionZprojection(Operation operation, List<ImageElement> sources, TaskMonitor taskMonitor) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation cannot be null!"); //$NON-NLS-1$
+        }
+        if (sources == null) {
+            throw new IllegalArgumentException("Sources cannot be null!"); //$NON-NLS-1$
+        }
+        this.operation = operation;
+        this.sources = sources;
+        this.taskMonitor = taskMonitor;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    private void incrementProgressBar(final int progress) {
+        if (taskMonitor == null) {
+            return;
+        }
+        if (taskMonitor.isCanceled()) {
+            throw new TaskInterruptionException("Operation from " + this.getClass().getName() + " has been canceled"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        if (taskMonitor.isShowProgression()) {
+            GuiExecutor.instance().execute(() -> {
+                taskMonitor.setProgress(progress);
+                StringBuilder buf = new StringBuilder(Messages.getString("CollectionZprojection.operation")); //$NON-NLS-1$
+                buf.append(StringUtil.COLON_AND_SPACE);
+                buf.append(progress);
+                buf.append("/"); //$NON-NLS-1$
+                buf.append(taskMonitor.getMaximum());
+                taskMonitor.setNote(buf.toString());
+            });
+        }
+    }
+
+    public PlanarImage computeCollectionOpImage() {
+        if (sources.size() > 1) {
+            PlanarImage img = sources.get(0).getImage(null, false);
+            if (img == null) {
+                return null;
+            }
+            ZprojectionAccumulator accumulator = new ZprojectionAccumulator(operation, img);
+            for (int i = 0; i < sources.size(); i++) {
+                PlanarImage src = i == 0 ? img : sources.get(i).getImage(null, false);
+                if (accumulator.isCompatible(src)) {
+                    accumulator.add(src);
+                }
+                incrementProgressBar(i);
+            }
+            return accumulator.getImage();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.image.op;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import javax.media.jai.PlanarImage;
+
+import org.weasis.core.api.image.op.CollectionZprojection.Operation;
+import org.weasis.core.api.media.data.ImageElement;
+
+/**
+ * Z-projection of a slab which slides along a stack of images. When the slab moves by one slice, only the entering
+ * image is folded and the leaving image is removed without recomputing the whole slab.
+ * <p>
+ * The mean keeps the sums and subtracts the leaving image. The minimum and the maximum cannot be reversed, they use
+ * two stacks: the images entering are folded into a single accumulator and, when the oldest images are all removed,
+ * the partial results of the remaining images are rebuilt once from the newest to the oldest. Each image is then read
+ * at most twice instead of once per slab.
+ */
+public class SlidingZprojection {
+
+    private final Operation operation;
+
+    private final Deque<ImageElement> slab = new ArrayDeque<>();
+    // Mean: true when the image of the slab at the same position has been folded into the accumulator
+    private final Deque<Boolean> folded = new ArrayDeque<>();
+    // Mean: accumulator of the whole slab. Min/Max: accumulator of the images not in the front stack.
+    private ZprojectionAccumulator back;
+    private final Deque<ImageElement> backImages = new ArrayDeque<>();
+    // Min/Max: the first element is the projection of all the oldest images of the slab
+    private final Deque<ZprojectionAccumulator> front = new ArrayDeque<>();
+    private PlanarImage reference;
+
+    public SlidingZprojection(Operation operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation cannot be null!"); //$NON-NLS-1$
+        }
+        this.operation = operation;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public int size() {
+        return slab.size();
+    }
+
+    /**
+     * Adds an image at the end of the slab.
+     *
+     * @param element
+     *            the image to add
+     * @return false if the image cannot be read or has not the same layout as the first image. The image is part of
+     *         the slab but is not included in the projection.
+     */
+    public boolean add(ImageElement element) {
+        slab.addLast(element);
+        backImages.addLast(element);
+        boolean added = fold(element == null ? null : element.getImage(null, false));
+        folded.addLast(added);
+        return added;
+    }
+
+    private boolean fold(PlanarImage img) {
+        if (img == null) {
+            return false;
+        }
+        if (reference == null) {
+            reference = img;
+            back = new ZprojectionAccumulator(operation, img);
+        } else if (!back.isCompatible(img)) {
+            return false;
+        }
+        back.add(img);
+        return true;
+    }
+
+    /**
+     * Removes the first image of the slab.
+     */
+    public void removeFirst() {
+        if (slab.isEmpty()) {
+            return;
+        }
+        ImageElement element = slab.pollFirst();
+        boolean wasFolded = folded.pollFirst();
+        if (reference == null) {
+            // No image has been folded
+            backImages.pollFirst();
+        } else if (Operation.MEAN.equals(operation)) {
+            backImages.pollFirst();
+            // An image which could not be read when added is not in the sums
+            if (wasFolded) {
+                PlanarImage img = element == null ? null : element.getImage(null, false);
+                if (back.isCompatible(img)) {
+                    back.subtract(img);
+                } else {
+                    // Cannot subtract, recompute the whole slab
+                    rebuildMean();
+                }
+            }
+        } else {
+            if (front.isEmpty()) {
+                transferToFront();
+            }
+            front.pollFirst();
+        }
+        if (slab.isEmpty()) {
+            clear();
+        }
+    }
+
+    private void rebuildMean() {
+        back = new ZprojectionAccumulator(operation, reference);
+        folded.clear();
+        for (ImageElement e : backImages) {
+            PlanarImage img = e == null ? null : e.getImage(null, false);
+            boolean compatible = back.isCompatible(img);
+            if (compatible) {
+                back.add(img);
+            }
+            folded.addLast(compatible);
+        }
+    }
+
+    private void transferToFront() {
+        // The images are folded from the newest to the oldest, so the first accumulator contains all the images
+        ZprojectionAccumulator acc = null;
+        for (Iterator<ImageElement> iter = backImages.descendingIterator(); iter.hasNext();) {
+            ImageElement e = iter.next();
+            PlanarImage img = e == null ? null : e.getImage(null, false);
+            if (acc == null) {
+                acc = new ZprojectionAccumulator(operation, reference);
+            } else {
+                acc = acc.copy();
+            }
+            if (acc.isCompatible(img)) {
+                acc.add(img);
+            }
+            front.addFirst(acc);
+        }
+        backImages.clear();
+        back = new ZprojectionAccumulator(operation, reference);
+    }
+
+    /**
+     * @return the projection of the current slab or null when the slab is empty
+     */
+    public PlanarImage getImage() {
+        if (reference == null) {
+            return null;
+        }
+        ZprojectionAccumulator first = front.peekFirst();
+        if (first == null) {
+            return back.getImage();
+        }
+        if (back.getCount() == 0) {
+            return first.getImage();
+        }
+        ZprojectionAccumulator result = first.copy();
+        result.combine(back);
+        return result.getImage();
+    }
+
+    public void clear() {
+        slab.clear();
+        folded.clear();
+        backImages.clear();
+        front.clear();
+        back = null;
+        reference = null;
+    }
+}
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.image.op;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.media.jai.PlanarImage;
+
+import org.weasis.core.api.image.op.CollectionZprojection.Operation;
+import org.weasis.core.api.image.util.LayoutUtil;
+
+/**
+ * Primitive accumulator of a z-projection. The samples are stored band by band and the images are folded in parallel
+ * by bands of rows, reading directly the tiles of the source images.
+ */
+final class ZprojectionAccumulator {
+
+    private static final int MIN_ROWS_PER_TASK = 16;
+
+    private final Operation operation;
+    private final PlanarImage reference;
+    private final Rectangle bounds;
+    private final int bands;
+    private final boolean floating;
+
+    // Only one of them is allocated according to the operation and the data type
+    private int[] intData;
+    private long[] longData;
+    private double[] doubleData;
+    private int count;
+
+    ZprojectionAccumulator(Operation operation, PlanarImage reference) {
+        this.operation = operation;
+        this.reference = reference;
+        this.bounds = reference.getBounds();
+        this.bands = reference.getSampleModel().getNumBands();
+        int dataType = reference.getSampleModel().getDataType();
+        this.floating = dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE;
+
+        int length = bounds.width * bounds.height * bands;
+        if (floating) {
+            doubleData = new double[length];
+            if (Operation.MAX.equals(operation)) {
+                Arrays.fill(doubleData, Double.NEGATIVE_INFINITY);
+            } else if (Operation.MIN.equals(operation)) {
+                Arrays.fill(doubleData, Double.POSITIVE_INFINITY);
+            }
+        } else if (Operation.MEAN.equals(operation)) {
+            longData = new long[length];
+        } else {
+            intData = new int[length];
+            Arrays.fill(intData, Operation.MAX.equals(operation) ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+        }
+    }
+
+    private ZprojectionAccumulator(ZprojectionAccumulator src) {
+        this.operation = src.operation;
+        this.reference = src.reference;
+        this.bounds = src.bounds;
+        this.bands = src.bands;
+        this.floating = src.floating;
+        this.intData = src.intData == null ? null : src.intData.clone();
+        this.longData = src.longData == null ? null : src.longData.clone();
+        this.doubleData = src.doubleData == null ? null : src.doubleData.clone();
+        this.count = src.count;
+    }
+
+    ZprojectionAccumulator copy() {
+        return new ZprojectionAccumulator(this);
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    boolean isCompatible(PlanarImage img) {
+        return img != null && bounds.equals(img.getBounds()) && img.getSampleModel().getNumBands() == bands;
+    }
+
+    /**
+     * Folds the image into the accumulator.
+     */
+    void add(PlanarImage img) {
+        fold(img, false);
+        count++;
+    }
+
+    /**
+     * Removes the image from the accumulator. Only the mean can be reversed.
+     */
+    void subtract(PlanarImage img) {
+        if (!Operation.MEAN.equals(operation)) {
+            throw new UnsupportedOperationException("Cannot subtract an image from " + operation); //$NON-NLS-1$
+        }
+        fold(img, true);
+        count--;
+    }
+
+    /**
+     * Folds another accumulator of the same operation into this one.
+     */
+    void combine(ZprojectionAccumulator other) {
+        if (Operation.MEAN.equals(operation) && !floating) {
+            for (int i = 0; i < longData.length; i++) {
+                longData[i] += other.longData[i];
+            }
+        } else if (floating) {
+            foldDouble(operation, false, doubleData, 0, other.doubleData, 0, doubleData.length);
+        } else {
+            foldInt(operation, intData, 0, other.intData, 0, intData.length);
+        }
+        count += other.count;
+    }
+
+    private void fold(PlanarImage img, boolean subtract) {
+        if (!isCompatible(img)) {
+            throw new IllegalArgumentException("The image does not match the projection"); //$NON-NLS-1$
+        }
+        int threshold = Math.max(MIN_ROWS_PER_TASK,
+            bounds.height / Math.max(1, ForkJoinPool.getCommonPoolParallelism() * 4));
+        ForkJoinPool.commonPool().invoke(new RowBandTask(img, subtract, bounds.y, bounds.y + bounds.height, threshold));
+    }
+
+    private void foldRows(PlanarImage img, boolean subtract, int y0, int y1) {
+        Rectangle band = new Rectangle(bounds.x, y0, bounds.width, y1 - y0);
+        int[] ibuf = null;
+        double[] dbuf = null;
+        int minTy = img.YToTileY(y0);
+        int maxTy = img.YToTileY(y1 - 1);
+        for (int ty = minTy; ty <= maxTy; ty++) {
+            for (int tx = img.getMinTileX(); tx <= img.getMaxTileX(); tx++) {
+                Raster tile = img.getTile(tx, ty);
+                Rectangle r = tile.getBounds().intersection(band);
+                if (r.isEmpty()) {
+                    continue;
+                }
+                int length = r.width * r.height;
+                for (int b = 0; b < bands; b++) {
+                    // Copy only the samples of the tile intersecting the band, not the whole raster
+                    if (floating) {
+                        if (dbuf == null || dbuf.length < length) {
+                            dbuf = new double[length];
+                        }
+                        tile.getSamples(r.x, r.y, r.width, r.height, b, dbuf);
+                    } else {
+                        if (ibuf == null || ibuf.length < length) {
+                            ibuf = new int[length];
+                        }
+                        tile.getSamples(r.x, r.y, r.width, r.height, b, ibuf);
+                    }
+                    for (int j = 0; j < r.height; j++) {
+                        int accOffset = getOffset(b, r.x, r.y + j);
+                        int srcOffset = j * r.width;
+                        if (floating) {
+                            foldDouble(operation, subtract, doubleData, accOffset, dbuf, srcOffset, r.width);
+                        } else if (Operation.MEAN.equals(operation)) {
+                            foldLong(subtract, longData, accOffset, ibuf, srcOffset, r.width);
+                        } else {
+                            foldInt(operation, intData, accOffset, ibuf, srcOffset, r.width);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int getOffset(int band, int x, int y) {
+        return (band * bounds.height + y - bounds.y) * bounds.width + x - bounds.x;
+    }
+
+    private static void foldInt(Operation op, int[] acc, int accOffset, int[] src, int srcOffset, int length) {
+        int end = accOffset + length;
+        if (Operation.MAX.equals(op)) {
+            for (int i = accOffset, k = srcOffset; i < end; i++, k++) {
+                if (src[k] > acc[i]) {
+                    acc[i] = src[k];
+                }
+            }
+        } else {
+            for (int i = accOffset, k = srcOffset; i < end; i++, k++) {
+                if (src[k] < acc[i]) {
+                    acc[i] = src[k];
+                }
+            }
+        }
+    }
+
+    private static void foldLong(boolean subtract, long[] acc, int accOffset, int[] src, int srcOffset, int length) {
+        int end = accOffset + length;
+        if (subtract) {
+            for (int i = accOffset, k = srcOffset; i < end; i++, k++) {
+                acc[i] -= src[k];
+            }
+        } else {
+            for (int i = accOffset, k = srcOffset; i < end; i++, k++) {
+                acc[i] += src[k];
+            }
+        }
+    }
+
+    private static void foldDouble(Operation op, boolean subtract, double[] acc, int accOffset, double[] src,
+        int srcOffset, int length) {
+        int end = accOffset + length;
+        if (Operation.MAX.equals(op)) {
+            for (int i = accOffset, k = srcOffset; i < end; i++, k++) {
+                if (src[k] > acc[i]) {
+                    acc[i] = src[k];
+                }
+            }
+        } else if (Operation.MIN.equals(op)) {
+            for (int i = accOffset, k = srcOffset; i < end; i++, k++) {
+                if (src[k] < acc[i]) {
+                    acc[i] = src[k];
+                }
+            }
+        } else if (subtract) {
+            for (int i = accOffset, k = srcOffset; i < end; i++, k++) {
+                acc[i] -= src[k];
+            }
+        } else {
+            for (int i = accOffset, k = srcOffset; i < end; i++, k++) {
+                acc[i] += src[k];
+            }
+        }
+    }
+
+    /**
+     * @return the result of the projection with the layout of the reference image or null if no image has been
+     *         folded
+     */
+    PlanarImage getImage() {
+        if (count <= 0) {
+            return null;
+        }
+        WritableRaster raster = LayoutUtil.createCompatibleRaster(reference, bounds);
+        int w = bounds.width;
+        int[] ibuf = floating ? null : new int[w];
+        double[] dbuf = floating ? new double[w] : null;
+        for (int b = 0; b < bands; b++) {
+            for (int y = 0; y < bounds.height; y++) {
+                int offset = getOffset(b, bounds.x, bounds.y + y);
+                if (floating) {
+                    if (Operation.MEAN.equals(operation)) {
+                        for (int i = 0; i < w; i++) {
+                            dbuf[i] = doubleData[offset + i] / count;
+                        }
+                    } else {
+                        System.arraycopy(doubleData, offset, dbuf, 0, w);
+                    }
+                    raster.setSamples(raster.getMinX(), raster.getMinY() + y, w, 1, b, dbuf);
+                } else {
+                    if (Operation.MEAN.equals(operation)) {
+                        for (int i = 0; i < w; i++) {
+                            ibuf[i] = (int) Math.floor(longData[offset + i] / (double) count + 0.5);
+                        }
+                    } else {
+                        System.arraycopy(intData, offset, ibuf, 0, w);
+                    }
+                    raster.setSamples(raster.getMinX(), raster.getMinY() + y, w, 1, b, ibuf);
+                }
+            }
+        }
+        BufferedImage buffer = new BufferedImage(reference.getColorModel(), raster, false, null);
+        return PlanarImage.wrapRenderedImage(buffer);
+    }
+
+    private class RowBandTask extends RecursiveAction {
+        private static final long serialVersionUID = -3516278291683318745L;
+
+        private final transient PlanarImage img;
+        private final boolean subtract;
+        private final int y0;
+        private final int y1;
+        private final int threshold;
+
+        RowBandTask(PlanarImage img, boolean subtract, int y0, int y1, int threshold) {
+            this.img = img;
+            this.subtract = subtract;
+            this.y0 = y0;
+            this.y1 = y1;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (y1 - y0 <= threshold) {
+                foldRows(img, subtract, y0, y1);
+            } else {
+                int mid = (y0 + y1) >>> 1;
+                invokeAll(new RowBandTask(img, subtract, y0, mid, threshold),
+                    new RowBandTask(img, subtract, mid, y1, threshold));
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.image.util;
+
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.RenderedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.media.jai.ImageLayout;
+import javax.media.jai.JAI;
+import javax.media.jai.RenderedOp;
+import javax.media.jai.TileCache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.service.BundleTools;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Cache of the tiles of the images rendered for the display (e.g. the zoomed image), separated from the JAI tile cache
+ * so that they are not evicted by the other operations.
+ * <p>
+ * A tile is identified by the image which has computed it. A new image is built by the display operations when the
+ * source, an upstream operation or the zoom changes, so the cached tiles are never stale. The tiles of the replaced
+ * image must be released with {@link #removeTiles(Object)}.
+ */
+public final class DisplayTileCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DisplayTileCache.class);
+
+    public static final String DISPLAY_CACHE_SIZE = "weasis.display.tile.cache.size"; //$NON-NLS-1$
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    private static final TileCache CACHE = JAI.createTileCache(getDefaultCacheSize());
+
+    private static final ExecutorService PREFETCH = ThreadUtil.buildNewSingleThreadExecutor("Tile Prefetch"); //$NON-NLS-1$
+    // Only the last prefetch request is executed
+    private static final AtomicLong PREFETCH_REQUEST = new AtomicLong();
+
+    private DisplayTileCache() {
+    }
+
+    /**
+     * @return the size in bytes of the cache defined in the preferences (by default 5% of the maximum heap)
+     */
+    public static long getDefaultCacheSize() {
+        long defaultSize = (long) (Runtime.getRuntime().maxMemory() * 0.05);
+        long size = BundleTools.SYSTEM_PREFERENCES.getLongProperty(DISPLAY_CACHE_SIZE, defaultSize / MEGABYTE);
+        return size <= 0 ? defaultSize : size * MEGABYTE;
+    }
+
+    public static TileCache getTileCache() {
+        return CACHE;
+    }
+
+    /**
+     * @return the hints for building a tiled image whose tiles are kept in this cache
+     */
+    public static RenderingHints createHints() {
+        ImageLayout layout = new ImageLayout();
+        layout.setTileWidth(ImageFiler.TILESIZE);
+        layout.setTileHeight(ImageFiler.TILESIZE);
+        RenderingHints hints = new RenderingHints(JAI.KEY_IMAGE_LAYOUT, layout);
+        hints.put(JAI.KEY_TILE_CACHE, CACHE);
+        return hints;
+    }
+
+    public static boolean isCached(Object image) {
+        return image instanceof RenderedOp
+            && LayoutUtil.getTileCacheHint(((RenderedOp) image).getRenderingHints()) == CACHE;
+    }
+
+    /**
+     * Releases the tiles of an image which will not be displayed anymore.
+     */
+    public static void removeTiles(Object image) {
+        if (isCached(image)) {
+            RenderedOp op = (RenderedOp) image;
+            // Do not create the rendering when it does not exist
+            if (op.getCurrentRendering() != null) {
+                CACHE.removeTiles(op.getCurrentRendering());
+            }
+        }
+    }
+
+    /**
+     * Computes in background the tiles next to the visible area in the direction of the panning. The previous request
+     * is abandoned.
+     *
+     * @param image
+     *            the displayed image, its tiles or the tiles of its sources are in this cache
+     * @param visible
+     *            the visible area in the coordinates of the image
+     * @param dx
+     *            the horizontal displacement of the visible area since the last display
+     * @param dy
+     *            the vertical displacement of the visible area since the last display
+     */
+    public static void prefetch(RenderedImage image, Rectangle visible, int dx, int dy) {
+        if (image == null || visible == null || visible.isEmpty() || (dx == 0 && dy == 0)) {
+            return;
+        }
+        int tileW = image.getTileWidth();
+        int tileH = image.getTileHeight();
+        int gridX = image.getTileGridXOffset();
+        int gridY = image.getTileGridYOffset();
+        int txMin = Math.floorDiv(visible.x - gridX, tileW);
+        int txMax = Math.floorDiv(visible.x + visible.width - 1 - gridX, tileW);
+        int tyMin = Math.floorDiv(visible.y - gridY, tileH);
+        int tyMax = Math.floorDiv(visible.y + visible.height - 1 - gridY, tileH);
+
+        // Extend the tiles of the visible area by one tile in the direction of the panning
+        int x0 = dx < 0 ? txMin - 1 : txMin;
+        int x1 = dx > 0 ? txMax + 1 : txMax;
+        int y0 = dy < 0 ? tyMin - 1 : tyMin;
+        int y1 = dy > 0 ? tyMax + 1 : tyMax;
+        int fx0 = Math.max(x0, image.getMinTileX());
+        int fx1 = Math.min(x1, image.getMinTileX() + image.getNumXTiles() - 1);
+        int fy0 = Math.max(y0, image.getMinTileY());
+        int fy1 = Math.min(y1, image.getMinTileY() + image.getNumYTiles() - 1);
+        int vx0 = txMin;
+        int vx1 = txMax;
+        int vy0 = tyMin;
+        int vy1 = tyMax;
+
+        long request = PREFETCH_REQUEST.incrementAndGet();
+        PREFETCH.execute(() -> {
+            for (int ty = fy0; ty <= fy1; ty++) {
+                for (int tx = fx0; tx <= fx1; tx++) {
+                    if (request != PREFETCH_REQUEST.get()) {
+                        return;
+                    }
+                    // The visible tiles have already been computed by the display
+                    if (tx >= vx0 && tx <= vx1 && ty >= vy0 && ty <= vy1) {
+                        continue;
+                    }
+                    try {
+                        image.getTile(tx, ty);
+                    } catch (Exception e) {
+                        LOGGER.debug("Cannot prefetch tile {},{}", tx, ty, e); //$NON-NLS-1$
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Abandons the prefetch request in progress.
+     */
+    public static void cancelPrefetch() {
+        PREFETCH_REQUEST.incrementAndGet();
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.image.util;
+
+/**
+ * Streaming accumulator of the minimum, the maximum and the central moments up to the fourth order. The moments are
+ * updated for each value (Welford's method extended to the higher orders), so the statistics are computed in a single
+ * pass and remain accurate when the mean is large compared to the standard deviation.
+ */
+public class MomentStatistics {
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean;
+    private double m2;
+    private double m3;
+    private double m4;
+
+    public void add(double value) {
+        long n1 = count;
+        count++;
+        double n = count;
+        double delta = value - mean;
+        double deltaN = delta / n;
+        double deltaN2 = deltaN * deltaN;
+        double term1 = delta * deltaN * n1;
+        mean += deltaN;
+        m4 += term1 * deltaN2 * (n * n - 3.0 * n + 3.0) + 6.0 * deltaN2 * m2 - 4.0 * deltaN * m3;
+        m3 += term1 * deltaN * (n - 2.0) - 3.0 * deltaN * m2;
+        m2 += term1;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds the values accumulated by another instance.
+     */
+    public void combine(MomentStatistics other) {
+        if (other == null || other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            copy(other, this);
+            return;
+        }
+        double na = count;
+        double nb = other.count;
+        double n = na + nb;
+        double delta = other.mean - mean;
+        double delta2 = delta * delta;
+        double delta3 = delta2 * delta;
+        double delta4 = delta2 * delta2;
+
+        double newM2 = m2 + other.m2 + delta2 * na * nb / n;
+        double newM3 = m3 + other.m3 + delta3 * na * nb * (na - nb) / (n * n)
+            + 3.0 * delta * (na * other.m2 - nb * m2) / n;
+        double newM4 = m4 + other.m4 + delta4 * na * nb * (na * na - na * nb + nb * nb) / (n * n * n)
+            + 6.0 * delta2 * (na * na * other.m2 + nb * nb * m2) / (n * n)
+            + 4.0 * delta * (na * other.m3 - nb * m3) / n;
+
+        mean += delta * nb / n;
+        m2 = newM2;
+        m3 = newM3;
+        m4 = newM4;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return the statistics of the values transformed by value * slope + intercept (e.g. the modality rescale)
+     */
+    public MomentStatistics rescale(double slope, double intercept) {
+        MomentStatistics s = new MomentStatistics();
+        copy(this, s);
+        if (count > 0) {
+            double slope2 = slope * slope;
+            s.mean = mean * slope + intercept;
+            s.m2 = m2 * slope2;
+            s.m3 = m3 * slope2 * slope;
+            s.m4 = m4 * slope2 * slope2;
+            double a = min * slope + intercept;
+            double b = max * slope + intercept;
+            s.min = Math.min(a, b);
+            s.max = Math.max(a, b);
+        }
+        return s;
+    }
+
+    private static void copy(MomentStatistics src, MomentStatistics dst) {
+        dst.count = src.count;
+        dst.min = src.min;
+        dst.max = src.max;
+        dst.mean = src.mean;
+        dst.m2 = src.m2;
+        dst.m3 = src.m3;
+        dst.m4 = src.m4;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return the sample variance
+     */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1.0);
+    }
+
+    /**
+     * @return the sample standard deviation
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return the adjusted Fisher-Pearson coefficient of skewness
+     */
+    public double getSkewness() {
+        if (count < 3) {
+            return Double.NaN;
+        }
+        double n = count;
+        double std = getStandardDeviation();
+        return (n / ((n - 1.0) * (n - 2.0))) * (m3 / (std * std * std));
+    }
+
+    /**
+     * @return the sample excess kurtosis
+     */
+    public double getKurtosis() {
+        if (count < 4) {
+            return Double.NaN;
+        }
+        double n = count;
+        double variance = getVariance();
+        double c1 = (n * (n + 1.0)) / ((n - 1.0) * (n - 2.0) * (n - 3.0));
+        double c2 = (3.0 * (n - 1.0) * (n - 1.0)) / ((n - 2.0) * (n - 3.0));
+        return c1 * m4 / (variance * variance) - c2;
+    }
+}
@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.image.util;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import javax.media.jai.Histogram;
+import javax.media.jai.LookupTableJAI;
+
+/**
+ * Reads the pixels of an image inside a shape, row by row.
+ * <p>
+ * The shape is converted into horizontal spans of pixels (a pixel belongs to the shape when its center is inside), so
+ * no mask is rasterized and only the tiles intersecting the shape are requested. The values are read from each tile
+ * and given span by span to a {@link SampleConsumer}.
+ */
+public final class RoiScanner {
+
+    private static final double FLATNESS = 0.01;
+
+    @FunctionalInterface
+    public interface SampleConsumer {
+        /**
+         * @param band
+         *            the band of the samples
+         * @param samples
+         *            the buffer of samples, only the first values are valid
+         * @param length
+         *            the number of valid samples
+         */
+        void accept(int band, double[] samples, int length);
+    }
+
+    private RoiScanner() {
+    }
+
+    /**
+     * Computes the statistics of each band of the image inside the shape in a single pass.
+     *
+     * @param image
+     *            the image
+     * @param roi
+     *            the shape in the coordinates of the image or null for the whole image
+     * @param excludedMin
+     *            the lowest value to exclude, or null
+     * @param excludedMax
+     *            the highest value to exclude, or null
+     * @param cancelled
+     *            returns true when the computation must be stopped, can be null
+     * @return the statistics of each band or null when cancelled
+     */
+    public static MomentStatistics[] computeStatistics(RenderedImage image, Shape roi, Double excludedMin,
+        Double excludedMax, BooleanSupplier cancelled) {
+        if (image == null) {
+            return null;
+        }
+        int numBands = image.getSampleModel().getNumBands();
+        MomentStatistics[] stats = new MomentStatistics[numBands];
+        for (int i = 0; i < numBands; i++) {
+            stats[i] = new MomentStatistics();
+        }
+        // When only one bound is defined, only this value is excluded
+        Double lowBound = excludedMin == null ? excludedMax : excludedMin;
+        Double highBound = excludedMax == null ? excludedMin : excludedMax;
+        boolean exclude = lowBound != null;
+        double exMin = exclude ? lowBound : 0.0;
+        double exMax = exclude ? highBound : 0.0;
+
+        boolean done = scan(image, roi, (band, samples, length) -> {
+            MomentStatistics s = stats[band];
+            for (int i = 0; i < length; i++) {
+                double p = samples[i];
+                if (!exclude || p < exMin || p > exMax) {
+                    s.add(p);
+                }
+            }
+        }, cancelled);
+        return done ? stats : null;
+    }
+
+    /**
+     * Computes the histogram of the image inside the shape. The lookup table is applied to each value before counting
+     * it, like with the "lookup" and "histogram" JAI operations but without building the intermediate image.
+     *
+     * @param image
+     *            the image
+     * @param roi
+     *            the shape in the coordinates of the image or null for the whole image
+     * @param lookup
+     *            the lookup table applied to the values, or null
+     * @param numBins
+     *            the number of bins
+     * @param lowValue
+     *            the lowest value included
+     * @param highValue
+     *            the highest value, excluded
+     * @param cancelled
+     *            returns true when the computation must be stopped, can be null
+     * @return the histogram or null when cancelled
+     */
+    public static Histogram computeHistogram(RenderedImage image, Shape roi, LookupTableJAI lookup, int numBins,
+        double lowValue, double highValue, BooleanSupplier cancelled) {
+        if (image == null || numBins < 1 || !(highValue > lowValue)) {
+            return null;
+        }
+        int numBands = image.getSampleModel().getNumBands();
+        int[] nbBins = new int[numBands];
+        double[] low = new double[numBands];
+        double[] high = new double[numBands];
+        Arrays.fill(nbBins, numBins);
+        Arrays.fill(low, lowValue);
+        Arrays.fill(high, highValue);
+        Histogram histogram = new Histogram(nbBins, low, high);
+        int[][] bins = histogram.getBins();
+        double binWidth = (highValue - lowValue) / numBins;
+
+        boolean done = scan(image, roi, (band, samples, length) -> {
+            int[] b = bins[band];
+            int lutBand = lookup == null ? 0 : Math.min(band, lookup.getNumBands() - 1);
+            for (int i = 0; i < length; i++) {
+                double v = lookup == null ? samples[i] : lookup(lookup, lutBand, (int) samples[i]);
+                if (v >= lowValue && v < highValue) {
+                    b[Math.min(numBins - 1, (int) ((v - lowValue) / binWidth))]++;
+                }
+            }
+        }, cancelled);
+        return done ? histogram : null;
+    }
+
+    private static double lookup(LookupTableJAI lookup, int band, int value) {
+        int offset = lookup.getOffset(band);
+        int index = Math.max(offset, Math.min(value, offset + lookup.getNumEntries() - 1));
+        return lookup.lookupDouble(band, index);
+    }
+
+    /**
+     * Reads all the pixels of the image inside the shape.
+     *
+     * @return false when cancelled
+     */
+    public static boolean scan(RenderedImage image, Shape roi, SampleConsumer consumer, BooleanSupplier cancelled) {
+        Rectangle imgBounds =
+            new Rectangle(image.getMinX(), image.getMinY(), image.getWidth(), image.getHeight());
+        Shape shape = roi == null ? imgBounds : roi;
+        Rectangle2D b = shape.getBounds2D();
+        int y0 = Math.max(imgBounds.y, (int) Math.floor(b.getMinY()));
+        int y1 = Math.min(imgBounds.y + imgBounds.height - 1, (int) Math.ceil(b.getMaxY()));
+        if (y1 < y0) {
+            return true;
+        }
+        int[][] spans = getSpans(shape, y0, y1, imgBounds.x, imgBounds.x + imgBounds.width - 1);
+
+        int numBands = image.getSampleModel().getNumBands();
+        int tileW = image.getTileWidth();
+        int tileH = image.getTileHeight();
+        int gridX = image.getTileGridXOffset();
+        int gridY = image.getTileGridYOffset();
+        double[] buffer = new double[Math.min(tileW, imgBounds.width)];
+
+        int tyMin = Math.floorDiv(y0 - gridY, tileH);
+        int tyMax = Math.floorDiv(y1 - gridY, tileH);
+        for (int ty = tyMin; ty <= tyMax; ty++) {
+            int rowStart = Math.max(y0, gridY + ty * tileH);
+            int rowEnd = Math.min(y1, gridY + (ty + 1) * tileH - 1);
+
+            // Columns of the tiles containing spans in this row of tiles
+            int xMin = Integer.MAX_VALUE;
+            int xMax = Integer.MIN_VALUE;
+            for (int y = rowStart; y <= rowEnd; y++) {
+                int[] s = spans[y - y0];
+                if (s.length > 0) {
+                    xMin = Math.min(xMin, s[0]);
+                    xMax = Math.max(xMax, s[s.length - 1]);
+                }
+            }
+            if (xMax < xMin) {
+                continue;
+            }
+            int txMin = Math.floorDiv(xMin - gridX, tileW);
+            int txMax = Math.floorDiv(xMax - gridX, tileW);
+            for (int tx = txMin; tx <= txMax; tx++) {
+                int tileX0 = gridX + tx * tileW;
+                int tileX1 = tileX0 + tileW - 1;
+                Raster tile = null;
+                for (int y = rowStart; y <= rowEnd; y++) {
+                    if (cancelled != null && cancelled.getAsBoolean()) {
+                        return false;
+                    }
+                    int[] s = spans[y - y0];
+                    for (int k = 0; k < s.length; k += 2) {
+                        int sx0 = Math.max(s[k], tileX0);
+                        int sx1 = Math.min(s[k + 1], tileX1);
+                        if (sx1 < sx0) {
+                            continue;
+                        }
+                        if (tile == null) {
+                            tile = image.getTile(tx, ty);
+                        }
+                        int w = sx1 - sx0 + 1;
+                        if (buffer.length < w) {
+                            buffer = new double[w];
+                        }
+                        for (int band = 0; band < numBands; band++) {
+                            tile.getSamples(sx0, y, w, 1, band, buffer);
+                            consumer.accept(band, buffer, w);
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the shape into spans of pixels for each row between y0 and y1. A span is a pair of inclusive x
+     * coordinates clipped to [xMin, xMax].
+     */
+    static int[][] getSpans(Shape shape, int y0, int y1, int xMin, int xMax) {
+        PathIterator it = shape.getPathIterator(null, FLATNESS);
+        boolean evenOdd = it.getWindingRule() == PathIterator.WIND_EVEN_ODD;
+        List<double[]> edges = new ArrayList<>();
+        double[] c = new double[6];
+        double startX = 0;
+        double startY = 0;
+        double lastX = 0;
+        double lastY = 0;
+        while (!it.isDone()) {
+            int type = it.currentSegment(c);
+            if (type == PathIterator.SEG_MOVETO) {
+                addEdge(edges, lastX, lastY, startX, startY);
+                startX = lastX = c[0];
+                startY = lastY = c[1];
+            } else if (type == PathIterator.SEG_LINETO) {
+                addEdge(edges, lastX, lastY, c[0], c[1]);
+                lastX = c[0];
+                lastY = c[1];
+            } else if (type == PathIterator.SEG_CLOSE) {
+                addEdge(edges, lastX, lastY, startX, startY);
+                lastX = startX;
+                lastY = startY;
+            }
+            it.next();
+        }
+        // Open paths are filled as if they were closed
+        addEdge(edges, lastX, lastY, startX, startY);
+        // Sort by the lowest y for activating the edges row by row
+        edges.sort((a, b) -> Double.compare(a[1], b[1]));
+
+        int[][] spans = new int[y1 - y0 + 1][];
+        List<double[]> active = new ArrayList<>();
+        int next = 0;
+        double[] xs = new double[16];
+        int[] dirs = new int[16];
+        for (int y = y0; y <= y1; y++) {
+            double yc = y + 0.5;
+            while (next < edges.size() && edges.get(next)[1] <= yc) {
+                active.add(edges.get(next++));
+            }
+            active.removeIf(e -> e[3] <= yc);
+
+            int n = 0;
+            for (double[] e : active) {
+                if (n == xs.length) {
+                    xs = Arrays.copyOf(xs, n * 2);
+                    dirs = Arrays.copyOf(dirs, n * 2);
+                }
+                // Insertion sort by x, the number of crossings is small
+                double x = e[0] + (yc - e[1]) * (e[2] - e[0]) / (e[3] - e[1]);
+                int i = n++;
+                while (i > 0 && xs[i - 1] > x) {
+                    xs[i] = xs[i - 1];
+                    dirs[i] = dirs[i - 1];
+                    i--;
+                }
+                xs[i] = x;
+                dirs[i] = (int) e[4];
+            }
+
+            int[] row = new int[2 * n];
+            int nbSpan = 0;
+            int winding = 0;
+            for (int i = 0; i < n - 1; i++) {
+                winding += evenOdd ? 1 : dirs[i];
+                boolean inside = evenOdd ? (winding & 1) != 0 : winding != 0;
+                if (inside) {
+                    // Pixels whose center is in [xs[i], xs[i + 1])
+                    int sx0 = Math.max(xMin, (int) Math.ceil(xs[i] - 0.5));
+                    int sx1 = Math.min(xMax, (int) Math.ceil(xs[i + 1] - 0.5) - 1);
+                    if (sx0 <= sx1) {
+                        if (nbSpan > 0 && row[nbSpan - 1] >= sx0 - 1) {
+                            // Merge adjacent spans
+                            row[nbSpan - 1] = Math.max(row[nbSpan - 1], sx1);
+                        } else {
+                            row[nbSpan++] = sx0;
+                            row[nbSpan++] = sx1;
+                        }
+                    }
+                }
+            }
+            spans[y - y0] = nbSpan == row.length ? row : Arrays.copyOf(row, nbSpan);
+        }
+        return spans;
+    }
+
+    private static void addEdge(List<double[]> edges, double x0, double y0, double x1, double y1) {
+        if (y0 == y1) {
+            return;
+        }
+        // {x at min y, min y, x at max y, max y, direction}
+        if (y0 < y1) {
+            edges.add(new double[] { x0, y0, x1, y1, 1 });
+        } else {
+            edges.add(new double[] { x1, y1, x0, y0, -1 });
+        }
+    }
+}
@@ -14,13 +14,13 @@ import java.awt.Point;
 import java.awt.image.DataBuffer;
 import java.awt.image.IndexColorModel;
 import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
 import java.awt.image.renderable.ParameterBlock;
 import java.io.IOException;
-import java.lang.ref.Reference;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import javax.media.jai.JAI;
@@ -36,39 +36,33 @@ import org.weasis.core.api.image.OpManager;
 import org.weasis.core.api.image.measure.MeasurementsAdapter;
 import org.weasis.core.api.image.util.ImageToolkit;
 import org.weasis.core.api.image.util.Unit;
-import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.api.media.data.ImageLoader.Priority;
+import org.weasis.core.api.service.BundleTools;
 
 public class ImageElement extends MediaElement {
     private static final Logger LOGGER = LoggerFactory.getLogger(ImageElement.class);
 
-    /*
-     * Imageio issue with native library in multi-thread environment (to avoid JVM crash let only one simultaneous
-     * thread) (https://java.net/jira/browse/JAI_IMAGEIO_CORE-126)
-     *
-     * Try multi-thread reading with new native decoders
-     *
-     * public static final ExecutorService IMAGE_LOADER = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime()
-     * .availableProcessors() / 2));
-     */
-    // TODO evaluate the difference, keep one thread with sun decoder. (seems to hangs on shutdown)
-    public static final ExecutorService IMAGE_LOADER = ThreadUtil.buildNewSingleThreadExecutor("Image Loader"); //$NON-NLS-1$
+    private static final long MEGABYTE = 1024L * 1024L;
 
-    private static final SoftHashMap<ImageElement, PlanarImage> mCache = new SoftHashMap<ImageElement, PlanarImage>() {
+    public static final String IMAGE_CACHE_SIZE = "image.cache.size"; //$NON-NLS-1$
 
-        @Override
-        public void removeElement(Reference<? extends PlanarImage> soft) {
-            ImageElement key = reverseLookup.remove(soft);
-            if (key != null) {
-                hash.remove(key);
+    private static final LruCache<ImageElement, PlanarImage> mCache =
+        new LruCache<ImageElement, PlanarImage>(getDefaultCacheSize(), ImageElement::getImageSize) {
+
+            @Override
+            protected void removeElement(ImageElement key, PlanarImage value) {
                 MediaReader reader = key.getMediaReader();
-                key.setTag(TagW.ImageCache, false);
+                // The image may have been loaded again since the eviction
+                if (!containsKey(key)) {
+                    key.setImageInCache(false);
+                }
                 if (reader != null) {
                     // Close the image stream
                     reader.close();
                 }
             }
-        }
-    };
+        };
+
     protected boolean readable = true;
 
     protected double pixelSizeX = 1.0;
@@ -80,6 +74,10 @@ public class ImageElement extends MediaElement {
     protected Double minPixelValue;
     protected Double maxPixelValue;
 
+    // State of the image in the cache, readable without locking the cache
+    private volatile boolean imageInCache = false;
+    private volatile CacheStateListener cacheStateListener;
+
     public ImageElement(MediaReader mediaIO, Object key) {
         super(mediaIO, key);
     }
@@ -234,14 +232,88 @@ public class ImageElement extends MediaElement {
         return new MeasurementsAdapter(unitRatio, offsetx, offsety, false, 0, unit.getAbbreviation());
     }
 
+    /**
+     * @return the size in bytes of the image cache defined in the preferences (by default 40% of the maximum heap)
+     */
+    public static long getDefaultCacheSize() {
+        long defaultSize = (long) (Runtime.getRuntime().maxMemory() * 0.4);
+        long size = BundleTools.SYSTEM_PREFERENCES.getLongProperty(IMAGE_CACHE_SIZE, defaultSize / MEGABYTE);
+        return size <= 0 ? defaultSize : size * MEGABYTE;
+    }
+
+    /**
+     * Sets the size of the cache of the decoded images. The least recently used images are evicted when the size is
+     * smaller than the current content of the cache.
+     *
+     * @param size
+     *            the size in bytes
+     */
+    public static void setCacheSize(long size) {
+        mCache.setMaxWeight(size);
+    }
+
+    public static LruCache<ImageElement, PlanarImage> getImageCache() {
+        return mCache;
+    }
+
+    /**
+     * @return the memory footprint in bytes of the raster of the image
+     */
+    public static long getImageSize(RenderedImage img) {
+        if (img == null) {
+            return 0L;
+        }
+        SampleModel sm = img.getSampleModel();
+        long bits = 0L;
+        for (int size : sm.getSampleSize()) {
+            bits += size;
+        }
+        return (long) img.getWidth() * img.getHeight() * bits / 8L;
+    }
+
     public boolean isImageInCache() {
-        return mCache.get(this) != null;
+        return imageInCache;
+    }
+
+    private void setImageInCache(boolean inCache) {
+        if (imageInCache != inCache) {
+            imageInCache = inCache;
+            this.setTag(TagW.ImageCache, inCache);
+            CacheStateListener listener = cacheStateListener;
+            if (listener != null) {
+                listener.cacheStateChanged(this, inCache);
+            }
+        }
+    }
+
+    /**
+     * Sets the listener notified when the image is loaded into or removed from the cache. The listener is called from
+     * the thread loading or evicting the image and must be fast.
+     */
+    public void setCacheStateListener(CacheStateListener listener) {
+        this.cacheStateListener = listener;
+    }
+
+    public CacheStateListener getCacheStateListener() {
+        return cacheStateListener;
+    }
+
+    /**
+     * Prevents the image to be evicted from the cache (e.g. when it is displayed). Each call must be followed by
+     * {@link #unpinImageInCache()}.
+     */
+    public void pinImageInCache() {
+        mCache.pin(this);
+    }
+
+    public void unpinImageInCache() {
+        mCache.unpin(this);
     }
 
     public void removeImageFromCache() {
         mCache.remove(this);
         MediaReader reader = this.getMediaReader();
-        this.setTag(TagW.ImageCache, false);
+        setImageInCache(false);
         if (reader != null) {
             // Close the image stream
             reader.close();
@@ -318,16 +390,39 @@ public class ImageElement extends MediaElement {
         return getMediaURI().toString();
     }
 
-    public synchronized PlanarImage getImage(OpManager manager, boolean findMinMax) {
+    public PlanarImage getImage(OpManager manager, boolean findMinMax) {
+        return getImage(manager, findMinMax, Priority.DISPLAY);
+    }
+
+    /**
+     * Returns the full size, original image. When the image is not in the cache, the decoding task is submitted to the
+     * {@link ImageLoader} with the given priority.
+     *
+     * @param manager
+     *            the operations to apply to the original image (can be null)
+     * @param findMinMax
+     *            compute the min and the max values of the image
+     * @param priority
+     *            the priority of the decoding task
+     * @return the image or null if the image cannot be read or the task has been cancelled
+     */
+    public PlanarImage getImage(OpManager manager, boolean findMinMax, Priority priority) {
+        // When the image is already waiting for being preloaded, display it before the other tasks
+        ImageLoader.getInstance().promote(this, priority);
+        return getImageFromLoader(manager, findMinMax, priority);
+    }
+
+    private synchronized PlanarImage getImageFromLoader(OpManager manager, boolean findMinMax, Priority priority) {
         try {
-            return getCacheImage(startImageLoading(), manager, findMinMax);
+            return getCacheImage(startImageLoading(priority), manager, findMinMax);
         } catch (OutOfMemoryError e1) {
             /*
              * Appends when loading a big image without tiling, the memory left is not enough for the renderedop (like
              * Extrema)
              */
             LOGGER.warn("Out of MemoryError: {}", this, e1); //$NON-NLS-1$
-            mCache.expungeStaleEntries();
+            // Release the half of the unused images
+            mCache.trimToWeight(mCache.getWeight() / 2);
             System.gc();
             System.gc();
             try {
@@ -335,7 +430,7 @@ public class ImageElement extends MediaElement {
             } catch (InterruptedException et) {
                 // Do nothing
             }
-            return getCacheImage(startImageLoading(), manager, findMinMax);
+            return getCacheImage(startImageLoading(priority), manager, findMinMax);
         }
     }
 
@@ -345,6 +440,7 @@ public class ImageElement extends MediaElement {
                 findMinMaxValues(cacheImage, true);
             } catch (Exception e) {
                 mCache.remove(this);
+                setImageInCache(false);
                 readable = false;
                 LOGGER.error("Cannot read image: {}", this, e); //$NON-NLS-1$
             }
@@ -367,12 +463,21 @@ public class ImageElement extends MediaElement {
         return getImage(null);
     }
 
-    private PlanarImage startImageLoading() throws OutOfMemoryError {
+    /**
+     * Cancels the decoding task of this image if it has not been started yet.
+     *
+     * @return true if the task has been cancelled
+     */
+    public boolean cancelImageLoading() {
+        return ImageLoader.getInstance().cancel(this);
+    }
+
+    private PlanarImage startImageLoading(Priority priority) throws OutOfMemoryError {
         PlanarImage cacheImage;
         if ((cacheImage = mCache.get(this)) == null && readable && setAsLoading()) {
             LOGGER.debug("Asking for reading image: {}", this); //$NON-NLS-1$
             Load ref = new Load();
-            Future<PlanarImage> future = IMAGE_LOADER.submit(ref);
+            Future<PlanarImage> future = ImageLoader.getInstance().submit(ref, priority, this);
             PlanarImage img = null;
             try {
                 img = future.get();
@@ -382,6 +487,8 @@ public class ImageElement extends MediaElement {
                 Thread.currentThread().interrupt();
                 // We don't need the result, so cancel the task too
                 future.cancel(true);
+            } catch (CancellationException e) {
+                LOGGER.debug("Loading image has been cancelled: {}", this); //$NON-NLS-1$
             } catch (ExecutionException e) {
                 if (e.getCause() instanceof OutOfMemoryError) {
                     setAsLoaded();
@@ -393,9 +500,10 @@ public class ImageElement extends MediaElement {
             }
             if (img != null) {
                 readable = true;
+                // Set before, an eviction by another thread will reset it
+                setImageInCache(true);
                 mCache.put(this, img);
                 cacheImage = img;
-                this.setTag(TagW.ImageCache, true);
             }
             setAsLoaded();
         }
@@ -408,7 +516,7 @@ public class ImageElement extends MediaElement {
 
     @Override
     public void dispose() {
-        // Let the soft reference mechanism dispose the display image
+        // Let the cache evict the display image
         super.dispose();
     }
 
@@ -420,4 +528,8 @@ public class ImageElement extends MediaElement {
         }
     }
 
+    @FunctionalInterface
+    public interface CacheStateListener {
+        void cacheStateChanged(ImageElement image, boolean inCache);
+    }
 }
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.media.data;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.service.BundleTools;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Shared scheduler for decoding images. The tasks are executed by a pool of workers (by default one per core) and are
+ * ordered by {@link Priority}: the image to display is always decoded before the preloading and the thumbnail tasks.
+ * The tasks waiting in the queue can be cancelled (e.g. when the slices are not visible anymore).
+ */
+public final class ImageLoader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageLoader.class);
+
+    public static final String LOADER_THREADS = "image.loader.threads"; //$NON-NLS-1$
+
+    public enum Priority {
+        DISPLAY, PRELOADING, THUMBNAIL
+    }
+
+    private static final ImageLoader instance = new ImageLoader();
+
+    // True in the workers while executing a task
+    private static final ThreadLocal<Boolean> IN_WORKER = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong decodingTime = new AtomicLong();
+
+    private final ConcurrentHashMap<Object, LoadTask<?>> pendingTasks = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+
+    private ImageLoader() {
+        int nbThreads = BundleTools.SYSTEM_PREFERENCES.getIntProperty(LOADER_THREADS,
+            Runtime.getRuntime().availableProcessors());
+        nbThreads = Math.max(1, nbThreads);
+        this.queue = new PriorityBlockingQueue<>(64, new PriorityTaskComparator());
+        this.executor = new ThreadPoolExecutor(nbThreads, nbThreads, 0L, TimeUnit.MILLISECONDS, queue,
+            ThreadUtil.getThreadFactory("Image Loader")); //$NON-NLS-1$
+        LOGGER.debug("Image loader started with {} threads", nbThreads); //$NON-NLS-1$
+    }
+
+    public static ImageLoader getInstance() {
+        return instance;
+    }
+
+    /**
+     * Submits a decoding task.
+     *
+     * @param task
+     *            the task to execute
+     * @param priority
+     *            the priority of the task
+     * @param key
+     *            the object identifying the task for {@link #promote(Object, Priority)} and {@link #cancel(Object)}
+     *            (can be null)
+     * @return the future of the task
+     */
+    public <T> Future<T> submit(Callable<T> task, Priority priority, Object key) {
+        return submit(task, priority, key, null);
+    }
+
+    /**
+     * Submits a decoding task belonging to a group. When called from a task of the loader (e.g. a preloading task
+     * decoding an image), the task is executed immediately in the current thread, as waiting for a task queued behind
+     * could block all the workers.
+     *
+     * @param task
+     *            the task to execute
+     * @param priority
+     *            the priority of the task
+     * @param key
+     *            the object identifying the task for {@link #promote(Object, Priority)} and {@link #cancel(Object)}
+     *            (can be null)
+     * @param group
+     *            the object grouping the tasks for {@link #cancelGroup(Object)} (can be null)
+     * @return the future of the task
+     */
+    public <T> Future<T> submit(Callable<T> task, Priority priority, Object key, Object group) {
+        LoadTask<T> t = new LoadTask<>(task, priority == null ? Priority.DISPLAY : priority, key, group);
+        if (key != null) {
+            pendingTasks.put(key, t);
+        }
+        if (IN_WORKER.get()) {
+            t.run();
+        } else {
+            executor.execute(t);
+        }
+        return t;
+    }
+
+    /**
+     * Moves up a waiting task to a higher priority.
+     *
+     * @param key
+     *            the object identifying the task
+     * @param priority
+     *            the new priority
+     * @return true if the task has been moved up
+     */
+    public boolean promote(Object key, Priority priority) {
+        LoadTask<?> t = key == null ? null : pendingTasks.get(key);
+        if (t != null && priority != null && priority.compareTo(t.priority) < 0 && queue.remove(t)) {
+            t.priority = priority;
+            queue.offer(t);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Cancels the task identified by the key if it has not been started yet.
+     *
+     * @param key
+     *            the object identifying the task
+     * @return true if the task has been cancelled
+     */
+    public boolean cancel(Object key) {
+        LoadTask<?> t = key == null ? null : pendingTasks.get(key);
+        return t != null && cancelTask(t);
+    }
+
+    /**
+     * Cancels all the waiting tasks of the given group.
+     *
+     * @param group
+     *            the object grouping the tasks (e.g. the series being preloaded)
+     * @return the number of cancelled tasks
+     */
+    public int cancelGroup(Object group) {
+        int nb = 0;
+        if (group != null) {
+            for (Iterator<Runnable> iter = queue.iterator(); iter.hasNext();) {
+                Runnable r = iter.next();
+                if (r instanceof LoadTask && ((LoadTask<?>) r).group == group && cancelTask((LoadTask<?>) r)) {
+                    nb++;
+                }
+            }
+        }
+        return nb;
+    }
+
+    private boolean cancelTask(LoadTask<?> t) {
+        if (queue.remove(t) && t.cancel(false)) {
+            if (t.key != null) {
+                pendingTasks.remove(t.key, t);
+            }
+            cancelled.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    /**
+     * @return the average decoding time in milliseconds
+     */
+    public double getAverageDecodingTime() {
+        long nb = completed.get();
+        return nb == 0 ? 0.0 : decodingTime.get() / (nb * 1000000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Image loader: threads=%d, queue=%d, completed=%d, cancelled=%d, avg decoding=%.1f ms", //$NON-NLS-1$
+            getPoolSize(), getQueueDepth(), getCompletedCount(), getCancelledCount(), getAverageDecodingTime());
+    }
+
+    private class LoadTask<T> extends FutureTask<T> {
+        private final long order;
+        private final Object key;
+        private final Object group;
+        private volatile Priority priority;
+
+        LoadTask(Callable<T> callable, Priority priority, Object key, Object group) {
+            super(callable);
+            this.order = sequence.incrementAndGet();
+            this.priority = priority;
+            this.key = key;
+            this.group = group;
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) {
+                return;
+            }
+            boolean nested = IN_WORKER.get();
+            IN_WORKER.set(Boolean.TRUE);
+            long start = System.nanoTime();
+            try {
+                super.run();
+            } finally {
+                IN_WORKER.set(nested);
+            }
+            // A nested task is part of the time of the task executing it
+            if (!nested) {
+                decodingTime.addAndGet(System.nanoTime() - start);
+                completed.incrementAndGet();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (key != null) {
+                pendingTasks.remove(key, this);
+            }
+        }
+    }
+
+    static class PriorityTaskComparator implements Comparator<Runnable>, Serializable {
+
+        private static final long serialVersionUID = -2472314586541282735L;
+
+        @Override
+        public int compare(Runnable r1, Runnable r2) {
+            LoadTask<?> t1 = (LoadTask<?>) r1;
+            LoadTask<?> t2 = (LoadTask<?>) r2;
+            int rep = t1.priority.compareTo(t2.priority);
+            if (rep != 0) {
+                return rep;
+            }
+            // The last image requested for display is the visible one, the other tasks are executed in order
+            if (t1.priority == Priority.DISPLAY) {
+                return Long.compare(t2.order, t1.order);
+            }
+            return Long.compare(t1.order, t2.order);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.media.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe cache limited by a weight budget (e.g. the size in bytes of the values). When the budget is exceeded,
+ * the least recently used entries are evicted, except the pinned ones.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<K, Long> weights = new HashMap<>();
+    private final Map<K, Integer> pinned = new HashMap<>();
+    private final ToLongFunction<? super V> weigher;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private long maxWeight;
+    private long weight;
+
+    /**
+     * @param maxWeight
+     *            the budget of the cache
+     * @param weigher
+     *            the function returning the weight of a value
+     */
+    public LruCache(long maxWeight, ToLongFunction<? super V> weigher) {
+        if (weigher == null) {
+            throw new IllegalArgumentException("weigher cannot be null"); //$NON-NLS-1$
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Called when an entry has been evicted from the cache. This method is not called when an entry is explicitly
+     * removed with {@link #remove(Object)} or {@link #clear()}.
+     *
+     * @param key
+     *            the key of the evicted entry
+     * @param value
+     *            the value of the evicted entry
+     */
+    protected void removeElement(K key, V value) {
+        // Do nothing by default
+    }
+
+    public synchronized V get(Object key) {
+        V result = map.get(key);
+        if (result == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the cache contains the key. Unlike {@link #get(Object)}, it changes neither the eviction order
+     * nor the statistics.
+     */
+    public synchronized boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            return null;
+        }
+        V old;
+        List<Entry<K, V>> evicted;
+        synchronized (this) {
+            long w = Math.max(0L, weigher.applyAsLong(value));
+            old = map.put(key, value);
+            Long oldWeight = weights.put(key, w);
+            weight += w - (oldWeight == null ? 0L : oldWeight);
+            evicted = trim(maxWeight);
+        }
+        notifyEvicted(evicted);
+        return old;
+    }
+
+    public synchronized V remove(Object key) {
+        V result = map.remove(key);
+        Long w = weights.remove(key);
+        if (w != null) {
+            weight -= w;
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        weights.clear();
+        weight = 0L;
+    }
+
+    /**
+     * Prevents the key to be evicted until {@link #unpin(Object)} is called the same number of times.
+     */
+    public synchronized void pin(K key) {
+        if (key != null) {
+            pinned.merge(key, 1, Integer::sum);
+        }
+    }
+
+    public void unpin(K key) {
+        List<Entry<K, V>> evicted = null;
+        synchronized (this) {
+            if (key != null) {
+                Integer nb = pinned.get(key);
+                if (nb != null) {
+                    if (nb > 1) {
+                        pinned.put(key, nb - 1);
+                    } else {
+                        pinned.remove(key);
+                        // May have been kept over budget
+                        evicted = trim(maxWeight);
+                    }
+                }
+            }
+        }
+        notifyEvicted(evicted);
+    }
+
+    public synchronized boolean isPinned(Object key) {
+        return pinned.containsKey(key);
+    }
+
+    /**
+     * Evicts the least recently used entries until the weight of the cache is under the given value.
+     *
+     * @param targetWeight
+     *            the expected weight
+     */
+    public void trimToWeight(long targetWeight) {
+        List<Entry<K, V>> evicted;
+        synchronized (this) {
+            evicted = trim(targetWeight);
+        }
+        notifyEvicted(evicted);
+    }
+
+    private List<Entry<K, V>> trim(long targetWeight) {
+        List<Entry<K, V>> evicted = null;
+        Iterator<Entry<K, V>> iter = map.entrySet().iterator();
+        while (weight > targetWeight && iter.hasNext()) {
+            Entry<K, V> entry = iter.next();
+            K k = entry.getKey();
+            if (!pinned.containsKey(k)) {
+                iter.remove();
+                Long w = weights.remove(k);
+                if (w != null) {
+                    weight -= w;
+                }
+                if (evicted == null) {
+                    evicted = new ArrayList<>();
+                }
+                evicted.add(entry);
+                evictionCount.incrementAndGet();
+            }
+        }
+        return evicted;
+    }
+
+    private void notifyEvicted(List<Entry<K, V>> evicted) {
+        // Called outside the lock as the callback can be time-consuming (e.g. closing a stream)
+        if (evicted != null) {
+            for (Entry<K, V> entry : evicted) {
+                removeElement(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        List<Entry<K, V>> evicted;
+        synchronized (this) {
+            this.maxWeight = maxWeight;
+            evicted = trim(maxWeight);
+        }
+        notifyEvicted(evicted);
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("entries=%d, weight=%d/%d, hits=%d, misses=%d, evictions=%d", size(), getWeight(), //$NON-NLS-1$
+            getMaxWeight(), getHitCount(), getMissCount(), getEvictionCount());
+    }
+}
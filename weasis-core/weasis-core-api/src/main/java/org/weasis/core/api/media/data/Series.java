@@ -22,11 +22,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.SwingUtilities;
 
@@ -49,8 +53,11 @@ public abstract class Series<E extends MediaElement> extends MediaSeriesGroupNod
 
     private PropertyChangeSupport propertyChange = null;
     protected final List<E> medias;
-    protected final Map<Comparator<E>, List<E>> sortedMedias = new HashMap<>(6);
+    // Sorted views by comparator, updated when adding medias and read without locking
+    private final Map<Comparator<E>, SortedMediaView<E>> sortedMedias = new ConcurrentHashMap<>(6);
     protected final Comparator<E> mediaOrder;
+    // Tag values of the medias, built on the first lookup of a tag
+    private final Map<TagW, Set<Object>> mediaIndexes = new HashMap<>(2);
     protected SeriesImporter seriesLoader;
     private double fileSize;
 
@@ -94,43 +101,112 @@ public abstract class Series<E extends MediaElement> extends MediaSeriesGroupNod
         }
     }
 
+    /**
+     * Called after adding medias. The sorted lists of medias are already up to date, the subclasses must invalidate
+     * their own data depending on the medias.
+     */
+    protected void mediasAdded() {
+        // Do nothing
+    }
+
+    /**
+     * Returns the medias sorted by the comparator. Except for the default order, the list is an immutable snapshot
+     * which is not modified when adding medias.
+     */
     @Override
     public List<E> getSortedMedias(Comparator<E> comparator) {
         // Do not sort when it is the default order.
         if (comparator != null && !comparator.equals(mediaOrder)) {
-            List<E> sorted = sortedMedias.get(comparator);
-            if (sorted == null) {
-                sorted = new ArrayList<>(medias);
-                Collections.sort(sorted, comparator);
-                sortedMedias.put(comparator, sorted);
+            SortedMediaView<E> view = sortedMedias.get(comparator);
+            if (view == null) {
+                synchronized (this) {
+                    view = sortedMedias.computeIfAbsent(comparator, c -> new SortedMediaView<>(c, medias));
+                }
             }
-            return sorted;
+            return view.getSnapshot();
         }
         return medias;
     }
 
+    /**
+     * Sorts the medias with the comparator, which becomes the default order of the series. The other sorted lists and
+     * the data depending on the position of the medias are rebuilt on the next access.
+     */
+    public void sort(Comparator<E> comparator) {
+        synchronized (this) {
+            Collections.sort(medias, comparator);
+            resetSortedMediasMap();
+        }
+    }
+
     @Override
     public void add(E media) {
-        medias.add(media);
-        resetSortedMediasMap();
+        synchronized (this) {
+            medias.add(media);
+            indexMedia(media);
+            sortedMedias.values().forEach(v -> v.insert(media));
+        }
+        mediasAdded();
     }
 
     @Override
     public void add(int index, E media) {
-        medias.add(index, media);
-        resetSortedMediasMap();
+        synchronized (this) {
+            medias.add(index, media);
+            indexMedia(media);
+            sortedMedias.values().forEach(v -> v.insert(media));
+        }
+        mediasAdded();
     }
 
     @Override
     public void addAll(Collection<? extends E> c) {
-        medias.addAll(c);
-        resetSortedMediasMap();
+        synchronized (this) {
+            medias.addAll(c);
+            c.forEach(this::indexMedia);
+            sortedMedias.values().forEach(v -> v.insertAll(c));
+        }
+        mediasAdded();
     }
 
     @Override
     public void addAll(int index, Collection<? extends E> c) {
-        medias.addAll(index, c);
-        resetSortedMediasMap();
+        synchronized (this) {
+            medias.addAll(index, c);
+            c.forEach(this::indexMedia);
+            sortedMedias.values().forEach(v -> v.insertAll(c));
+        }
+        mediasAdded();
+    }
+
+    private void indexMedia(E media) {
+        if (media != null) {
+            for (Entry<TagW, Set<Object>> entry : mediaIndexes.entrySet()) {
+                addToIndex(entry.getValue(), entry.getKey(), media);
+            }
+        }
+    }
+
+    private static void addToIndex(Set<Object> index, TagW tag, MediaElement media) {
+        Object val = media.getTagValue(tag);
+        if (val != null) {
+            index.add(val);
+        }
+    }
+
+    private Set<Object> getMediaIndex(TagW tag) {
+        Set<Object> index = mediaIndexes.get(tag);
+        if (index == null) {
+            index = new HashSet<>(Math.max(16, medias.size() * 2));
+            for (int i = 0; i < medias.size(); i++) {
+                E media = medias.get(i);
+                if (media != null) {
+                    addToIndex(index, tag, media);
+                }
+            }
+            mediaIndexes.put(tag, index);
+        }
+        return index;
     }
 
     @Override
@@ -248,7 +324,10 @@ public abstract class Series<E extends MediaElement> extends MediaSeriesGroupNod
             m.dispose();
         });
 
-        medias.clear();
+        synchronized (this) {
+            medias.clear();
+            mediaIndexes.clear();
+        }
         resetSortedMediasMap();
 
         Optional.ofNullable((Thumbnail) getTagValue(TagW.Thumbnail)).ifPresent(t -> t.dispose());
@@ -402,15 +481,14 @@ public abstract class Series<E extends MediaElement> extends MediaSeriesGroupNod
         }
     }
 
+    /**
+     * Returns true if a media has this tag value. The lookup uses an index of the tag values, which is built on the
+     * first call for a tag and then kept up to date when adding medias.
+     */
     public boolean hasMediaContains(TagW tag, Object val) {
-        if (val != null) {
+        if (tag != null && val != null) {
             synchronized (this) {
-                for (int i = 0; i < medias.size(); i++) {
-                    Object val2 = medias.get(i).getTagValue(tag);
-                    if (val.equals(val2)) {
-                        return true;
-                    }
-                }
+                return getMediaIndex(tag).contains(val);
             }
         }
         return false;
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.media.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Medias of a series sorted by a comparator. The new medias are inserted by binary search, after the medias which are
+ * equal, instead of sorting again the whole list.
+ * <p>
+ * The readers get an immutable snapshot without locking, which is never modified by the next insertions. The writers
+ * must be synchronized by the caller (the lock of the series).
+ */
+final class SortedMediaView<E> {
+
+    private final Comparator<E> comparator;
+    private volatile List<E> snapshot;
+
+    SortedMediaView(Comparator<E> comparator, Collection<? extends E> medias) {
+        this.comparator = comparator;
+        List<E> list = new ArrayList<>(medias);
+        // Stable sort: the equal medias keep the order of the series
+        Collections.sort(list, comparator);
+        this.snapshot = Collections.unmodifiableList(list);
+    }
+
+    Comparator<E> getComparator() {
+        return comparator;
+    }
+
+    List<E> getSnapshot() {
+        return snapshot;
+    }
+
+    void insert(E media) {
+        insertAll(Collections.singletonList(media));
+    }
+
+    void insertAll(Collection<? extends E> medias) {
+        if (medias.isEmpty()) {
+            return;
+        }
+        List<E> added = new ArrayList<>(medias);
+        Collections.sort(added, comparator);
+
+        List<E> current = snapshot;
+        List<E> result = new ArrayList<>(current.size() + added.size());
+        int start = 0;
+        for (E media : added) {
+            int end = upperBound(current, start, media);
+            result.addAll(current.subList(start, end));
+            result.add(media);
+            start = end;
+        }
+        result.addAll(current.subList(start, current.size()));
+        snapshot = Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return the index of the first element greater than the media from the start index
+     */
+    private int upperBound(List<E> list, int start, E media) {
+        int low = start;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(list.get(mid), media) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.ref.SoftReference;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -251,7 +252,7 @@ public class Thumbnail extends JLabel {
             if (noPath) {
                 if (media instanceof ImageElement) {
                     final ImageElement image = (ImageElement) media;
-                    PlanarImage imgPl = image.getImage(opManager);
+                    PlanarImage imgPl = image.getImage(opManager, true, ImageLoader.Priority.THUMBNAIL);
                     if (imgPl != null) {
                         RenderedImage img = image.getRenderedImage(imgPl);
                         final RenderedImage thumb = createThumbnail(img);
@@ -297,8 +298,8 @@ public class Thumbnail extends JLabel {
                 }
             } else {
                 Load ref = new Load(file);
-                // loading images sequentially, only one thread pool
-                Future<BufferedImage> future = ImageElement.IMAGE_LOADER.submit(ref);
+                Future<BufferedImage> future =
+                    ImageLoader.getInstance().submit(ref, ImageLoader.Priority.THUMBNAIL, this);
                 BufferedImage img = null;
                 BufferedImage thumb = null;
                 try {
@@ -326,6 +327,9 @@ public class Thumbnail extends JLabel {
                     Thread.currentThread().interrupt();
                     // We don't need the result, so cancel the task too
                     future.cancel(true);
+                } catch (CancellationException e) {
+                    LOGGER.debug("Loading thumbnail has been cancelled: {}", file);//$NON-NLS-1$
+                    return;
                 } catch (ExecutionException e) {
                     LOGGER.error("Cannot read thumbnail pixel data!: {}", file, e);//$NON-NLS-1$
                 }
@@ -341,6 +345,8 @@ public class Thumbnail extends JLabel {
     }
 
     public void dispose() {
+        // Do not decode a thumbnail which will not be displayed
+        ImageLoader.getInstance().cancel(this);
         // Unload image from memory
         if (imageSoftRef != null) {
             BufferedImage temp = imageSoftRef.get();
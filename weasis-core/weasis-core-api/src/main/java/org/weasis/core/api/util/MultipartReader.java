@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reader of a multipart body (RFC 2046, e.g. multipart/related of DICOMweb). The parts are read sequentially from the
+ * stream without buffering a whole part, so each part can be processed while the next ones are still being received.
+ * <p>
+ * The stream of a part must be read or closed before reading the next part. This class is not thread-safe.
+ */
+public class MultipartReader implements AutoCloseable {
+
+    private static final int MAX_HEADER_LENGTH = 8192;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buf;
+    private int pos = 0;
+    private int limit = 0;
+    // The positions before this index have been checked to not start a delimiter
+    private int scanned = 0;
+    private boolean endOfStream = false;
+    private boolean started = false;
+    private boolean finished = false;
+    private PartInputStream currentPart;
+
+    /**
+     * @param in
+     *            the body of the response
+     * @param boundary
+     *            the boundary of the parts (see {@link #getBoundary(String)})
+     */
+    public MultipartReader(InputStream in, String boundary) {
+        if (in == null || !StringUtil.hasText(boundary)) {
+            throw new IllegalArgumentException("Invalid multipart stream or boundary"); //$NON-NLS-1$
+        }
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1); //$NON-NLS-1$
+        this.buf = new byte[Math.max(FileUtil.FILE_BUFFER * 4, delimiter.length * 2)];
+        // The first delimiter may not be preceded by a line break
+        buf[limit++] = '\r';
+        buf[limit++] = '\n';
+    }
+
+    /**
+     * @param contentType
+     *            the value of the Content-Type header
+     * @return the boundary parameter or null if it is not a multipart content type
+     */
+    public static String getBoundary(String contentType) {
+        if (contentType == null || !contentType.trim().toLowerCase(Locale.ENGLISH).startsWith("multipart/")) { //$NON-NLS-1$
+            return null;
+        }
+        String value = getParameter(contentType, "boundary"); //$NON-NLS-1$
+        return StringUtil.hasText(value) ? value : null;
+    }
+
+    /**
+     * @return the value of a parameter of a header (e.g. type of multipart/related), without the quotes
+     */
+    public static String getParameter(String header, String name) {
+        if (header == null || name == null) {
+            return null;
+        }
+        for (String param : header.split(";")) { //$NON-NLS-1$
+            int eq = param.indexOf('=');
+            if (eq > 0 && param.substring(0, eq).trim().equalsIgnoreCase(name)) {
+                String value = param.substring(eq + 1).trim();
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) { //$NON-NLS-1$ //$NON-NLS-2$
+                    value = value.substring(1, value.length() - 1);
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Skips the rest of the current part and reads the headers of the next one.
+     *
+     * @return the next part or null when the closing delimiter has been reached
+     * @throws IOException
+     *             when the stream cannot be read or is truncated
+     */
+    public Part nextPart() throws IOException {
+        if (currentPart != null) {
+            currentPart.close();
+            currentPart = null;
+        }
+        if (finished) {
+            return null;
+        }
+        if (!started) {
+            started = true;
+            // Skip the preamble
+            skipToDelimiter();
+        }
+
+        // The closing delimiter is followed by "--"
+        if (!ensure(2)) {
+            throw new IOException("Unexpected end of multipart stream"); //$NON-NLS-1$
+        }
+        if (buf[pos] == '-' && buf[pos + 1] == '-') {
+            pos += 2;
+            finished = true;
+            return null;
+        }
+        // Ignore the transport padding after the delimiter
+        readLine();
+
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH),
+                    line.substring(colon + 1).trim());
+            }
+        }
+        currentPart = new PartInputStream();
+        return new Part(headers, currentPart);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Fills the buffer until it has at least n bytes after the position or the end of the stream has been reached.
+     */
+    private boolean ensure(int n) throws IOException {
+        while (limit - pos < n && !endOfStream) {
+            if (pos > 0) {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                limit -= pos;
+                scanned = Math.max(0, scanned - pos);
+                pos = 0;
+            }
+            int read = in.read(buf, limit, buf.length - limit);
+            if (read < 0) {
+                endOfStream = true;
+            } else {
+                limit += read;
+            }
+        }
+        return limit - pos >= n;
+    }
+
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        for (int i = Math.max(pos, scanned); i <= last; i++) {
+            int k = 0;
+            while (k < delimiter.length && buf[i + k] == delimiter[k]) {
+                k++;
+            }
+            if (k == delimiter.length) {
+                scanned = i;
+                return i;
+            }
+        }
+        scanned = Math.max(pos, last + 1);
+        return -1;
+    }
+
+    /**
+     * Consumes the bytes until the next delimiter (included).
+     */
+    private void skipToDelimiter() throws IOException {
+        while (readPartData(null, 0, buf.length) >= 0) {
+            // Skip the data
+        }
+    }
+
+    /**
+     * Reads the data of the current part.
+     *
+     * @return the number of bytes read or -1 when the delimiter has been reached (and consumed)
+     */
+    private int readPartData(byte[] b, int off, int len) throws IOException {
+        if (!ensure(delimiter.length)) {
+            throw new IOException("Unexpected end of multipart stream"); //$NON-NLS-1$
+        }
+        int index = indexOfDelimiter();
+        if (index == pos) {
+            pos += delimiter.length;
+            return -1;
+        }
+        // Keep the bytes which could be the beginning of a delimiter
+        int available = index < 0 ? limit - pos - delimiter.length + 1 : index - pos;
+        int n = Math.min(len, available);
+        if (b != null) {
+            System.arraycopy(buf, pos, b, off, n);
+        }
+        pos += n;
+        return n;
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            if (!ensure(2)) {
+                throw new IOException("Unexpected end of multipart headers"); //$NON-NLS-1$
+            }
+            if (buf[pos] == '\r' && buf[pos + 1] == '\n') {
+                pos += 2;
+                return line.toString();
+            }
+            line.append((char) (buf[pos++] & 0xFF));
+            if (line.length() > MAX_HEADER_LENGTH) {
+                throw new IOException("Multipart header too long"); //$NON-NLS-1$
+            }
+        }
+    }
+
+    private final class PartInputStream extends InputStream {
+        private boolean endOfPart = false;
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int n = read(b, 0, 1);
+            return n < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (endOfPart) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            int n = readPartData(b, off, len);
+            if (n < 0) {
+                endOfPart = true;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return endOfPart ? 0 : Math.max(0, limit - pos - delimiter.length + 1);
+        }
+
+        /**
+         * Skips the rest of the part, the underlying stream is not closed.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!endOfPart) {
+                endOfPart = true;
+                skipToDelimiter();
+            }
+        }
+    }
+
+    public static final class Part {
+        private final Map<String, String> headers;
+        private final InputStream inputStream;
+
+        Part(Map<String, String> headers, InputStream inputStream) {
+            this.headers = Collections.unmodifiableMap(headers);
+            this.inputStream = inputStream;
+        }
+
+        /**
+         * @return the headers of the part with the names in lower case
+         */
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public String getContentType() {
+            return headers.get("content-type"); //$NON-NLS-1$
+        }
+
+        /**
+         * @return the data of the part, ending before the next delimiter
+         */
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+    }
+}
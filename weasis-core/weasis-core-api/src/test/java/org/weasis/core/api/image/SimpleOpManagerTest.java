@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.weasis.core.api.image.ImageOpNode.Param;
+
+public class SimpleOpManagerTest {
+
+    private static class CountOp extends AbstractOp {
+        int count;
+
+        CountOp(String name) {
+            setName(name);
+        }
+
+        CountOp(CountOp op) {
+            super(op);
+        }
+
+        @Override
+        public CountOp copy() {
+            return new CountOp(this);
+        }
+
+        @Override
+        public void process() throws Exception {
+            count++;
+            RenderedImage source = (RenderedImage) params.get(Param.INPUT_IMG);
+            // Produce a new image at each execution
+            setParam(Param.OUTPUT_IMG, new BufferedImage(source.getWidth(), source.getHeight(),
+                BufferedImage.TYPE_BYTE_GRAY));
+        }
+    }
+
+    @Test
+    public void testProcessFromFirstDirtyNode() {
+        SimpleOpManager manager = new SimpleOpManager();
+        CountOp op1 = new CountOp("op1"); //$NON-NLS-1$
+        CountOp op2 = new CountOp("op2"); //$NON-NLS-1$
+        CountOp op3 = new CountOp("op3"); //$NON-NLS-1$
+        manager.addImageOperationAction(op1);
+        manager.addImageOperationAction(op2);
+        manager.addImageOperationAction(op3);
+
+        manager.setFirstNode(new BufferedImage(4, 4, BufferedImage.TYPE_BYTE_GRAY));
+        RenderedImage result = manager.process();
+        Assert.assertNotNull(result);
+        Assert.assertEquals(3, manager.getLastExecutedNodes());
+
+        // Nothing has changed
+        Assert.assertSame(result, manager.process());
+        Assert.assertEquals(0, manager.getLastExecutedNodes());
+        Assert.assertEquals(3, manager.getLastSkippedNodes());
+
+        // Same value
+        manager.setParamValue("op2", "value", 1.0); //$NON-NLS-1$ //$NON-NLS-2$
+        manager.process();
+        manager.setParamValue("op2", "value", 1.0); //$NON-NLS-1$ //$NON-NLS-2$
+        manager.process();
+        Assert.assertEquals(0, manager.getLastExecutedNodes());
+
+        manager.setParamValue("op2", "value", 2.0); //$NON-NLS-1$ //$NON-NLS-2$
+        manager.process();
+        Assert.assertEquals(2, manager.getLastExecutedNodes());
+        Assert.assertEquals(1, manager.getLastSkippedNodes());
+        Assert.assertEquals(1, op1.count);
+        Assert.assertEquals(3, op2.count);
+        Assert.assertEquals(3, op3.count);
+
+        // New source image
+        manager.setFirstNode(new BufferedImage(4, 4, BufferedImage.TYPE_BYTE_GRAY));
+        manager.process();
+        Assert.assertEquals(3, manager.getLastExecutedNodes());
+    }
+
+    @Test
+    public void testDisabledNode() {
+        SimpleOpManager manager = new SimpleOpManager();
+        CountOp op1 = new CountOp("op1"); //$NON-NLS-1$
+        CountOp op2 = new CountOp("op2"); //$NON-NLS-1$
+        manager.addImageOperationAction(op1);
+        manager.addImageOperationAction(op2);
+        manager.setFirstNode(new BufferedImage(4, 4, BufferedImage.TYPE_BYTE_GRAY));
+        manager.process();
+
+        op1.setEnabled(false);
+        RenderedImage result = manager.process();
+        Assert.assertEquals(1, op1.count);
+        Assert.assertEquals(2, op2.count);
+        Assert.assertSame(result, op2.getParam(Param.OUTPUT_IMG));
+        Assert.assertSame(manager.getFirstNodeInputImage(), op1.getParam(Param.OUTPUT_IMG));
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.image.op;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.media.jai.PlanarImage;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.weasis.core.api.image.op.CollectionZprojection.Operation;
+import org.weasis.core.api.media.data.ImageElement;
+
+public class SlidingZprojectionTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 45;
+
+    private static PlanarImage buildImage(int seed) {
+        BufferedImage img = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_USHORT_GRAY);
+        WritableRaster raster = img.getRaster();
+        Random random = new Random(seed);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                raster.setSample(x, y, 0, random.nextInt(4096));
+            }
+        }
+        return PlanarImage.wrapRenderedImage(img);
+    }
+
+    private static ImageElement buildElement(PlanarImage img) {
+        ImageElement element = Mockito.mock(ImageElement.class);
+        Mockito.when(element.getImage(null, false)).thenReturn(img);
+        return element;
+    }
+
+    private static List<PlanarImage> buildStack(int size) {
+        List<PlanarImage> images = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            images.add(buildImage(i));
+        }
+        return images;
+    }
+
+    private static int[] getSamples(PlanarImage img) {
+        Raster raster = img.getData();
+        return raster.getSamples(raster.getMinX(), raster.getMinY(), raster.getWidth(), raster.getHeight(), 0,
+            (int[]) null);
+    }
+
+    private static PlanarImage compute(Operation operation, List<PlanarImage> images) {
+        ZprojectionAccumulator acc = new ZprojectionAccumulator(operation, images.get(0));
+        for (PlanarImage img : images) {
+            acc.add(img);
+        }
+        return acc.getImage();
+    }
+
+    private static void assertSliding(Operation operation, int thickness) {
+        List<PlanarImage> images = buildStack(9);
+        SlidingZprojection slab = new SlidingZprojection(operation);
+        for (int i = 0; i < thickness; i++) {
+            Assert.assertTrue(slab.add(buildElement(images.get(i))));
+        }
+        for (int start = 0; start + thickness <= images.size(); start++) {
+            if (start > 0) {
+                slab.removeFirst();
+                slab.add(buildElement(images.get(start + thickness - 1)));
+            }
+            Assert.assertEquals(thickness, slab.size());
+            PlanarImage expected = compute(operation, images.subList(start, start + thickness));
+            String message = operation + " at " + start; //$NON-NLS-1$
+            Assert.assertArrayEquals(message, getSamples(expected), getSamples(slab.getImage()));
+        }
+    }
+
+    @Test
+    public void testAccumulatorMeanSubtract() {
+        List<PlanarImage> images = buildStack(4);
+        ZprojectionAccumulator acc = new ZprojectionAccumulator(Operation.MEAN, images.get(0));
+        for (PlanarImage img : images) {
+            acc.add(img);
+        }
+        acc.subtract(images.get(0));
+
+        Assert.assertEquals(3, acc.getCount());
+        Assert.assertArrayEquals(getSamples(compute(Operation.MEAN, images.subList(1, 4))),
+            getSamples(acc.getImage()));
+    }
+
+    @Test
+    public void testAccumulatorMinMax() {
+        List<PlanarImage> images = buildStack(3);
+        int[][] samples = new int[images.size()][];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = getSamples(images.get(i));
+        }
+        int[] min = getSamples(compute(Operation.MIN, images));
+        int[] max = getSamples(compute(Operation.MAX, images));
+        for (int k = 0; k < min.length; k++) {
+            int lo = Math.min(samples[0][k], Math.min(samples[1][k], samples[2][k]));
+            int hi = Math.max(samples[0][k], Math.max(samples[1][k], samples[2][k]));
+            Assert.assertEquals(lo, min[k]);
+            Assert.assertEquals(hi, max[k]);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAccumulatorMaxCannotSubtract() {
+        PlanarImage img = buildImage(0);
+        ZprojectionAccumulator acc = new ZprojectionAccumulator(Operation.MAX, img);
+        acc.add(img);
+        acc.subtract(img);
+    }
+
+    @Test
+    public void testSlidingMean() {
+        assertSliding(Operation.MEAN, 3);
+    }
+
+    @Test
+    public void testSlidingMinMax() {
+        // The removed images cannot be subtracted, the partial results are rebuilt from the remaining images
+        assertSliding(Operation.MIN, 3);
+        assertSliding(Operation.MAX, 4);
+        assertSliding(Operation.MAX, 1);
+    }
+
+    @Test
+    public void testMeanWithUnreadableImage() {
+        List<PlanarImage> images = buildStack(2);
+        SlidingZprojection slab = new SlidingZprojection(Operation.MEAN);
+        slab.add(buildElement(images.get(0)));
+        Assert.assertFalse(slab.add(buildElement(null)));
+        slab.add(buildElement(images.get(1)));
+
+        slab.removeFirst();
+        // The unreadable image cannot be subtracted, the mean is computed again from the remaining images
+        slab.removeFirst();
+        Assert.assertEquals(1, slab.size());
+        Assert.assertArrayEquals(getSamples(images.get(1)), getSamples(slab.getImage()));
+
+        slab.removeFirst();
+        Assert.assertNull(slab.getImage());
+    }
+
+    @Test
+    public void testMeanWithImageReadableAfterAdding() {
+        List<PlanarImage> images = buildStack(3);
+        ImageElement late = Mockito.mock(ImageElement.class);
+        Mockito.when(late.getImage(null, false)).thenReturn(null, images.get(0));
+
+        SlidingZprojection slab = new SlidingZprojection(Operation.MEAN);
+        Assert.assertFalse(slab.add(late));
+        slab.add(buildElement(images.get(1)));
+        slab.add(buildElement(images.get(2)));
+
+        // The image has not been folded, so it must not be subtracted
+        slab.removeFirst();
+        Assert.assertEquals(2, slab.size());
+        Assert.assertArrayEquals(getSamples(compute(Operation.MEAN, images.subList(1, 3))),
+            getSamples(slab.getImage()));
+    }
+}
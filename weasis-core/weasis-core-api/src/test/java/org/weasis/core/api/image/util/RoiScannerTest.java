@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.image.util;
+
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.media.jai.Histogram;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RoiScannerTest {
+
+    private static BufferedImage buildImage() {
+        BufferedImage img = new BufferedImage(300, 200, BufferedImage.TYPE_USHORT_GRAY);
+        WritableRaster raster = img.getRaster();
+        Random random = new Random(1);
+        for (int y = 0; y < img.getHeight(); y++) {
+            for (int x = 0; x < img.getWidth(); x++) {
+                raster.setSample(x, y, 0, 1000 + random.nextInt(50) + (x % 7) * (x % 7));
+            }
+        }
+        return img;
+    }
+
+    private static List<Double> valuesInside(BufferedImage img, Shape shape) {
+        List<Double> values = new ArrayList<>();
+        for (int y = 0; y < img.getHeight(); y++) {
+            for (int x = 0; x < img.getWidth(); x++) {
+                if (shape.contains(x + 0.5, y + 0.5)) {
+                    values.add((double) img.getRaster().getSample(x, y, 0));
+                }
+            }
+        }
+        return values;
+    }
+
+    private static void assertSameStatistics(List<Double> values, MomentStatistics stats) {
+        double n = values.size();
+        double mean = values.stream().mapToDouble(Double::doubleValue).sum() / n;
+        double m2 = 0.0;
+        double m3 = 0.0;
+        double m4 = 0.0;
+        for (double v : values) {
+            double d = v - mean;
+            m2 += d * d;
+            m3 += d * d * d;
+            m4 += d * d * d * d;
+        }
+        double variance = m2 / (n - 1);
+        double std = Math.sqrt(variance);
+        double skew = n / ((n - 1) * (n - 2)) * m3 / (std * std * std);
+        double kurtosis = n * (n + 1) / ((n - 1) * (n - 2) * (n - 3)) * m4 / (variance * variance)
+            - 3 * (n - 1) * (n - 1) / ((n - 2) * (n - 3));
+
+        Assert.assertEquals(values.size(), stats.getCount());
+        Assert.assertEquals(mean, stats.getMean(), 1e-9);
+        Assert.assertEquals(std, stats.getStandardDeviation(), 1e-9);
+        Assert.assertEquals(skew, stats.getSkewness(), 1e-9);
+        Assert.assertEquals(kurtosis, stats.getKurtosis(), 1e-9);
+    }
+
+    @Test
+    public void testStatisticsInShapes() {
+        BufferedImage img = buildImage();
+        Shape[] shapes = { new Rectangle(10, 20, 100, 50),
+            new Polygon(new int[] { 5, 250, 120 }, new int[] { 5, 30, 190 }, 3), new Rectangle(-50, -50, 500, 500) };
+        for (Shape shape : shapes) {
+            MomentStatistics[] stats = RoiScanner.computeStatistics(img, shape, null, null, null);
+            Assert.assertEquals(1, stats.length);
+            assertSameStatistics(valuesInside(img, shape), stats[0]);
+        }
+    }
+
+    @Test
+    public void testExcludedValues() {
+        BufferedImage img = buildImage();
+        Rectangle rect = new Rectangle(0, 0, 100, 100);
+        MomentStatistics[] stats = RoiScanner.computeStatistics(img, rect, 1002.0, 1005.0, null);
+        List<Double> values = valuesInside(img, rect);
+        values.removeIf(v -> v >= 1002.0 && v <= 1005.0);
+        assertSameStatistics(values, stats[0]);
+    }
+
+    @Test
+    public void testCombineAndRescale() {
+        List<Double> values = valuesInside(buildImage(), new Rectangle(0, 0, 50, 50));
+        MomentStatistics all = new MomentStatistics();
+        MomentStatistics a = new MomentStatistics();
+        MomentStatistics b = new MomentStatistics();
+        for (int i = 0; i < values.size(); i++) {
+            all.add(values.get(i));
+            (i % 3 == 0 ? a : b).add(values.get(i));
+        }
+        a.combine(b);
+        Assert.assertEquals(all.getCount(), a.getCount());
+        Assert.assertEquals(all.getStandardDeviation(), a.getStandardDeviation(), 1e-9);
+        Assert.assertEquals(all.getSkewness(), a.getSkewness(), 1e-9);
+        Assert.assertEquals(all.getKurtosis(), a.getKurtosis(), 1e-9);
+
+        MomentStatistics rescaled = all.rescale(-2.0, 5.0);
+        Assert.assertEquals(all.getMean() * -2.0 + 5.0, rescaled.getMean(), 1e-9);
+        Assert.assertEquals(all.getMax() * -2.0 + 5.0, rescaled.getMin(), 1e-9);
+        Assert.assertEquals(all.getStandardDeviation() * 2.0, rescaled.getStandardDeviation(), 1e-9);
+        Assert.assertEquals(-all.getSkewness(), rescaled.getSkewness(), 1e-9);
+        Assert.assertEquals(all.getKurtosis(), rescaled.getKurtosis(), 1e-9);
+    }
+
+    @Test
+    public void testCancelled() {
+        Assert.assertNull(RoiScanner.computeStatistics(buildImage(), null, null, null, () -> true));
+    }
+
+    @Test
+    public void testHistogram() {
+        BufferedImage img = buildImage();
+        Histogram histogram = RoiScanner.computeHistogram(img, null, null, 100, 1000.0, 1100.0, null);
+        int[] bins = histogram.getBins(0);
+        int total = 0;
+        for (int c : bins) {
+            total += c;
+        }
+        Assert.assertEquals(img.getWidth() * img.getHeight(), total);
+        Assert.assertEquals(valuesInside(img, new Rectangle(0, 0, 300, 200)).stream().filter(v -> v == 1000.0).count(),
+            bins[0]);
+    }
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.media.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    private static LruCache<String, byte[]> buildCache(long maxWeight, List<String> evicted) {
+        return new LruCache<String, byte[]>(maxWeight, v -> v.length) {
+            @Override
+            protected void removeElement(String key, byte[] value) {
+                evicted.add(key);
+            }
+        };
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        List<String> evicted = new ArrayList<>();
+        LruCache<String, byte[]> cache = buildCache(30, evicted);
+        cache.put("a", new byte[10]); //$NON-NLS-1$
+        cache.put("b", new byte[10]); //$NON-NLS-1$
+        cache.put("c", new byte[10]); //$NON-NLS-1$
+        Assert.assertNotNull(cache.get("a")); //$NON-NLS-1$
+        cache.put("d", new byte[10]); //$NON-NLS-1$
+
+        Assert.assertEquals(1, evicted.size());
+        Assert.assertEquals("b", evicted.get(0)); //$NON-NLS-1$
+        Assert.assertEquals(30, cache.getWeight());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertFalse(cache.containsKey("b")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testPinnedEntryIsNotEvicted() {
+        List<String> evicted = new ArrayList<>();
+        LruCache<String, byte[]> cache = buildCache(20, evicted);
+        cache.put("a", new byte[10]); //$NON-NLS-1$
+        cache.pin("a"); //$NON-NLS-1$
+        cache.put("b", new byte[10]); //$NON-NLS-1$
+        cache.put("c", new byte[10]); //$NON-NLS-1$
+
+        Assert.assertTrue(cache.containsKey("a")); //$NON-NLS-1$
+        Assert.assertEquals("b", evicted.get(0)); //$NON-NLS-1$
+
+        cache.setMaxWeight(10);
+        Assert.assertEquals(10, cache.getWeight());
+        Assert.assertTrue(cache.containsKey("a")); //$NON-NLS-1$
+
+        cache.unpin("a"); //$NON-NLS-1$
+        cache.setMaxWeight(0);
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testStatistics() {
+        LruCache<String, byte[]> cache = buildCache(100, new ArrayList<>());
+        cache.put("a", new byte[10]); //$NON-NLS-1$
+        cache.get("a"); //$NON-NLS-1$
+        cache.get("b"); //$NON-NLS-1$
+        cache.containsKey("a"); //$NON-NLS-1$
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        cache.remove("a"); //$NON-NLS-1$
+        Assert.assertEquals(0, cache.getWeight());
+        Assert.assertEquals(0, cache.getEvictionCount());
+    }
+}
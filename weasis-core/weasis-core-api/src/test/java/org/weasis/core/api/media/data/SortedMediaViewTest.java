@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.media.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SortedMediaViewTest {
+
+    // Sort only by the tens, the units give the insertion order of the equal values
+    private static final Comparator<Integer> TENS = Comparator.comparingInt(v -> v / 10);
+
+    @Test
+    public void testInsertKeepsOrder() {
+        Random random = new Random(7);
+        List<Integer> values = new ArrayList<>();
+        SortedMediaView<Integer> view = new SortedMediaView<>(Comparator.naturalOrder(), values);
+        for (int i = 0; i < 500; i++) {
+            Integer v = random.nextInt(1000);
+            values.add(v);
+            view.insert(v);
+        }
+        List<Integer> expected = new ArrayList<>(values);
+        Collections.sort(expected);
+        Assert.assertEquals(expected, view.getSnapshot());
+    }
+
+    @Test
+    public void testInsertAfterEqualValues() {
+        SortedMediaView<Integer> view = new SortedMediaView<>(TENS, Arrays.asList(21, 10, 20));
+        Assert.assertEquals(Arrays.asList(10, 21, 20), view.getSnapshot());
+
+        view.insert(22);
+        view.insertAll(Arrays.asList(23, 5, 11));
+        Assert.assertEquals(Arrays.asList(5, 10, 11, 21, 20, 22, 23), view.getSnapshot());
+    }
+
+    @Test
+    public void testSnapshotIsNotModified() {
+        SortedMediaView<Integer> view = new SortedMediaView<>(Comparator.naturalOrder(), Arrays.asList(3, 1));
+        List<Integer> snapshot = view.getSnapshot();
+        view.insertAll(Arrays.asList(2, 0));
+
+        Assert.assertEquals(Arrays.asList(1, 3), snapshot);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), view.getSnapshot());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsImmutable() {
+        SortedMediaView<Integer> view = new SortedMediaView<>(Comparator.naturalOrder(), Arrays.asList(3, 1));
+        view.getSnapshot().add(4);
+    }
+}
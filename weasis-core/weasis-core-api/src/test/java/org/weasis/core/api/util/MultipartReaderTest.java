@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.api.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MultipartReaderTest {
+
+    private static final String BOUNDARY = "xyz-boundary"; //$NON-NLS-1$
+
+    private static byte[] buildBody(byte[]... parts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("preamble\r\n".getBytes(StandardCharsets.ISO_8859_1)); //$NON-NLS-1$
+        for (byte[] part : parts) {
+            out.write(("--" + BOUNDARY + "\r\nContent-Type: application/dicom\r\n\r\n") //$NON-NLS-1$ //$NON-NLS-2$
+                .getBytes(StandardCharsets.ISO_8859_1));
+            out.write(part);
+            out.write("\r\n".getBytes(StandardCharsets.ISO_8859_1)); //$NON-NLS-1$
+        }
+        out.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1)); //$NON-NLS-1$ //$NON-NLS-2$
+        return out.toByteArray();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] b = new byte[777];
+        int n;
+        while ((n = in.read(b)) > 0) {
+            out.write(b, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    // Returns at most 3 bytes by read to split the delimiters
+    private static InputStream slowStream(byte[] data) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+    }
+
+    @Test
+    public void testGetBoundary() {
+        Assert.assertEquals("abc", //$NON-NLS-1$
+            MultipartReader.getBoundary("multipart/related; type=\"application/dicom\"; boundary=\"abc\"")); //$NON-NLS-1$
+        Assert.assertEquals("abc", MultipartReader.getBoundary("Multipart/Related;boundary=abc")); //$NON-NLS-1$ //$NON-NLS-2$
+        Assert.assertNull(MultipartReader.getBoundary("application/dicom")); //$NON-NLS-1$
+        Assert.assertEquals("application/dicom", //$NON-NLS-1$
+            MultipartReader.getParameter("multipart/related; type=\"application/dicom\"", "type")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void testReadParts() throws IOException {
+        byte[] part1 = new byte[100000];
+        new Random(3).nextBytes(part1);
+        // Contains a partial delimiter
+        byte[] part2 = ("\r\n--" + BOUNDARY.substring(0, 5) + " data").getBytes(StandardCharsets.ISO_8859_1); //$NON-NLS-1$
+        byte[] part3 = new byte[0];
+        byte[] body = buildBody(part1, part2, part3);
+
+        for (InputStream in : new InputStream[] { new ByteArrayInputStream(body), slowStream(body) }) {
+            try (MultipartReader reader = new MultipartReader(in, BOUNDARY)) {
+                MultipartReader.Part part = reader.nextPart();
+                Assert.assertEquals("application/dicom", part.getContentType()); //$NON-NLS-1$
+                Assert.assertArrayEquals(part1, readFully(part.getInputStream()));
+                part = reader.nextPart();
+                Assert.assertArrayEquals(part2, readFully(part.getInputStream()));
+                part = reader.nextPart();
+                Assert.assertArrayEquals(part3, readFully(part.getInputStream()));
+                Assert.assertNull(reader.nextPart());
+            }
+        }
+    }
+
+    @Test
+    public void testSkipUnreadPart() throws IOException {
+        byte[] body = buildBody(new byte[5000], "second".getBytes(StandardCharsets.ISO_8859_1)); //$NON-NLS-1$
+        try (MultipartReader reader = new MultipartReader(new ByteArrayInputStream(body), BOUNDARY)) {
+            reader.nextPart();
+            MultipartReader.Part part = reader.nextPart();
+            Assert.assertEquals("second", new String(readFully(part.getInputStream()), StandardCharsets.ISO_8859_1)); //$NON-NLS-1$
+            Assert.assertNull(reader.nextPart());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedStream() throws IOException {
+        byte[] body = buildBody(new byte[5000]);
+        byte[] truncated = new byte[body.length / 2];
+        System.arraycopy(body, 0, truncated, 0, truncated.length);
+        try (MultipartReader reader = new MultipartReader(new ByteArrayInputStream(truncated), BOUNDARY)) {
+            readFully(reader.nextPart().getInputStream());
+        }
+    }
+}
@@ -261,8 +261,7 @@ public class ViewerPluginBuilder {
 
             for (MediaElement media : medias) {
                 if (media instanceof ImageElement) {
-                    File gpxFile = new File(media.getFile().getPath() + ".xml"); //$NON-NLS-1$
-                    GraphicModel graphicModel = XmlSerializer.readPresentationModel(gpxFile);
+                    GraphicModel graphicModel = XmlSerializer.readPresentationModelOf(media.getFile());
                     if (graphicModel != null) {
                         media.setTag(TagW.PresentationModel, graphicModel);
                     }
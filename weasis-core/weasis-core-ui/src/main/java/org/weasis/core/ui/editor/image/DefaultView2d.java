@@ -593,6 +593,10 @@ public abstract class DefaultView2d<E extends ImageElement> extends GraphicsPane
         } else {
             E oldImage = imageLayer.getSourceImage();
             if (img != null && !img.equals(oldImage)) {
+                if (oldImage != null) {
+                    // Scrolling: the previous image is not needed anymore if its decoding is still waiting
+                    oldImage.cancelImageLoading();
+                }
                 updateGraphics = true;
                 actionsInView.put(ActionW.SPATIAL_UNIT.cmd(), img.getPixelSpacingUnit());
                 if (eventManager.getSelectedViewPane() == this) {
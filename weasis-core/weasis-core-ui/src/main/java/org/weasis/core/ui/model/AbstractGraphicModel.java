@@ -38,6 +38,7 @@ import javax.xml.bind.annotation.XmlType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.Image2DViewer;
 import org.weasis.core.api.gui.util.ActionW;
 import org.weasis.core.api.image.util.MeasurableLayer;
 import org.weasis.core.api.media.data.ImageElement;
@@ -81,9 +82,15 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractGraphicModel.class);
 
+    // Below this number of graphics, a linear scan is faster than maintaining the spatial index
+    private static final int INDEX_MIN_GRAPHICS = 64;
+
     private volatile List<ReferencedSeries> referencedSeries;
     private volatile List<GraphicLayer> layers;
     protected volatile List<Graphic> models;
+    private volatile GraphicList graphicList;
+    // Spatial index for the hit tests and the painting, built on demand
+    private transient GraphicIndex index;
 
     private final List<GraphicSelectionListener> selectedGraphicsListeners = new ArrayList<>();
     private final List<GraphicModelChangeListener> modelListeners = new ArrayList<>();
@@ -103,7 +110,8 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
     public AbstractGraphicModel(List<ReferencedSeries> referencedSeries) {
         setReferencedSeries(referencedSeries);
         this.layers = Collections.synchronizedList(new ArrayList<>());
-        this.models = Collections.synchronizedList(new ArrayList<>());
+        this.graphicList = new GraphicList();
+        this.models = Collections.synchronizedList(graphicList);
     }
 
     @XmlElementWrapper(name = "graphics")
@@ -154,7 +162,10 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
     @Override
     public void setModels(List<Graphic> models) {
         if (models != null) {
-            this.models = Collections.synchronizedList(models);
+            // Copy for tracking the modifications of the list
+            GraphicList list = new GraphicList(models);
+            this.graphicList = list;
+            this.models = Collections.synchronizedList(list);
             this.layers = Collections.synchronizedList(getLayerlist());
         }
     }
@@ -170,14 +181,25 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
             if (!layers.contains(layer)) {
                 layers.add(layer);
             }
-            models.add(graphic);
+            synchronized (models) {
+                int previousModCount = graphicList.getModCount();
+                models.add(graphic);
+                if (index != null) {
+                    index.added(graphic, previousModCount, graphicList.getModCount());
+                }
+            }
         }
     }
 
     @Override
     public void removeGraphic(Graphic graphic) {
         if (graphic != null) {
-            models.remove(graphic);
+            synchronized (models) {
+                int previousModCount = graphicList.getModCount();
+                if (models.remove(graphic) && index != null) {
+                    index.removed(graphic, previousModCount, graphicList.getModCount());
+                }
+            }
             graphic.removeAllPropertyChangeListener();
 
             GraphicLayer layer = graphic.getLayer();
@@ -345,8 +367,7 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
         ArrayList<Graphic> selectedGraphicList = new ArrayList<>();
         if (rectangle != null) {
             synchronized (models) {
-                for (int i = models.size() - 1; i >= 0; i--) {
-                    Graphic graphic = models.get(i);
+                for (Graphic graphic : getGraphicsInArea(transform, rectangle)) {
                     GraphicLayer layer = graphic.getLayer();
                     if (layer.getVisible() && layer.getSelectable()) {
 
@@ -382,8 +403,7 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
         ArrayList<Graphic> selectedGraphicList = new ArrayList<>();
         if (rectangle != null) {
             synchronized (models) {
-                for (int i = models.size() - 1; i >= 0; i--) {
-                    Graphic graphic = models.get(i);
+                for (Graphic graphic : getGraphicsInArea(transform, rectangle)) {
                     GraphicLayer layer = graphic.getLayer();
                     if (layer.getVisible() && layer.getSelectable()) {
 
@@ -428,6 +448,30 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
         return selectedGraphicList;
     }
 
+    /**
+     * Must be called while holding the lock of models.
+     *
+     * @param transform
+     *            the transform of the view
+     * @param area
+     *            the area in image coordinates
+     * @return the graphics which may intersect the area, from the front to the back
+     */
+    private List<Graphic> getGraphicsInArea(AffineTransform transform, Rectangle2D area) {
+        if (models.size() >= INDEX_MIN_GRAPHICS) {
+            if (index == null) {
+                index = new GraphicIndex();
+            }
+            List<Graphic> list = index.query(models, graphicList.getModCount(), transform, area);
+            if (list != null) {
+                return list;
+            }
+        }
+        List<Graphic> list = new ArrayList<>(models);
+        Collections.reverse(list);
+        return list;
+    }
+
     /**
      * @param mouseevent
      * @return first selected graphic intersecting if exist, otherwise simply first graphic intersecting, or null
@@ -435,10 +479,13 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
     @Override
     public Optional<Graphic> getFirstGraphicIntersecting(MouseEventDouble mouseEvent) {
         final Point2D mousePt = mouseEvent.getImageCoordinates();
+        AffineTransform transform = mouseEvent.getSource() instanceof Image2DViewer
+            ? ((Image2DViewer<?>) mouseEvent.getSource()).getAffineTransform() : null;
+        Rectangle2D mouseArea =
+            mousePt == null ? null : new Rectangle2D.Double(mousePt.getX(), mousePt.getY(), 0.0, 0.0);
         Graphic firstSelectedGraph = null;
         synchronized (models) {
-            for (int i = models.size() - 1; i >= 0; i--) {
-                Graphic g = models.get(i);
+            for (Graphic g : getGraphicsInArea(transform, mouseArea)) {
                 GraphicLayer l = g.getLayer();
                 if (l.getVisible() && l.getSelectable()) {
                     if (g.isOnGraphicLabel(mouseEvent)) {
@@ -583,7 +630,13 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
 
         g2d.translate(0.5, 0.5);
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, DefaultView2d.antialiasingOn);
-        models.forEach(g -> applyPaint(g, g2d, transform, bound));
+        synchronized (models) {
+            // Paint only the graphics which may be visible, from the back to the front
+            List<Graphic> list = getGraphicsInArea(transform, bound);
+            for (int i = list.size() - 1; i >= 0; i--) {
+                applyPaint(list.get(i), g2d, transform, bound);
+            }
+        }
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, DefaultView2d.antialiasingOff);
         g2d.translate(-0.5, -0.5);
     }
@@ -660,6 +713,12 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
 
     @Override
     public void dispose() {
+        synchronized (models) {
+            if (index != null) {
+                index.clear();
+                index = null;
+            }
+        }
         modelListeners.clear();
         graphicsListeners.clear();
         selectedGraphicsListeners.clear();
@@ -721,4 +780,23 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
         // Compare type and if the layer name is null => default layer
         return layer -> Objects.equals(layer.getType(), type) && layer.getName() == null;
     }
+
+    /**
+     * List exposing its modification count, so the spatial index can detect the changes made directly on the list.
+     */
+    static class GraphicList extends ArrayList<Graphic> {
+        private static final long serialVersionUID = -4165313937296213815L;
+
+        GraphicList() {
+            super();
+        }
+
+        GraphicList(List<Graphic> graphics) {
+            super(graphics);
+        }
+
+        int getModCount() {
+            return modCount;
+        }
+    }
 }
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.ui.model;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.weasis.core.api.gui.util.GeomUtil;
+import org.weasis.core.ui.model.graphic.Graphic;
+import org.weasis.core.ui.model.graphic.GraphicLabel;
+
+/**
+ * Spatial index of the graphics of a model in image coordinates.
+ * <p>
+ * The handles, the line thickness, the scale invariant shapes and the labels have a constant size on the screen, so
+ * their extent in image coordinates depends on the zoom. The index is built for a power of two scale lower or equal
+ * to the scale of the view: the indexed bounds are larger than the real ones until the zoom goes below this power of
+ * two. The index is also rebuilt when the rotation or the flip changes.
+ * <p>
+ * The graphics are re-indexed lazily when they notify a change, and the whole index is rebuilt when the list of
+ * graphics has been modified outside of the model. The queries return candidates, the exact tests must be done by the
+ * caller. All the methods must be called while holding the lock of the list of graphics.
+ */
+final class GraphicIndex {
+
+    private static final double MIN_CELL_SIZE = 8.0;
+
+    private final Set<Graphic> dirty = ConcurrentHashMap.newKeySet();
+    private final PropertyChangeListener changeListener = evt -> {
+        if (evt.getSource() instanceof Graphic) {
+            dirty.add((Graphic) evt.getSource());
+        }
+    };
+
+    private final Map<Graphic, Integer> orders = new IdentityHashMap<>();
+    private SpatialGrid<Graphic> grid;
+    private int modCount = -1;
+    private int nextOrder = 0;
+    private double scale = Double.NaN;
+    private double angle = Double.NaN;
+    private boolean flip;
+    private AffineTransform indexTransform;
+
+    /**
+     * @param graphics
+     *            the graphics of the model in the drawing order
+     * @param listModCount
+     *            the modification count of the list of graphics
+     * @param transform
+     *            the transform of the view
+     * @param area
+     *            the area in image coordinates
+     * @return the graphics which may intersect the area, from the front to the back, or null if the index cannot be
+     *         used with this transform
+     */
+    List<Graphic> query(List<Graphic> graphics, int listModCount, AffineTransform transform, Rectangle2D area) {
+        if (transform == null || area == null) {
+            return null;
+        }
+        double s = GeomUtil.extractScalingFactor(transform);
+        if (!(s > 0.0) || Double.isInfinite(s)) {
+            return null;
+        }
+        // Power of two lower or equal to the scale
+        double bucket = Math.pow(2.0, Math.floor(Math.log(s) / Math.log(2.0)));
+        double a = GeomUtil.extractAngleRad(transform);
+        boolean f = (transform.getType() & AffineTransform.TYPE_FLIP) != 0;
+
+        if (grid == null || listModCount != modCount || bucket != scale || a != angle || f != flip) {
+            scale = bucket;
+            angle = a;
+            flip = f;
+            indexTransform = new AffineTransform(transform);
+            indexTransform.scale(bucket / s, bucket / s);
+            rebuild(graphics, listModCount);
+        } else if (!dirty.isEmpty()) {
+            List<Graphic> changed = new ArrayList<>(dirty);
+            dirty.removeAll(changed);
+            for (Graphic g : changed) {
+                Integer order = orders.get(g);
+                if (order != null) {
+                    grid.insert(g, order, getBounds(g));
+                }
+            }
+        }
+        return grid.query(area);
+    }
+
+    /**
+     * Indexes a graphic appended to the list. When the index is not in sync with the list, it will be rebuilt by the
+     * next query.
+     */
+    void added(Graphic graphic, int previousModCount, int listModCount) {
+        if (grid != null && previousModCount == modCount) {
+            int order = nextOrder++;
+            orders.put(graphic, order);
+            graphic.addPropertyChangeListener(changeListener);
+            grid.insert(graphic, order, getBounds(graphic));
+            modCount = listModCount;
+        }
+    }
+
+    /**
+     * Removes a graphic from the index. When the index is not in sync with the list, it will be rebuilt by the next
+     * query.
+     */
+    void removed(Graphic graphic, int previousModCount, int listModCount) {
+        if (grid != null && previousModCount == modCount) {
+            orders.remove(graphic);
+            dirty.remove(graphic);
+            graphic.removePropertyChangeListener(changeListener);
+            grid.remove(graphic);
+            modCount = listModCount;
+        }
+    }
+
+    void clear() {
+        for (Graphic g : orders.keySet()) {
+            g.removePropertyChangeListener(changeListener);
+        }
+        grid = null;
+        orders.clear();
+        dirty.clear();
+        modCount = -1;
+    }
+
+    private void rebuild(List<Graphic> graphics, int listModCount) {
+        for (Graphic g : orders.keySet()) {
+            g.removePropertyChangeListener(changeListener);
+        }
+        orders.clear();
+        dirty.clear();
+
+        List<Rectangle2D> bounds = new ArrayList<>(graphics.size());
+        double sum = 0.0;
+        int nb = 0;
+        for (Graphic g : graphics) {
+            Rectangle2D b = getBounds(g);
+            bounds.add(b);
+            if (b != null) {
+                sum += Math.max(b.getWidth(), b.getHeight());
+                nb++;
+            }
+        }
+        // A cell has the average size of the graphics
+        double cellSize = nb == 0 ? MIN_CELL_SIZE : Math.max(MIN_CELL_SIZE, sum / nb);
+        grid = new SpatialGrid<>(Double.isInfinite(cellSize) || Double.isNaN(cellSize) ? MIN_CELL_SIZE : cellSize);
+
+        nextOrder = 0;
+        for (int i = 0; i < graphics.size(); i++) {
+            Graphic g = graphics.get(i);
+            int order = nextOrder++;
+            orders.put(g, order);
+            g.addPropertyChangeListener(changeListener);
+            grid.insert(g, order, bounds.get(i));
+        }
+        modCount = listModCount;
+    }
+
+    private Rectangle2D getBounds(Graphic graphic) {
+        Rectangle bounds = graphic.getRepaintBounds(indexTransform);
+        if (bounds == null) {
+            return null;
+        }
+        Rectangle2D result = new Rectangle2D.Double(bounds.getX(), bounds.getY(), bounds.getWidth(),
+            bounds.getHeight());
+        GraphicLabel label = graphic.getGraphicLabel();
+        if (label != null && label.getLabels() != null) {
+            Rectangle2D labelBounds = label.getBounds(indexTransform);
+            if (labelBounds != null && !labelBounds.isEmpty()) {
+                result.add(labelBounds);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.core.ui.model;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid indexing items by their bounding rectangle. Each item is referenced in all the cells it overlaps. The
+ * items without bounds or overlapping too many cells are always returned by the queries.
+ * <p>
+ * The order of an item is its position in the drawing order, the queries return the items from the front (highest
+ * order) to the back. This class is not thread-safe.
+ */
+final class SpatialGrid<T> {
+
+    private static final int MAX_CELLS_PER_ITEM = 256;
+
+    private final double cellSize;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private final List<Entry<T>> unbounded = new ArrayList<>();
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+    private int queryStamp = 0;
+
+    /**
+     * @param cellSize
+     *            the size of a cell in the coordinates of the bounds
+     */
+    SpatialGrid(double cellSize) {
+        if (!(cellSize > 0.0) || Double.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("Invalid cell size: " + cellSize); //$NON-NLS-1$
+        }
+        this.cellSize = cellSize;
+    }
+
+    double getCellSize() {
+        return cellSize;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    void clear() {
+        cells.clear();
+        unbounded.clear();
+        entries.clear();
+    }
+
+    /**
+     * Adds or replaces an item.
+     *
+     * @param item
+     *            the item
+     * @param order
+     *            the drawing order, the highest is in front
+     * @param bounds
+     *            the bounds of the item or null when unknown
+     */
+    void insert(T item, int order, Rectangle2D bounds) {
+        remove(item);
+        Entry<T> e = new Entry<>(item, order);
+        entries.put(item, e);
+        if (bounds == null || bounds.getWidth() < 0.0 || bounds.getHeight() < 0.0 || !isFinite(bounds)) {
+            unbounded.add(e);
+            return;
+        }
+        e.minX = bounds.getMinX();
+        e.minY = bounds.getMinY();
+        e.maxX = bounds.getMaxX();
+        e.maxY = bounds.getMaxY();
+        e.x0 = toCell(e.minX);
+        e.y0 = toCell(e.minY);
+        e.x1 = toCell(e.maxX);
+        e.y1 = toCell(e.maxY);
+        if ((long) (e.x1 - e.x0 + 1) * (e.y1 - e.y0 + 1) > MAX_CELLS_PER_ITEM) {
+            e.bounded = false;
+            unbounded.add(e);
+            return;
+        }
+        e.bounded = true;
+        for (int y = e.y0; y <= e.y1; y++) {
+            for (int x = e.x0; x <= e.x1; x++) {
+                cells.computeIfAbsent(key(x, y), k -> new ArrayList<>(4)).add(e);
+            }
+        }
+    }
+
+    boolean remove(T item) {
+        Entry<T> e = entries.remove(item);
+        if (e == null) {
+            return false;
+        }
+        if (e.bounded) {
+            for (int y = e.y0; y <= e.y1; y++) {
+                for (int x = e.x0; x <= e.x1; x++) {
+                    Long k = key(x, y);
+                    List<Entry<T>> list = cells.get(k);
+                    if (list != null) {
+                        list.remove(e);
+                        if (list.isEmpty()) {
+                            cells.remove(k);
+                        }
+                    }
+                }
+            }
+        } else {
+            unbounded.remove(e);
+        }
+        return true;
+    }
+
+    /**
+     * @param area
+     *            the area to query, the items touching its border are included
+     * @return the items which may intersect the area, from the front to the back
+     */
+    List<T> query(Rectangle2D area) {
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        queryStamp++;
+        List<Entry<T>> found = new ArrayList<>();
+        for (Entry<T> e : unbounded) {
+            e.stamp = queryStamp;
+            found.add(e);
+        }
+
+        double minX = area.getMinX();
+        double minY = area.getMinY();
+        double maxX = area.getMaxX();
+        double maxY = area.getMaxY();
+        long nbCells = ((long) toCell(maxX) - toCell(minX) + 1) * ((long) toCell(maxY) - toCell(minY) + 1);
+        if (nbCells > cells.size()) {
+            // Faster to visit the occupied cells than all the cells of the area
+            for (List<Entry<T>> list : cells.values()) {
+                collect(list, minX, minY, maxX, maxY, found);
+            }
+        } else {
+            for (int y = toCell(minY); y <= toCell(maxY); y++) {
+                for (int x = toCell(minX); x <= toCell(maxX); x++) {
+                    List<Entry<T>> list = cells.get(key(x, y));
+                    if (list != null) {
+                        collect(list, minX, minY, maxX, maxY, found);
+                    }
+                }
+            }
+        }
+
+        found.sort((a, b) -> Integer.compare(b.order, a.order));
+        List<T> result = new ArrayList<>(found.size());
+        for (Entry<T> e : found) {
+            result.add(e.item);
+        }
+        return result;
+    }
+
+    private void collect(List<Entry<T>> list, double minX, double minY, double maxX, double maxY,
+        List<Entry<T>> found) {
+        for (Entry<T> e : list) {
+            if (e.stamp != queryStamp && e.minX <= maxX && e.maxX >= minX && e.minY <= maxY && e.maxY >= minY) {
+                e.stamp = queryStamp;
+                found.add(e);
+            }
+        }
+    }
+
+    private int toCell(double v) {
+        double c = Math.floor(v / cellSize);
+        if (c >= Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE - 1;
+        }
+        return c <= Integer.MIN_VALUE ? Integer.MIN_VALUE + 1 : (int) c;
+    }
+
+    private static Long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static boolean isFinite(Rectangle2D r) {
+        return !Double.isNaN(r.getX()) && !Double.isInfinite(r.getX()) && !Double.isNaN(r.getY())
+            && !Double.isInfinite(r.getY()) && !Double.isNaN(r.getWidth()) && !Double.isInfinite(r.getWidth())
+            && !Double.isNaN(r.getHeight()) && !Double.isInfinite(r.getHeight());
+    }
+
+    private static final class Entry<T> {
+        final T item;
+        final int order;
+        boolean bounded;
+        double minX;
+        double minY;
+        double maxX;
+        double maxY;
+        int x0;
+        int y0;
+        int x1;
+        int y1;
+        int stamp;
+
+        Entry(T item, int order) {
+            this.item = item;
+            this.order = order;
+        }
+    }
+}
@@ -11,6 +11,7 @@
 package org.weasis.core.ui.model.graphic;
 
 import java.awt.Point;
+import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.image.RenderedImage;
@@ -19,13 +20,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
-import javax.media.jai.OpImage;
-import javax.media.jai.ROIShape;
-import javax.media.jai.RenderedOp;
-
-import org.weasis.core.api.image.op.ImageStatistics2Descriptor;
-import org.weasis.core.api.image.op.ImageStatisticsDescriptor;
 import org.weasis.core.api.image.util.MeasurableLayer;
+import org.weasis.core.api.image.util.MomentStatistics;
+import org.weasis.core.api.image.util.RoiScanner;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.ui.model.utils.bean.MeasureItem;
 import org.weasis.core.ui.model.utils.bean.Measurement;
@@ -81,13 +78,7 @@ public abstract class AbstractDragGraphicArea extends AbstractDragGraphic implem
                                 transform.translate(-offset.getX(), -offset.getY());
                             }
                         }
-                        ROIShape roi;
-                        if (transform != null) {
-                            // Rescale ROI, if needed
-                            roi = new ROIShape(transform.createTransformedShape(shape));
-                        } else {
-                            roi = new ROIShape(shape);
-                        }
+                        Shape roi = transform == null ? shape : transform.createTransformedShape(shape);
                         // Get padding values => exclude values
                         Double excludedMin = null;
                         Double excludedMax = null;
@@ -104,50 +95,34 @@ public abstract class AbstractDragGraphicArea extends AbstractDragGraphic implem
                             excludedMin = paddingValue == null ? null : (double) paddingValue;
                             excludedMax = paddingLimit == null ? null : (double) paddingLimit;
                         }
-                        RenderedOp dst =
-                            ImageStatisticsDescriptor.create(image, roi, 1, 1, excludedMin, excludedMax, null);
-                        // To ensure this image is not stored in tile cache
-                        ((OpImage) dst.getRendering()).setTileCache(null);
-                        // For basic statistics, rescale values can be computed afterwards
-                        double[][] extrema = (double[][]) dst.getProperty("statistics"); //$NON-NLS-1$
-                        if (extrema == null || extrema.length < 1 || extrema[0].length < 1) {
+
+                        MomentStatistics[] stats =
+                            RoiScanner.computeStatistics(image, roi, excludedMin, excludedMax, null);
+                        if (stats.length < 1) {
                             return Collections.emptyList();
                         }
-                        min = new Double[extrema[0].length];
-                        max = new Double[extrema[0].length];
-                        mean = new Double[extrema[0].length];
 
-                        // LOGGER.error("Basic stats [ms]: {}", System.currentTimeMillis() - startTime);
                         // unit = pixelValue * rescale slope + rescale intercept
                         Double slopeVal = (Double) layer.getSourceTagValue(TagW.get("RescaleSlope")); //$NON-NLS-1$
                         Double interceptVal = (Double) layer.getSourceTagValue(TagW.get("RescaleIntercept")); //$NON-NLS-1$
                         double slope = slopeVal == null ? 1.0f : slopeVal.doubleValue();
                         double intercept = interceptVal == null ? 0.0f : interceptVal.doubleValue();
-                        for (int i = 0; i < extrema[0].length; i++) {
-                            min[i] = extrema[0][i] * slope + intercept;
-                            max[i] = extrema[1][i] * slope + intercept;
-                            mean[i] = extrema[2][i] * slope + intercept;
-                        }
 
-                        if (IMAGE_STD.getComputed() || IMAGE_SKEW.getComputed() || IMAGE_KURTOSIS.getComputed()) {
-                            // startTime = System.currentTimeMillis();
-                            // Required the mean value (not rescaled), slope and intercept to calculate correctly std,
-                            // skew and kurtosis
-                            dst = ImageStatistics2Descriptor.create(image, roi, 1, 1, extrema[2][0], excludedMin,
-                                excludedMax, slope, intercept, null);
-                            // To ensure this image is not stored in tile cache
-                            ((OpImage) dst.getRendering()).setTileCache(null);
-                            double[][] extrema2 = (double[][]) dst.getProperty("statistics"); //$NON-NLS-1$
-                            if (extrema != null && extrema.length > 0 && extrema[0].length > 0) {
-                                stdv = new Double[extrema2[0].length];
-                                skew = new Double[extrema2[0].length];
-                                kurtosis = new Double[extrema2[0].length];
-                                // LOGGER.info("Adv. stats [ms]: {}", System.currentTimeMillis() - startTime);
-                                for (int i = 0; i < extrema2[0].length; i++) {
-                                    stdv[i] = extrema2[0][i];
-                                    skew[i] = extrema2[1][i];
-                                    kurtosis[i] = extrema2[2][i];
-                                }
+                        min = new Double[stats.length];
+                        max = new Double[stats.length];
+                        mean = new Double[stats.length];
+                        stdv = new Double[stats.length];
+                        skew = new Double[stats.length];
+                        kurtosis = new Double[stats.length];
+                        for (int i = 0; i < stats.length; i++) {
+                            MomentStatistics s = stats[i].rescale(slope, intercept);
+                            if (s.getCount() > 0) {
+                                min[i] = s.getMin();
+                                max[i] = s.getMax();
+                                mean[i] = s.getMean();
+                                stdv[i] = s.getStandardDeviation();
+                                skew[i] = s.getSkewness();
+                                kurtosis[i] = s.getKurtosis();
                             }
                         }
                     }
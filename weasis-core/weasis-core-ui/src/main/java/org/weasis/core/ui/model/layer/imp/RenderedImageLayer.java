@@ -12,6 +12,7 @@ package org.weasis.core.ui.model.layer.imp;
 
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
@@ -29,11 +30,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.gui.util.MathUtil;
 import org.weasis.core.api.image.ImageOpEvent;
+import org.weasis.core.api.image.ImageOpNode;
 import org.weasis.core.api.image.OpEventListener;
 import org.weasis.core.api.image.OpManager;
 import org.weasis.core.api.image.SimpleOpManager;
 import org.weasis.core.api.image.ZoomOp;
 import org.weasis.core.api.image.measure.MeasurementsAdapter;
+import org.weasis.core.api.image.util.DisplayTileCache;
 import org.weasis.core.api.image.util.ImageLayer;
 import org.weasis.core.api.image.util.Unit;
 import org.weasis.core.api.media.data.ImageElement;
@@ -65,6 +68,9 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID impl
     private Boolean visible = true;
     private boolean enableDispOperations = true;
     private Point offset;
+    // Visible area of the last drawn image, used to prefetch the tiles in the direction of the panning
+    private RenderedImage lastDrawnImage;
+    private Rectangle lastVisibleRect;
 
     public RenderedImageLayer(boolean buildIterator) {
         this(null, buildIterator);
@@ -198,6 +204,15 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID impl
     @Override
     public void setImage(E image, OpManager preprocessing) {
         boolean init = (image != null && !image.equals(this.sourceImage)) || (image == null && sourceImage != null);
+        if (init) {
+            // Keep the displayed image in the cache
+            if (sourceImage != null) {
+                sourceImage.unpinImageInCache();
+            }
+            if (image != null) {
+                image.pinImageInCache();
+            }
+        }
         this.sourceImage = image;
 
         this.preprocessing = preprocessing;
@@ -214,6 +229,7 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID impl
         }
 
         Shape clip = g2d.getClip();
+        Rectangle visibleRect = null;
         if (clip instanceof Rectangle2D) {
             Rectangle2D rect = new Rectangle2D.Double(displayImage.getMinX(), displayImage.getMinY(),
                 displayImage.getWidth() - 1, displayImage.getHeight() - 1);
@@ -221,6 +237,7 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID impl
             if (rect.isEmpty()) {
                 return;
             }
+            visibleRect = rect.getBounds();
             // Avoid to display one pixel outside the border line of a view.
             // rect.setRect(Math.ceil(rect.getX()), Math.ceil(rect.getY()), rect.getWidth() - 1, rect.getHeight() - 1);
             g2d.setClip(rect);
@@ -228,6 +245,7 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID impl
 
         try {
             g2d.drawRenderedImage(displayImage, AffineTransform.getTranslateInstance(0.0, 0.0));
+            prefetchTiles(visibleRect);
         } catch (Exception | OutOfMemoryError e) {
             LOGGER.error("Draw rendered image", e);//$NON-NLS-1$
             if ("java.io.IOException: closed".equals(e.getMessage())) { //$NON-NLS-1$
@@ -252,6 +270,27 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID impl
 
     }
 
+    private void prefetchTiles(Rectangle visibleRect) {
+        RenderedImage img = displayImage;
+        Rectangle last = lastVisibleRect;
+        if (visibleRect != null && last != null && img == lastDrawnImage && isZoomOutputCached()) {
+            int dx = visibleRect.x - last.x;
+            int dy = visibleRect.y - last.y;
+            // Only when panning, not when the view is partially repainted
+            if ((dx != 0 || dy != 0) && visibleRect.width == last.width && visibleRect.height == last.height) {
+                DisplayTileCache.prefetch(img, visibleRect, dx, dy);
+            }
+        }
+        lastDrawnImage = img;
+        lastVisibleRect = visibleRect;
+    }
+
+    private boolean isZoomOutputCached() {
+        ImageOpNode node = disOpManager.getNode(ZoomOp.OP_NAME);
+        return node != null && node.isEnabled()
+            && DisplayTileCache.isCached(node.getParam(ImageOpNode.Param.OUTPUT_IMG));
+    }
+
     public void drawImageForPrinter(Graphics2D g2d, double viewScale) {
         // Get the clipping rectangle
         if (!visible || displayImage == null) {
@@ -295,8 +334,17 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID impl
     }
 
     public void dispose() {
+        if (sourceImage != null) {
+            sourceImage.unpinImageInCache();
+        }
         sourceImage = null;
         displayImage = null;
+        lastDrawnImage = null;
+        lastVisibleRect = null;
+        ImageOpNode node = disOpManager.getNode(ZoomOp.OP_NAME);
+        if (node != null) {
+            DisplayTileCache.removeTiles(node.getParam(ImageOpNode.Param.OUTPUT_IMG));
+        }
         listenerList.clear();
         opListeners.clear();
     }
@@ -45,6 +45,7 @@ import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.JMVUtils;
 import org.weasis.core.api.gui.util.WinUtil;
+import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.service.AuditLog;
 import org.weasis.core.api.service.AuditLog.LEVEL;
 import org.weasis.core.api.service.BundleTools;
@@ -58,6 +59,8 @@ public class GeneralSetting extends AbstractItemDialogPage {
 
     public static final String pageName = Messages.getString("GeneralSetting.gen"); //$NON-NLS-1$
 
+    private static final long MEGABYTE = 1024L * 1024L;
+
     private LookInfo oldUILook;
     private final GridBagLayout gridBagLayout1 = new GridBagLayout();
     private final JLabel jLabelMLook = new JLabel();
@@ -103,6 +106,9 @@ public class GeneralSetting extends AbstractItemDialogPage {
         new JLabel(Messages.getString("GeneralSetting.stack_limit") + StringUtil.COLON); //$NON-NLS-1$
     private final JComboBox<String> comboBoxStackLimit =
         new JComboBox<>(new String[] { "", "0", "1", "3", "5", "10", "20", "50", "100" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$
+    private final JPanel panelCache = new JPanel();
+    private final JLabel labelCache = new JLabel(Messages.getString("GeneralSetting.img_cache") + StringUtil.COLON); //$NON-NLS-1$
+    private final JSpinner spinnerCache = new JSpinner();
 
     public GeneralSetting() {
         super(pageName);
@@ -111,6 +117,8 @@ public class GeneralSetting extends AbstractItemDialogPage {
         try {
             JMVUtils.setNumberModel(spinner, getIntPreferences(AuditLog.LOG_FILE_NUMBER, 5, null), 1, 99, 1);
             JMVUtils.setNumberModel(spinner1, getIntPreferences(AuditLog.LOG_FILE_SIZE, 10, "MB"), 1, 99, 1); //$NON-NLS-1$
+            JMVUtils.setNumberModel(spinnerCache, getImageCacheSize(), 64,
+                (int) (Runtime.getRuntime().maxMemory() / MEGABYTE), 64);
             jbInit();
             initialize(true);
         } catch (Exception e) {
@@ -233,6 +241,18 @@ public class GeneralSetting extends AbstractItemDialogPage {
         add(panel1, gbcPanel1);
         panel1.add(lblLogLevel);
 
+        GridBagConstraints gbcPanelCache = new GridBagConstraints();
+        gbcPanelCache.gridwidth = 4;
+        gbcPanelCache.insets = new Insets(0, 10, 5, 10);
+        gbcPanelCache.fill = GridBagConstraints.BOTH;
+        gbcPanelCache.gridx = 0;
+        gbcPanelCache.gridy = 7;
+        FlowLayout flowLayout3 = (FlowLayout) panelCache.getLayout();
+        flowLayout3.setAlignment(FlowLayout.LEADING);
+        add(panelCache, gbcPanelCache);
+        panelCache.add(labelCache);
+        panelCache.add(spinnerCache);
+
         JPanel panel2 = new JPanel();
         FlowLayout flowLayout1 = (FlowLayout) panel2.getLayout();
         flowLayout1.setHgap(10);
@@ -246,7 +266,7 @@ public class GeneralSetting extends AbstractItemDialogPage {
         gbcPanel2.insets = new Insets(5, 10, 0, 10);
         gbcPanel2.fill = GridBagConstraints.HORIZONTAL;
         gbcPanel2.gridx = 0;
-        gbcPanel2.gridy = 7;
+        gbcPanel2.gridy = 8;
         add(panel2, gbcPanel2);
         JButton btnNewButton = new JButton(Messages.getString("restore.values")); //$NON-NLS-1$
         panel2.add(btnNewButton);
@@ -292,6 +312,10 @@ public class GeneralSetting extends AbstractItemDialogPage {
         return defaultvalue;
     }
 
+    private static int getImageCacheSize() {
+        return (int) (ImageElement.getDefaultCacheSize() / MEGABYTE);
+    }
+
     protected void initialize(boolean afirst) {
         WProperties prfs = BundleTools.SYSTEM_PREFERENCES;
         chckbxConfirmClosing.setSelected(prfs.getBooleanProperty(BundleTools.CONFIRM_CLOSE, false));
@@ -312,6 +336,7 @@ public class GeneralSetting extends AbstractItemDialogPage {
         spinner.setValue(getIntPreferences(AuditLog.LOG_FILE_NUMBER, 5, null));
         spinner1.setValue(getIntPreferences(AuditLog.LOG_FILE_SIZE, 10, "MB")); //$NON-NLS-1$
         checkRolingLog();
+        spinnerCache.setValue(getImageCacheSize());
 
         comboBoxLang.selectLocale(prfs.getProperty("locale.lang.code")); //$NON-NLS-1$
         comboBoxFormat.selectLocale();
@@ -382,6 +407,12 @@ public class GeneralSetting extends AbstractItemDialogPage {
         AuditLog.createOrUpdateLogger(context, "default.log", new String[] { "org" }, level.toString(), logFile, //$NON-NLS-1$ //$NON-NLS-2$
             pattern, fileNb, fileSize, limit);
 
+        int cacheSize = (Integer) spinnerCache.getValue();
+        if (cacheSize != getImageCacheSize()) {
+            BundleTools.SYSTEM_PREFERENCES.putIntProperty(ImageElement.IMAGE_CACHE_SIZE, cacheSize);
+            ImageElement.setCacheSize(cacheSize * MEGABYTE);
+        }
+
         LookInfo look = (LookInfo) jComboBoxlnf.getSelectedItem();
         if (look != null) {
             BundleTools.SYSTEM_PREFERENCES.put("weasis.look", look.getClassName()); //$NON-NLS-1$
@@ -429,6 +460,9 @@ public class GeneralSetting extends AbstractItemDialogPage {
 
         BundleTools.SYSTEM_PREFERENCES.resetProperty("weasis.look", null); //$NON-NLS-1$
 
+        BundleTools.SYSTEM_PREFERENCES.remove(ImageElement.IMAGE_CACHE_SIZE);
+        ImageElement.setCacheSize(ImageElement.getDefaultCacheSize());
+
     }
 
     static class LookInfo {
@@ -10,9 +10,20 @@
  *******************************************************************************/
 package org.weasis.core.ui.serialize;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.GZIPInputStream;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -23,24 +34,146 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.util.GzipManager;
 import org.weasis.core.ui.model.GraphicModel;
 import org.weasis.core.ui.model.imp.XmlGraphicModel;
 
+/**
+ * Serialization of the graphic models. The JAXB contexts are built once per class and the marshallers and the
+ * unmarshallers, which are not thread-safe, are reused through a pool. All the methods can be called from any thread.
+ * <p>
+ * The graphics of an image can be stored next to the image in an XML file (image name + ".xml") or in a compact binary
+ * file (image name + ".xml.gz") containing the XML compressed with GZIP. The binary form is the same as the one stored
+ * in the private tag of the DICOM Presentation States.
+ */
 public class XmlSerializer {
     private static final Logger LOGGER = LoggerFactory.getLogger(XmlSerializer.class);
 
+    public static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
+    public static final String BINARY_EXTENSION = ".xml.gz"; //$NON-NLS-1$
+
+    private static final Map<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Queue<Marshaller>> MARSHALLERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Queue<Unmarshaller>> UNMARSHALLERS = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface MarshallerAction {
+        void marshal(Marshaller marshaller) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface UnmarshallerAction<T> {
+        T unmarshal(Unmarshaller unmarshaller) throws Exception;
+    }
+
+    /**
+     * @param clazz
+     *            the root class
+     * @return the shared JAXB context of the class
+     * @throws JAXBException
+     */
+    public static JAXBContext getContext(Class<?> clazz) throws JAXBException {
+        JAXBContext context = CONTEXTS.get(clazz);
+        if (context == null) {
+            // Can be built twice by concurrent calls, only the first one is kept
+            context = JAXBContext.newInstance(clazz);
+            JAXBContext old = CONTEXTS.putIfAbsent(clazz, context);
+            if (old != null) {
+                context = old;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Runs the action with a marshaller of the class which is returned to the pool afterwards.
+     *
+     * @param clazz
+     *            the root class
+     * @param formatted
+     *            if true, the XML output is pretty printed
+     * @param action
+     *            the marshalling action
+     * @throws Exception
+     */
+    public static void marshal(Class<?> clazz, boolean formatted, MarshallerAction action) throws Exception {
+        Queue<Marshaller> pool = MARSHALLERS.computeIfAbsent(clazz, c -> new ConcurrentLinkedQueue<>());
+        Marshaller marshaller = pool.poll();
+        if (marshaller == null) {
+            marshaller = getContext(clazz).createMarshaller();
+        }
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
+        action.marshal(marshaller);
+        // Not returned to the pool when an exception is thrown, the state is unknown
+        pool.offer(marshaller);
+    }
+
+    /**
+     * Runs the action with an unmarshaller of the class which is returned to the pool afterwards.
+     *
+     * @param clazz
+     *            the root class
+     * @param action
+     *            the unmarshalling action
+     * @return the result of the action
+     * @throws Exception
+     */
+    public static <T> T unmarshal(Class<?> clazz, UnmarshallerAction<T> action) throws Exception {
+        Queue<Unmarshaller> pool = UNMARSHALLERS.computeIfAbsent(clazz, c -> new ConcurrentLinkedQueue<>());
+        Unmarshaller unmarshaller = pool.poll();
+        if (unmarshaller == null) {
+            unmarshaller = getContext(clazz).createUnmarshaller();
+        }
+        T result = action.unmarshal(unmarshaller);
+        pool.offer(unmarshaller);
+        return result;
+    }
+
+    /**
+     * Reads the graphics stored next to a media file, either in the XML form or in the binary form.
+     *
+     * @param mediaFile
+     *            the file of the image
+     * @return the graphic model or null if there is no graphic file
+     */
+    public static GraphicModel readPresentationModelOf(File mediaFile) {
+        File gpxFile = new File(mediaFile.getPath() + XML_EXTENSION);
+        if (gpxFile.canRead()) {
+            return readPresentationModel(gpxFile);
+        }
+        File binFile = new File(mediaFile.getPath() + BINARY_EXTENSION);
+        if (binFile.canRead()) {
+            try (InputStream in = new FileInputStream(binFile)) {
+                return readPresentationModel(in, true);
+            } catch (IOException e) {
+                LOGGER.error("Cannot read graphics: ", e); //$NON-NLS-1$
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param in
+     *            the stream of the graphics, it is not closed
+     * @param binary
+     *            true if the stream contains the compact binary form, false for the XML form
+     * @return the graphic model or null if it cannot be read
+     */
+    public static GraphicModel readPresentationModel(InputStream in, boolean binary) {
+        try {
+            InputStream src = binary ? new GZIPInputStream(in) : in;
+            return removeGraphicsWithoutLayer(unmarshal(XmlGraphicModel.class, u -> (GraphicModel) u.unmarshal(src)));
+        } catch (Exception e) {
+            LOGGER.error("Cannot load graphics: ", e); //$NON-NLS-1$
+        }
+        return null;
+    }
+
     public static GraphicModel readPresentationModel(File gpxFile) {
         if (gpxFile.canRead()) {
             try {
-                JAXBContext jaxbContext = JAXBContext.newInstance(XmlGraphicModel.class);
-                Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-                GraphicModel model = (GraphicModel) jaxbUnmarshaller.unmarshal(gpxFile);
-                int length = model.getModels().size();
-                model.getModels().removeIf(g -> g.getLayer() == null);
-                if (length > model.getModels().size()) {
-                    LOGGER.error("Removing {} graphics wihout a attached layer", model.getModels().size() - length); //$NON-NLS-1$
-                }
-                return model;
+                return removeGraphicsWithoutLayer(
+                    unmarshal(XmlGraphicModel.class, u -> (GraphicModel) u.unmarshal(gpxFile)));
             } catch (Exception e) {
                 LOGGER.error("Cannot load xml: ", e); //$NON-NLS-1$
             }
@@ -48,41 +181,92 @@ public class XmlSerializer {
         return null;
     }
 
+    private static GraphicModel removeGraphicsWithoutLayer(GraphicModel model) {
+        int length = model.getModels().size();
+        model.getModels().removeIf(g -> g.getLayer() == null);
+        if (length > model.getModels().size()) {
+            LOGGER.error("Removing {} graphics wihout a attached layer", length - model.getModels().size()); //$NON-NLS-1$
+        }
+        return model;
+    }
+
     public static void writePresentation(ImageElement img, File destinationFile) {
+        writePresentation(img, destinationFile, false);
+    }
+
+    /**
+     * Writes the graphics of the image next to the destination file.
+     *
+     * @param img
+     *            the image
+     * @param destinationFile
+     *            the file of the exported image
+     * @param binary
+     *            if true, writes the compact binary form (destination name + ".xml.gz") instead of the XML form
+     *            (destination name + ".xml")
+     */
+    public static void writePresentation(ImageElement img, File destinationFile, boolean binary) {
         GraphicModel model = (GraphicModel) img.getTagValue(TagW.PresentationModel);
         if (model != null && !model.getModels().isEmpty()) {
-            File gpxFile = new File(destinationFile.getParent(), destinationFile.getName() + ".xml"); //$NON-NLS-1$
-
             try {
-                JAXBContext jaxbContext = JAXBContext.newInstance(model.getClass());
-                Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-
-                // output pretty printed
-                jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-
-                // jaxbMarshaller.marshal(model, System.out);
-                jaxbMarshaller.marshal(model, gpxFile);
+                if (binary) {
+                    byte[] data = toBinary(model);
+                    if (data != null) {
+                        Files.write(new File(destinationFile.getParent(),
+                            destinationFile.getName() + BINARY_EXTENSION).toPath(), data);
+                    }
+                } else {
+                    File gpxFile = new File(destinationFile.getParent(), destinationFile.getName() + XML_EXTENSION);
+                    // output pretty printed
+                    marshal(model.getClass(), true, m -> m.marshal(model, gpxFile));
+                }
             } catch (Exception e) {
                 LOGGER.error("Cannot save xml: ", e); //$NON-NLS-1$
             }
         }
     }
 
+    /**
+     * @param model
+     *            the graphic model
+     * @return the model in the compact binary form (XML compressed with GZIP) or null if it cannot be serialized
+     */
+    public static byte[] toBinary(GraphicModel model) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            marshal(model.getClass(), false, m -> m.marshal(model, outputStream));
+            return GzipManager.gzipCompressToByte(outputStream.toByteArray());
+        } catch (Exception e) {
+            LOGGER.error("Cannot serialize graphics: ", e); //$NON-NLS-1$
+        }
+        return null;
+    }
+
+    /**
+     * @param binary
+     *            the model in the compact binary form
+     * @return the graphic model or null if it cannot be read
+     */
+    public static GraphicModel fromBinary(byte[] binary) {
+        return readPresentationModel(new ByteArrayInputStream(binary), true);
+    }
+
     @SuppressWarnings("unchecked")
     protected <T> T deserialize(String input, Class<T> clazz) throws JAXBException {
         StringReader sr = new StringReader(input);
-        JAXBContext context = JAXBContext.newInstance(clazz);
-        Unmarshaller unmarshaller = context.createUnmarshaller();
-
-        return (T) unmarshaller.unmarshal(sr);
+        try {
+            return unmarshal(clazz, u -> (T) u.unmarshal(sr));
+        } catch (JAXBException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new JAXBException(e);
+        }
     }
 
     public static String serialize(GraphicModel model) {
         try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(model.getClass());
-            Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
             StringWriter sw = new StringWriter();
-            jaxbMarshaller.marshal(model, sw);
+            marshal(model.getClass(), false, m -> m.marshal(model, sw));
             return sw.toString();
         } catch (Exception e) {
             LOGGER.error("Cannot serialize xml: ", e); //$NON-NLS-1$
@@ -0,0 +1,66 @@
+package org.weasis.core.ui.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.geom.Rectangle2D;
+
+import org.junit.Test;
+
+public class SpatialGridTest {
+
+    private static Rectangle2D rect(double x, double y, double w, double h) {
+        return new Rectangle2D.Double(x, y, w, h);
+    }
+
+    @Test
+    public void test_query_returns_items_from_front_to_back() {
+        SpatialGrid<String> grid = new SpatialGrid<>(10.0);
+        grid.insert("a", 0, rect(0, 0, 15, 15)); //$NON-NLS-1$
+        grid.insert("b", 1, rect(5, 5, 30, 30)); //$NON-NLS-1$
+        grid.insert("c", 2, rect(100, 100, 5, 5)); //$NON-NLS-1$
+
+        assertThat(grid.query(rect(8, 8, 2, 2))).containsExactly("b", "a"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertThat(grid.query(rect(101, 101, 0, 0))).containsExactly("c"); //$NON-NLS-1$
+        assertThat(grid.query(rect(50, 50, 10, 10))).isEmpty();
+        assertThat(grid.query(rect(-1000, -1000, 5000, 5000))).containsExactly("c", "b", "a"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    @Test
+    public void test_border_is_included() {
+        SpatialGrid<String> grid = new SpatialGrid<>(10.0);
+        grid.insert("a", 0, rect(0, 0, 10, 10)); //$NON-NLS-1$
+        assertThat(grid.query(rect(10, 10, 0, 0))).containsExactly("a"); //$NON-NLS-1$
+    }
+
+    @Test
+    public void test_insert_again_moves_item() {
+        SpatialGrid<String> grid = new SpatialGrid<>(10.0);
+        grid.insert("a", 0, rect(0, 0, 5, 5)); //$NON-NLS-1$
+        grid.insert("a", 0, rect(200, 200, 5, 5)); //$NON-NLS-1$
+
+        assertThat(grid.size()).isEqualTo(1);
+        assertThat(grid.query(rect(0, 0, 5, 5))).isEmpty();
+        assertThat(grid.query(rect(200, 200, 5, 5))).containsExactly("a"); //$NON-NLS-1$
+    }
+
+    @Test
+    public void test_remove() {
+        SpatialGrid<String> grid = new SpatialGrid<>(10.0);
+        grid.insert("a", 0, rect(0, 0, 50, 50)); //$NON-NLS-1$
+        assertThat(grid.remove("a")).isTrue(); //$NON-NLS-1$
+        assertThat(grid.remove("a")).isFalse(); //$NON-NLS-1$
+        assertThat(grid.contains("a")).isFalse(); //$NON-NLS-1$
+        assertThat(grid.query(rect(0, 0, 50, 50))).isEmpty();
+    }
+
+    @Test
+    public void test_unbounded_items_are_always_returned() {
+        SpatialGrid<String> grid = new SpatialGrid<>(1.0);
+        grid.insert("none", 0, null); //$NON-NLS-1$
+        grid.insert("large", 1, rect(0, 0, 1000, 1000)); //$NON-NLS-1$
+        grid.insert("small", 2, rect(0, 0, 1, 1)); //$NON-NLS-1$
+
+        assertThat(grid.query(rect(5000, 5000, 1, 1))).containsExactly("large", "none"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertThat(grid.query(rect(0, 0, 1, 1))).containsExactly("small", "large", "none"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+}
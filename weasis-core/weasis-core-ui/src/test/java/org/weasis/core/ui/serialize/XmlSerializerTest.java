@@ -0,0 +1,62 @@
+package org.weasis.core.ui.serialize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.weasis.core.ui.model.GraphicModel;
+import org.weasis.core.ui.model.imp.XmlGraphicModel;
+
+public class XmlSerializerTest {
+    private static final String XML = "/presentation/presentation.5.xml"; //$NON-NLS-1$
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GraphicModel readModel() throws Exception {
+        try (InputStream in = XmlSerializerTest.class.getResourceAsStream(XML)) {
+            return XmlSerializer.readPresentationModel(in, false);
+        }
+    }
+
+    @Test
+    public void test_context_is_shared() throws Exception {
+        assertThat(XmlSerializer.getContext(XmlGraphicModel.class))
+            .isSameAs(XmlSerializer.getContext(XmlGraphicModel.class));
+    }
+
+    @Test
+    public void test_binary_round_trip() throws Exception {
+        GraphicModel model = readModel();
+        assertThat(model).isNotNull();
+        assertThat(model.getModels()).hasSize(1);
+
+        byte[] binary = XmlSerializer.toBinary(model);
+        assertThat(binary).isNotNull();
+        assertThat(binary.length).isLessThan(XmlSerializer.serialize(model).length());
+
+        GraphicModel result = XmlSerializer.fromBinary(binary);
+        assertThat(result).isNotNull();
+        assertThat(result.getUuid()).isEqualTo(model.getUuid());
+        assertThat(result.getModels()).hasSize(1);
+        assertThat(result.getModels().get(0).getUuid()).isEqualTo(model.getModels().get(0).getUuid());
+        assertThat(XmlSerializer.serialize(result)).isEqualTo(XmlSerializer.serialize(model));
+    }
+
+    @Test
+    public void test_read_sidecar() throws Exception {
+        GraphicModel model = readModel();
+        File image = folder.newFile("image.jpg"); //$NON-NLS-1$
+        assertThat(XmlSerializer.readPresentationModelOf(image)).isNull();
+
+        Files.write(new File(image.getPath() + XmlSerializer.BINARY_EXTENSION).toPath(), XmlSerializer.toBinary(model));
+        GraphicModel result = XmlSerializer.readPresentationModelOf(image);
+        assertThat(result).isNotNull();
+        assertThat(result.getUuid()).isEqualTo(model.getUuid());
+    }
+}
@@ -14,14 +14,15 @@ import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferUShort;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
-import java.awt.image.renderable.ParameterBlock;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import javax.media.jai.Histogram;
-import javax.media.jai.JAI;
 import javax.media.jai.LookupTableJAI;
 import javax.media.jai.OpImage;
 import javax.media.jai.ROI;
@@ -40,10 +41,11 @@ import org.weasis.core.api.image.LutShape;
 import org.weasis.core.api.image.PseudoColorOp;
 import org.weasis.core.api.image.WindowOp;
 import org.weasis.core.api.image.op.ImageStatisticsDescriptor;
-import org.weasis.core.api.image.util.ImageToolkit;
 import org.weasis.core.api.image.util.LayoutUtil;
+import org.weasis.core.api.image.util.RoiScanner;
 import org.weasis.core.api.image.util.Unit;
 import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.api.media.data.LruCache;
 import org.weasis.core.api.media.data.SoftHashMap;
 import org.weasis.core.api.media.data.TagReadable;
 import org.weasis.core.api.media.data.TagW;
@@ -58,9 +60,14 @@ public class DicomImageElement extends ImageElement {
     private static final Logger LOGGER = LoggerFactory.getLogger(DicomImageElement.class);
 
     private static final SoftHashMap<LutParameters, LookupTableJAI> LUT_Cache = new SoftHashMap<>();
+    // Modality, VOI and presentation LUTs composed into a single table (64 KB at most for 16-bit images)
+    private static final LruCache<CombinedLutKey, LookupTableJAI> COMBINED_LUT_CACHE =
+        new LruCache<>(16L * 1024 * 1024, l -> l.getNumEntries());
 
     private volatile List<PresetWindowLevel> windowingPresetCollection = null;
     private volatile Collection<LutShape> lutShapeCollection = null;
+    // Last histogram, it is requested at each repaint when displayed
+    private volatile SoftReference<HistogramEntry> histogramCache = null;
 
     public DicomImageElement(DcmMediaReader mediaIO, Object key) {
         super(mediaIO, key);
@@ -459,6 +466,43 @@ public class DicomImageElement extends ImageElement {
             isPhotometricInterpretationInverse(tagable));
     }
 
+    /**
+     * Gets the modality, VOI and presentation LUTs composed into a single table. The table is cached for all the
+     * images sharing the same modality LUT and the same windowing parameters (e.g. the frames of a series).
+     *
+     * @return 8 bits unsigned Lookup Table or null when the tables cannot be combined
+     */
+    private LookupTableJAI getCombinedLookup(int dataType, LookupTableJAI modalityLookup, LookupTableJAI prLutData,
+        TagReadable tagable, boolean applyVoi, double window, double level, double minLevel, double maxLevel,
+        LutShape shape, boolean fillLutOutside, boolean pixelPadding) {
+        int minValue = 0;
+        int maxValue = 0;
+        if (applyVoi) {
+            // Same range as in getVOILookup()
+            if (fillLutOutside || (getPaddingValue() != null && isPhotometricInterpretationMonochrome())) {
+                minValue = getMinAllocatedValue(tagable, pixelPadding);
+                maxValue = getMaxAllocatedValue(tagable, pixelPadding);
+            } else {
+                minValue = (int) minLevel;
+                maxValue = (int) maxLevel;
+            }
+        }
+        // The windowing parameters are not relevant when the VOI LUT is not applied
+        CombinedLutKey key = new CombinedLutKey(dataType, modalityLookup, prLutData, applyVoi,
+            applyVoi ? window : 0.0, applyVoi ? level : 0.0, minValue, maxValue, applyVoi ? shape : null,
+            isPhotometricInterpretationInverse(tagable));
+        LookupTableJAI lookup = COMBINED_LUT_CACHE.get(key);
+        if (lookup == null) {
+            LookupTableJAI voiLookup = applyVoi ? DicomImageUtils.createWindowLevelLut(shape, window, level, minValue,
+                maxValue, 8, false, key.inverse) : null;
+            lookup = DicomImageUtils.createCombinedLut(dataType, modalityLookup, voiLookup, prLutData);
+            if (lookup != null) {
+                COMBINED_LUT_CACHE.put(key, lookup);
+            }
+        }
+        return lookup;
+    }
+
     /**
      * @return default as first element of preset List <br>
      *         Note : null should never be returned since auto is at least one preset
@@ -517,24 +561,20 @@ public class DicomImageElement extends ImageElement {
         }
         // TODO instead of computing histo from image get Dicom attribute if present. Handle pixel padding!
 
-        ParameterBlock pb = new ParameterBlock();
-        pb.addSource(imageSource);
-        pb.add(lookup);
-        final RenderedImage imageModalityTransformed = JAI.create("lookup", pb, null); //$NON-NLS-1$
-
-        pb.removeSources();
-        pb.removeParameters();
-
-        pb.addSource(imageModalityTransformed);
-        pb.add(null); // No ROI
-        pb.add(1); // Sampling
-        pb.add(1); // periods
-        pb.add(new int[] { getAllocatedOutRangeSize() }); // Num. bins.
-        pb.add(new double[] { getMinAllocatedValue(tagable, pixelPadding) }); // Min value to be considered.
-        pb.add(new double[] { getMaxAllocatedValue(tagable, pixelPadding) }); // Max value to be considered.
-
-        RenderedOp op = JAI.create("histogram", pb, ImageToolkit.NOCACHE_HINT); //$NON-NLS-1$
-        return (Histogram) op.getProperty("histogram"); //$NON-NLS-1$
+        int numBins = getAllocatedOutRangeSize();
+        double low = getMinAllocatedValue(tagable, pixelPadding);
+        double high = getMaxAllocatedValue(tagable, pixelPadding);
+        HistogramEntry entry = histogramCache == null ? null : histogramCache.get();
+        if (entry != null && entry.matches(imageSource, lookup, numBins, low, high)) {
+            return entry.histogram;
+        }
+        // Apply the modality lookup while counting, without building the transformed image
+        Histogram histogram = RoiScanner.computeHistogram(imageSource, null, lookup, numBins, low, high, null);
+        if (histogram != null) {
+            histogramCache =
+                new SoftReference<>(new HistogramEntry(imageSource, lookup, numBins, low, high, histogram));
+        }
+        return histogram;
     }
 
     @Override
@@ -738,10 +778,6 @@ public class DicomImageElement extends ImageElement {
         if (datatype >= DataBuffer.TYPE_BYTE && datatype < DataBuffer.TYPE_INT) {
             LookupTableJAI modalityLookup = getModalityLookup(prTags, pixPadding, invLUT);
 
-            // RenderingHints hints = new RenderingHints(JAI.KEY_IMAGE_LAYOUT, new ImageLayout(imageSource));
-            RenderedImage imageModalityTransformed =
-                modalityLookup == null ? imageSource : LookupDescriptor.create(imageSource, modalityLookup, null);
-
             /*
              * C.11.2.1.2 Window center and window width
              *
@@ -753,13 +789,29 @@ public class DicomImageElement extends ImageElement {
                  * If photometric interpretation is not monochrome do not apply VOILUT. It is necessary for
                  * PALETTE_COLOR.
                  */
-                return imageModalityTransformed;
+                return modalityLookup == null ? imageSource
+                    : LookupDescriptor.create(imageSource, modalityLookup, null);
             }
 
+            boolean applyVoi = prLutData == null || lut.getLookup() != null;
+            boolean fillOutside = JMVUtils.getNULLtoFalse(fillLutOutside);
+
+            // Apply all the LUTs in a single pass instead of chaining the lookup operations
+            LookupTableJAI combinedLookup = getCombinedLookup(datatype, modalityLookup, prLutData, prTags, applyVoi,
+                windowValue, levelValue, minLevel, maxLevel, lut, fillOutside, pixPadding);
+            if (combinedLookup != null) {
+                // BUG fix: for some images the color model is null. Creating 8 bits gray model layout fixes this issue.
+                return LookupDescriptor.create(imageSource, combinedLookup, LayoutUtil.createGrayRenderedImage());
+            }
+
+            // RenderingHints hints = new RenderingHints(JAI.KEY_IMAGE_LAYOUT, new ImageLayout(imageSource));
+            RenderedImage imageModalityTransformed =
+                modalityLookup == null ? imageSource : LookupDescriptor.create(imageSource, modalityLookup, null);
+
             LookupTableJAI voiLookup = null;
-            if (prLutData == null || lut.getLookup() != null) {
-                voiLookup = getVOILookup(prTags, windowValue, levelValue, minLevel, maxLevel, lut,
-                    JMVUtils.getNULLtoFalse(fillLutOutside), pixPadding);
+            if (applyVoi) {
+                voiLookup = getVOILookup(prTags, windowValue, levelValue, minLevel, maxLevel, lut, fillOutside,
+                    pixPadding);
             }
 
             if (prLutData == null) {
@@ -839,4 +891,82 @@ public class DicomImageElement extends ImageElement {
         return null;
     }
 
+    private static final class CombinedLutKey {
+        private final int dataType;
+        private final LookupTableJAI modalityLookup;
+        private final LookupTableJAI prLookup;
+        private final boolean applyVoi;
+        private final double window;
+        private final double level;
+        private final int minValue;
+        private final int maxValue;
+        private final LutShape shape;
+        private final boolean inverse;
+
+        CombinedLutKey(int dataType, LookupTableJAI modalityLookup, LookupTableJAI prLookup, boolean applyVoi,
+            double window, double level, int minValue, int maxValue, LutShape shape, boolean inverse) {
+            this.dataType = dataType;
+            this.modalityLookup = modalityLookup;
+            this.prLookup = prLookup;
+            this.applyVoi = applyVoi;
+            this.window = window;
+            this.level = level;
+            this.minValue = minValue;
+            this.maxValue = maxValue;
+            this.shape = shape;
+            this.inverse = inverse;
+        }
+
+        @Override
+        public int hashCode() {
+            // The lookup tables are compared by reference (the modality LUTs are shared by LUT_Cache)
+            int result = 31 * dataType + System.identityHashCode(modalityLookup);
+            result = 31 * result + System.identityHashCode(prLookup);
+            result = 31 * result + Double.hashCode(window);
+            result = 31 * result + Double.hashCode(level);
+            result = 31 * result + minValue;
+            result = 31 * result + maxValue;
+            return 31 * result + (applyVoi ? 1 : 0) + (inverse ? 2 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CombinedLutKey)) {
+                return false;
+            }
+            CombinedLutKey other = (CombinedLutKey) obj;
+            return dataType == other.dataType && modalityLookup == other.modalityLookup
+                && prLookup == other.prLookup && applyVoi == other.applyVoi && inverse == other.inverse
+                && minValue == other.minValue && maxValue == other.maxValue
+                && Double.doubleToLongBits(window) == Double.doubleToLongBits(other.window)
+                && Double.doubleToLongBits(level) == Double.doubleToLongBits(other.level)
+                && Objects.equals(shape, other.shape);
+        }
+    }
+
+    private static final class HistogramEntry {
+        private final WeakReference<RenderedImage> source;
+        private final LookupTableJAI lookup;
+        private final int numBins;
+        private final double low;
+        private final double high;
+        private final Histogram histogram;
+
+        HistogramEntry(RenderedImage source, LookupTableJAI lookup, int numBins, double low, double high,
+            Histogram histogram) {
+            this.source = new WeakReference<>(source);
+            this.lookup = lookup;
+            this.numBins = numBins;
+            this.low = low;
+            this.high = high;
+            this.histogram = histogram;
+        }
+
+        boolean matches(RenderedImage image, LookupTableJAI lut, int bins, double lowValue, double highValue) {
+            return source.get() == image && lookup == lut && numBins == bins && low == lowValue && high == highValue;
+        }
+    }
 }
@@ -29,14 +29,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
-import java.lang.ref.Reference;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteOrder;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -87,12 +88,12 @@ import org.weasis.core.api.image.util.ImageFiler;
 import org.weasis.core.api.image.util.LayoutUtil;
 import org.weasis.core.api.media.data.Codec;
 import org.weasis.core.api.media.data.FileCache;
+import org.weasis.core.api.media.data.LruCache;
 import org.weasis.core.api.media.data.MediaElement;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.MediaSeriesGroup;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SimpleTagable;
-import org.weasis.core.api.media.data.SoftHashMap;
 import org.weasis.core.api.media.data.TagView;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.service.BundleTools;
@@ -272,20 +273,22 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
 
     static final DicomImageReaderSpi dicomImageReaderSpi = new DicomImageReaderSpi();
 
-    private static final SoftHashMap<DicomMediaIO, DicomMetaData> HEADER_CACHE =
-        new SoftHashMap<DicomMediaIO, DicomMetaData>() {
+    private static final int MAX_FRAME_DECODERS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    public static final String HEADER_CACHE_SIZE = "dicom.header.cache.size"; //$NON-NLS-1$
+
+    // Limited by the number of headers, the least recently used are evicted
+    private static final LruCache<DicomMediaIO, DicomMetaData> HEADER_CACHE =
+        new LruCache<DicomMediaIO, DicomMetaData>(
+            BundleTools.SYSTEM_PREFERENCES.getIntProperty(HEADER_CACHE_SIZE, 10000), h -> 1L) {
 
             @Override
-            public void removeElement(Reference<? extends DicomMetaData> soft) {
-                DicomMediaIO key = reverseLookup.remove(soft);
-                if (key != null) {
-                    hash.remove(key);
-                    key.reset();
-                }
+            protected void removeElement(DicomMediaIO key, DicomMetaData value) {
+                key.reset();
             }
         };
 
-    // The above softReference HEADER_CACHE shall be used instead of the following dcmMetadata variable to get access to
+    // The above HEADER_CACHE shall be used instead of the following dcmMetadata variable to get access to
     // the current DicomObject unless it's virtual and then URI doesn't exit. This case appends when the dcmMetadata is
     // created within the application and is given to the ImageReader constructor
     private DicomMetaData dcmMetadata = null;
@@ -304,6 +307,9 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
     private volatile MediaElement[] image = null;
     private volatile String mimeType;
     private final ArrayList<Integer> fragmentsPositions = new ArrayList<>();
+    // Decoders for reading concurrently the frames of a compressed multi-frame, each one with its own stream
+    private final Deque<FrameDecoder> frameDecoders = new ArrayDeque<>();
+    private final AtomicInteger decoderGeneration = new AtomicInteger();
 
     private volatile ImageInputStream iis;
     private DicomInputStream dis;
@@ -1013,7 +1019,7 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
     }
 
     private boolean isRLELossless() {
-        return dis == null ? false : dis.getTransferSyntax().equals(UID.RLELossless);
+        return UID.RLELossless.equals(tsuid);
     }
 
     private ImageInputStreamImpl iisOfFrame(int frameIndex) throws IOException {
@@ -1030,6 +1036,11 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
     }
 
     private SegmentedInputImageStream buildSegmentedImageInputStream(int frameIndex) throws IOException {
+        return buildSegmentedImageInputStream(iis, frameIndex);
+    }
+
+    private SegmentedInputImageStream buildSegmentedImageInputStream(ImageInputStream stream, int frameIndex)
+        throws IOException {
         int nbFragments = pixeldataFragments.size();
         long[] offsets;
         int[] length;
@@ -1052,40 +1063,42 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
                 }
             } else {
                 // Multi-frames where each frames can have multiple fragments.
-                if (fragmentsPositions.isEmpty()) {
-                    if (decompressor == null) {
-                        throw new IOException("no decompressor!"); //$NON-NLS-1$
-                    }
+                int start;
+                int end;
+                synchronized (fragmentsPositions) {
+                    if (fragmentsPositions.isEmpty()) {
+                        if (decompressor == null) {
+                            throw new IOException("no decompressor!"); //$NON-NLS-1$
+                        }
 
-                    for (int i = 1; i < nbFragments; i++) {
-                        BulkData bulkData = (BulkData) pixeldataFragments.get(i);
-                        ImageReaderSpi provider = decompressor.getOriginatingProvider();
-                        if (provider.canDecodeInput(new org.dcm4che3.imageio.stream.SegmentedInputImageStream(iis,
-                            new long[] { bulkData.offset() }, new int[] { bulkData.length() }))) {
-                            fragmentsPositions.add(i);
+                        for (int i = 1; i < nbFragments; i++) {
+                            BulkData bulkData = (BulkData) pixeldataFragments.get(i);
+                            ImageReaderSpi provider = decompressor.getOriginatingProvider();
+                            if (provider.canDecodeInput(new org.dcm4che3.imageio.stream.SegmentedInputImageStream(
+                                stream, new long[] { bulkData.offset() }, new int[] { bulkData.length() }))) {
+                                fragmentsPositions.add(i);
+                            }
                         }
                     }
-                }
-
-                if (fragmentsPositions.size() == numberOfFrame) {
-                    int start = fragmentsPositions.get(frameIndex);
-                    int end = (frameIndex + 1) >= fragmentsPositions.size() ? nbFragments
+                    if (fragmentsPositions.size() != numberOfFrame) {
+                        throw new IOException("Cannot match all the fragments to all the frames!"); //$NON-NLS-1$
+                    }
+                    start = fragmentsPositions.get(frameIndex);
+                    end = (frameIndex + 1) >= fragmentsPositions.size() ? nbFragments
                         : fragmentsPositions.get(frameIndex + 1);
+                }
 
-                    offsets = new long[end - start];
-                    length = new int[offsets.length];
-                    for (int i = 0; i < offsets.length; i++) {
-                        BulkData bulkData = (BulkData) pixeldataFragments.get(start + i);
-                        offsets[i] = bulkData.offset();
-                        length[i] = bulkData.length();
-                    }
-                } else {
-                    throw new IOException("Cannot match all the fragments to all the frames!"); //$NON-NLS-1$
+                offsets = new long[end - start];
+                length = new int[offsets.length];
+                for (int i = 0; i < offsets.length; i++) {
+                    BulkData bulkData = (BulkData) pixeldataFragments.get(start + i);
+                    offsets[i] = bulkData.offset();
+                    length[i] = bulkData.length();
                 }
             }
         }
 
-        return new org.dcm4che3.imageio.stream.SegmentedInputImageStream(iis, offsets, length);
+        return new org.dcm4che3.imageio.stream.SegmentedInputImageStream(stream, offsets, length);
     }
 
     @Override
@@ -1133,7 +1146,11 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
     }
 
     private ImageReadParam decompressParam(ImageReadParam param) {
-        ImageReadParam decompressParam = decompressor.getDefaultReadParam();
+        return decompressParam(decompressor, param);
+    }
+
+    private ImageReadParam decompressParam(ImageReader reader, ImageReadParam param) {
+        ImageReadParam decompressParam = reader.getDefaultReadParam();
         ImageTypeSpecifier imageType = param.getDestinationType();
         BufferedImage dest = param.getDestination();
         if (isRLELossless() && imageType == null && dest == null) {
@@ -1190,10 +1207,12 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
 
             RenderedImage bi;
             if (decompressor != null) {
-                decompressor.setInput(iisOfFrame(frameIndex));
                 if (isRLELossless() && (pmi.isSubSambled() || pmi.name().startsWith("YBR"))) { //$NON-NLS-1$
                     bi = convertSubSambledAndYBR(frameIndex, param);
+                } else if (numberOfFrame > 1 && fileCache.getOriginalFile().isPresent()) {
+                    bi = readFrameWithDecoderPool(frameIndex, param);
                 } else {
+                    decompressor.setInput(iisOfFrame(frameIndex));
                     bi = decompressor.readAsRenderedImage(0, decompressParam(param));
                 }
             } else {
@@ -1215,6 +1234,80 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
         }
     }
 
+    /**
+     * Decodes a frame with a decoder of the pool. Each decoder has its own stream, so the frames of a multi-frame can
+     * be decoded concurrently. The frame is entirely decoded before the decoder is given back to the pool.
+     */
+    private RenderedImage readFrameWithDecoderPool(int frameIndex, ImageReadParam param) throws IOException {
+        FrameDecoder decoder = borrowFrameDecoder();
+        boolean reusable = false;
+        try {
+            ImageInputStreamImpl siis = buildSegmentedImageInputStream(decoder.stream, frameIndex);
+            decoder.reader.setInput(patchJpegLS != null ? new PatchJPEGLSImageInputStream(siis, patchJpegLS) : siis);
+            BufferedImage bi = decoder.reader.read(0, decompressParam(decoder.reader, param));
+            reusable = true;
+            return bi;
+        } finally {
+            releaseFrameDecoder(decoder, reusable);
+        }
+    }
+
+    private FrameDecoder borrowFrameDecoder() throws IOException {
+        synchronized (frameDecoders) {
+            FrameDecoder decoder = frameDecoders.pollFirst();
+            if (decoder != null) {
+                return decoder;
+            }
+        }
+        ImageReaderFactory.ImageReaderItem readerItem = ImageReaderFactory.getImageReader(tsuid);
+        if (readerItem == null) {
+            throw new IOException("Unsupported Transfer Syntax: " + tsuid); //$NON-NLS-1$
+        }
+        ImageInputStream stream = ImageIO.createImageInputStream(new File(uri));
+        if (stream == null) {
+            throw new IOException("Cannot open the stream of " + uri); //$NON-NLS-1$
+        }
+        return new FrameDecoder(readerItem.getImageReader(), stream, decoderGeneration.get());
+    }
+
+    private void releaseFrameDecoder(FrameDecoder decoder, boolean reusable) {
+        if (reusable && decoder.generation == decoderGeneration.get()) {
+            synchronized (frameDecoders) {
+                if (frameDecoders.size() < MAX_FRAME_DECODERS) {
+                    frameDecoders.addLast(decoder);
+                    return;
+                }
+            }
+        }
+        decoder.dispose();
+    }
+
+    private void disposeFrameDecoders() {
+        // The decoders in use will be disposed when released
+        decoderGeneration.incrementAndGet();
+        synchronized (frameDecoders) {
+            frameDecoders.forEach(FrameDecoder::dispose);
+            frameDecoders.clear();
+        }
+    }
+
+    private static class FrameDecoder {
+        private final ImageReader reader;
+        private final ImageInputStream stream;
+        private final int generation;
+
+        FrameDecoder(ImageReader reader, ImageInputStream stream, int generation) {
+            this.reader = reader;
+            this.stream = stream;
+            this.generation = generation;
+        }
+
+        void dispose() {
+            reader.dispose();
+            FileUtil.safeClose(stream);
+        }
+    }
+
     private BufferedImage convertSubSambledAndYBR(int frameIndex, ImageReadParam param) throws IOException {
         // TODO improve this
         WritableRaster raster = (WritableRaster) readRaster(frameIndex, param);
@@ -1275,6 +1368,25 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
         this.skipLargePrivate = skipLargePrivate;
     }
 
+    /**
+     * Sets the header which has been read when writing the source file, so it is not parsed again. The bulk data of the
+     * header must be referenced by their offset in the source file, as when reading the file.
+     *
+     * @param header
+     *            the file meta information and the attributes
+     */
+    public synchronized void setHeader(DicomMetaData header) {
+        if (header == null || dcmMetadata != null || HEADER_CACHE.get(this) != null) {
+            return;
+        }
+        Attributes ds = header.getAttributes();
+        if (getPixelData(ds) != null) {
+            numberOfFrame = ds.getInt(Tag.NumberOfFrames, 1);
+            hasPixel = ds.getInt(Tag.BitsStored, ds.getInt(Tag.BitsAllocated, 0)) > 0;
+        }
+        HEADER_CACHE.put(this, header);
+    }
+
     @Override
     public Attributes getDicomObject() {
         try {
@@ -1338,6 +1450,7 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
             decompressor.dispose();
             decompressor = null;
         }
+        disposeFrameDecoders();
         patchJpegLS = null;
     }
 
@@ -1416,28 +1529,30 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
             if (header != null && tsuid != null) {
                 return header;
             }
-            iis.seek(0L);
-            dis = new DicomInputStream(new ImageInputStreamAdapter(iis));
-            dis.setIncludeBulkData(IncludeBulkData.URI);
-            dis.setBulkDataDescriptor(DicomCodec.BULKDATA_DESCRIPTOR);
-            // avoid a copy of pixeldata into temporary file
-            dis.setURI(uri.toString());
-            Attributes fmi = dis.readFileMetaInformation();
-            Attributes ds = dis.readDataset(-1, -1);
-            if (fmi == null) {
-                fmi = ds.createFileMetaInformation(dis.getTransferSyntax());
-            }
-            DicomMetaData metadata = new DicomMetaData(fmi, ds);
-            Object pixdata = ds.getValue(Tag.PixelData, pixeldataVR);
-            if (pixdata == null) {
-                pixdata = ds.getValue(Tag.FloatPixelData, pixeldataVR);
-            }
-            if (pixdata == null) {
-                pixdata = ds.getValue(Tag.DoubleFloatPixelData, pixeldataVR);
+
+            // The bulk data of the cached header refer to the file, so the variables are initialized from it
+            String ts = getTransferSyntax(header);
+            DicomMetaData metadata = header;
+            if (ts == null) {
+                iis.seek(0L);
+                dis = new DicomInputStream(new ImageInputStreamAdapter(iis));
+                dis.setIncludeBulkData(IncludeBulkData.URI);
+                dis.setBulkDataDescriptor(DicomCodec.BULKDATA_DESCRIPTOR);
+                // avoid a copy of pixeldata into temporary file
+                dis.setURI(uri.toString());
+                Attributes fmi = dis.readFileMetaInformation();
+                Attributes ds = dis.readDataset(-1, -1);
+                if (fmi == null) {
+                    fmi = ds.createFileMetaInformation(dis.getTransferSyntax());
+                }
+                metadata = new DicomMetaData(fmi, ds);
+                ts = dis.getTransferSyntax();
             }
+            Attributes ds = metadata.getAttributes();
+            Object pixdata = getPixelData(ds);
 
             if (pixdata != null) {
-                tsuid = dis.getTransferSyntax();
+                tsuid = ts;
                 numberOfFrame = ds.getInt(Tag.NumberOfFrames, 1);
                 hasPixel = ds.getInt(Tag.BitsStored, ds.getInt(Tag.BitsAllocated, 0)) > 0;
 
@@ -1482,6 +1597,24 @@ public class DicomMediaIO extends ImageReader implements DcmMediaReader {
         }
     }
 
+    private static String getTransferSyntax(DicomMetaData header) {
+        if (header == null || header.getFileMetaInformation() == null) {
+            return null;
+        }
+        return header.getFileMetaInformation().getString(Tag.TransferSyntaxUID);
+    }
+
+    private Object getPixelData(Attributes ds) {
+        Object pixdata = ds.getValue(Tag.PixelData, pixeldataVR);
+        if (pixdata == null) {
+            pixdata = ds.getValue(Tag.FloatPixelData, pixeldataVR);
+        }
+        if (pixdata == null) {
+            pixdata = ds.getValue(Tag.DoubleFloatPixelData, pixeldataVR);
+        }
+        return pixdata;
+    }
+
     private SampleModel createSampleModel(int dataType, boolean banded) {
         return pmi.createSampleModel(dataType, TagD.getTagValue(this, Tag.Columns, Integer.class),
             TagD.getTagValue(this, Tag.Rows, Integer.class), TagD.getTagValue(this, Tag.SamplesPerPixel, Integer.class),
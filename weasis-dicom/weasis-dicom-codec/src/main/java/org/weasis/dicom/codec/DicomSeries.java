@@ -10,10 +10,17 @@
  *******************************************************************************/
 package org.weasis.dicom.codec;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.media.jai.PlanarImage;
 
@@ -24,6 +31,8 @@ import org.weasis.core.api.explorer.ObservableEvent;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.gui.util.Filter;
 import org.weasis.core.api.gui.util.MathUtil;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.api.media.data.ImageLoader;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SeriesEvent;
 import org.weasis.core.api.media.data.TagView;
@@ -40,6 +49,23 @@ public class DicomSeries extends Series<DicomImageElement> {
 
     private static volatile PreloadingTask preloadingTask;
 
+    private static final int MAX_POSITION_INDEXES = 8;
+
+    // Cache of the slice positions by filter and comparator, guarded by the series lock
+    private final Map<PositionIndexKey, SlicePositionIndex> positionIndexes =
+        new LinkedHashMap<PositionIndexKey, SlicePositionIndex>(16, 0.75f, true) {
+            private static final long serialVersionUID = -5392402893720498329L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PositionIndexKey, SlicePositionIndex> eldest) {
+                return size() > MAX_POSITION_INDEXES;
+            }
+        };
+
+    // State in memory of the images by position, updated by the events of the cache and rebuilt when the series changes
+    private volatile InMemoryState inMemoryState;
+    private final AtomicLong cacheEvents = new AtomicLong();
+
     public DicomSeries(String subseriesInstanceUID) {
         this(subseriesInstanceUID, null, defaultTagView);
     }
@@ -48,17 +74,44 @@ public class DicomSeries extends Series<DicomImageElement> {
         super(TagD.getUID(Level.SERIES), subseriesInstanceUID, displayTag, c, SortSeriesStack.instanceNumber);
     }
 
+    /**
+     * @return the state in memory of each image of the series. Does not lock the series or the cache when the series
+     *         has not changed since the last call.
+     */
     public boolean[] getImageInMemoryList() {
-        boolean[] list;
-        synchronized (this) {
-            list = new boolean[medias.size()];
-            for (int i = 0; i < medias.size(); i++) {
-                if (medias.get(i).isImageInCache()) {
-                    list[i] = true;
+        InMemoryState state = getInMemoryState();
+        boolean[] list = new boolean[state.size()];
+        for (int i = 0; i < list.length; i++) {
+            list[i] = state.get(i);
+        }
+        return list;
+    }
+
+    private InMemoryState getInMemoryState() {
+        InMemoryState state = inMemoryState;
+        if (state == null) {
+            synchronized (this) {
+                state = inMemoryState;
+                while (state == null) {
+                    long version = cacheEvents.get();
+                    state = new InMemoryState(medias, this::cacheStateChanged);
+                    inMemoryState = state;
+                    if (version != cacheEvents.get()) {
+                        // An image has been loaded or evicted while reading the states, read them again
+                        state = null;
+                    }
                 }
             }
         }
-        return list;
+        return state;
+    }
+
+    private void cacheStateChanged(ImageElement image, boolean inCache) {
+        cacheEvents.incrementAndGet();
+        InMemoryState state = inMemoryState;
+        if (state != null) {
+            state.set(image, inCache);
+        }
     }
 
     @Override
@@ -133,62 +186,57 @@ public class DicomSeries extends Series<DicomImageElement> {
     }
 
     @Override
-    public DicomImageElement getNearestImage(double location, int offset, Filter<DicomImageElement> filter,
+    protected void resetSortedMediasMap() {
+        super.resetSortedMediasMap();
+        clearPositionStates();
+    }
+
+    @Override
+    protected void mediasAdded() {
+        clearPositionStates();
+    }
+
+    private synchronized void clearPositionStates() {
+        positionIndexes.clear();
+        inMemoryState = null;
+    }
+
+    /**
+     * Returns the slice positions of the images sorted for a binary search. The index is cached for the pair of filter
+     * and comparator until the series changes. The filters are compared by reference, so a filter which selects other
+     * images must be a new instance.
+     */
+    private SlicePositionIndex getSlicePositionIndex(Filter<DicomImageElement> filter,
         Comparator<DicomImageElement> sort) {
         Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
-        DicomImageElement nearest = null;
-        int index = 0;
-        int bestIndex = -1;
         synchronized (this) {
-            double bestDiff = Double.MAX_VALUE;
-            for (Iterator<DicomImageElement> iter = mediaList.iterator(); iter.hasNext();) {
-                DicomImageElement dcm = iter.next();
-                double[] val = (double[]) dcm.getTagValue(TagW.SlicePosition);
-                if (val != null) {
-                    double diff = Math.abs(location - (val[0] + val[1] + val[2]));
-                    if (diff < bestDiff) {
-                        bestDiff = diff;
-                        nearest = dcm;
-                        bestIndex = index;
-                        if (MathUtil.isEqualToZero(diff)) {
-                            break;
-                        }
-                    }
-                }
-                index++;
+            PositionIndexKey key = new PositionIndexKey(filter, sort);
+            SlicePositionIndex index = positionIndexes.get(key);
+            if (index == null) {
+                index = new SlicePositionIndex(mediaList);
+                positionIndexes.put(key, index);
             }
+            return index;
         }
+    }
+
+    @Override
+    public DicomImageElement getNearestImage(double location, int offset, Filter<DicomImageElement> filter,
+        Comparator<DicomImageElement> sort) {
+        SlicePositionIndex index = getSlicePositionIndex(filter, sort);
+        int k = index.getNearest(location);
         if (offset > 0) {
-            return getMedia(bestIndex + offset, filter, sort);
+            return getMedia((k < 0 ? -1 : index.getIndex(k)) + offset, filter, sort);
         }
-        return nearest;
+        return k < 0 ? null : index.getImage(k);
     }
 
     @Override
     public int getNearestImageIndex(double location, int offset, Filter<DicomImageElement> filter,
         Comparator<DicomImageElement> sort) {
-        Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
-        int index = 0;
-        int bestIndex = -1;
-        synchronized (this) {
-            double bestDiff = Double.MAX_VALUE;
-            for (Iterator<DicomImageElement> iter = mediaList.iterator(); iter.hasNext();) {
-                DicomImageElement dcm = iter.next();
-                double[] val = (double[]) dcm.getTagValue(TagW.SlicePosition);
-                if (val != null) {
-                    double diff = Math.abs(location - (val[0] + val[1] + val[2]));
-                    if (diff < bestDiff) {
-                        bestDiff = diff;
-                        bestIndex = index;
-                        if (MathUtil.isEqualToZero(diff)) {
-                            break;
-                        }
-                    }
-                }
-                index++;
-            }
-        }
-
+        SlicePositionIndex index = getSlicePositionIndex(filter, sort);
+        int k = index.getNearest(location);
+        int bestIndex = k < 0 ? -1 : index.getIndex(k);
         return (offset > 0) ? (bestIndex + offset) : bestIndex;
     }
 
@@ -213,6 +261,8 @@ public class DicomSeries extends Series<DicomImageElement> {
             if (moribund != null) {
                 moribund.setPreloading(false);
                 moribund.interrupt();
+                // Remove the images of this series waiting in the queue of the decoders
+                ImageLoader.getInstance().cancelGroup(series);
             }
         }
     }
@@ -270,7 +320,7 @@ public class DicomSeries extends Series<DicomImageElement> {
                 Boolean cache = (Boolean) img.getTagValue(TagW.ImageCache);
                 if (cache == null || !cache) {
                     long start = System.currentTimeMillis();
-                    PlanarImage i = img.getImage();
+                    PlanarImage i = img.getImage(null, true, ImageLoader.Priority.PRELOADING);
                     if (i != null) {
                         int tymin = i.getMinTileY();
                         int tymax = i.getMaxTileY();
@@ -323,18 +373,218 @@ public class DicomSeries extends Series<DicomImageElement> {
                     if (ajustSize > size) {
                         ajustSize = size;
                     }
-                    for (int i = start; i < ajustSize; i++) {
-                        loadArrays(imageList.get(i), model);
-                    }
+                    loadImages(imageList.subList(start, Math.max(start, ajustSize)), model);
                 } else {
                     if (imgSize > heapFreeSize) {
                         freeMemory();
                     }
-                    for (DicomImageElement img : imageList) {
-                        loadArrays(img, model);
+                    loadImages(imageList, model);
+                }
+            }
+        }
+
+        private void loadImages(List<DicomImageElement> images, DataExplorerModel model) {
+            // Keep all the decoders busy, the images to display are still decoded first by the ImageLoader. The tasks
+            // are grouped by series for being cancelled by stopPreloading().
+            ImageLoader loader = ImageLoader.getInstance();
+            for (DicomImageElement img : images) {
+                if (!preloading) {
+                    return;
+                }
+                loader.submit(() -> {
+                    loadArrays(img, model);
+                    return null;
+                }, ImageLoader.Priority.PRELOADING, null, series);
+            }
+        }
+    }
+
+    private static final class PositionIndexKey {
+        private final Filter<DicomImageElement> filter;
+        private final Comparator<DicomImageElement> sort;
+
+        PositionIndexKey(Filter<DicomImageElement> filter, Comparator<DicomImageElement> sort) {
+            this.filter = filter;
+            this.sort = sort;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(filter) + Objects.hashCode(sort);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PositionIndexKey)) {
+                return false;
+            }
+            PositionIndexKey other = (PositionIndexKey) obj;
+            return Objects.equals(filter, other.filter) && Objects.equals(sort, other.sort);
+        }
+    }
+
+    /**
+     * Slice positions (sum of the components of TagW.SlicePosition) in ascending order with the index of the image in
+     * the list. The images without position are not in the index but they are counted in the list.
+     */
+    static final class SlicePositionIndex {
+        private final double[] positions;
+        private final int[] indexes;
+        private final DicomImageElement[] images;
+
+        SlicePositionIndex(Iterable<DicomImageElement> mediaList) {
+            List<DicomImageElement> list = new ArrayList<>();
+            List<Integer> listIndexes = new ArrayList<>();
+            List<Double> listPositions = new ArrayList<>();
+            int index = 0;
+            for (DicomImageElement dcm : mediaList) {
+                double[] val = (double[]) dcm.getTagValue(TagW.SlicePosition);
+                if (val != null) {
+                    double pos = val[0] + val[1] + val[2];
+                    if (!Double.isNaN(pos)) {
+                        list.add(dcm);
+                        listIndexes.add(index);
+                        listPositions.add(pos);
                     }
                 }
+                index++;
+            }
+
+            Integer[] order = new Integer[list.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            // Sort by position and then by index in the list
+            Arrays.sort(order, Comparator.comparingDouble((Integer i) -> listPositions.get(i))
+                .thenComparingInt(i -> listIndexes.get(i)));
+
+            this.positions = new double[order.length];
+            this.indexes = new int[order.length];
+            this.images = new DicomImageElement[order.length];
+            for (int i = 0; i < order.length; i++) {
+                positions[i] = listPositions.get(order[i]);
+                indexes[i] = listIndexes.get(order[i]);
+                images[i] = list.get(order[i]);
             }
         }
+
+        int getIndex(int k) {
+            return indexes[k];
+        }
+
+        DicomImageElement getImage(int k) {
+            return images[k];
+        }
+
+        /**
+         * @return the first index where the position is greater or equal (or strictly greater) than the value
+         */
+        private int lowerBound(double value, boolean strict) {
+            int low = 0;
+            int high = positions.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (positions[mid] < value || (strict && positions[mid] == value)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Finds the nearest slice. Like a scan of the list, the first image of the list is returned when several
+         * images have the same distance and the first image at the location (within epsilon) wins.
+         *
+         * @return the position in the index of the nearest image or -1 if no image has a position
+         */
+        int getNearest(double location) {
+            int n = positions.length;
+            if (n == 0) {
+                return -1;
+            }
+            int best = -1;
+            for (int k = lowerBound(location - MathUtil.DOUBLE_EPSILON, true); k < n
+                && positions[k] < location + MathUtil.DOUBLE_EPSILON; k++) {
+                if (MathUtil.isEqualToZero(location - positions[k]) && (best < 0 || indexes[k] < indexes[best])) {
+                    best = k;
+                }
+            }
+            if (best >= 0) {
+                return best;
+            }
+
+            int above = lowerBound(location, false);
+            // First entry of the group of the position below, which has the lowest index in the list
+            int below = above > 0 ? lowerBound(positions[above - 1], false) : -1;
+            if (below < 0) {
+                return above;
+            }
+            if (above >= n) {
+                return below;
+            }
+            double diffBelow = Math.abs(location - positions[below]);
+            double diffAbove = Math.abs(location - positions[above]);
+            if (diffBelow < diffAbove) {
+                return below;
+            } else if (diffAbove < diffBelow) {
+                return above;
+            }
+            return indexes[below] < indexes[above] ? below : above;
+        }
+    }
+
+    /**
+     * Bitmap of the images in memory by position in the series. The bits are set from the threads loading or evicting
+     * the images and can be read without lock.
+     */
+    private static final class InMemoryState {
+        private final Map<ImageElement, Integer> positions;
+        private final AtomicLongArray bits;
+        private final int size;
+
+        InMemoryState(List<DicomImageElement> list, ImageElement.CacheStateListener listener) {
+            this.size = list.size();
+            this.positions = new IdentityHashMap<>(size * 2);
+            this.bits = new AtomicLongArray((size + 63) >>> 6);
+            for (int i = 0; i < size; i++) {
+                DicomImageElement img = list.get(i);
+                positions.put(img, i);
+                img.setCacheStateListener(listener);
+                if (img.isImageInCache()) {
+                    setBit(i, true);
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean get(int index) {
+            return (bits.get(index >>> 6) & (1L << index)) != 0;
+        }
+
+        void set(ImageElement image, boolean inMemory) {
+            Integer index = positions.get(image);
+            if (index != null) {
+                setBit(index, inMemory);
+            }
+        }
+
+        private void setBit(int index, boolean value) {
+            int word = index >>> 6;
+            long mask = 1L << index;
+            long prev;
+            long next;
+            do {
+                prev = bits.get(word);
+                next = value ? prev | mask : prev & ~mask;
+            } while (prev != next && !bits.compareAndSet(word, prev, next));
+        }
     }
 }
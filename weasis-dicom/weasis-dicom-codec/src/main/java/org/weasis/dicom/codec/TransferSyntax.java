@@ -106,5 +106,16 @@ public enum TransferSyntax {
         return NONE;
     }
 
+    /**
+     * @param tsuid
+     *            the transfer syntax UID
+     * @return true if the data is compressed (encapsulated pixel data or deflated dataset), false for the native
+     *         transfer syntaxes or an unknown value
+     */
+    public static boolean isCompressed(String tsuid) {
+        return tsuid != null && !IMPLICIT_VR.transferSyntaxUID.equals(tsuid)
+            && !EXPLICIT_VR_LE.transferSyntaxUID.equals(tsuid) && !EXPLICIT_VR_BE.transferSyntaxUID.equals(tsuid);
+    }
+
 
 }
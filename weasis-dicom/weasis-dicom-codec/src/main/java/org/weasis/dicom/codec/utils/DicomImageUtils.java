@@ -194,6 +194,53 @@ public class DicomImageUtils {
             new LookupTableJAI((short[]) outLut, minInValue, !outputSigned);
     }
 
+    /**
+     * Composes lookup tables applied one after the other into a single 8-bit table covering the whole range of the
+     * source data type. The input values out of the range of a table are clamped to its first or last entry.
+     *
+     * @param dataType
+     *            the data type of the source image (TYPE_BYTE, TYPE_USHORT or TYPE_SHORT)
+     * @param luts
+     *            the single band lookup tables in the order of application (null values are ignored)
+     * @return the 8 bits unsigned lookup table or null if the data type or one of the tables is not supported
+     */
+    public static LookupTableJAI createCombinedLut(int dataType, LookupTableJAI... luts) {
+        int minInValue;
+        int numEntries;
+        if (dataType == DataBuffer.TYPE_BYTE) {
+            minInValue = 0;
+            numEntries = 256;
+        } else if (dataType == DataBuffer.TYPE_USHORT) {
+            minInValue = 0;
+            numEntries = 65536;
+        } else if (dataType == DataBuffer.TYPE_SHORT) {
+            minInValue = Short.MIN_VALUE;
+            numEntries = 65536;
+        } else {
+            return null;
+        }
+        for (LookupTableJAI lut : luts) {
+            if (lut != null && (lut.getNumBands() != 1 || lut.getDataType() > DataBuffer.TYPE_SHORT)) {
+                return null;
+            }
+        }
+
+        byte[] outLut = new byte[numEntries];
+        for (int i = 0; i < numEntries; i++) {
+            int value = i + minInValue;
+            for (LookupTableJAI lut : luts) {
+                if (lut != null) {
+                    int index = value - lut.getOffset(0);
+                    int last = lut.getNumEntries() - 1;
+                    index = index < 0 ? 0 : index > last ? last : index;
+                    value = lut.getData().getElem(0, index);
+                }
+            }
+            outLut[i] = (byte) (value < 0 ? 0 : value > 255 ? 255 : value);
+        }
+        return new LookupTableJAI(outLut, minInValue);
+    }
+
     /**
      * Apply the pixel padding to the modality LUT
      *
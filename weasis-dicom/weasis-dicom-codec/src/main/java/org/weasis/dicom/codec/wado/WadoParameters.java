@@ -31,6 +31,7 @@ public class WadoParameters {
     public static final String TAG_WADO_OVERRIDE_TAGS = "overrideDicomTagsList"; //$NON-NLS-1$
     public static final String TAG_WADO_WEB_LOGIN = "webLogin"; //$NON-NLS-1$
     public static final String TAG_HTTP_TAG = "httpTag"; //$NON-NLS-1$
+    public static final String TAG_WADO_RS_URL = "wadoRsURL"; //$NON-NLS-1$
 
     private final String wadoURL;
     private final boolean requireOnlySOPInstanceUID;
@@ -39,6 +40,7 @@ public class WadoParameters {
     private final String overrideDicomTagsList;
     private final String webLogin;
     private final List<WadoParameters.HttpTag> httpTaglist;
+    private String wadoRsURL;
 
     public WadoParameters(String wadoURL, boolean requireOnlySOPInstanceUID, String additionnalParameters,
         String overrideDicomTagsList, String webLogin) {
@@ -92,6 +94,18 @@ public class WadoParameters {
         return wadoURL;
     }
 
+    /**
+     * @return the base URL of the WADO-RS service (e.g. http://server/dcm4chee-arc/aets/DCM4CHEE/rs) or null when the
+     *         instances must be retrieved with WADO-URI
+     */
+    public String getWadoRsURL() {
+        return wadoRsURL;
+    }
+
+    public void setWadoRsURL(String wadoRsURL) {
+        this.wadoRsURL = StringUtil.hasText(wadoRsURL) ? wadoRsURL.trim() : null;
+    }
+
     public boolean isRequireOnlySOPInstanceUID() {
         return requireOnlySOPInstanceUID;
     }
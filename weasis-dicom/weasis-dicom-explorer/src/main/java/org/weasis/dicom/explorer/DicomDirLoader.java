@@ -17,8 +17,12 @@ import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
@@ -60,14 +64,38 @@ public class DicomDirLoader {
     private final WadoParameters wadoParameters;
     private final boolean writeInCache;
     private final File dcmDirFile;
+    private final ZipFile archive;
+    private final String archivePrefix;
 
     public DicomDirLoader(File dcmDirFile, DataExplorerModel explorerModel, boolean writeInCache) {
+        this(dcmDirFile, explorerModel, writeInCache, null, null);
+    }
+
+    /**
+     * Loader of a DICOMDIR extracted from an archive. The referenced files are resolved as entries of the archive.
+     *
+     * @param dcmDirFile
+     *            the DICOMDIR extracted from the archive
+     * @param explorerModel
+     *            the DICOM model
+     * @param writeInCache
+     *            if true, writes the files in the cache
+     * @param archive
+     *            the ZIP archive containing the files referenced by the DICOMDIR, it must remain opened while reading
+     *            the DICOMDIR
+     * @param archivePrefix
+     *            the path of the folder containing the DICOMDIR in the archive (empty or ending with '/')
+     */
+    public DicomDirLoader(File dcmDirFile, DataExplorerModel explorerModel, boolean writeInCache, ZipFile archive,
+        String archivePrefix) {
         if (dcmDirFile == null || !dcmDirFile.canRead() || !(explorerModel instanceof DicomModel)) {
             throw new IllegalArgumentException("invalid parameters"); //$NON-NLS-1$
         }
         this.dicomModel = (DicomModel) explorerModel;
         this.writeInCache = writeInCache;
         this.dcmDirFile = dcmDirFile;
+        this.archive = archive;
+        this.archivePrefix = archivePrefix == null ? "" : archivePrefix; //$NON-NLS-1$
         wadoParameters = new WadoParameters("", true, "", null, null); //$NON-NLS-1$ //$NON-NLS-2$
         seriesList = new ArrayList<>();
 
@@ -202,20 +230,16 @@ public class DicomDirLoader {
                         if (dicomInstances.contains(dcmInstance)) {
                             LOGGER.warn("DICOM instance {} already exists, abort downloading.", sopInstanceUID); //$NON-NLS-1$
                         } else {
-                            File file = toFileName(instance, reader);
-                            if (file != null) {
-                                if (file.exists()) {
-                                    dcmInstance.setInstanceNumber(
-                                        DicomMediaUtils.getIntegerFromDicomElement(instance, Tag.InstanceNumber, -1));
-                                    dcmInstance.setDirectDownloadFile(file.toURI().toString());
-                                    dicomInstances.add(dcmInstance);
-                                    if (iconInstance == null) {
-                                        // Icon Image Sequence (0088,0200). This Icon Image is representative of the
-                                        // Image. Only a single Item is permitted in this Sequence.
-                                        iconInstance = instance.getNestedDataset(Tag.IconImageSequence);
-                                    }
-                                } else {
-                                    LOGGER.error("Missing DICOMDIR entry: {}", file.getPath()); //$NON-NLS-1$
+                            String uri = toDirectDownloadFile(instance, reader);
+                            if (uri != null) {
+                                dcmInstance.setInstanceNumber(
+                                    DicomMediaUtils.getIntegerFromDicomElement(instance, Tag.InstanceNumber, -1));
+                                dcmInstance.setDirectDownloadFile(uri);
+                                dicomInstances.add(dcmInstance);
+                                if (iconInstance == null) {
+                                    // Icon Image Sequence (0088,0200). This Icon Image is representative of the
+                                    // Image. Only a single Item is permitted in this Sequence.
+                                    iconInstance = instance.getNestedDataset(Tag.IconImageSequence);
                                 }
                             }
                         }
@@ -306,6 +330,49 @@ public class DicomDirLoader {
         return null;
     }
 
+    private String toDirectDownloadFile(Attributes dcmObject, DicomDirReader reader) {
+        if (archive != null) {
+            return toArchiveEntry(dcmObject);
+        }
+        File file = toFileName(dcmObject, reader);
+        if (file != null) {
+            if (file.exists()) {
+                return file.toURI().toString();
+            }
+            LOGGER.error("Missing DICOMDIR entry: {}", file.getPath()); //$NON-NLS-1$
+        }
+        return null;
+    }
+
+    /**
+     * Builds the URL of the entry of the archive. The entry is streamed from the archive when loading the series, so
+     * the archive does not need to be extracted.
+     */
+    private String toArchiveEntry(Attributes dcmObject) {
+        String[] fileID = dcmObject.getStrings(Tag.ReferencedFileID);
+        if (fileID == null || fileID.length == 0) {
+            return null;
+        }
+        String path = archivePrefix + String.join("/", fileID); //$NON-NLS-1$
+        ZipEntry entry = archive.getEntry(path);
+        if (entry == null) {
+            // Same as for the files, the relative path can be in lower case
+            entry = archive.getEntry(path.toLowerCase());
+        }
+        if (entry == null || entry.isDirectory()) {
+            LOGGER.error("Missing DICOMDIR entry: {} in {}", path, archive.getName()); //$NON-NLS-1$
+            return null;
+        }
+        try {
+            // Encode the entry name as a URI path, the jar handler decodes it
+            String name = new URI(null, null, entry.getName(), null).getRawPath();
+            return "jar:" + new File(archive.getName()).toURI() + "!/" + name; //$NON-NLS-1$ //$NON-NLS-2$
+        } catch (URISyntaxException e) {
+            LOGGER.error("Invalid DICOMDIR entry: {}", path, e); //$NON-NLS-1$
+        }
+        return null;
+    }
+
     private File toFileName(Attributes dcmObject, DicomDirReader reader) {
         String[] fileID = dcmObject.getStrings(Tag.ReferencedFileID);
         if (fileID == null || fileID.length == 0) {
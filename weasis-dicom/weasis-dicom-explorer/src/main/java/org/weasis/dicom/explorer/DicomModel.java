@@ -56,6 +56,7 @@ import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.media.data.Thumbnail;
 import org.weasis.core.api.service.BundleTools;
 import org.weasis.core.api.util.GzipManager;
+import org.weasis.core.api.util.StringUtil;
 import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.docking.UIManager;
 import org.weasis.core.ui.editor.SeriesViewerFactory;
@@ -73,6 +74,7 @@ import org.weasis.dicom.codec.PRSpecialElement;
 import org.weasis.dicom.codec.RejectedKOSpecialElement;
 import org.weasis.dicom.codec.SortSeriesStack;
 import org.weasis.dicom.codec.TagD;
+import org.weasis.dicom.codec.TagD.Level;
 import org.weasis.dicom.codec.display.Modality;
 import org.weasis.dicom.codec.utils.SplittingModalityRules;
 import org.weasis.dicom.codec.utils.SplittingModalityRules.Rule;
@@ -85,7 +87,8 @@ import org.weasis.dicom.explorer.wado.LoadSeries;
 
 @org.osgi.service.component.annotations.Component(immediate = false, property = {
     CommandProcessor.COMMAND_SCOPE + "=dicom", CommandProcessor.COMMAND_FUNCTION + "=get",
-    CommandProcessor.COMMAND_FUNCTION + "=close" }, service = DicomModel.class)
+    CommandProcessor.COMMAND_FUNCTION + "=close", CommandProcessor.COMMAND_FUNCTION + "=export" },
+    service = DicomModel.class)
 public class DicomModel implements TreeModel, DataExplorerModel {
     private static final Logger LOGGER = LoggerFactory.getLogger(DicomModel.class);
 
@@ -103,6 +106,8 @@ public class DicomModel implements TreeModel, DataExplorerModel {
     private static final List<TreeModelNode> modelStructure = Arrays.asList(TreeModelNode.ROOT, patient, study, series);
 
     private final Tree<MediaSeriesGroup> model;
+    // Series of each study by SeriesInstanceUID (the split series share the same UID), guarded by the model lock
+    private final Map<MediaSeriesGroup, Map<String, List<Series<?>>>> seriesIndex = new HashMap<>();
     private PropertyChangeSupport propertyChange = null;
     private final SplittingRules splittingRules;
 
@@ -200,6 +205,16 @@ public class DicomModel implements TreeModel, DataExplorerModel {
     public void addHierarchyNode(MediaSeriesGroup root, MediaSeriesGroup leaf) {
         synchronized (model) {
             model.addLeaf(root, leaf);
+            if (leaf instanceof Series) {
+                String uid = TagD.getTagValue(leaf, Tag.SeriesInstanceUID, String.class);
+                if (uid != null) {
+                    List<Series<?>> list = seriesIndex.computeIfAbsent(root, k -> new HashMap<>())
+                        .computeIfAbsent(uid, k -> new ArrayList<>(1));
+                    if (!list.contains(leaf)) {
+                        list.add((Series<?>) leaf);
+                    }
+                }
+            }
         }
     }
 
@@ -208,11 +223,68 @@ public class DicomModel implements TreeModel, DataExplorerModel {
         synchronized (model) {
             Tree<MediaSeriesGroup> tree = model.getTree(root);
             if (tree != null) {
+                removeFromSeriesIndex(root, leaf);
                 tree.removeLeaf(leaf);
             }
         }
     }
 
+    private void removeFromSeriesIndex(MediaSeriesGroup parent, MediaSeriesGroup node) {
+        if (node instanceof Series) {
+            Map<String, List<Series<?>>> studyIndex = seriesIndex.get(parent);
+            String uid = TagD.getTagValue(node, Tag.SeriesInstanceUID, String.class);
+            if (studyIndex != null && uid != null) {
+                List<Series<?>> list = studyIndex.get(uid);
+                if (list != null && list.remove(node) && list.isEmpty()) {
+                    studyIndex.remove(uid);
+                }
+            }
+        } else if (seriesIndex.remove(node) == null) {
+            // Patient level: remove the index of its studies
+            for (MediaSeriesGroup st : getChildren(node)) {
+                seriesIndex.remove(st);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the SOPInstanceUID is already in the series or in the other series split from the same
+     * SeriesInstanceUID.
+     *
+     * @param study
+     *            the study of the series (can be null)
+     * @param dicomSeries
+     *            the series
+     * @param sopUID
+     *            the SOPInstanceUID to find
+     */
+    public boolean isSOPInstanceUIDExist(MediaSeriesGroup study, Series<?> dicomSeries, Object sopUID) {
+        TagW sopTag = TagD.getUID(Level.INSTANCE);
+        if (dicomSeries.hasMediaContains(sopTag, sopUID)) {
+            return true;
+        }
+        // Search in split Series, cannot use "has this series a SplitNumber" because splitting can be executed later
+        // for Dicom Video and other special Dicom
+        String uid = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
+        if (study != null && uid != null) {
+            List<Series<?>> splitSeries;
+            synchronized (model) {
+                Map<String, List<Series<?>>> studyIndex = seriesIndex.get(study);
+                List<Series<?>> list = studyIndex == null ? null : studyIndex.get(uid);
+                if (list == null) {
+                    return false;
+                }
+                splitSeries = new ArrayList<>(list);
+            }
+            for (Series<?> s : splitSeries) {
+                if (s != dicomSeries && s.hasMediaContains(sopTag, sopUID)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @Override
     public MediaSeriesGroup getParent(MediaSeriesGroup node, TreeModelNode modelNode) {
         if (node != null && modelNode != null) {
@@ -247,6 +319,7 @@ public class DicomModel implements TreeModel, DataExplorerModel {
                     }
                 }
             }
+            seriesIndex.clear();
         }
         model.clear();
     }
@@ -328,8 +401,9 @@ public class DicomModel implements TreeModel, DataExplorerModel {
                     }
                 }
                 // Force to sort the new merged media list
-                List sortedMedias = base.getSortedMedias(null);
-                Collections.sort(sortedMedias, SortSeriesStack.instanceNumber);
+                if (base instanceof Series) {
+                    ((Series) base).sort(SortSeriesStack.instanceNumber);
+                }
                 // update observer
                 this.firePropertyChange(
                     new ObservableEvent(ObservableEvent.BasicAction.REPLACE, DicomModel.this, base, base));
@@ -1066,6 +1140,88 @@ public class DicomModel implements TreeModel, DataExplorerModel {
         }
     }
 
+    public void export(String[] argv) throws IOException {
+        final String[] usage = { "Export DICOM images to JPEG, PNG or TIFF", //$NON-NLS-1$
+            "Usage: dicom:export -o DIR [-f FORMAT] [-q VALUE] [-r] (-a | ([-y UID]... [-s UID]...))", //$NON-NLS-1$
+            "  -o --output=DIR     export into this directory", //$NON-NLS-1$
+            "  -f --format=FORMAT  JPEG (default), PNG or TIFF", //$NON-NLS-1$
+            "  -q --quality=VALUE  JPEG quality between 0 and 100 (default is 80)", //$NON-NLS-1$
+            "  -r --raw            write the values without applying the window/level", //$NON-NLS-1$
+            "  -a --all            export all the patients", //$NON-NLS-1$
+            "  -y --study=UID      export a study, UID is Study Instance UID", //$NON-NLS-1$
+            "  -s --series=UID     export a series, UID is Series Instance UID", "  -? --help           show help" }; //$NON-NLS-1$ //$NON-NLS-2$
+        final Option opt = Options.compile(usage).parse(argv);
+        final List<String> yargs = opt.getList("study"); //$NON-NLS-1$
+        final List<String> sargs = opt.getList("series"); //$NON-NLS-1$
+        String format = getImageFormat(opt.get("format")); //$NON-NLS-1$
+
+        if (opt.isSet("help") || !opt.isSet("output") || format == null //$NON-NLS-1$ //$NON-NLS-2$
+            || (yargs.isEmpty() && sargs.isEmpty() && !opt.isSet("all"))) { //$NON-NLS-1$
+            opt.usage();
+            return;
+        }
+
+        File exportDir = new File(opt.get("output")); //$NON-NLS-1$
+        ImageExporter exporter =
+            new ImageExporter(format, StringUtil.getInteger(opt.get("quality"), 80), opt.isSet("raw")); //$NON-NLS-1$ //$NON-NLS-2$
+        for (MediaSeriesGroup group : getSeriesToExport(opt, yargs, sargs)) {
+            if (group instanceof DicomSeries) {
+                DicomSeries series = (DicomSeries) group;
+                List<DicomImageElement> images;
+                synchronized (series) {
+                    images = new ArrayList<>(series.getMedias(null, null));
+                }
+                for (DicomImageElement img : images) {
+                    File destinationDir = new File(exportDir, LocalExport.buildPath(img, false, null));
+                    destinationDir.mkdirs();
+                    String name = LocalExport.makeFileIDs(LocalExport.getinstanceFileName(img));
+                    exporter.add(img, new File(destinationDir, name + LocalExport.getExtension(format)), false);
+                }
+            }
+        }
+        try {
+            // Run in the thread of the command, so a script waits for the end of the export
+            System.out.println(exporter.export(() -> false));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String getImageFormat(String value) {
+        if (value == null) {
+            return LocalExport.EXPORT_FORMAT[2];
+        }
+        for (int i = 2; i < LocalExport.EXPORT_FORMAT.length; i++) {
+            if (LocalExport.EXPORT_FORMAT[i].equalsIgnoreCase(value)) {
+                return LocalExport.EXPORT_FORMAT[i];
+            }
+        }
+        return null;
+    }
+
+    private List<MediaSeriesGroup> getSeriesToExport(Option opt, List<String> yargs, List<String> sargs) {
+        List<MediaSeriesGroup> list = new ArrayList<>();
+        synchronized (model) {
+            for (MediaSeriesGroup ptGroup : model.getSuccessors(MediaSeriesGroupNode.rootNode)) {
+                for (MediaSeriesGroup stGroup : model.getSuccessors(ptGroup)) {
+                    boolean study =
+                        opt.isSet("all") || yargs.contains(stGroup.getTagValue(TagD.getUID(Level.STUDY))); //$NON-NLS-1$
+                    for (MediaSeriesGroup seGroup : model.getSuccessors(stGroup)) {
+                        String uid = TagD.getTagValue(seGroup, Tag.SeriesInstanceUID, String.class);
+                        if (uid != null && uid.startsWith("#")) { //$NON-NLS-1$
+                            // Include the split series
+                            uid = uid.substring(uid.indexOf('.') + 1);
+                        }
+                        if (study || sargs.contains(uid)) {
+                            list.add(seGroup);
+                        }
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
     private void findSeriesToRemove(String seriesUID) {
         for (MediaSeriesGroup ptGroup : model.getSuccessors(MediaSeriesGroupNode.rootNode)) {
             for (MediaSeriesGroup stGroup : model.getSuccessors(ptGroup)) {
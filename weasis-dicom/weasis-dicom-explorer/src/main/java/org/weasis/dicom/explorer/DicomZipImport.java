@@ -13,7 +13,10 @@ package org.weasis.dicom.explorer;
 import java.awt.FlowLayout;
 import java.io.File;
 import java.io.IOException;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
@@ -35,6 +38,7 @@ public class DicomZipImport extends AbstractItemDialogPage implements ImportDico
     private static final Logger LOGGER = LoggerFactory.getLogger(DicomZipImport.class);
 
     private static final String lastDICOMDIR = "lastDicomZip";//$NON-NLS-1$
+    private static final String DICOMDIR = "DICOMDIR"; //$NON-NLS-1$
 
     private File selectedFile;
     private JButton btnOpen;
@@ -106,30 +110,69 @@ public class DicomZipImport extends AbstractItemDialogPage implements ImportDico
         loadDicomZip(selectedFile, dicomModel);
     }
 
+    /**
+     * Loads the DICOM files of a ZIP archive without extracting the whole archive. When the archive contains a
+     * DICOMDIR, only the DICOMDIR is extracted and the referenced entries are streamed into the cache by the loader of
+     * each series. Otherwise, the entries are extracted and parsed in parallel while importing.
+     *
+     * @param file
+     *            the ZIP file
+     * @param dicomModel
+     *            the DICOM model
+     */
     public static void loadDicomZip(File file, DicomModel dicomModel) {
         if (file != null) {
             if (file.canRead()) {
-                File dir = FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "zip")); //$NON-NLS-1$ //$NON-NLS-2$
-                try {
-                    FileUtil.unzip(file, dir);
+                try (ZipFile zip = new ZipFile(file)) {
+                    ZipEntry dicomdirEntry = findDicomDir(zip);
+                    if (dicomdirEntry != null) {
+                        File dir =
+                            FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "zip")); //$NON-NLS-1$ //$NON-NLS-2$
+                        File dicomdir = new File(dir, "DICOMDIR"); //$NON-NLS-1$
+                        FileUtil.writeStreamWithIOException(zip.getInputStream(dicomdirEntry), dicomdir);
+                        String name = dicomdirEntry.getName();
+                        String prefix = name.substring(0, name.length() - DICOMDIR.length());
+                        DicomDirLoader dirImport = new DicomDirLoader(dicomdir, dicomModel, false, zip, prefix);
+                        List<LoadSeries> loadSeries = dirImport.readDicomDir();
+                        if (loadSeries != null && !loadSeries.isEmpty()) {
+                            DicomModel.LOADING_EXECUTOR.execute(new LoadDicomDir(loadSeries, dicomModel));
+                        } else {
+                            LOGGER.error("Cannot import DICOM from {}", file); //$NON-NLS-1$
+                        }
+                        return;
+                    }
                 } catch (IOException e) {
-                    LOGGER.error("", e); //$NON-NLS-1$
+                    LOGGER.error("Cannot read ZIP file {}", file, e); //$NON-NLS-1$
+                    return;
                 }
-                File dicomdir = new File(dir, "DICOMDIR"); //$NON-NLS-1$
-                if (dicomdir.canRead()) {
-                    DicomDirLoader dirImport = new DicomDirLoader(dicomdir, dicomModel, false); // $NON-NLS-1$
-                    List<LoadSeries> loadSeries = dirImport.readDicomDir();
-                    if (loadSeries != null && !loadSeries.isEmpty()) {
-                        DicomModel.LOADING_EXECUTOR.execute(new LoadDicomDir(loadSeries, dicomModel));
-                    } else {
-                        LOGGER.error("Cannot import DICOM from {}", file); //$NON-NLS-1$
-                    }
-                } else {
-                    LoadLocalDicom dicom = new LoadLocalDicom(new File[] { dir }, true, dicomModel);
-                    DicomModel.LOADING_EXECUTOR.execute(dicom);
+                LoadLocalDicom dicom = new LoadLocalDicom(file, dicomModel);
+                DicomModel.LOADING_EXECUTOR.execute(dicom);
+            }
+        }
+    }
+
+    /**
+     * @return the DICOMDIR at the root of the archive or in the less deep folder, null if there is no DICOMDIR
+     */
+    private static ZipEntry findDicomDir(ZipFile zip) {
+        ZipEntry dicomdir = zip.getEntry(DICOMDIR);
+        if (dicomdir != null) {
+            return dicomdir;
+        }
+        int depth = Integer.MAX_VALUE;
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName();
+            if (!entry.isDirectory() && name.endsWith("/" + DICOMDIR)) { //$NON-NLS-1$
+                int d = name.split("/").length; //$NON-NLS-1$
+                if (d < depth) {
+                    depth = d;
+                    dicomdir = entry;
                 }
             }
         }
+        return dicomdir;
     }
 
 }
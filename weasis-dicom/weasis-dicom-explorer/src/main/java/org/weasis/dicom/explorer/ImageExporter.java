@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.dicom.explorer;
+
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.image.util.ImageFiler;
+import org.weasis.core.api.media.data.MediaReader;
+import org.weasis.core.api.service.BundleTools;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.ui.serialize.XmlSerializer;
+import org.weasis.dicom.codec.DicomImageElement;
+
+/**
+ * Exports DICOM images to JPEG, PNG or TIFF with a pool of threads. Each thread decodes, applies the window/level and
+ * encodes an image.
+ * <p>
+ * The images sharing the same reader (the frames of a multiframe file) are exported one after the other by the same
+ * thread, because closing the stream of a frame closes the stream of the file. So the number of opened files is not
+ * greater than the number of threads.
+ */
+public class ImageExporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageExporter.class);
+
+    public static final String EXPORT_THREADS = "dicom.export.threads"; //$NON-NLS-1$
+
+    private final String format;
+    private final float jpegQuality;
+    private final boolean more8bits;
+    private final boolean binaryGraphics;
+    private final Map<MediaReader, List<Job>> jobs = new IdentityHashMap<>();
+    private final List<MediaReader> readers = new ArrayList<>();
+
+    /**
+     * @param format
+     *            one of the image formats of {@link LocalExport#EXPORT_FORMAT} (JPEG, PNG or TIFF)
+     * @param jpegQuality
+     *            the JPEG quality between 0 and 100
+     * @param more8bits
+     *            if true, writes the values of the image without applying the window/level
+     */
+    public ImageExporter(String format, int jpegQuality, boolean more8bits) {
+        this(format, jpegQuality, more8bits, false);
+    }
+
+    /**
+     * @param format
+     *            one of the image formats of {@link LocalExport#EXPORT_FORMAT} (JPEG, PNG or TIFF)
+     * @param jpegQuality
+     *            the JPEG quality between 0 and 100
+     * @param more8bits
+     *            if true, writes the values of the image without applying the window/level
+     * @param binaryGraphics
+     *            if true, writes the graphics in the compressed form (see {@link XmlSerializer#BINARY_EXTENSION})
+     *            instead of the XML form
+     */
+    public ImageExporter(String format, int jpegQuality, boolean more8bits, boolean binaryGraphics) {
+        this.format = format;
+        this.jpegQuality = jpegQuality / 100.0f;
+        this.more8bits = more8bits;
+        this.binaryGraphics = binaryGraphics;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Adds an image to export.
+     *
+     * @param img
+     *            the image
+     * @param destinationFile
+     *            the output file, the parent folder must exist
+     * @param writeGraphics
+     *            if true, writes the graphics of the image in a file next to the image (XML or compressed form)
+     */
+    public void add(DicomImageElement img, File destinationFile, boolean writeGraphics) {
+        MediaReader reader = img.getMediaReader();
+        List<Job> list = jobs.get(reader);
+        if (list == null) {
+            list = new ArrayList<>();
+            jobs.put(reader, list);
+            readers.add(reader);
+        }
+        list.add(new Job(img, destinationFile, writeGraphics));
+    }
+
+    public int size() {
+        return jobs.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Exports all the images which have been added and waits for the end of the export.
+     *
+     * @param cancelled
+     *            returns true when the export must be stopped
+     * @return the statistics of the export
+     * @throws InterruptedException
+     */
+    public Statistics export(BooleanSupplier cancelled) throws InterruptedException {
+        int nbThreads = Math.max(1, BundleTools.SYSTEM_PREFERENCES.getIntProperty(EXPORT_THREADS,
+            Runtime.getRuntime().availableProcessors()));
+        Statistics stats = new Statistics(nbThreads);
+        ExecutorService pool = ThreadUtil.buildNewFixedThreadExecutor(nbThreads, "Image Export"); //$NON-NLS-1$
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(readers.size());
+            for (MediaReader reader : readers) {
+                List<Job> list = jobs.get(reader);
+                futures.add(pool.submit(() -> {
+                    for (Job job : list) {
+                        if (cancelled.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        job.run(stats);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                if (cancelled.getAsBoolean()) {
+                    break;
+                }
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    LOGGER.error("Cannot export image", e.getCause()); //$NON-NLS-1$
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            stats.elapsed = System.nanoTime() - start;
+            jobs.clear();
+            readers.clear();
+        }
+        LOGGER.info("Export to {}: {}", format, stats); //$NON-NLS-1$
+        return stats;
+    }
+
+    private boolean write(File destinationFile, RenderedImage image) {
+        if (LocalExport.EXPORT_FORMAT[3].equals(format)) {
+            return ImageFiler.writePNG(destinationFile, image);
+        } else if (LocalExport.EXPORT_FORMAT[4].equals(format)) {
+            return ImageFiler.writeTIFF(destinationFile, image, false, false, false);
+        }
+        return ImageFiler.writeJPG(destinationFile, image, jpegQuality);
+    }
+
+    private class Job {
+        private final DicomImageElement img;
+        private final File destinationFile;
+        private final boolean writeGraphics;
+
+        Job(DicomImageElement img, File destinationFile, boolean writeGraphics) {
+            this.img = img;
+            this.destinationFile = destinationFile;
+            this.writeGraphics = writeGraphics;
+        }
+
+        void run(Statistics stats) {
+            try {
+                RenderedImage image = img.getImage(null);
+                if (image != null && !more8bits) {
+                    image = img.getRenderedImage(image);
+                }
+                if (image != null && write(destinationFile, image)) {
+                    if (writeGraphics) {
+                        XmlSerializer.writePresentation(img, destinationFile, binaryGraphics);
+                    }
+                    stats.images.incrementAndGet();
+                    stats.bytes.addAndGet(destinationFile.length());
+                } else {
+                    stats.failures.incrementAndGet();
+                    LOGGER.error("Cannot export DICOM file to {}: {}", format, //$NON-NLS-1$
+                        img.getFileCache().getOriginalFile());
+                }
+            } catch (RuntimeException e) {
+                // Continue with the next images of the same reader
+                stats.failures.incrementAndGet();
+                LOGGER.error("Cannot export DICOM file to {}: {}", format, //$NON-NLS-1$
+                    img.getFileCache().getOriginalFile(), e);
+            } finally {
+                // Prevent to many files open on Linux (Ubuntu => 1024) and close image stream
+                img.removeImageFromCache();
+            }
+        }
+    }
+
+    public static class Statistics {
+        private final int threads;
+        private final AtomicInteger images = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile long elapsed;
+
+        Statistics(int threads) {
+            this.threads = threads;
+        }
+
+        public int getImages() {
+            return images.get();
+        }
+
+        public int getFailures() {
+            return failures.get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsed);
+        }
+
+        public double getImagesPerSecond() {
+            return elapsed > 0 ? images.get() * 1.0E9 / elapsed : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsed / 1.0E9;
+            return String.format("%d images (%d failed), %d KB in %d ms with %d threads: %.1f images/s, %.1f MB/s", //$NON-NLS-1$
+                getImages(), getFailures(), getBytes() / 1024, getElapsedMillis(), threads, getImagesPerSecond(),
+                seconds > 0.0 ? getBytes() / (1024.0 * 1024.0) / seconds : 0.0);
+        }
+    }
+}
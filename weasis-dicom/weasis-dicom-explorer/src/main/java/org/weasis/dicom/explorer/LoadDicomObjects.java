@@ -188,7 +188,7 @@ public class LoadDicomObjects extends ExplorerTask<Boolean, String> {
                 }
             } else {
                 // Test if SOPInstanceUID already exists
-                if (isSOPInstanceUIDExist(study, dicomSeries, seriesUID,
+                if (dicomModel.isSOPInstanceUIDExist(study, dicomSeries,
                     TagD.getTagValue(dicomReader, Tag.SOPInstanceUID, String.class))) {
                     return null;
                 }
@@ -229,28 +229,4 @@ public class LoadDicomObjects extends ExplorerTask<Boolean, String> {
         }
         return thumb;
     }
-
-    private boolean isSOPInstanceUIDExist(MediaSeriesGroup study, Series dicomSeries, String seriesUID, Object sopUID) {
-        TagW sopTag = TagD.getUID(Level.INSTANCE);
-        if (dicomSeries.hasMediaContains(sopTag, sopUID)) {
-            return true;
-        }
-        Object splitNb = dicomSeries.getTagValue(TagW.SplitSeriesNumber);
-        if (splitNb != null && study != null) {
-            String uid = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
-            if (uid != null) {
-                for (MediaSeriesGroup group : dicomModel.getChildren(study)) {
-                    if (dicomSeries != group && group instanceof Series) {
-                        Series s = (Series) group;
-                        if (uid.equals(TagD.getTagValue(group, Tag.SeriesInstanceUID))) {
-                            if (s.hasMediaContains(sopTag, sopUID)) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return false;
-    }
 }
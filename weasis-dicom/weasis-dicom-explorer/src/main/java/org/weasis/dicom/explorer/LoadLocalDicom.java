@@ -11,15 +11,29 @@
 package org.weasis.dicom.explorer;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Iterator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.dcm4che3.data.Tag;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.ObservableEvent;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
+import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.media.MimeInspector;
 import org.weasis.core.api.media.data.MediaElement;
@@ -30,7 +44,9 @@ import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SeriesThumbnail;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.media.data.Thumbnail;
+import org.weasis.core.api.service.BundleTools;
 import org.weasis.core.api.util.FileUtil;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.docking.UIManager;
 import org.weasis.core.ui.editor.SeriesViewerFactory;
 import org.weasis.core.ui.editor.ViewerPluginBuilder;
@@ -45,11 +61,28 @@ import org.weasis.dicom.codec.TagD.Level;
 public class LoadLocalDicom extends ExplorerTask<Boolean, String> {
 
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(LoadLocalDicom.class);
+
+    public static final String IMPORT_THREADS = "dicom.import.threads"; //$NON-NLS-1$
+
+    private static final int QUEUE_CAPACITY = 256;
+    private static final int LISTING_THREADS = 4;
+    // Markers of the walk, compared by reference
+    private static final Future<DicomMediaIO> FOLDER_END = CompletableFuture.completedFuture(null);
+    private static final Future<DicomMediaIO> WALK_END = CompletableFuture.completedFuture(null);
+
     private final File[] files;
+    private final File archive;
     private final DicomModel dicomModel;
     private final boolean recursive;
     private boolean openPlugin;
 
+    private final AtomicLong walkedFiles = new AtomicLong();
+    private final AtomicLong parsedFiles = new AtomicLong();
+    private final AtomicLong insertedFiles = new AtomicLong();
+    private final AtomicLong walkTime = new AtomicLong();
+    private final AtomicLong parseTime = new AtomicLong();
+    private final AtomicLong insertTime = new AtomicLong();
+
     public LoadLocalDicom(File[] files, boolean recursive, DataExplorerModel explorerModel) {
         super(Messages.getString("DicomExplorer.loading"), false); //$NON-NLS-1$
         if (files == null || !(explorerModel instanceof DicomModel)) {
@@ -57,15 +90,40 @@ public class LoadLocalDicom extends ExplorerTask<Boolean, String> {
         }
         this.dicomModel = (DicomModel) explorerModel;
         this.files = files;
+        this.archive = null;
         this.recursive = recursive;
         this.openPlugin = true;
     }
 
+    /**
+     * Imports the DICOM files of a ZIP archive.
+     *
+     * @param archive
+     *            the ZIP file
+     * @param explorerModel
+     *            the DICOM model
+     */
+    public LoadLocalDicom(File archive, DataExplorerModel explorerModel) {
+        super(Messages.getString("DicomExplorer.loading"), false); //$NON-NLS-1$
+        if (archive == null || !(explorerModel instanceof DicomModel)) {
+            throw new IllegalArgumentException("invalid parameters"); //$NON-NLS-1$
+        }
+        this.dicomModel = (DicomModel) explorerModel;
+        this.files = null;
+        this.archive = archive;
+        this.recursive = true;
+        this.openPlugin = true;
+    }
+
     @Override
     protected Boolean doInBackground() throws Exception {
         dicomModel
             .firePropertyChange(new ObservableEvent(ObservableEvent.BasicAction.LOADING_START, dicomModel, null, this));
-        addSelectionAndnotify(files, true);
+        if (archive == null) {
+            addSelectionAndnotify(files, true);
+        } else {
+            addArchiveAndNotify(archive);
+        }
         return true;
     }
 
@@ -76,46 +134,246 @@ public class LoadLocalDicom extends ExplorerTask<Boolean, String> {
         LOGGER.info("End of loading DICOM locally"); //$NON-NLS-1$
     }
 
+    /**
+     * Imports the files with a pipeline of three stages: the folders are listed in parallel, the headers of the files
+     * are parsed by a pool of threads and the DICOM objects are inserted into the model by the current thread in the
+     * order of the walk. The number of parsed files waiting for insertion is bounded, so the walker blocks when the
+     * insertion cannot keep up.
+     */
     public void addSelectionAndnotify(File[] file, boolean firstLevel) {
         if (file == null || file.length < 1) {
             return;
         }
-        final ArrayList<SeriesThumbnail> thumbs = new ArrayList<>();
-        final ArrayList<File> folders = new ArrayList<>();
+        ExecutorService listers =
+            ThreadUtil.buildNewFixedThreadExecutor(LISTING_THREADS, "DICOM Import Lister"); //$NON-NLS-1$
+        try {
+            importFiles((parsers, queue) -> walk(file, firstLevel, parsers, listers, queue));
+        } finally {
+            listers.shutdownNow();
+        }
+    }
+
+    /**
+     * Imports the files of a ZIP archive without extracting the whole archive first. The entries are listed from the
+     * central directory and each entry is extracted and parsed by the pool of parsers, so the first series are
+     * displayed while the rest of the archive is still being read.
+     *
+     * @param zipFile
+     *            the ZIP archive
+     */
+    public void addArchiveAndNotify(File zipFile) {
+        File dir =
+            FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "zip")); //$NON-NLS-1$ //$NON-NLS-2$
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            importFiles((parsers, queue) -> walkArchive(zip, dir, parsers, queue));
+        } catch (IOException e) {
+            LOGGER.error("Cannot read ZIP file {}", zipFile, e); //$NON-NLS-1$
+        }
+    }
 
-        for (int i = 0; i < file.length; i++) {
+    private void importFiles(Walker walk) {
+        int nbThreads = Math.max(1, BundleTools.SYSTEM_PREFERENCES.getIntProperty(IMPORT_THREADS,
+            Runtime.getRuntime().availableProcessors()));
+        ExecutorService parsers =
+            ThreadUtil.buildNewFixedThreadExecutor(nbThreads, "DICOM Import Parser"); //$NON-NLS-1$
+        BlockingQueue<Future<DicomMediaIO>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        long start = System.nanoTime();
+
+        Thread walker = ThreadUtil.getThreadFactory("DICOM Import Walker").newThread(() -> { //$NON-NLS-1$
+            long walkStart = System.nanoTime();
+            try {
+                walk.walk(parsers, queue);
+            } catch (InterruptedException e) {
+                // Import cancelled
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Cannot list the files to import", e); //$NON-NLS-1$
+            } finally {
+                walkTime.addAndGet(System.nanoTime() - walkStart);
+                // Ends the insertion loop even when the walk has failed (not posted when cancelled, the flag is set)
+                try {
+                    queue.put(WALK_END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        walker.start();
+
+        final List<SeriesThumbnail> thumbs = new ArrayList<>();
+        try {
+            while (!isCancelled()) {
+                Future<DicomMediaIO> next = queue.take();
+                if (next == WALK_END) {
+                    break;
+                } else if (next == FOLDER_END) {
+                    rebuildThumbnails(thumbs);
+                    continue;
+                }
+                DicomMediaIO loader = getParsedFile(next);
+                if (loader != null && !isCancelled()) {
+                    long insertStart = System.nanoTime();
+                    // Issue: must handle adding image to viewer and building thumbnail (middle image)
+                    SeriesThumbnail t = buildDicomStructure(loader, openPlugin);
+                    if (t != null) {
+                        thumbs.add(t);
+                    }
+                    insertedFiles.incrementAndGet();
+                    insertTime.addAndGet(System.nanoTime() - insertStart);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.info("DICOM import has been cancelled"); //$NON-NLS-1$
+            Thread.currentThread().interrupt();
+        } finally {
+            walker.interrupt();
+            parsers.shutdownNow();
+            queue.clear();
+            logStatistics(System.nanoTime() - start, nbThreads);
+        }
+        if (walker.isAlive()) {
+            // The archive must not be closed while the walker is reading its entries
+            try {
+                walker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void walk(File[] entries, boolean firstLevel, ExecutorService parsers, ExecutorService listers,
+        BlockingQueue<Future<DicomMediaIO>> queue) throws InterruptedException {
+        List<Future<File[]>> folders = new ArrayList<>();
+        for (File f : entries) {
             if (isCancelled()) {
                 return;
             }
-
-            if (file[i] == null) {
+            if (f == null) {
                 continue;
-            } else if (file[i].isDirectory()) {
+            } else if (f.isDirectory()) {
                 if (firstLevel || recursive) {
-                    folders.add(file[i]);
+                    // Listing the folders in advance hides the latency of slow devices (CD, network share)
+                    folders.add(listers.submit(() -> f.listFiles()));
                 }
             } else {
-                if (file[i].canRead()) {
-                    if (FileUtil.isFileExtensionMatching(file[i], DicomCodec.FILE_EXTENSIONS)
-                        || MimeInspector.isMatchingMimeTypeFromMagicNumber(file[i], DicomMediaIO.MIMETYPE)) {
-                        DicomMediaIO loader = new DicomMediaIO(file[i]);
-                        if (loader.isReadableDicom()) {
-                            // Issue: must handle adding image to viewer and building thumbnail (middle image)
-                            SeriesThumbnail t = buildDicomStructure(loader, openPlugin);
-                            if (t != null) {
-                                thumbs.add(t);
-                            }
-
-                            File gpxFile = new File(file[i].getPath() + ".xml"); //$NON-NLS-1$
-                            GraphicModel graphicModel = XmlSerializer.readPresentationModel(gpxFile);
-                            if (graphicModel != null) {
-                                loader.setTag(TagW.PresentationModel, graphicModel);
-                            }
-                        }
+                walkedFiles.incrementAndGet();
+                // Blocks when too many files are waiting for insertion
+                queue.put(parsers.submit(() -> parse(f)));
+            }
+        }
+        queue.put(FOLDER_END);
+
+        for (Future<File[]> folder : folders) {
+            File[] children = null;
+            try {
+                children = folder.get();
+            } catch (ExecutionException e) {
+                LOGGER.error("Cannot list folder", e.getCause()); //$NON-NLS-1$
+            }
+            if (children != null && children.length > 0) {
+                walk(children, false, parsers, listers, queue);
+            }
+        }
+    }
+
+    private void walkArchive(ZipFile zip, File dir, ExecutorService parsers,
+        BlockingQueue<Future<DicomMediaIO>> queue) throws InterruptedException {
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            if (isCancelled()) {
+                return;
+            }
+            ZipEntry entry = entries.nextElement();
+            // The graphics are read with their DICOM file
+            if (!entry.isDirectory() && !entry.getName().endsWith(XmlSerializer.XML_EXTENSION)
+                && !entry.getName().endsWith(XmlSerializer.BINARY_EXTENSION)) {
+                walkedFiles.incrementAndGet();
+                queue.put(parsers.submit(() -> parseEntry(zip, entry, dir)));
+            }
+        }
+        queue.put(FOLDER_END);
+    }
+
+    private DicomMediaIO parseEntry(ZipFile zip, ZipEntry entry, File dir) throws IOException {
+        if (isCancelled()) {
+            return null;
+        }
+        long parseStart = System.nanoTime();
+        File file;
+        GraphicModel graphicModel;
+        try {
+            // Only the extension of the entry is kept, an entry cannot be written outside the folder
+            String name = entry.getName();
+            String ext = FileUtil.getExtension(name.substring(name.lastIndexOf('/') + 1));
+            file = File.createTempFile("zip_", ext, dir); //$NON-NLS-1$
+            try (InputStream in = zip.getInputStream(entry)) {
+                FileUtil.writeStreamWithIOException(in, file);
+            }
+            graphicModel = readGraphics(zip, entry.getName());
+        } finally {
+            parseTime.addAndGet(System.nanoTime() - parseStart);
+        }
+        DicomMediaIO loader = parse(file);
+        if (loader == null) {
+            // Not a DICOM file, release the disk space
+            FileUtil.delete(file);
+        } else if (graphicModel != null) {
+            loader.setTag(TagW.PresentationModel, graphicModel);
+        }
+        return loader;
+    }
+
+    private static GraphicModel readGraphics(ZipFile zip, String name) throws IOException {
+        // The graphics are read from the archive without being extracted
+        ZipEntry gpxEntry = zip.getEntry(name + XmlSerializer.XML_EXTENSION);
+        boolean binary = gpxEntry == null;
+        if (binary) {
+            gpxEntry = zip.getEntry(name + XmlSerializer.BINARY_EXTENSION);
+        }
+        if (gpxEntry != null) {
+            try (InputStream in = zip.getInputStream(gpxEntry)) {
+                return XmlSerializer.readPresentationModel(in, binary);
+            }
+        }
+        return null;
+    }
+
+    private DicomMediaIO parse(File file) {
+        if (isCancelled()) {
+            return null;
+        }
+        long parseStart = System.nanoTime();
+        try {
+            if (file.canRead() && (FileUtil.isFileExtensionMatching(file, DicomCodec.FILE_EXTENSIONS)
+                || MimeInspector.isMatchingMimeTypeFromMagicNumber(file, DicomMediaIO.MIMETYPE))) {
+                DicomMediaIO loader = new DicomMediaIO(file);
+                if (loader.isReadableDicom()) {
+                    GraphicModel graphicModel = XmlSerializer.readPresentationModelOf(file);
+                    if (graphicModel != null) {
+                        loader.setTag(TagW.PresentationModel, graphicModel);
                     }
+                    parsedFiles.incrementAndGet();
+                    return loader;
                 }
             }
+            return null;
+        } finally {
+            parseTime.addAndGet(System.nanoTime() - parseStart);
         }
+    }
+
+    private static DicomMediaIO getParsedFile(Future<DicomMediaIO> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            LOGGER.error("Cannot read DICOM file", e.getCause()); //$NON-NLS-1$
+        } catch (CancellationException e) {
+            // Parser stopped
+        }
+        return null;
+    }
+
+    private static void rebuildThumbnails(List<SeriesThumbnail> thumbs) {
         for (final SeriesThumbnail t : thumbs) {
             MediaSeries<MediaElement> series = t.getSeries();
             // Avoid to rebuild most of CR series thumbnail
@@ -123,9 +381,18 @@ public class LoadLocalDicom extends ExplorerTask<Boolean, String> {
                 GuiExecutor.instance().execute(t::reBuildThumbnail);
             }
         }
-        for (int i = 0; i < folders.size(); i++) {
-            addSelectionAndnotify(folders.get(i).listFiles(), false);
-        }
+        thumbs.clear();
+    }
+
+    private void logStatistics(long elapsed, int nbThreads) {
+        double seconds = elapsed / 1.0E9;
+        long nbFiles = walkedFiles.get();
+        LOGGER.info("DICOM import: {} files walked, {} DICOM parsed, {} inserted in {} ms ({} files/s)", //$NON-NLS-1$
+            nbFiles, parsedFiles.get(), insertedFiles.get(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+            seconds > 0.0 ? Math.round(nbFiles / seconds) : nbFiles);
+        LOGGER.info("DICOM import stages: walk {} ms, parse {} ms ({} threads), insert {} ms", //$NON-NLS-1$
+            TimeUnit.NANOSECONDS.toMillis(walkTime.get()), TimeUnit.NANOSECONDS.toMillis(parseTime.get()), nbThreads,
+            TimeUnit.NANOSECONDS.toMillis(insertTime.get()));
     }
 
     private SeriesThumbnail buildDicomStructure(DicomMediaIO dicomReader, boolean open) {
@@ -212,7 +479,7 @@ public class LoadLocalDicom extends ExplorerTask<Boolean, String> {
                 }
             } else {
                 // Test if SOPInstanceUID already exists
-                if (isSOPInstanceUIDExist(study, dicomSeries, seriesUID,
+                if (dicomModel.isSOPInstanceUIDExist(study, dicomSeries,
                     TagD.getTagValue(dicomReader, Tag.SOPInstanceUID, String.class))) {
                     return null;
                 }
@@ -253,29 +520,8 @@ public class LoadLocalDicom extends ExplorerTask<Boolean, String> {
         return thumb;
     }
 
-    private boolean isSOPInstanceUIDExist(MediaSeriesGroup study, Series dicomSeries, String seriesUID, Object sopUID) {
-        TagW sopTag = TagD.getUID(Level.INSTANCE);
-        if (dicomSeries.hasMediaContains(sopTag, sopUID)) {
-            return true;
-        }
-        Object splitNb = dicomSeries.getTagValue(TagW.SplitSeriesNumber);
-        if (splitNb != null && study != null) {
-            String uid = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
-            if (uid != null) {
-                Collection<MediaSeriesGroup> seriesList = dicomModel.getChildren(study);
-                for (Iterator<MediaSeriesGroup> it = seriesList.iterator(); it.hasNext();) {
-                    MediaSeriesGroup group = it.next();
-                    if (dicomSeries != group && group instanceof Series) {
-                        Series s = (Series) group;
-                        if (uid.equals(TagD.getTagValue(group, Tag.SeriesInstanceUID))) {
-                            if (s.hasMediaContains(sopTag, sopUID)) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+    @FunctionalInterface
+    private interface Walker {
+        void walk(ExecutorService parsers, BlockingQueue<Future<DicomMediaIO>> queue) throws InterruptedException;
     }
 }
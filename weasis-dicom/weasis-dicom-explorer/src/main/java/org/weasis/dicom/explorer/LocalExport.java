@@ -18,10 +18,26 @@ import java.awt.image.BufferedImage;
 import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import javax.media.jai.PlanarImage;
 import javax.media.jai.operator.SubsampleAverageDescriptor;
@@ -55,7 +71,6 @@ import org.weasis.core.api.gui.util.AbstractItemDialogPage;
 import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.FileFormatFilter;
 import org.weasis.core.api.gui.util.JMVUtils;
-import org.weasis.core.api.image.util.ImageFiler;
 import org.weasis.core.api.media.data.MediaElement;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.Series;
@@ -64,13 +79,15 @@ import org.weasis.core.api.media.data.Thumbnail;
 import org.weasis.core.api.util.FileUtil;
 import org.weasis.core.api.util.StringUtil;
 import org.weasis.core.api.util.StringUtil.Suffix;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.model.GraphicModel;
-import org.weasis.core.ui.serialize.XmlSerializer;
 import org.weasis.dicom.codec.DcmMediaReader;
 import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomMediaIO;
 import org.weasis.dicom.codec.DicomSeries;
 import org.weasis.dicom.codec.FileExtractor;
 import org.weasis.dicom.codec.TagD;
+import org.weasis.dicom.codec.TransferSyntax;
 import org.weasis.dicom.explorer.internal.Activator;
 import org.weasis.dicom.explorer.pr.PrSerializer;
 
@@ -83,8 +100,11 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
     public static final String KEEP_INFO_DIR = "exp.keep.dir.name";//$NON-NLS-1$
     public static final String IMG_QUALITY = "exp.img.quality";//$NON-NLS-1$
     public static final String HEIGHT_BITS = "exp.8bis";//$NON-NLS-1$
+    public static final String BINARY_GRAPHICS = "exp.graphics.binary";//$NON-NLS-1$
     public static final String CD_COMPATIBLE = "exp.cd";//$NON-NLS-1$
 
+    private static final String DICOMDIR = "DICOMDIR"; //$NON-NLS-1$
+
     public static final String[] EXPORT_FORMAT = { "DICOM", "DICOM ZIP", "JPEG", "PNG", "TIFF" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
 
     private final DicomModel dicomModel;
@@ -128,6 +148,8 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
         Properties pref = Activator.IMPORT_EXPORT_PERSISTENCE;
         final JCheckBox boxKeepNames = new JCheckBox(Messages.getString("LocalExport.keep_dir"), //$NON-NLS-1$
             Boolean.valueOf(pref.getProperty(KEEP_INFO_DIR, "true"))); //$NON-NLS-1$
+        final JCheckBox boxGraphics = new JCheckBox(Messages.getString("LocalExport.binary_graphics"), //$NON-NLS-1$
+            Boolean.valueOf(pref.getProperty(BINARY_GRAPHICS, Boolean.FALSE.toString())));
 
         Object seltected = comboBoxImgFormat.getSelectedItem();
         if (EXPORT_FORMAT[0].equals(seltected)) {
@@ -172,29 +194,32 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
                 palenSlider1.repaint();
             });
 
-            Object[] options = { palenSlider1, boxKeepNames };
+            Object[] options = { palenSlider1, boxKeepNames, boxGraphics };
             int response = JOptionPane.showOptionDialog(this, options, Messages.getString("LocalExport.export_message"), //$NON-NLS-1$
                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE, null, null, null);
             if (response == JOptionPane.OK_OPTION) {
                 pref.setProperty(IMG_QUALITY, String.valueOf(slider.getValue()));
                 pref.setProperty(KEEP_INFO_DIR, String.valueOf(boxKeepNames.isSelected()));
+                pref.setProperty(BINARY_GRAPHICS, String.valueOf(boxGraphics.isSelected()));
             }
         } else if (EXPORT_FORMAT[3].equals(seltected)) {
-            Object[] options = { boxKeepNames };
+            Object[] options = { boxKeepNames, boxGraphics };
             int response = JOptionPane.showOptionDialog(this, options, Messages.getString("LocalExport.export_message"), //$NON-NLS-1$
                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE, null, null, null);
             if (response == JOptionPane.OK_OPTION) {
                 pref.setProperty(KEEP_INFO_DIR, String.valueOf(boxKeepNames.isSelected()));
+                pref.setProperty(BINARY_GRAPHICS, String.valueOf(boxGraphics.isSelected()));
             }
         } else if (EXPORT_FORMAT[4].equals(seltected)) {
             final JCheckBox box1 = new JCheckBox(Messages.getString("LocalExport.tiff_sup_8bits"), //$NON-NLS-1$
                 Boolean.valueOf(pref.getProperty(HEIGHT_BITS, "false"))); //$NON-NLS-1$
-            Object[] options = { box1, boxKeepNames };
+            Object[] options = { box1, boxKeepNames, boxGraphics };
             int response = JOptionPane.showOptionDialog(this, options, Messages.getString("LocalExport.export_message"), //$NON-NLS-1$
                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE, null, null, null);
             if (response == JOptionPane.OK_OPTION) {
                 pref.setProperty(HEIGHT_BITS, String.valueOf(box1.isSelected()));
                 pref.setProperty(KEEP_INFO_DIR, String.valueOf(boxKeepNames.isSelected()));
+                pref.setProperty(BINARY_GRAPHICS, String.valueOf(boxGraphics.isSelected()));
             }
         }
     }
@@ -308,7 +333,7 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
         }
     }
 
-    private static String getinstanceFileName(MediaElement img) {
+    static String getinstanceFileName(MediaElement img) {
         Integer instance = TagD.getTagValue(img, Tag.InstanceNumber, Integer.class);
         if (instance != null) {
             String val = instance.toString();
@@ -332,6 +357,8 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
         boolean keepNames = Boolean.parseBoolean(pref.getProperty(KEEP_INFO_DIR, Boolean.TRUE.toString()));
         int jpegQuality = StringUtil.getInteger(pref.getProperty(IMG_QUALITY, null), 80);
         boolean more8bits = Boolean.parseBoolean(pref.getProperty(HEIGHT_BITS, Boolean.FALSE.toString()));
+        boolean binaryGraphics = Boolean.parseBoolean(pref.getProperty(BINARY_GRAPHICS, Boolean.FALSE.toString()));
+        ImageExporter exporter = new ImageExporter(format, jpegQuality, more8bits, binaryGraphics);
 
         try {
             synchronized (model) {
@@ -368,29 +395,9 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
                         File destinationDir = new File(exportDir, path);
                         destinationDir.mkdirs();
 
-                        RenderedImage image = img.getImage(null);
-                        if (image != null && !more8bits) {
-                            image = img.getRenderedImage(image);
-                        }
-                        if (image != null) {
-                            File destinationFile = new File(destinationDir, instance + getExtension(format));
-                            if (EXPORT_FORMAT[3].equals(format)) {
-                                ImageFiler.writePNG(destinationFile, image);
-                            } else if (EXPORT_FORMAT[4].equals(format)) {
-                                ImageFiler.writeTIFF(destinationFile, image, false, false, false);
-                            } else {
-                                ImageFiler.writeJPG(destinationFile, image, jpegQuality / 100.0f);
-                            }
-                            if (seriesGph.contains(img.getTagValue(TagD.get(Tag.SeriesInstanceUID)))) {
-                                XmlSerializer.writePresentation(img, destinationFile);
-                            }
-                        } else {
-                            LOGGER.error("Cannot export DICOM file to {}: {}", format, //$NON-NLS-1$
-                                img.getFileCache().getOriginalFile());
-                        }
-
-                        // Prevent to many files open on Linux (Ubuntu => 1024) and close image stream
-                        img.removeImageFromCache();
+                        // Rendered and written in parallel once all the images are collected
+                        exporter.add(img, new File(destinationDir, instance + getExtension(format)),
+                            seriesGph.contains(img.getTagValue(TagD.get(Tag.SeriesInstanceUID))));
                     } else if (node.getUserObject() instanceof MediaElement
                         && node.getUserObject() instanceof FileExtractor) {
                         MediaElement dcm = (MediaElement) node.getUserObject();
@@ -413,12 +420,16 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
                 }
 
             }
+            exporter.export(task::isCancelled);
+        } catch (InterruptedException e) {
+            LOGGER.info("Image export has been cancelled"); //$NON-NLS-1$
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             LOGGER.error("Cannot extract media from DICOM", e); //$NON-NLS-1$
         }
     }
 
-    private static String getExtension(String format) {
+    static String getExtension(String format) {
         if (EXPORT_FORMAT[3].equals(format)) {
             return ".png"; //$NON-NLS-1$
         } else if (EXPORT_FORMAT[4].equals(format)) {
@@ -429,30 +440,21 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
 
     private void writeDicom(ExplorerTask task, File exportDir, CheckTreeModel model, boolean zipFile)
         throws IOException {
-        boolean keepNames;
-        boolean writeDicomdir;
-        boolean cdCompatible;
-
-        File writeDir;
-
         if (zipFile) {
-            keepNames = false;
-            writeDicomdir = true;
-            cdCompatible = true;
-            writeDir = FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "zip")); //$NON-NLS-1$ //$NON-NLS-2$
-        } else {
-            Properties pref = Activator.IMPORT_EXPORT_PERSISTENCE;
-            writeDicomdir = Boolean.valueOf(pref.getProperty(INC_DICOMDIR, "true"));//$NON-NLS-1$
-            keepNames = writeDicomdir ? false : Boolean.valueOf(pref.getProperty(KEEP_INFO_DIR, "true"));//$NON-NLS-1$
-            cdCompatible = Boolean.valueOf(pref.getProperty(CD_COMPATIBLE, "false"));//$NON-NLS-1$
-            writeDir = exportDir;
+            writeDicomZip(task, exportDir, model);
+            return;
         }
+        Properties pref = Activator.IMPORT_EXPORT_PERSISTENCE;
+        boolean writeDicomdir = Boolean.valueOf(pref.getProperty(INC_DICOMDIR, "true"));//$NON-NLS-1$
+        boolean keepNames = writeDicomdir ? false : Boolean.valueOf(pref.getProperty(KEEP_INFO_DIR, "true"));//$NON-NLS-1$
+        boolean cdCompatible = Boolean.valueOf(pref.getProperty(CD_COMPATIBLE, "false"));//$NON-NLS-1$
+        File writeDir = exportDir;
 
         DicomDirWriter writer = null;
         try {
 
             if (writeDicomdir) {
-                File dcmdirFile = new File(writeDir, "DICOMDIR"); //$NON-NLS-1$
+                File dcmdirFile = new File(writeDir, DICOMDIR);
                 writer = DicomDirLoader.open(dcmdirFile);
             }
 
@@ -534,40 +536,232 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
                 writer.close();
             }
         }
+    }
 
-        if (zipFile) {
+    /**
+     * Writes the DICOM files directly into the ZIP file in a single pass. The files are prepared in parallel but the
+     * entries are written in the order of the tree. The files with a compressed transfer syntax are stored without
+     * compression and the DICOMDIR is appended as the last entry.
+     */
+    private void writeDicomZip(ExplorerTask task, File exportFile, CheckTreeModel model) throws IOException {
+        // Contains only the DICOMDIR, the presentation states and the files which are not on disk
+        File writeDir = FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "zip")); //$NON-NLS-1$ //$NON-NLS-2$
+        File dcmdirFile = new File(writeDir, DICOMDIR);
+        int nbThreads = Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = ThreadUtil.buildNewFixedThreadExecutor(nbThreads, "DICOM ZIP Export"); //$NON-NLS-1$
+        Deque<Future<ZipPart>> pending = new ArrayDeque<>();
+        DicomDirWriter writer = null;
+        boolean complete = false;
+
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(exportFile)))) {
+            writer = DicomDirLoader.open(dcmdirFile);
+            synchronized (model) {
+                Set<String> uids = new HashSet<>();
+                TreePath[] paths = model.getCheckingPaths();
+                for (TreePath treePath : paths) {
+                    if (task.isCancelled()) {
+                        return;
+                    }
+
+                    DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+
+                    if (node.getUserObject() instanceof MediaElement) {
+                        MediaElement dcm = (MediaElement) node.getUserObject();
+                        String iuid = TagD.getTagValue(dcm, Tag.SOPInstanceUID, String.class);
+                        // Write only once the file for multiframe
+                        if (dcm instanceof DicomImageElement && !uids.add(iuid)) {
+                            continue;
+                        }
+                        String fileID = makeFileIDs(iuid);
+                        String path = buildPath(dcm, false, true, true, node);
+                        File destinationFile = new File(new File(writeDir, path), fileID);
+                        pending.add(workers.submit(() -> prepareZipPart(dcm, node, fileID, destinationFile, writeDir)));
+                        // Limit the number of prepared files waiting to be written
+                        if (pending.size() > nbThreads * 2) {
+                            writeZipPart(zip, writer, writeDir, pending.poll());
+                        }
+                    } else if (node.getUserObject() instanceof Series) {
+                        MediaSeries<?> s = (MediaSeries<?>) node.getUserObject();
+                        if (JMVUtils.getNULLtoFalse(s.getTagValue(TagW.ObjectToSave))) {
+                            Series<?> series = (Series<?>) s.getTagValue(CheckTreeModel.SourceSeriesForPR);
+                            if (series != null) {
+                                // Keep the order of the entries and of the DICOMDIR records
+                                while (!pending.isEmpty()) {
+                                    writeZipPart(zip, writer, writeDir, pending.poll());
+                                }
+                                String seriesInstanceUID = UIDUtils.createUID();
+                                for (MediaElement dcm : series.getMedias(null, null)) {
+                                    String path = buildPath(dcm, false, true, true, node);
+                                    File prFile =
+                                        writePR(dcm, false, new File(writeDir, path), writer, node, seriesInstanceUID);
+                                    if (prFile != null) {
+                                        putZipEntry(zip, toEntryName(writeDir, prFile), prFile, null);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            while (!pending.isEmpty()) {
+                if (task.isCancelled()) {
+                    return;
+                }
+                writeZipPart(zip, writer, writeDir, pending.poll());
+            }
+
+            // The DICOMDIR can be written only when all the records have been added
+            writer.close();
+            writer = null;
+            putZipEntry(zip, DICOMDIR, dcmdirFile, null);
+            complete = true;
+        } catch (IOException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            LOGGER.info("DICOM ZIP export has been cancelled"); //$NON-NLS-1$
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.error("Cannot export DICOM ZIP file: {}", exportFile, e); //$NON-NLS-1$
+        } finally {
+            workers.shutdownNow();
+            FileUtil.safeClose(writer);
+            // The workers do not stop when writing a temporary file, wait for them before deleting the directory
+            boolean interrupted = Thread.interrupted();
             try {
-                FileUtil.zip(writeDir, exportDir);
-            } catch (Exception e) {
-                LOGGER.error("Cannot export DICOM ZIP file: {}", exportDir, e); //$NON-NLS-1$
-            } finally {
-                FileUtil.recursiveDelete(writeDir);
+                if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOGGER.warn("The DICOM ZIP export workers are still running"); //$NON-NLS-1$
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            FileUtil.recursiveDelete(writeDir);
+            if (!complete) {
+                FileUtil.delete(exportFile);
             }
         }
     }
 
+    private static ZipPart prepareZipPart(MediaElement dcm, DefaultMutableTreeNode node, String fileID,
+        File destinationFile, File writeDir) throws IOException {
+        File source = null;
+        boolean temporary = false;
+        // When the file would be copied as is, it is read directly without being copied
+        if (dcm.getMediaReader() instanceof DicomMediaIO && !dcm.getFileCache().isElementInMemory()) {
+            source = dcm.getFileCache().getOriginalFile().isPresent() ? dcm.getFileCache().getFinalFile() : null;
+        }
+        if (source == null || !source.canRead()) {
+            source = File.createTempFile("export_", ".dcm", writeDir); //$NON-NLS-1$ //$NON-NLS-2$
+            temporary = true;
+            if (!dcm.saveToFile(source)) {
+                FileUtil.delete(source);
+                LOGGER.error("Cannot export DICOM file: {}", dcm.getFileCache().getOriginalFile()); //$NON-NLS-1$
+                return null;
+            }
+        }
+        ZipPart part = new ZipPart(dcm, node, fileID, destinationFile, source, temporary);
+        if (TransferSyntax.isCompressed(TagD.getTagValue(dcm, Tag.TransferSyntaxUID, String.class))) {
+            // A stored entry requires the checksum before writing the data
+            part.checksum = computeChecksum(source);
+        }
+        return part;
+    }
+
+    private static void writeZipPart(ZipOutputStream zip, DicomDirWriter writer, File writeDir,
+        Future<ZipPart> future) throws IOException, InterruptedException {
+        ZipPart part;
+        try {
+            part = future.get();
+        } catch (ExecutionException e) {
+            LOGGER.error("Cannot export DICOM file", e.getCause()); //$NON-NLS-1$
+            return;
+        }
+        if (part == null) {
+            return;
+        }
+        try {
+            putZipEntry(zip, toEntryName(writeDir, part.destinationFile), part.source, part.checksum);
+            writeInDicomDir(writer, part.media, part.node, part.fileID, part.destinationFile);
+        } finally {
+            if (part.temporary) {
+                FileUtil.delete(part.source);
+            }
+        }
+    }
+
+    private static String toEntryName(File writeDir, File file) {
+        String path = file.getAbsolutePath().substring(writeDir.getAbsolutePath().length() + 1);
+        return path.replace(File.separatorChar, '/');
+    }
+
+    private static void putZipEntry(ZipOutputStream zip, String name, File source, CRC32 checksum)
+        throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (checksum != null) {
+            // Compressing again the data is slow and does not reduce the size
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(source.length());
+            entry.setCompressedSize(source.length());
+            entry.setCrc(checksum.getValue());
+        }
+        zip.putNextEntry(entry);
+        Files.copy(source.toPath(), zip);
+        zip.closeEntry();
+    }
+
+    private static CRC32 computeChecksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buf = new byte[FileUtil.FILE_BUFFER * 16];
+            int offset;
+            while ((offset = in.read(buf)) > 0) {
+                crc.update(buf, 0, offset);
+            }
+        }
+        return crc;
+    }
+
     public static Attributes buildAndWritePR(MediaElement img, boolean keepNames, File destinationDir,
         DicomDirWriter writer, DefaultMutableTreeNode node, String seriesInstanceUID) {
         Attributes imgAttributes = img.getMediaReader() instanceof DcmMediaReader
             ? ((DcmMediaReader) img.getMediaReader()).getDicomObject() : null;
         if (imgAttributes != null) {
-            GraphicModel grModel = (GraphicModel) img.getTagValue(TagW.PresentationModel);
-            if (grModel != null && grModel.hasSerializableGraphics()) {
-                String prUid = UIDUtils.createUID();
-                File outputFile = new File(destinationDir, keepNames ? prUid : makeFileIDs(prUid));
-                destinationDir.mkdirs();
-                Attributes prAttributes =
-                    PrSerializer.writePresentation(grModel, imgAttributes, outputFile, seriesInstanceUID, prUid);
-                if (prAttributes != null) {
-                    try {
-                        writeInDicomDir(writer, prAttributes, node, outputFile.getName(), outputFile);
-                    } catch (IOException e) {
-                        LOGGER.error("Writing DICOMDIR", e); //$NON-NLS-1$
-                    }
+            writePR(img, imgAttributes, keepNames, destinationDir, writer, node, seriesInstanceUID);
+        }
+        return imgAttributes;
+    }
+
+    private static File writePR(MediaElement img, boolean keepNames, File destinationDir, DicomDirWriter writer,
+        DefaultMutableTreeNode node, String seriesInstanceUID) {
+        Attributes imgAttributes = img.getMediaReader() instanceof DcmMediaReader
+            ? ((DcmMediaReader) img.getMediaReader()).getDicomObject() : null;
+        if (imgAttributes == null) {
+            return null;
+        }
+        return writePR(img, imgAttributes, keepNames, destinationDir, writer, node, seriesInstanceUID);
+    }
+
+    private static File writePR(MediaElement img, Attributes imgAttributes, boolean keepNames, File destinationDir,
+        DicomDirWriter writer, DefaultMutableTreeNode node, String seriesInstanceUID) {
+        GraphicModel grModel = (GraphicModel) img.getTagValue(TagW.PresentationModel);
+        if (grModel != null && grModel.hasSerializableGraphics()) {
+            String prUid = UIDUtils.createUID();
+            File outputFile = new File(destinationDir, keepNames ? prUid : makeFileIDs(prUid));
+            destinationDir.mkdirs();
+            Attributes prAttributes =
+                PrSerializer.writePresentation(grModel, imgAttributes, outputFile, seriesInstanceUID, prUid);
+            if (prAttributes != null) {
+                try {
+                    writeInDicomDir(writer, prAttributes, node, outputFile.getName(), outputFile);
+                } catch (IOException e) {
+                    LOGGER.error("Writing DICOMDIR", e); //$NON-NLS-1$
                 }
+                return outputFile;
             }
         }
-        return imgAttributes;
+        return null;
     }
 
     public static String buildPath(MediaElement img, boolean keepNames, boolean writeDicomdir, boolean cdCompatible,
@@ -794,4 +988,24 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
         return dst;
     }
 
+    private static class ZipPart {
+        private final MediaElement media;
+        private final DefaultMutableTreeNode node;
+        private final String fileID;
+        // Location of the file relative to the DICOMDIR, the file is not written
+        private final File destinationFile;
+        private final File source;
+        private final boolean temporary;
+        private CRC32 checksum;
+
+        ZipPart(MediaElement media, DefaultMutableTreeNode node, String fileID, File destinationFile, File source,
+            boolean temporary) {
+            this.media = media;
+            this.node = node;
+            this.fileID = fileID;
+            this.destinationFile = destinationFile;
+            this.source = source;
+            this.temporary = temporary;
+        }
+    }
 }
@@ -16,15 +16,11 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
-
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
 import org.slf4j.Logger;
@@ -33,7 +29,6 @@ import org.weasis.core.api.gui.util.MathUtil;
 import org.weasis.core.api.image.util.CIELab;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.TagW;
-import org.weasis.core.api.util.GzipManager;
 import org.weasis.core.ui.model.GraphicModel;
 import org.weasis.core.ui.model.graphic.Graphic;
 import org.weasis.core.ui.model.graphic.imp.NonEditableGraphic;
@@ -41,8 +36,8 @@ import org.weasis.core.ui.model.graphic.imp.PointGraphic;
 import org.weasis.core.ui.model.graphic.imp.area.EllipseGraphic;
 import org.weasis.core.ui.model.graphic.imp.area.PolygonGraphic;
 import org.weasis.core.ui.model.graphic.imp.line.PolylineGraphic;
-import org.weasis.core.ui.model.imp.XmlGraphicModel;
 import org.weasis.core.ui.model.utils.exceptions.InvalidShapeException;
+import org.weasis.core.ui.serialize.XmlSerializer;
 import org.weasis.dicom.codec.PresentationStateReader;
 import org.weasis.dicom.codec.utils.DicomMediaUtils;
 
@@ -400,20 +395,6 @@ public class PrGraphicUtil {
     }
 
     private static GraphicModel buildPresentationModel(byte[] binary) {
-        try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(XmlGraphicModel.class);
-            Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(GzipManager.gzipUncompressToByte(binary));
-            GraphicModel model = (GraphicModel) jaxbUnmarshaller.unmarshal(inputStream);
-            int length = model.getModels().size();
-            model.getModels().removeIf(g -> g.getLayer() == null);
-            if (length > model.getModels().size()) {
-                LOGGER.error("Removing {} graphics wihout a attached layer", model.getModels().size() - length); //$NON-NLS-1$
-            }
-            return model;
-        } catch (Exception e) {
-            LOGGER.error("Cannot load xml graphic model: ", e); //$NON-NLS-1$
-        }
-        return null;
+        return XmlSerializer.fromBinary(binary);
     }
 }
@@ -16,7 +16,6 @@ import java.awt.geom.FlatteningPathIterator;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
@@ -28,9 +27,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
-
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Sequence;
 import org.dcm4che3.data.Tag;
@@ -42,7 +38,6 @@ import org.slf4j.LoggerFactory;
 import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.GeomUtil;
 import org.weasis.core.api.image.util.CIELab;
-import org.weasis.core.api.util.GzipManager;
 import org.weasis.core.ui.editor.image.dockable.MeasureTool;
 import org.weasis.core.ui.model.GraphicModel;
 import org.weasis.core.ui.model.ReferencedImage;
@@ -58,6 +53,7 @@ import org.weasis.core.ui.model.graphic.imp.area.ThreePointsCircleGraphic;
 import org.weasis.core.ui.model.graphic.imp.line.PolylineGraphic;
 import org.weasis.core.ui.model.imp.XmlGraphicModel;
 import org.weasis.core.ui.model.layer.GraphicLayer;
+import org.weasis.core.ui.serialize.XmlSerializer;
 import org.weasis.dicom.codec.DcmMediaReader;
 import org.weasis.dicom.codec.DicomImageElement;
 import org.weasis.dicom.codec.PresentationStateReader;
@@ -78,9 +74,24 @@ public class PrSerializer {
 
     public static Attributes writePresentation(GraphicModel model, Attributes parentAttributes, File outputFile,
         String seriesInstanceUID, String sopInstanceUID, Point2D offset) {
-        Objects.requireNonNull(model);
         Objects.requireNonNull(outputFile);
 
+        Attributes attributes = buildPresentation(model, parentAttributes, seriesInstanceUID, sopInstanceUID, offset);
+        if (attributes != null) {
+            saveToFile(outputFile, attributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * Builds the Presentation State in memory without writing it.
+     *
+     * @return the attributes of the Presentation State or null if it cannot be built
+     */
+    public static Attributes buildPresentation(GraphicModel model, Attributes parentAttributes,
+        String seriesInstanceUID, String sopInstanceUID, Point2D offset) {
+        Objects.requireNonNull(model);
+
         if (parentAttributes != null) {
             try {
                 GraphicModel m = getModelForSerialization(model, offset);
@@ -91,8 +102,6 @@ public class PrSerializer {
                 writeReferences(attributes, m, parentAttributes.getString(Tag.SOPClassUID));
                 writeGraphics(m, attributes);
                 writePrivateTags(m, attributes);
-
-                saveToFile(outputFile, attributes);
                 return attributes;
             } catch (Exception e) {
                 LOGGER.error("Cannot write Presentation State : ", e); //$NON-NLS-1$
@@ -134,18 +143,11 @@ public class PrSerializer {
     }
 
     private static void writePrivateTags(GraphicModel model, Attributes attributes) {
-        try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(model.getClass());
-            Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            jaxbMarshaller.marshal(model, outputStream);
-            // jaxbMarshaller.marshal(model, System.out);
+        byte[] binary = XmlSerializer.toBinary(model);
+        if (binary != null) {
             attributes.setString(PresentationStateReader.PRIVATE_CREATOR_TAG, VR.LO,
                 PresentationStateReader.PR_MODEL_ID);
-            attributes.setBytes(PresentationStateReader.PR_MODEL_PRIVATE_TAG, VR.OB,
-                GzipManager.gzipCompressToByte(outputStream.toByteArray()));
-        } catch (Exception e) {
-            LOGGER.error("Cannot save xml: ", e); //$NON-NLS-1$
+            attributes.setBytes(PresentationStateReader.PR_MODEL_PRIVATE_TAG, VR.OB, binary);
         }
     }
 
@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.dicom.explorer.wado;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkData;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.imageio.plugins.dcm.DicomMetaData;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
+import org.dcm4che3.io.DicomOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.util.FileUtil;
+import org.weasis.dicom.codec.DicomCodec;
+
+/**
+ * Writes a DICOM stream in a file and reads its header at the same time, so the instance is parsed only once.
+ * <p>
+ * The bytes are written as they are consumed by the parser, the pixel data are not loaded in memory but referenced by
+ * their offset in the file like in {@link org.weasis.dicom.codec.DicomMediaIO}. When the header must be modified (the
+ * override tags of the WADO parameters), only the attributes preceding the pixel data are written again and the rest
+ * of the stream is copied unchanged.
+ */
+final class DicomStreamWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DicomStreamWriter.class);
+
+    private DicomStreamWriter() {
+    }
+
+    /**
+     * @param in
+     *            the DICOM stream, it is closed at the end
+     * @param file
+     *            the destination file
+     * @param headerUpdater
+     *            modifies the attributes preceding the pixel data before writing them, null to write the stream
+     *            unchanged
+     * @return the header with the pixel data referenced in the file, or null when it cannot be reused (the file must be
+     *         read again)
+     * @throws IOException
+     *             when the stream cannot be read or the file cannot be written
+     */
+    static DicomMetaData write(InputStream in, File file, Consumer<Attributes> headerUpdater) throws IOException {
+        String uri = file.toURI().toString();
+        try (FileOutputStream fileOut = new FileOutputStream(file);
+                        OutputStream out = new BufferedOutputStream(fileOut, FileUtil.FILE_BUFFER);
+                        TeeInputStream tee = new TeeInputStream(in, headerUpdater == null ? out : null)) {
+            DicomMetaData header;
+            try {
+                header = headerUpdater == null ? parse(tee, uri) : rewriteHeader(tee, uri, fileOut, out, headerUpdater);
+            } catch (IOException e) {
+                if (tee.getSourceException() != null || headerUpdater != null) {
+                    throw e;
+                }
+                // Not a readable DICOM stream, write it as it is and let the reader handle it
+                LOGGER.debug("Cannot parse the DICOM stream of {}: {}", file.getName(), e.getMessage()); //$NON-NLS-1$
+                header = null;
+            }
+            tee.drain();
+            out.flush();
+            return header;
+        }
+    }
+
+    private static DicomMetaData parse(TeeInputStream tee, String uri) throws IOException {
+        DicomInputStream dis = new DicomInputStream(tee);
+        Attributes fmi = dis.readFileMetaInformation();
+        String tsuid = dis.getTransferSyntax();
+        if (isDeflated(tsuid)) {
+            // The offsets of the inflated stream do not match with the file
+            return null;
+        }
+        dis.setIncludeBulkData(IncludeBulkData.URI);
+        dis.setBulkDataDescriptor(DicomCodec.BULKDATA_DESCRIPTOR);
+        // The bulk data are skipped, they are only written in the file
+        dis.setURI(uri);
+        Attributes ds = dis.readDataset(-1, Tag.PixelData);
+        if (dis.tag() == Tag.PixelData) {
+            dis.readValue(dis, ds);
+        }
+        return new DicomMetaData(fmi == null ? ds.createFileMetaInformation(tsuid) : fmi, ds);
+    }
+
+    private static DicomMetaData rewriteHeader(TeeInputStream tee, String uri, FileOutputStream fileOut,
+        OutputStream out, Consumer<Attributes> headerUpdater) throws IOException {
+        DicomInputStream dis = new DicomInputStream(tee);
+        try {
+            Attributes fmi = dis.readFileMetaInformation();
+            String tsuid = dis.getTransferSyntax();
+            // Bulk data preceding the pixel data are spooled in temporary files to be written again
+            dis.setIncludeBulkData(IncludeBulkData.URI);
+            dis.setBulkDataDescriptor(DicomCodec.BULKDATA_DESCRIPTOR);
+            boolean deflated = isDeflated(tsuid);
+            Attributes ds = dis.readDataset(-1, deflated ? -1 : Tag.PixelData);
+            headerUpdater.accept(ds);
+            fmi = ds.createFileMetaInformation(tsuid);
+
+            DicomOutputStream dos = new DicomOutputStream(out, UID.ExplicitVRLittleEndian);
+            dos.writeDataset(fmi, ds);
+            if (deflated) {
+                dos.finish();
+                dos.flush();
+                return null;
+            }
+            boolean pixelData = dis.tag() == Tag.PixelData;
+            if (pixelData) {
+                dos.writeHeader(Tag.PixelData, dis.vr(), dis.length());
+            }
+            dos.flush();
+
+            // From here, the stream is written unchanged and shifted by the difference of header length
+            long shift = fileOut.getChannel().position() - tee.getPosition();
+            List<File> spooledFiles = dis.getBulkDataFiles();
+            boolean headerInFile = spooledFiles == null || spooledFiles.isEmpty();
+            tee.setOutput(out);
+            if (pixelData) {
+                dis.setURI(uri);
+                dis.readValue(dis, ds);
+                shiftPixelData(ds, uri, shift);
+            }
+            return headerInFile ? new DicomMetaData(fmi, ds) : null;
+        } finally {
+            List<File> blkFiles = dis.getBulkDataFiles();
+            if (blkFiles != null) {
+                for (File f : blkFiles) {
+                    FileUtil.delete(f);
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes the bulk data of the header reference the file after it has been moved.
+     *
+     * @param header
+     *            the header returned by {@link #write(InputStream, File, Consumer)}, can be null
+     * @param file
+     *            the new location of the file
+     * @return the header or null if it cannot be updated (the file must be read again)
+     */
+    static DicomMetaData relocate(DicomMetaData header, File file) {
+        if (header == null) {
+            return null;
+        }
+        String uri = file.toURI().toString();
+        try {
+            header.getAttributes().accept((attrs, tag, vr, value) -> {
+                if (value instanceof BulkData) {
+                    attrs.setValue(tag, vr, shift((BulkData) value, uri, 0L));
+                } else if (value instanceof Fragments) {
+                    shift((Fragments) value, uri, 0L);
+                }
+                return true;
+            }, true);
+            return header;
+        } catch (Exception e) {
+            LOGGER.error("Cannot update the bulk data location", e); //$NON-NLS-1$
+            return null;
+        }
+    }
+
+    private static boolean isDeflated(String tsuid) {
+        return UID.DeflatedExplicitVRLittleEndian.equals(tsuid) || UID.JPIPReferencedDeflate.equals(tsuid);
+    }
+
+    private static void shiftPixelData(Attributes ds, String uri, long shift) {
+        VR.Holder vr = new VR.Holder();
+        Object value = ds.getValue(Tag.PixelData, vr);
+        if (value instanceof BulkData) {
+            ds.setValue(Tag.PixelData, vr.vr, shift((BulkData) value, uri, shift));
+        } else if (value instanceof Fragments) {
+            shift((Fragments) value, uri, shift);
+        }
+    }
+
+    private static void shift(Fragments fragments, String uri, long shift) {
+        for (int i = 0; i < fragments.size(); i++) {
+            Object item = fragments.get(i);
+            if (item instanceof BulkData) {
+                fragments.set(i, shift((BulkData) item, uri, shift));
+            }
+        }
+    }
+
+    private static BulkData shift(BulkData data, String uri, long shift) {
+        return new BulkData(uri, data.offset() + shift, data.length(), data.bigEndian());
+    }
+
+    /**
+     * Stream writing the bytes once they are read. The mark is supported for the parser (which otherwise adds its own
+     * buffer), so the position is exactly the one of the parser.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+        private final byte[] skipBuffer = new byte[FileUtil.FILE_BUFFER];
+        private OutputStream output;
+        private long position = 0L;
+        private long markPosition = 0L;
+        // Number of bytes already written (or discarded when there is no output)
+        private long written = 0L;
+        private IOException sourceException;
+
+        TeeInputStream(InputStream in, OutputStream output) {
+            super(new BufferedInputStream(in, FileUtil.FILE_BUFFER));
+            this.output = output;
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        void setOutput(OutputStream output) {
+            this.output = output;
+        }
+
+        /**
+         * @return the exception thrown by the source stream (e.g. a network error or an interruption), null otherwise
+         */
+        IOException getSourceException() {
+            return sourceException;
+        }
+
+        /**
+         * Writes the rest of the stream.
+         */
+        void drain() throws IOException {
+            while (read(skipBuffer, 0, skipBuffer.length) > 0) {
+                // Written in read()
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = read(skipBuffer, 0, 1);
+            return b < 0 ? -1 : skipBuffer[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n;
+            try {
+                n = in.read(b, off, len);
+            } catch (IOException e) {
+                sourceException = e;
+                throw e;
+            }
+            if (n > 0) {
+                long end = position + n;
+                if (end > written) {
+                    int start = (int) Math.max(0L, written - position);
+                    if (output != null) {
+                        output.write(b, off + start, n - start);
+                    }
+                    written = end;
+                }
+                position = end;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long remaining = n;
+            while (remaining > 0) {
+                int nr = read(skipBuffer, 0, (int) Math.min(skipBuffer.length, remaining));
+                if (nr < 0) {
+                    break;
+                }
+                remaining -= nr;
+            }
+            return n - remaining;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            in.mark(readlimit);
+            markPosition = position;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            in.reset();
+            position = markPosition;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.dicom.explorer.wado;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.weasis.core.api.service.BundleTools;
+import org.weasis.core.api.util.NetworkUtil;
+import org.weasis.core.api.util.StreamIOException;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Application-wide engine downloading the DICOM instances of all the series.
+ * <p>
+ * The requests are executed by a single pool of threads, limited globally, by server and by group (the images of a
+ * series). The next request is the one with the highest download priority of the series (see
+ * {@link DownloadPriority}), then the first submitted. The HTTP connections are kept alive and reused by the
+ * {@link HttpURLConnection} implementation when the response has been entirely read, so the number of downloads by
+ * server should not exceed the size of its pool of idle connections (http.maxConnections, 5 by default).
+ */
+public final class DownloadEngine {
+
+    public static final String CONCURRENT_DOWNLOADS = "download.concurrent.images"; //$NON-NLS-1$
+    public static final String CONCURRENT_DOWNLOADS_BY_HOST = "download.concurrent.host.images"; //$NON-NLS-1$
+
+    private static final int MAX_DOWNLOADS =
+        Math.max(1, BundleTools.SYSTEM_PREFERENCES.getIntProperty(CONCURRENT_DOWNLOADS, 10));
+    private static final int MAX_DOWNLOADS_BY_HOST =
+        Math.max(1, BundleTools.SYSTEM_PREFERENCES.getIntProperty(CONCURRENT_DOWNLOADS_BY_HOST, 5));
+
+    private static final ExecutorService EXECUTOR =
+        ThreadUtil.buildNewFixedThreadExecutor(MAX_DOWNLOADS, "Image Downloader"); //$NON-NLS-1$
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    // Guarded by LOCK
+    private static final Object LOCK = new Object();
+    private static final Set<Group> PENDING_GROUPS = new LinkedHashSet<>();
+    private static final Map<String, Integer> ACTIVE_BY_HOST = new HashMap<>();
+    private static int active = 0;
+    private static long busyStartTime = 0L;
+    private static long busyTime = 0L;
+
+    private static final LongAdder REQUESTS = new LongAdder();
+    private static final LongAdder STARTED = new LongAdder();
+    private static final LongAdder COMPLETED = new LongAdder();
+    private static final LongAdder BYTES = new LongAdder();
+    private static final LongAdder POOLED_CONNECTIONS = new LongAdder();
+    private static final LongAdder QUEUE_WAIT = new LongAdder();
+    private static final AtomicLong MAX_QUEUE_WAIT = new AtomicLong();
+
+    private DownloadEngine() {
+    }
+
+    /**
+     * Requests sharing a limit of simultaneous downloads (e.g. the images of a series).
+     */
+    public static final class Group {
+        private final int limit;
+        // Guarded by LOCK
+        private final PriorityQueue<Request<?>> queue = new PriorityQueue<>();
+        private final List<Request<?>> running = new ArrayList<>();
+
+        public Group(int limit) {
+            this.limit = Math.max(1, limit);
+        }
+
+        /**
+         * Queues a download.
+         *
+         * @param task
+         *            the download
+         * @param url
+         *            the URL of the download, the limit by server is applied to its host
+         * @param priority
+         *            the priority of the series, the value at the submission is used
+         * @return the future of the download
+         */
+        public <T> Future<T> submit(Callable<T> task, URL url, DownloadPriority priority) {
+            Integer p = priority == null ? null : priority.getPriority();
+            Request<T> request = new Request<>(this, task, getHostKey(url), p == null ? Integer.MAX_VALUE : p);
+            REQUESTS.increment();
+            synchronized (LOCK) {
+                queue.add(request);
+                PENDING_GROUPS.add(this);
+            }
+            dispatch();
+            return request;
+        }
+
+        /**
+         * Cancels the queued and the running downloads.
+         */
+        public void cancel() {
+            List<Request<?>> requests;
+            synchronized (LOCK) {
+                requests = new ArrayList<>(queue);
+                requests.addAll(running);
+                queue.clear();
+                PENDING_GROUPS.remove(this);
+            }
+            requests.forEach(r -> r.cancel(true));
+        }
+
+        private Request<?> peek() {
+            Request<?> head = queue.peek();
+            while (head != null && head.isDone()) {
+                queue.poll();
+                head = queue.peek();
+            }
+            return head;
+        }
+    }
+
+    private static final class Request<T> extends FutureTask<T> implements Comparable<Request<?>> {
+        private final Group group;
+        private final String host;
+        private final int priority;
+        private final long sequence;
+        private final long submitTime;
+
+        Request(Group group, Callable<T> task, String host, int priority) {
+            super(task);
+            this.group = group;
+            this.host = host;
+            this.priority = priority;
+            this.sequence = SEQUENCE.getAndIncrement();
+            this.submitTime = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                finished(this);
+            }
+        }
+
+        @Override
+        public int compareTo(Request<?> o) {
+            int rep = Integer.compare(priority, o.priority);
+            return rep != 0 ? rep : Long.compare(sequence, o.sequence);
+        }
+    }
+
+    private static String getHostKey(URL url) {
+        if (url == null) {
+            return ""; //$NON-NLS-1$
+        }
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        return url.getProtocol() + "://" + url.getHost() + ":" + port; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private static void dispatch() {
+        synchronized (LOCK) {
+            while (active < MAX_DOWNLOADS) {
+                Request<?> next = null;
+                for (Iterator<Group> it = PENDING_GROUPS.iterator(); it.hasNext();) {
+                    Group g = it.next();
+                    Request<?> head = g.peek();
+                    if (head == null) {
+                        it.remove();
+                    } else if (g.running.size() < g.limit
+                        && ACTIVE_BY_HOST.getOrDefault(head.host, 0) < MAX_DOWNLOADS_BY_HOST
+                        && (next == null || head.compareTo(next) < 0)) {
+                        next = head;
+                    }
+                }
+                if (next == null) {
+                    return;
+                }
+                next.group.queue.poll();
+                next.group.running.add(next);
+                ACTIVE_BY_HOST.merge(next.host, 1, Integer::sum);
+                if (active++ == 0) {
+                    busyStartTime = System.nanoTime();
+                }
+                STARTED.increment();
+                long wait = System.nanoTime() - next.submitTime;
+                QUEUE_WAIT.add(wait);
+                MAX_QUEUE_WAIT.accumulateAndGet(wait, Math::max);
+                EXECUTOR.execute(next);
+            }
+        }
+    }
+
+    private static void finished(Request<?> request) {
+        COMPLETED.increment();
+        synchronized (LOCK) {
+            request.group.running.remove(request);
+            ACTIVE_BY_HOST.computeIfPresent(request.host, (k, v) -> v <= 1 ? null : v - 1);
+            if (--active == 0) {
+                busyTime += System.nanoTime() - busyStartTime;
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Opens the stream of a download. The stream counts the bytes received for the metrics. It must be closed after
+     * reading the whole response to return the connection to the keep-alive pool.
+     */
+    public static InputStream getInputStream(URLConnection urlConnection) throws StreamIOException {
+        return new MeteredInputStream(NetworkUtil.getUrlInputStream(urlConnection), urlConnection);
+    }
+
+    private static final class MeteredInputStream extends FilterInputStream {
+        private final URLConnection connection;
+        private boolean endOfStream = false;
+        private boolean closed = false;
+
+        MeteredInputStream(InputStream in, URLConnection connection) {
+            super(in);
+            this.connection = connection;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                endOfStream = true;
+            } else {
+                BYTES.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                endOfStream = true;
+            } else {
+                BYTES.add(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            BYTES.add(skipped);
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                // A connection whose response has been entirely read can be reused for the next requests
+                if (endOfStream && connection instanceof HttpURLConnection
+                    && !"close".equalsIgnoreCase(connection.getHeaderField("Connection"))) { //$NON-NLS-1$ //$NON-NLS-2$
+                    POOLED_CONNECTIONS.increment();
+                }
+            }
+            super.close();
+        }
+    }
+
+    public static Metrics getMetrics() {
+        synchronized (LOCK) {
+            long time = busyTime + (active > 0 ? System.nanoTime() - busyStartTime : 0L);
+            int queued = 0;
+            for (Group g : PENDING_GROUPS) {
+                queued += g.queue.size();
+            }
+            return new Metrics(REQUESTS.sum(), STARTED.sum(), COMPLETED.sum(), queued, active, BYTES.sum(), time,
+                POOLED_CONNECTIONS.sum(), QUEUE_WAIT.sum(), MAX_QUEUE_WAIT.get());
+        }
+    }
+
+    /**
+     * Snapshot of the activity of the engine since the start of the application.
+     */
+    public static final class Metrics {
+        private final long requests;
+        private final long started;
+        private final long completed;
+        private final int queued;
+        private final int active;
+        private final long bytes;
+        private final long busyTime;
+        private final long pooledConnections;
+        private final long queueWait;
+        private final long maxQueueWait;
+
+        Metrics(long requests, long started, long completed, int queued, int active, long bytes, long busyTime,
+            long pooledConnections, long queueWait, long maxQueueWait) {
+            this.requests = requests;
+            this.started = started;
+            this.completed = completed;
+            this.queued = queued;
+            this.active = active;
+            this.bytes = bytes;
+            this.busyTime = busyTime;
+            this.pooledConnections = pooledConnections;
+            this.queueWait = queueWait;
+            this.maxQueueWait = maxQueueWait;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getStarted() {
+            return started;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the bytes received by second while at least one download was running
+         */
+        public double getBytesPerSecond() {
+            return busyTime <= 0 ? 0.0 : bytes * 1e9 / busyTime;
+        }
+
+        /**
+         * @return the number of responses entirely read, whose connection has been returned to the keep-alive pool
+         */
+        public long getPooledConnections() {
+            return pooledConnections;
+        }
+
+        public double getAverageQueueWaitMillis() {
+            return started <= 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(queueWait) / 1000.0 / started;
+        }
+
+        public long getMaxQueueWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxQueueWait);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requests:%d completed:%d queued:%d active:%d bytes:%d rate:%.0fB/s pooled:%d " //$NON-NLS-1$
+                + "queueWaitAvg:%.1fms queueWaitMax:%dms", requests, completed, queued, active, bytes, //$NON-NLS-1$
+                getBytesPerSecond(), pooledConnections, getAverageQueueWaitMillis(), getMaxQueueWaitMillis());
+        }
+    }
+}
@@ -385,6 +385,7 @@ public class DownloadManager {
         String webLogin = TagUtil.getTagAttribute(xmler, WadoParameters.TAG_WADO_WEB_LOGIN, null);
         final WadoParameters wadoParameters =
             new WadoParameters(wadoURL, onlySopUID, additionnalParameters, overrideList, webLogin);
+        wadoParameters.setWadoRsURL(TagUtil.getTagAttribute(xmler, WadoParameters.TAG_WADO_RS_URL, null));
         readQuery(model, seriesList, xmler, wadoParameters, TAG_ARC_QUERY);
     }
 
@@ -399,6 +400,7 @@ public class DownloadManager {
         String webLogin = TagUtil.getTagAttribute(xmler, WadoParameters.TAG_WADO_WEB_LOGIN, null);
         final WadoParameters wadoParameters =
             new WadoParameters(wadoURL, onlySopUID, additionnalParameters, overrideList, webLogin);
+        wadoParameters.setWadoRsURL(TagUtil.getTagAttribute(xmler, WadoParameters.TAG_WADO_RS_URL, null));
         readQuery(model, seriesList, xmler, wadoParameters, WadoParameters.TAG_DOCUMENT_ROOT);
     }
 
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.dicom.explorer.wado;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.Timer;
+
+import org.weasis.core.api.gui.util.GuiExecutor;
+import org.weasis.core.api.service.BundleTools;
+import org.weasis.dicom.codec.DicomMediaIO;
+
+/**
+ * Collects the downloaded instances of the series and adds them to the model in the EDT by batch, at most once by
+ * interval (100 ms by default). The download threads never wait for the EDT, so the network throughput does not depend
+ * on the activity of the GUI.
+ */
+final class InstanceUpdateQueue {
+
+    public static final String UPDATE_INTERVAL = "download.ui.update.interval"; //$NON-NLS-1$
+
+    // Guarded by PENDING
+    private static final Map<LoadSeries, Batch> PENDING = new LinkedHashMap<>();
+    private static boolean scheduled = false;
+
+    private static final Timer TIMER = new Timer(
+        Math.max(10, BundleTools.SYSTEM_PREFERENCES.getIntProperty(UPDATE_INTERVAL, 100)), e -> flushAll());
+
+    static {
+        TIMER.setRepeats(false);
+    }
+
+    private InstanceUpdateQueue() {
+    }
+
+    private static final class Batch {
+        private final List<DicomMediaIO> readers = new ArrayList<>();
+        private int progress = 0;
+    }
+
+    /**
+     * Queues an instance to add to the series and increments the progress of the series.
+     *
+     * @param loader
+     *            the loader of the series
+     * @param reader
+     *            the reader of the instance, null to increment only the progress
+     */
+    static void add(LoadSeries loader, DicomMediaIO reader) {
+        boolean schedule;
+        synchronized (PENDING) {
+            Batch batch = PENDING.computeIfAbsent(loader, k -> new Batch());
+            if (reader != null) {
+                batch.readers.add(reader);
+            }
+            batch.progress++;
+            schedule = !scheduled;
+            scheduled = true;
+        }
+        if (schedule) {
+            GuiExecutor.instance().execute(TIMER::restart);
+        }
+    }
+
+    /**
+     * Applies immediately the pending instances of a series, must be called from the EDT.
+     */
+    static void flush(LoadSeries loader) {
+        Batch batch;
+        synchronized (PENDING) {
+            batch = PENDING.remove(loader);
+        }
+        apply(loader, batch);
+    }
+
+    private static void flushAll() {
+        Map<LoadSeries, Batch> batches;
+        synchronized (PENDING) {
+            batches = new LinkedHashMap<>(PENDING);
+            PENDING.clear();
+            scheduled = false;
+        }
+        batches.forEach(InstanceUpdateQueue::apply);
+    }
+
+    private static void apply(LoadSeries loader, Batch batch) {
+        if (batch != null) {
+            loader.applyDownloadedInstances(batch.readers, batch.progress);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
@@ -26,20 +27,21 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 
 import javax.swing.JProgressBar;
 
-import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.ElementDictionary;
 import org.dcm4che3.data.Tag;
-import org.dcm4che3.io.DicomInputStream;
-import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
-import org.dcm4che3.io.DicomOutputStream;
-import org.dcm4che3.util.SafeClose;
+import org.dcm4che3.imageio.plugins.dcm.DicomMetaData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.ObservableEvent;
@@ -56,10 +58,9 @@ import org.weasis.core.api.media.data.TagW.TagType;
 import org.weasis.core.api.media.data.Thumbnail;
 import org.weasis.core.api.service.AuditLog;
 import org.weasis.core.api.util.FileUtil;
-import org.weasis.core.api.util.NetworkUtil;
+import org.weasis.core.api.util.MultipartReader;
 import org.weasis.core.api.util.StreamIOException;
 import org.weasis.core.api.util.StringUtil;
-import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.docking.UIManager;
 import org.weasis.core.ui.editor.SeriesViewerFactory;
 import org.weasis.core.ui.editor.ViewerPluginBuilder;
@@ -167,6 +168,8 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
 
     @Override
     protected void done() {
+        // The series must contain all the downloaded instances before the following updates
+        InstanceUpdateQueue.flush(this);
         if (!isStopped()) {
             // Ensure to stop downloading and must be set before reusing LoadSeries to download again
             progressBar.setIndeterminate(false);
@@ -177,6 +180,7 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
                 new Object[] {AuditLog.MARKER_PERF, getLoadType(), dicomSeries.getTagValue(dicomSeries.getTagID()),
                     TagD.getTagValue(dicomSeries, Tag.Modality, String.class), getImageNumber(),
                     (long) dicomSeries.getFileSize(), getDownloadTime() });
+            LOGGER.info("{} downloads {}", AuditLog.MARKER_PERF, DownloadEngine.getMetrics()); //$NON-NLS-1$
             dicomSeries.removeTag(DOWNLOAD_START_TIME);
 
             final SeriesThumbnail thumbnail = (SeriesThumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
@@ -272,31 +276,111 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
         return buf.toString();
     }
 
-    private boolean isSOPInstanceUIDExist(MediaSeriesGroup study, Series<?> dicomSeries, String sopUID) {
-        TagW sopTag = TagD.getUID(Level.INSTANCE);
-        if (dicomSeries.hasMediaContains(sopTag, sopUID)) {
-            return true;
+    private void incrementProgressBarValue() {
+        InstanceUpdateQueue.add(this, null);
+    }
+
+    /**
+     * Adds the downloaded instances to the series and updates the progress, called in the EDT by batch (see
+     * {@link InstanceUpdateQueue}).
+     *
+     * @param readers
+     *            the readers of the downloaded instances
+     * @param progress
+     *            the number of instances processed (downloaded, skipped or failed)
+     */
+    void applyDownloadedInstances(List<DicomMediaIO> readers, int progress) {
+        if (progress > 0) {
+            progressBar.setValue(progressBar.getValue() + progress);
         }
-        // Search in split Series, cannot use "has this series a SplitNumber" because splitting can be executed later
-        // for Dicom Video and other special Dicom
-        String uid = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
-        if (study != null && uid != null) {
-            for (MediaSeriesGroup group : dicomModel.getChildren(study)) {
-                if (dicomSeries != group && group instanceof Series) {
-                    Series s = (Series) group;
-                    if (uid.equals(TagD.getTagValue(group, Tag.SeriesInstanceUID))
-                        && s.hasMediaContains(sopTag, sopUID)) {
-                        return true;
+        if (readers.isEmpty()) {
+            return;
+        }
+
+        boolean firstImageToDisplay = false;
+        for (DicomMediaIO reader : readers) {
+            if (dicomSeries.size(null) == 0) {
+                // Override the group (patient, study and series) by the dicom fields except the UID of the group
+                MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
+                reader.writeMetaData(patient);
+                MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
+                reader.writeMetaData(study);
+                reader.writeMetaData(dicomSeries);
+                dicomModel.firePropertyChange(
+                    new ObservableEvent(ObservableEvent.BasicAction.UDPATE_PARENT, dicomModel, null, dicomSeries));
+            }
+            firstImageToDisplay |= addToSeries(reader);
+        }
+
+        Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
+        if (thumb != null) {
+            thumb.repaint();
+        }
+        if (firstImageToDisplay) {
+            openFirstImage();
+        }
+    }
+
+    /**
+     * @return true if it is the first image of the series
+     */
+    private boolean addToSeries(DicomMediaIO reader) {
+        boolean firstImageToDisplay = false;
+        MediaElement[] medias = reader.getMediaElement();
+        if (medias != null) {
+            firstImageToDisplay = dicomSeries.size(null) == 0;
+            if (firstImageToDisplay) {
+                MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
+                if (patient != null) {
+                    String dicomPtUID = (String) reader.getTagValue(TagW.PatientPseudoUID);
+                    if (!patient.getTagValue(TagW.PatientPseudoUID).equals(dicomPtUID)) {
+                        // Fix when patientUID in xml have different patient name
+                        dicomModel.replacePatientUID((String) patient.getTagValue(TagW.PatientPseudoUID), dicomPtUID);
                     }
                 }
             }
-        }
 
-        return false;
+            for (MediaElement media : medias) {
+                dicomModel.applySplittingRules(dicomSeries, media);
+            }
+            if (firstImageToDisplay && dicomSeries.size(null) == 0) {
+                firstImageToDisplay = false;
+            }
+        }
+        return firstImageToDisplay;
     }
 
-    private void incrementProgressBarValue() {
-        GuiExecutor.instance().execute(() -> progressBar.setValue(progressBar.getValue() + 1));
+    private void openFirstImage() {
+        boolean openNewTab = true;
+        MediaSeriesGroup entry1 = dicomModel.getParent(dicomSeries, DicomModel.patient);
+        if (entry1 != null) {
+            synchronized (UIManager.VIEWER_PLUGINS) {
+                for (final ViewerPlugin p : UIManager.VIEWER_PLUGINS) {
+                    if (entry1.equals(p.getGroupID())) {
+                        if (p instanceof ImageViewerPlugin) {
+                            ViewCanvas pane = ((ImageViewerPlugin) p).getSelectedImagePane();
+                            if (pane != null && pane.getImageLayer() != null
+                                && pane.getImageLayer().getSourceImage() == null) {
+                                // When the selected view has no image send, open in it.
+                                break;
+                            }
+                        }
+                        openNewTab = false;
+                        break;
+                    }
+                }
+            }
+        }
+        if (openNewTab) {
+            SeriesViewerFactory plugin = UIManager.getViewerFactory(dicomSeries.getMimeType());
+            if (plugin != null && !(plugin instanceof MimeSystemAppFactory)) {
+                ViewerPluginBuilder.openSequenceInPlugin(plugin, dicomSeries, dicomModel, true, true);
+            } else if (plugin != null) {
+                // Send event to select the related patient in Dicom Explorer.
+                dicomModel.firePropertyChange(
+                    new ObservableEvent(ObservableEvent.BasicAction.SELECT, dicomModel, null, dicomSeries));
+            }
+        }
     }
 
     private Boolean startDownload() {
@@ -311,25 +395,34 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
         if (wado == null) {
             return false;
         }
-        ExecutorService imageDownloader =
-            ThreadUtil.buildNewFixedThreadExecutor(concurrentDownloads, "Image Downloader"); //$NON-NLS-1$
-        ArrayList<Callable<Boolean>> tasks = new ArrayList<>(sopList.size());
+        // Shared by all the series, the limit of simultaneous downloads of the series is applied by the group
+        DownloadEngine.Group imageDownloader = new DownloadEngine.Group(concurrentDownloads);
+        List<Future<Boolean>> tasks = new ArrayList<>(sopList.size());
+        dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
         int[] dindex = generateDownladOrder(sopList.size());
         GuiExecutor.instance().execute(() -> {
             progressBar.setMaximum(sopList.size());
             progressBar.setValue(0);
         });
+        // WADO-RS requires the study and the series UIDs
+        boolean wadoRs = wado.getWadoRsURL() != null && !wado.isRequireOnlySOPInstanceUID();
+        List<String> wadoRsInstances = new ArrayList<>();
         for (int k = 0; k < sopList.size(); k++) {
             DicomInstance instance = sopList.get(dindex[k]);
             if (isCancelled()) {
+                imageDownloader.cancel();
                 return true;
             }
             // Test if SOPInstanceUID already exists
-            if (isSOPInstanceUIDExist(study, dicomSeries, instance.getSopInstanceUID())) {
+            if (dicomModel.isSOPInstanceUIDExist(study, dicomSeries, instance.getSopInstanceUID())) {
                 incrementProgressBarValue();
                 LOGGER.debug("DICOM instance {} already exists, skip.", instance.getSopInstanceUID()); //$NON-NLS-1$
                 continue;
             }
+            if (wadoRs && instance.getDirectDownloadFile() == null) {
+                wadoRsInstances.add(instance.getSopInstanceUID());
+                continue;
+            }
 
             URLConnection urlConnection = null;
             try {
@@ -386,19 +479,56 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
             }
             LOGGER.debug("Download DICOM instance {} index {}.", urlConnection, k); //$NON-NLS-1$
             Download ref = new Download(urlConnection);
-            tasks.add(ref);
+            tasks.add(imageDownloader.submit(ref, urlConnection.getURL(), getPriority()));
         }
 
-        try {
-            dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
-            imageDownloader.invokeAll(tasks);
-        } catch (InterruptedException e) {
+        if (!wadoRsInstances.isEmpty()) {
+            String seriesURL = getWadoRsSeriesURL(wado, study);
+            try {
+                if (wadoRsInstances.size() == sopList.size()) {
+                    // Retrieve the whole series in a single response
+                    tasks.add(imageDownloader.submit(new MultipartDownload(seriesURL, wadoRsInstances, true),
+                        new URL(seriesURL), getPriority()));
+                } else {
+                    for (String uid : wadoRsInstances) {
+                        String url = seriesURL + "/instances/" + uid; //$NON-NLS-1$
+                        MultipartDownload download =
+                            new MultipartDownload(url, Collections.singletonList(uid), false);
+                        tasks.add(imageDownloader.submit(download, new URL(url), getPriority()));
+                    }
+                }
+            } catch (MalformedURLException e) {
+                hasError = true;
+                LOGGER.error("Invalid WADO-RS URL", e); //$NON-NLS-1$
+            }
         }
 
-        imageDownloader.shutdown();
+        for (Future<Boolean> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                // Cancelled by the user or replaced by another download
+                imageDownloader.cancel();
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                LOGGER.error("Downloading", e.getCause()); //$NON-NLS-1$
+            } catch (CancellationException e) {
+                // Do nothing
+            }
+        }
         return true;
     }
 
+    private String getWadoRsSeriesURL(WadoParameters wado, MediaSeriesGroup study) {
+        String base = wado.getWadoRsURL();
+        if (base.endsWith("/")) { //$NON-NLS-1$
+            base = base.substring(0, base.length() - 1);
+        }
+        return base + "/studies/" + TagD.getTagValue(study, Tag.StudyInstanceUID, String.class) + "/series/" //$NON-NLS-1$ //$NON-NLS-2$
+            + TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
+    }
+
     private static URLConnection initConnection(URL url, WadoParameters wadoParameters) throws IOException {
         // If there is a proxy, it should be already configured
         URLConnection urlConnection = url.openConnection();
@@ -581,13 +711,28 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
     class Download implements Callable<Boolean> {
 
         private final URLConnection urlConnection; // download URL
+        private final Predicate<String> instanceFilter; // accepted SOPInstanceUIDs, null accepts all
         private Status status; // current status of download
+        private String sopInstanceUID;
+        private DicomMetaData header; // header read while writing the file
 
         public Download(URLConnection urlConnection) {
+            this(urlConnection, null);
+        }
+
+        Download(URLConnection urlConnection, Predicate<String> instanceFilter) {
             this.urlConnection = urlConnection;
+            this.instanceFilter = instanceFilter;
             status = Status.DOWNLOADING;
         }
 
+        /**
+         * @return the SOPInstanceUID of the downloaded instance or null if it has not been read
+         */
+        String getSopInstanceUID() {
+            return sopInstanceUID;
+        }
+
         public String getUrl() {
             return urlConnection.getURL().toExternalForm();
         }
@@ -626,7 +771,7 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
             }
 
             final WadoParameters wado = (WadoParameters) dicomSeries.getTagValue(TagW.WadoParameters);
-            return NetworkUtil.getUrlInputStream(initConnection(new URL(buffer.toString()), wado));
+            return DownloadEngine.getInputStream(initConnection(new URL(buffer.toString()), wado));
         }
 
         @Override
@@ -652,9 +797,18 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
          * @throws URISyntaxException
          */
         private boolean process() throws IOException, URISyntaxException {
-            File tempFile = null;
-            InputStream stream = NetworkUtil.getUrlInputStream(urlConnection);
+            return process(DownloadEngine.getInputStream(urlConnection));
+        }
 
+        /**
+         * Writes the DICOM stream in the cache and adds the images to the series.
+         *
+         * @param stream
+         *            the stream of the instance, it is closed at the end
+         * @return false if the download has been interrupted
+         */
+        boolean process(InputStream stream) throws IOException, URISyntaxException {
+            File tempFile = null;
             boolean cache = true;
             if (!writeInCache && getUrl().startsWith("file:")) { //$NON-NLS-1$
                 cache = false;
@@ -681,6 +835,8 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
                     File renameFile = new File(DicomMediaIO.DICOM_EXPORT_DIR, tempFile.getName());
                     if (tempFile.renameTo(renameFile)) {
                         tempFile = renameFile;
+                        // The bulk data of the header must reference the moved file
+                        header = DicomStreamWriter.relocate(header, renameFile);
                     }
                 } else {
                     tempFile = new File(urlConnection.getURL().toURI());
@@ -689,24 +845,20 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
                 FileUtil.safeClose(stream);
 
                 dicomReader = new DicomMediaIO(tempFile);
-                if (dicomReader.isReadableDicom() && dicomSeries.size(null) == 0) {
-                    // Override the group (patient, study and series) by the dicom fields except the UID of the group
-                    MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
-                    dicomReader.writeMetaData(patient);
-                    MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
-                    dicomReader.writeMetaData(study);
-                    dicomReader.writeMetaData(dicomSeries);
-                    GuiExecutor.instance().invokeAndWait(() -> {
-                        Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-                        if (thumb != null) {
-                            thumb.repaint();
-                        }
-                        dicomModel.firePropertyChange(new ObservableEvent(ObservableEvent.BasicAction.UDPATE_PARENT,
-                            dicomModel, null, dicomSeries));
-                    });
+                dicomReader.setHeader(header);
+                header = null;
+                if (dicomReader.isReadableDicom()) {
+                    sopInstanceUID = (String) dicomReader.getTagValue(TagD.getUID(Level.INSTANCE));
+                    if (instanceFilter != null && !instanceFilter.test(sopInstanceUID)) {
+                        LOGGER.debug("Skip DICOM instance {}, not requested or already loaded", sopInstanceUID); //$NON-NLS-1$
+                        dicomReader.dispose();
+                        FileUtil.delete(tempFile);
+                        return true;
+                    }
                 }
             }
 
+            DicomMediaIO addedReader = null;
             // Change status to complete if this point was reached because downloading has finished.
             if (status == Status.DOWNLOADING) {
                 status = Status.COMPLETE;
@@ -715,15 +867,12 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
                         if (cache) {
                             dicomReader.getFileCache().setOriginalTempFile(tempFile);
                         }
-                        final DicomMediaIO reader = dicomReader;
-                        // Necessary to wait the runnable because the dicomSeries must be added to the dicomModel
-                        // before reaching done() of SwingWorker
-                        GuiExecutor.instance().invokeAndWait(() -> updateUI(reader));
+                        addedReader = dicomReader;
                     }
                 }
             }
-            // Increment progress bar in EDT and repaint when downloaded
-            incrementProgressBarValue();
+            // Added to the series and increment progress bar in EDT, without waiting (see done() of SwingWorker)
+            InstanceUpdateQueue.add(LoadSeries.this, addedReader);
             return true;
         }
 
@@ -733,33 +882,25 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
 
             boolean readTsuid =
                 DicomManager.getInstance().hasAllImageCodecs() ? false : getUrl().contains("?requestType=WADO"); //$NON-NLS-1$
-            int bytesTransferred;
-            if (overrideList == null) {
-                bytesTransferred =
-                    FileUtil.writeStream(new DicomSeriesProgressMonitor(dicomSeries, stream, readTsuid), tempFile);
-            } else {
-                bytesTransferred =
-                    writFile(new DicomSeriesProgressMonitor(dicomSeries, stream, readTsuid), tempFile, overrideList);
-            }
+            int bytesTransferred =
+                writFile(new DicomSeriesProgressMonitor(dicomSeries, stream, readTsuid), tempFile, overrideList);
 
             if (bytesTransferred == Integer.MIN_VALUE) {
                 LOGGER.warn("Stop downloading unsupported TSUID, retry to download non compressed TSUID"); //$NON-NLS-1$
                 InputStream stream2 = replaceToDefaultTSUID();
-                if (overrideList == null) {
-                    bytesTransferred =
-                        FileUtil.writeStream(new DicomSeriesProgressMonitor(dicomSeries, stream2, false), tempFile);
-                } else {
-                    bytesTransferred =
-                        writFile(new DicomSeriesProgressMonitor(dicomSeries, stream2, false), tempFile, overrideList);
-                }
+                bytesTransferred =
+                    writFile(new DicomSeriesProgressMonitor(dicomSeries, stream2, false), tempFile, overrideList);
             }
             return bytesTransferred;
         }
 
         /**
+         * Writes the stream in the file and reads the DICOM header at the same time (see {@link DicomStreamWriter}).
+         *
          * @param in
          * @param tempFile
          * @param overrideList
+         *            the tags of the header to replace by the values of the patient and the study, can be null
          * @return bytes transferred. O = error, -1 = all bytes has been transferred, other = bytes transferred before
          *         interruption
          * @throws StreamIOException
@@ -769,24 +910,9 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
                 return 0;
             }
 
-            DicomInputStream dis = null;
-            DicomOutputStream dos = null;
-
+            header = null;
             try {
-                String tsuid = null;
-                Attributes dataset;
-                dis = new DicomInputStream(in);
-                try {
-                    dis.setIncludeBulkData(IncludeBulkData.URI);
-                    dataset = dis.readDataset(-1, -1);
-                    tsuid = dis.getTransferSyntax();
-                } finally {
-                    dis.close();
-                }
-
-                dos = new DicomOutputStream(tempFile);
-
-                if (overrideList != null) {
+                header = DicomStreamWriter.write(in, tempFile, overrideList == null ? null : ds -> {
                     MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
                     MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
                     ElementDictionary dic = ElementDictionary.getStandardElementDictionary();
@@ -801,13 +927,13 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
                             value = patient.getTagValue(tagElement);
                         }
 
-                        DicomMediaUtils.fillAttributes(dataset, tagElement, value, dic);
+                        DicomMediaUtils.fillAttributes(ds, tagElement, value, dic);
                     }
-                }
-                dos.writeDataset(dataset.createFileMetaInformation(tsuid), dataset);
-                dos.finish();
-                dos.flush();
+                });
                 return -1;
+            } catch (SocketTimeoutException e) {
+                FileUtil.delete(tempFile);
+                throw new StreamIOException(e);
             } catch (InterruptedIOException e) {
                 FileUtil.delete(tempFile);
                 LOGGER.error("Interruption when writing file: {}", e.getMessage()); //$NON-NLS-1$
@@ -819,79 +945,91 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
                 FileUtil.delete(tempFile);
                 LOGGER.error("Writing DICOM temp file", e); //$NON-NLS-1$
                 return 0;
-            } finally {
-                SafeClose.close(dos);
-                if (dis != null) {
-                    List<File> blkFiles = dis.getBulkDataFiles();
-                    if (blkFiles != null) {
-                        for (File file : blkFiles) {
-                            file.delete();
-                        }
-                    }
-                }
             }
         }
+    }
 
-        private void updateUI(final DicomMediaIO reader) {
-            boolean firstImageToDisplay = false;
-            MediaElement[] medias = reader.getMediaElement();
-            if (medias != null) {
-                firstImageToDisplay = dicomSeries.size(null) == 0;
-                if (firstImageToDisplay) {
-                    MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
-                    if (patient != null) {
-                        String dicomPtUID = (String) reader.getTagValue(TagW.PatientPseudoUID);
-                        if (!patient.getTagValue(TagW.PatientPseudoUID).equals(dicomPtUID)) {
-                            // Fix when patientUID in xml have different patient name
-                            dicomModel.replacePatientUID((String) patient.getTagValue(TagW.PatientPseudoUID),
-                                dicomPtUID);
-                        }
-                    }
-                }
+    /**
+     * Retrieves DICOM instances with WADO-RS in a multipart/related response. The parts are written in the cache and
+     * added to the series as they arrive. When the response is interrupted or incomplete, only the missing instances
+     * are requested again, one by one.
+     */
+    class MultipartDownload implements Callable<Boolean> {
 
-                for (MediaElement media : medias) {
-                    dicomModel.applySplittingRules(dicomSeries, media);
-                }
-                if (firstImageToDisplay && dicomSeries.size(null) == 0) {
-                    firstImageToDisplay = false;
+        private final String url;
+        private final Set<String> expected;
+        private final boolean wholeSeries;
+
+        /**
+         * @param url
+         *            the URL of the series or of an instance
+         * @param sopInstanceUIDs
+         *            the instances to retrieve
+         * @param wholeSeries
+         *            true if the URL is the one of the series
+         */
+        MultipartDownload(String url, Collection<String> sopInstanceUIDs, boolean wholeSeries) {
+            this.url = url;
+            this.expected = new LinkedHashSet<>(sopInstanceUIDs);
+            this.wholeSeries = wholeSeries;
+        }
+
+        @Override
+        public Boolean call() throws Exception {
+            try {
+                download(url);
+            } catch (IOException | URISyntaxException e) {
+                LOGGER.error("Downloading {}", url, e); //$NON-NLS-1$
+            }
+            if (wholeSeries && !expected.isEmpty()) {
+                LOGGER.info("Retrieve individually {} missing DICOM instances", expected.size()); //$NON-NLS-1$
+                for (String uid : new ArrayList<>(expected)) {
+                    if (isCancelled() || Thread.currentThread().isInterrupted()) {
+                        return Boolean.TRUE;
+                    }
+                    try {
+                        download(url + "/instances/" + uid); //$NON-NLS-1$
+                    } catch (IOException | URISyntaxException e) {
+                        LOGGER.error("Downloading DICOM instance {}", uid, e); //$NON-NLS-1$
+                    }
                 }
             }
+            if (!expected.isEmpty() && !isCancelled()) {
+                // Network or server issue (allow to retry)
+                hasError = true;
+                LOGGER.error("Cannot retrieve {} DICOM instances from {}", expected.size(), url); //$NON-NLS-1$
+            }
+            return Boolean.TRUE;
+        }
 
-            Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-            if (thumb != null) {
-                thumb.repaint();
+        private void download(String requestURL) throws IOException, URISyntaxException {
+            final WadoParameters wado = (WadoParameters) dicomSeries.getTagValue(TagW.WadoParameters);
+            URLConnection urlConnection = initConnection(new URL(requestURL), wado);
+            StringBuilder accept = new StringBuilder("multipart/related; type=\"application/dicom\""); //$NON-NLS-1$
+            if (DicomManager.getInstance().hasAllImageCodecs()) {
+                // Get the original transfer syntax without transcoding
+                accept.append("; transfer-syntax=*"); //$NON-NLS-1$
             }
+            urlConnection.setRequestProperty("Accept", accept.toString()); //$NON-NLS-1$
 
-            if (firstImageToDisplay) {
-                boolean openNewTab = true;
-                MediaSeriesGroup entry1 = dicomModel.getParent(dicomSeries, DicomModel.patient);
-                if (entry1 != null) {
-                    synchronized (UIManager.VIEWER_PLUGINS) {
-                        for (final ViewerPlugin p : UIManager.VIEWER_PLUGINS) {
-                            if (entry1.equals(p.getGroupID())) {
-                                if (p instanceof ImageViewerPlugin) {
-                                    ViewCanvas pane = ((ImageViewerPlugin) p).getSelectedImagePane();
-                                    if (pane != null && pane.getImageLayer() != null
-                                        && pane.getImageLayer().getSourceImage() == null) {
-                                        // When the selected view has no image send, open in it.
-                                        break;
-                                    }
-                                }
-                                openNewTab = false;
-                                break;
-                            }
-                        }
+            InputStream stream = DownloadEngine.getInputStream(urlConnection);
+            String boundary = MultipartReader.getBoundary(urlConnection.getContentType());
+            if (boundary == null) {
+                FileUtil.safeClose(stream);
+                throw new IOException("Not a multipart response: " + urlConnection.getContentType()); //$NON-NLS-1$
+            }
+            try (MultipartReader reader = new MultipartReader(stream, boundary)) {
+                MultipartReader.Part part;
+                while ((part = reader.nextPart()) != null) {
+                    if (isCancelled()) {
+                        return;
                     }
-                }
-                if (openNewTab) {
-                    SeriesViewerFactory plugin = UIManager.getViewerFactory(dicomSeries.getMimeType());
-                    if (plugin != null && !(plugin instanceof MimeSystemAppFactory)) {
-                        ViewerPluginBuilder.openSequenceInPlugin(plugin, dicomSeries, dicomModel, true, true);
-                    } else if (plugin != null) {
-                        // Send event to select the related patient in Dicom Explorer.
-                        dicomModel.firePropertyChange(
-                            new ObservableEvent(ObservableEvent.BasicAction.SELECT, dicomModel, null, dicomSeries));
+                    Download download = new Download(urlConnection, expected::contains);
+                    if (!download.process(part.getInputStream())) {
+                        // Interrupted
+                        return;
                     }
+                    Optional.ofNullable(download.getSopInstanceUID()).ifPresent(expected::remove);
                 }
             }
         }
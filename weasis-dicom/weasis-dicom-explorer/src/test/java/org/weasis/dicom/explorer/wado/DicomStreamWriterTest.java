@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.dicom.explorer.wado;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkData;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.imageio.plugins.dcm.DicomMetaData;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DicomStreamWriterTest {
+
+    private static final String PATIENT_NAME = "Doe^John"; //$NON-NLS-1$
+    private static final String OVERRIDE_NAME = "Doe^John^Overridden^With^A^Longer^Name"; //$NON-NLS-1$
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] buildPixels() {
+        byte[] pixels = new byte[8 * 8 * 2];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) i;
+        }
+        return pixels;
+    }
+
+    private static byte[] buildDicom(byte[] pixels) throws IOException {
+        Attributes ds = new Attributes();
+        ds.setString(Tag.SOPClassUID, VR.UI, UID.SecondaryCaptureImageStorage);
+        ds.setString(Tag.SOPInstanceUID, VR.UI, "1.2.3.4.5"); //$NON-NLS-1$
+        ds.setString(Tag.PatientName, VR.PN, PATIENT_NAME);
+        ds.setInt(Tag.SamplesPerPixel, VR.US, 1);
+        ds.setInt(Tag.Rows, VR.US, 8);
+        ds.setInt(Tag.Columns, VR.US, 8);
+        ds.setInt(Tag.BitsAllocated, VR.US, 16);
+        ds.setInt(Tag.BitsStored, VR.US, 12);
+        ds.setBytes(Tag.PixelData, VR.OW, pixels);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DicomOutputStream dos = new DicomOutputStream(out, UID.ExplicitVRLittleEndian)) {
+            dos.writeDataset(ds.createFileMetaInformation(UID.ExplicitVRLittleEndian), ds);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readBulkData(File file, Object value) throws IOException {
+        Assert.assertTrue(value instanceof BulkData);
+        BulkData data = (BulkData) value;
+        byte[] b = new byte[data.length()];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) { //$NON-NLS-1$
+            raf.seek(data.offset());
+            raf.readFully(b);
+        }
+        return b;
+    }
+
+    @Test
+    public void testWriteUnchanged() throws IOException {
+        byte[] pixels = buildPixels();
+        byte[] dicom = buildDicom(pixels);
+        File file = folder.newFile("plain.dcm"); //$NON-NLS-1$
+
+        DicomMetaData header = DicomStreamWriter.write(new ByteArrayInputStream(dicom), file, null);
+
+        Assert.assertArrayEquals(dicom, Files.readAllBytes(file.toPath()));
+        Assert.assertNotNull(header);
+        Attributes ds = header.getAttributes();
+        Assert.assertEquals(PATIENT_NAME, ds.getString(Tag.PatientName));
+        Assert.assertEquals(UID.ExplicitVRLittleEndian,
+            header.getFileMetaInformation().getString(Tag.TransferSyntaxUID));
+        Assert.assertArrayEquals(pixels, readBulkData(file, ds.getValue(Tag.PixelData)));
+    }
+
+    @Test
+    public void testOverrideHeader() throws IOException {
+        byte[] pixels = buildPixels();
+        File file = folder.newFile("override.dcm"); //$NON-NLS-1$
+
+        DicomMetaData header = DicomStreamWriter.write(new ByteArrayInputStream(buildDicom(pixels)), file,
+            ds -> ds.setString(Tag.PatientName, VR.PN, OVERRIDE_NAME));
+
+        // The pixel data are shifted by the longer header
+        Assert.assertNotNull(header);
+        Assert.assertEquals(OVERRIDE_NAME, header.getAttributes().getString(Tag.PatientName));
+        Assert.assertArrayEquals(pixels, readBulkData(file, header.getAttributes().getValue(Tag.PixelData)));
+
+        try (DicomInputStream dis = new DicomInputStream(file)) {
+            dis.setIncludeBulkData(IncludeBulkData.YES);
+            Attributes ds = dis.readDataset(-1, -1);
+            Assert.assertEquals(OVERRIDE_NAME, ds.getString(Tag.PatientName));
+            Assert.assertArrayEquals(pixels, ds.getBytes(Tag.PixelData));
+        }
+    }
+
+    @Test
+    public void testWriteUnparsableStream() throws IOException {
+        // Preamble followed by a truncated element (0002,0000) UL
+        byte[] element = { 0x02, 0x00, 0x00, 0x00, 'U', 'L', 0x04, 0x00, 0x10, 0x00 };
+        byte[] data = new byte[132 + element.length];
+        System.arraycopy("DICM".getBytes(StandardCharsets.US_ASCII), 0, data, 128, 4); //$NON-NLS-1$
+        System.arraycopy(element, 0, data, 132, element.length);
+        File file = folder.newFile("other.bin"); //$NON-NLS-1$
+
+        DicomMetaData header = DicomStreamWriter.write(new ByteArrayInputStream(data), file, null);
+
+        Assert.assertNull(header);
+        Assert.assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testRelocate() throws IOException {
+        byte[] pixels = buildPixels();
+        File file = folder.newFile("moved.dcm"); //$NON-NLS-1$
+        DicomMetaData header = DicomStreamWriter.write(new ByteArrayInputStream(buildDicom(pixels)), file, null);
+
+        File movedFile = new File(folder.newFolder(), file.getName());
+        Files.move(file.toPath(), movedFile.toPath());
+        header = DicomStreamWriter.relocate(header, movedFile);
+
+        Assert.assertNotNull(header);
+        Object value = header.getAttributes().getValue(Tag.PixelData);
+        Assert.assertTrue(((BulkData) value).getURI().startsWith(movedFile.toURI().toString()));
+        Assert.assertArrayEquals(pixels, readBulkData(movedFile, value));
+    }
+}
@@ -20,9 +20,18 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.ComboBoxModel;
 import javax.swing.JComboBox;
@@ -33,7 +42,10 @@ import javax.swing.JProgressBar;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreePath;
 
+import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.io.DicomOutputStream;
 import org.dcm4che3.net.Status;
 import org.dcm4che3.util.UIDUtils;
 import org.slf4j.Logger;
@@ -45,6 +57,7 @@ import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.JMVUtils;
 import org.weasis.core.api.media.data.MediaElement;
+import org.weasis.core.api.media.data.MediaReader;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.TagW;
@@ -53,14 +66,16 @@ import org.weasis.core.api.util.FileUtil;
 import org.weasis.core.api.util.StringUtil;
 import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.model.GraphicModel;
+import org.weasis.dicom.codec.DcmMediaReader;
 import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomMediaIO;
 import org.weasis.dicom.codec.TagD;
 import org.weasis.dicom.explorer.CheckTreeModel;
 import org.weasis.dicom.explorer.DicomModel;
 import org.weasis.dicom.explorer.ExplorerTask;
 import org.weasis.dicom.explorer.ExportDicom;
 import org.weasis.dicom.explorer.ExportTree;
-import org.weasis.dicom.explorer.LocalExport;
+import org.weasis.dicom.explorer.pr.PrSerializer;
 import org.weasis.dicom.explorer.pref.node.AbstractDicomNode;
 import org.weasis.dicom.explorer.pref.node.AbstractDicomNode.UsageType;
 import org.weasis.dicom.explorer.pref.node.DefaultDicomNode;
@@ -81,6 +96,9 @@ public class SendDicomView extends AbstractItemDialogPage implements ExportDicom
     private static final String STOW_SEG = "--"; //$NON-NLS-1$
     private static final String RETURN = "\r\n"; //$NON-NLS-1$
 
+    public static final String SEND_ASSOCIATIONS = "dicom.send.associations"; //$NON-NLS-1$
+    private static final Map<String, Metrics> METRICS = new ConcurrentHashMap<>();
+
     private final DicomModel dicomModel;
     private final ExportTree exportTree;
     private final ExecutorService executor = ThreadUtil.buildNewFixedThreadExecutor(3, "Dicom Send task"); //$NON-NLS-1$
@@ -176,58 +194,126 @@ public class SendDicomView extends AbstractItemDialogPage implements ExportDicom
     private boolean sendDicomFiles(final CheckTreeModel model, final ExplorerTask<Boolean, String> t) throws IOException {
         dicomModel
             .firePropertyChange(new ObservableEvent(ObservableEvent.BasicAction.LOADING_START, dicomModel, null, t));
-        File exportDir = FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "send")); //$NON-NLS-1$ //$NON-NLS-2$
+        SendBatch batch = new SendBatch();
         try {
-            writeDicom(t, exportDir, model);
+            collectInstances(t, batch, model);
 
             if (t.isCancelled()) {
                 return false;
             }
 
-            String weasisAet = BundleTools.SYSTEM_PREFERENCES.getProperty("weasis.aet", "WEASIS_AE"); //$NON-NLS-1$ //$NON-NLS-2$
+            Object selectedItem = comboNode.getSelectedItem();
+            long start = System.nanoTime();
+            boolean sent = false;
+            if (selectedItem instanceof DefaultDicomNode) {
+                sent = storeDicom((DefaultDicomNode) selectedItem, batch.toFiles(), t);
+            } else if (selectedItem instanceof DicomWebNode) {
+                sent = postDicom((DicomWebNode) selectedItem, batch.items);
+            }
+            if (sent) {
+                String destination = ((AbstractDicomNode) selectedItem).getDescription();
+                Metrics metrics = METRICS.computeIfAbsent(destination, k -> new Metrics());
+                long length = batch.getLength();
+                metrics.add(batch.items.size(), length, System.nanoTime() - start);
+                LOGGER.info("Sent {} DICOM instances ({}) to {}. Total for this destination: {}", //$NON-NLS-1$
+                    batch.items.size(), FileUtil.formatSize(length), destination, metrics);
+            }
+        } finally {
+            batch.dispose();
+        }
 
-            List<String> files = new ArrayList<>();
-            files.add(exportDir.getAbsolutePath());
+        return true;
+    }
 
-            final CircularProgressBar progressBar = t.getBar();
+    /**
+     * Sends the files with one or several associations. The files are split in contiguous parts, so the instances of
+     * a series are mostly sent by the same association.
+     */
+    private boolean storeDicom(DefaultDicomNode node, List<String> files, ExplorerTask<Boolean, String> t) {
+        if (files.isEmpty()) {
+            return false;
+        }
+        String weasisAet = BundleTools.SYSTEM_PREFERENCES.getProperty("weasis.aet", "WEASIS_AE"); //$NON-NLS-1$ //$NON-NLS-2$
+        int nbAssociations = Math.max(1,
+            Math.min(files.size(), BundleTools.SYSTEM_PREFERENCES.getIntProperty(SEND_ASSOCIATIONS, 1)));
+        int partSize = (files.size() + nbAssociations - 1) / nbAssociations;
+        nbAssociations = (files.size() + partSize - 1) / partSize;
+
+        final CircularProgressBar progressBar = t.getBar();
+        final int total = files.size();
+        final AtomicIntegerArray processed = new AtomicIntegerArray(nbAssociations);
+        List<Callable<DicomState>> associations = new ArrayList<>(nbAssociations);
+        for (int i = 0; i < nbAssociations; i++) {
+            final int index = i;
+            final List<String> part = files.subList(i * partSize, Math.min(files.size(), (i + 1) * partSize));
             DicomProgress dicomProgress = new DicomProgress();
             dicomProgress.addProgressListener(p -> {
-                GuiExecutor.instance().execute(() -> {
-                    int c = p.getNumberOfCompletedSuboperations() + p.getNumberOfFailedSuboperations();
-                    int r = p.getNumberOfRemainingSuboperations();
-                    progressBar.setValue((c * 100) / (c + r));
-                });
+                processed.set(index, p.getNumberOfCompletedSuboperations() + p.getNumberOfFailedSuboperations());
+                int c = 0;
+                for (int k = 0; k < processed.length(); k++) {
+                    c += processed.get(k);
+                }
+                final int value = (c * 100) / total;
+                GuiExecutor.instance().execute(() -> progressBar.setValue(value));
             });
             t.addCancelListener(dicomProgress);
-
-            Object selectedItem = comboNode.getSelectedItem();
-            if (selectedItem instanceof DefaultDicomNode) {
-                final DefaultDicomNode node = (DefaultDicomNode) selectedItem;
+            associations.add(() -> {
                 AdvancedParams params = new AdvancedParams();
                 ConnectOptions connectOptions = new ConnectOptions();
                 connectOptions.setConnectTimeout(3000);
                 connectOptions.setAcceptTimeout(5000);
                 params.setConnectOptions(connectOptions);
-                final DicomState state =
-                    CStore.process(params, new DicomNode(weasisAet), node.getDicomNode(), files, dicomProgress);
-                if (state.getStatus() != Status.Success && state.getStatus() != Status.Cancel) {
+                return CStore.process(params, new DicomNode(weasisAet), node.getDicomNode(), part, dicomProgress);
+            });
+        }
+
+        List<DicomState> states = new ArrayList<>(nbAssociations);
+        ExecutorService pool = null;
+        try {
+            if (nbAssociations == 1) {
+                states.add(associations.get(0).call());
+            } else {
+                pool = ThreadUtil.buildNewFixedThreadExecutor(nbAssociations, "DICOM Send Association"); //$NON-NLS-1$
+                for (Future<DicomState> f : pool.invokeAll(associations)) {
+                    states.add(f.get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            LOGGER.error("Dicom send error", e); //$NON-NLS-1$
+            return false;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+
+        boolean success = true;
+        for (DicomState state : states) {
+            if (state.getStatus() != Status.Success) {
+                success = false;
+                if (state.getStatus() != Status.Cancel) {
                     LOGGER.error("Dicom send error: {}", state.getMessage()); //$NON-NLS-1$
                     GuiExecutor.instance().execute(() -> JOptionPane.showMessageDialog(exportTree, state.getMessage(),
                         getTitle(), JOptionPane.ERROR_MESSAGE));
+                    // Show only the first error
+                    break;
                 }
-            } else if (selectedItem instanceof DicomWebNode) {
-                postDicom((DicomWebNode) selectedItem, files);
             }
-        } finally {
-            FileUtil.recursiveDelete(exportDir);
         }
-
-        return true;
+        return success;
     }
 
-    private void writeDicom(ExplorerTask<Boolean, String> task, File writeDir, CheckTreeModel model) throws IOException {
+    /**
+     * Collects the instances to send. The files are sent from their source without being copied and the Presentation
+     * States are built in memory.
+     */
+    private void collectInstances(ExplorerTask<Boolean, String> task, SendBatch batch, CheckTreeModel model)
+        throws IOException {
         synchronized (this) {
-            ArrayList<String> uids = new ArrayList<>();
+            Set<String> uids = new HashSet<>();
             TreePath[] paths = model.getCheckingPaths();
             for (TreePath treePath : paths) {
                 if (task.isCancelled()) {
@@ -235,34 +321,14 @@ public class SendDicomView extends AbstractItemDialogPage implements ExportDicom
                 }
                 DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
 
-                if (node.getUserObject() instanceof DicomImageElement) {
-                    DicomImageElement img = (DicomImageElement) node.getUserObject();
-                    String iuid = TagD.getTagValue(img, Tag.SOPInstanceUID, String.class);
-                    int index = uids.indexOf(iuid);
-                    if (index == -1) {
-                        uids.add(iuid);
-                    } else {
-                        // Write only once the file for multiframes
-                        continue;
-                    }
-
-                    String path = LocalExport.buildPath(img, false, false, false, node);
-                    File destinationDir = new File(writeDir, path);
-                    destinationDir.mkdirs();
-
-                    File destinationFile = new File(destinationDir, iuid);
-                    if (!img.saveToFile(destinationFile)) {
-                        LOGGER.error("Cannot export DICOM file: {}", img.getFile()); //$NON-NLS-1$
-                    }
-                } else if (node.getUserObject() instanceof MediaElement) {
+                if (node.getUserObject() instanceof MediaElement) {
                     MediaElement dcm = (MediaElement) node.getUserObject();
                     String iuid = TagD.getTagValue(dcm, Tag.SOPInstanceUID, String.class);
-
-                    String path = LocalExport.buildPath(dcm, false, false, false, node);
-                    File destinationDir = new File(writeDir, path);
-                    destinationDir.mkdirs();
-
-                    dcm.saveToFile(new File(destinationDir, iuid));
+                    // Send only once the file for multiframes
+                    if (dcm instanceof DicomImageElement && !uids.add(iuid)) {
+                        continue;
+                    }
+                    batch.add(dcm, iuid);
                 } else if (node.getUserObject() instanceof Series) {
                     MediaSeries<?> s = (MediaSeries<?>) node.getUserObject();
                     if (JMVUtils.getNULLtoFalse(s.getTagValue(TagW.ObjectToSave))) {
@@ -271,10 +337,14 @@ public class SendDicomView extends AbstractItemDialogPage implements ExportDicom
                             String seriesInstanceUID = UIDUtils.createUID();
                             for (MediaElement dcm : series.getMedias(null, null)) {
                                 GraphicModel grModel = (GraphicModel) dcm.getTagValue(TagW.PresentationModel);
-                                if (grModel != null && grModel.hasSerializableGraphics()) {
-                                    String path = LocalExport.buildPath(dcm, false, false, false, node);
-                                    LocalExport.buildAndWritePR(dcm, false, new File(writeDir, path), null, node,
-                                        seriesInstanceUID);
+                                if (grModel != null && grModel.hasSerializableGraphics()
+                                    && dcm.getMediaReader() instanceof DcmMediaReader) {
+                                    Attributes pr = PrSerializer.buildPresentation(grModel,
+                                        ((DcmMediaReader) dcm.getMediaReader()).getDicomObject(), seriesInstanceUID,
+                                        UIDUtils.createUID(), null);
+                                    if (pr != null) {
+                                        batch.items.add(new SendItem(pr));
+                                    }
                                 }
                             }
                         }
@@ -284,7 +354,7 @@ public class SendDicomView extends AbstractItemDialogPage implements ExportDicom
         }
     }
 
-    private static void postDicom(DicomWebNode destination, List<String> files) {
+    private static boolean postDicom(DicomWebNode destination, List<SendItem> items) {
         HttpURLConnection httpPost = null;
         try {
             httpPost = (HttpURLConnection) destination.getUrl().openConnection();
@@ -294,19 +364,12 @@ public class SendDicomView extends AbstractItemDialogPage implements ExportDicom
             httpPost.setRequestProperty("Content-Type", //$NON-NLS-1$
                 "multipart/related; type=application/dicom; boundary=" + STOW_BOUNDARY); //$NON-NLS-1$
             httpPost.setUseCaches(false);
+            // Stream the request instead of buffering the whole body in memory for computing its length
+            httpPost.setChunkedStreamingMode(FileUtil.FILE_BUFFER * 16);
 
             DataOutputStream out = new DataOutputStream(httpPost.getOutputStream());
-            for (String entry : files) {
-                File file = new File(entry);
-                if (file.isDirectory()) {
-                    List<File> fileList = new ArrayList<>();
-                    FileUtil.getAllFilesInDirectory(file, fileList);
-                    for (File f : fileList) {
-                        postDicomStream(f, out);
-                    }
-                } else {
-                    postDicomStream(file, out);
-                }
+            for (SendItem item : items) {
+                postDicomStream(item, out);
             }
             // Final part segment
             out.writeBytes(RETURN);
@@ -317,15 +380,16 @@ public class SendDicomView extends AbstractItemDialogPage implements ExportDicom
             out.close();
             String response = httpPost.getResponseMessage();
             LOGGER.info("STOWRS: server response: {}", response); //$NON-NLS-1$
+            return httpPost.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST;
         } catch (Exception e) {
             LOGGER.error("STOWRS: error when posting data", e); //$NON-NLS-1$
         } finally {
             Optional.ofNullable(httpPost).ifPresent(HttpURLConnection::disconnect);
         }
-
+        return false;
     }
 
-    private static void postDicomStream(File file, DataOutputStream out) throws IOException {
+    private static void postDicomStream(SendItem item, DataOutputStream out) throws IOException {
         // Segment for a part
         out.writeBytes(RETURN);
         out.writeBytes(STOW_SEG);
@@ -334,7 +398,14 @@ public class SendDicomView extends AbstractItemDialogPage implements ExportDicom
         out.writeBytes("Content-Type: application/dicom\r\n\r\n"); //$NON-NLS-1$
 
         // write dicom binary file
-        writeStream(new FileInputStream(file), out);
+        if (item.file == null) {
+            DicomOutputStream dos = new DicomOutputStream(out, UID.ExplicitVRLittleEndian);
+            dos.writeDataset(item.dataset.createFileMetaInformation(UID.ImplicitVRLittleEndian), item.dataset);
+            // Do not close the request stream
+            dos.flush();
+        } else {
+            writeStream(new FileInputStream(item.file), out);
+        }
     }
 
     private static void writeStream(InputStream inputStream, OutputStream out) throws IOException {
@@ -350,4 +421,118 @@ public class SendDicomView extends AbstractItemDialogPage implements ExportDicom
         }
     }
 
+    /**
+     * Instance to send: either a file or a dataset in memory.
+     */
+    private static class SendItem {
+        private final File file;
+        private final Attributes dataset;
+
+        SendItem(File file) {
+            this.file = file;
+            this.dataset = null;
+        }
+
+        SendItem(Attributes dataset) {
+            this.file = null;
+            this.dataset = dataset;
+        }
+    }
+
+    private static class SendBatch {
+        private final List<SendItem> items = new ArrayList<>();
+        private File tempDir;
+
+        private File getTempDir() {
+            if (tempDir == null) {
+                tempDir = FileUtil.createTempDir(AppProperties.buildAccessibleTempDirectory("tmp", "send")); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            return tempDir;
+        }
+
+        void add(MediaElement dcm, String iuid) throws IOException {
+            MediaReader reader = dcm.getMediaReader();
+            if (reader instanceof DicomMediaIO) {
+                if (!dcm.getFileCache().isElementInMemory() && dcm.getFileCache().getOriginalFile().isPresent()) {
+                    // Same file as copied by saveToFile()
+                    items.add(new SendItem(dcm.getFileCache().getFinalFile()));
+                    return;
+                }
+                Attributes dataset = ((DicomMediaIO) reader).getDicomObject();
+                if (((DicomMediaIO) reader).isEditableDicom() && dataset != null) {
+                    items.add(new SendItem(dataset));
+                    return;
+                }
+            }
+            // Other readers (e.g. built series) must be written by the media element
+            File file = new File(getTempDir(), iuid == null ? UIDUtils.createUID() : iuid);
+            if (dcm.saveToFile(file)) {
+                items.add(new SendItem(file));
+            } else {
+                LOGGER.error("Cannot export DICOM file: {}", dcm.getFileCache().getOriginalFile()); //$NON-NLS-1$
+            }
+        }
+
+        /**
+         * @return the paths of the files to send. The datasets in memory are written in the temporary folder because
+         *         C-STORE only reads files.
+         */
+        List<String> toFiles() throws IOException {
+            List<String> files = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                SendItem item = items.get(i);
+                if (item.file == null) {
+                    File file = new File(getTempDir(), item.dataset.getString(Tag.SOPInstanceUID, "obj" + i)); //$NON-NLS-1$
+                    try (DicomOutputStream out = new DicomOutputStream(file)) {
+                        out.writeDataset(item.dataset.createFileMetaInformation(UID.ImplicitVRLittleEndian),
+                            item.dataset);
+                    }
+                    item = new SendItem(file);
+                    items.set(i, item);
+                }
+                files.add(item.file.getAbsolutePath());
+            }
+            return files;
+        }
+
+        long getLength() {
+            long length = 0;
+            for (SendItem item : items) {
+                if (item.file != null) {
+                    length += item.file.length();
+                }
+            }
+            return length;
+        }
+
+        void dispose() {
+            if (tempDir != null) {
+                FileUtil.recursiveDelete(tempDir);
+            }
+        }
+    }
+
+    /**
+     * Cumulative throughput of a destination since the start of the application.
+     */
+    private static class Metrics {
+        private final AtomicLong instances = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong time = new AtomicLong();
+
+        void add(long nbInstances, long length, long elapsed) {
+            instances.addAndGet(nbInstances);
+            bytes.addAndGet(length);
+            time.addAndGet(elapsed);
+        }
+
+        @Override
+        public String toString() {
+            double seconds = time.get() / 1.0E9;
+            return String.format("%d instances, %s in %d ms (%.1f instances/s, %.2f MB/s)", instances.get(), //$NON-NLS-1$
+                FileUtil.formatSize(bytes.get()), TimeUnit.NANOSECONDS.toMillis(time.get()),
+                seconds > 0.0 ? instances.get() / seconds : 0.0,
+                seconds > 0.0 ? bytes.get() / (1024.0 * 1024.0) / seconds : 0.0);
+        }
+    }
 }
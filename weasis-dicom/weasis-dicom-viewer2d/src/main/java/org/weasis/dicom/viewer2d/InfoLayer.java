@@ -667,10 +667,15 @@ public class InfoLayer extends DefaultUUID implements LayerAnnotation {
             g2d.setPaint(Color.BLACK);
             g2d.draw(preloadingProgressBound);
             double factorResize = list.length > 120 ? 120.0 / list.length : 1;
+            int lastVal = Integer.MIN_VALUE;
             for (int i = 0; i < list.length; i++) {
                 if (!list[i]) {
                     int val = x + (int) (i * factorResize);
-                    g2d.drawLine(val, y, val, y + 3);
+                    // Several images share the same column when the series is larger than the bar
+                    if (val != lastVal) {
+                        g2d.drawLine(val, y, val, y + 3);
+                        lastVal = val;
+                    }
                 }
             }
         }
@@ -31,6 +31,7 @@ import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.SliderCineListener;
 import org.weasis.core.api.image.OpManager;
 import org.weasis.core.api.image.WindowOp;
+import org.weasis.core.api.image.op.CollectionZprojection.Operation;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.MediaSeriesGroup;
 import org.weasis.core.api.media.data.Series;
@@ -63,6 +64,8 @@ public class MipView extends View2d {
     };
 
     private volatile MipProcess process;
+    // Slab of the last projection, slides when scrolling by one image
+    private SeriesBuilder.Slab slab;
 
     public MipView(ImageViewerEventManager<DicomImageElement> eventManager) {
         super(eventManager);
@@ -96,6 +99,23 @@ public class MipView extends View2d {
         // Avoid to listen synch events
     }
 
+    synchronized SeriesBuilder.Slab getSlab(Operation operation, List<DicomImageElement> images) {
+        if (slab == null || !slab.isSameStack(operation, images)) {
+            if (slab != null) {
+                slab.clear();
+            }
+            slab = new SeriesBuilder.Slab(operation, images);
+        }
+        return slab;
+    }
+
+    private synchronized void releaseSlab() {
+        if (slab != null) {
+            slab.clear();
+            slab = null;
+        }
+    }
+
     public boolean IsProcessRunning() {
         return process != null;
     }
@@ -116,6 +136,7 @@ public class MipView extends View2d {
         this.setActionsInView(MipView.MIP_THICKNESS.cmd(), null);
 
         setMip(null);
+        releaseSlab();
 
         ImageViewerPlugin<DicomImageElement> container = this.getEventManager().getSelectedView2dContainer();
         container.setSelectedAndGetFocus();
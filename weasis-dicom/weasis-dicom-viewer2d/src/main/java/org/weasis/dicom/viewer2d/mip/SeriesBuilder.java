@@ -22,7 +22,6 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 
 import javax.media.jai.JAI;
@@ -42,9 +41,11 @@ import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.Filter;
 import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.SliderCineListener;
+import org.weasis.core.api.image.op.CollectionZprojection.Operation;
 import org.weasis.core.api.image.op.MaxCollectionZprojection;
 import org.weasis.core.api.image.op.MeanCollectionZprojection;
 import org.weasis.core.api.image.op.MinCollectionZprojection;
+import org.weasis.core.api.image.op.SlidingZprojection;
 import org.weasis.core.api.image.util.ImageToolkit;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.MediaSeries;
@@ -114,40 +115,39 @@ public class SeriesBuilder {
             cpTags.setString(Tag.ImageType, VR.CS, new String[] { "DERIVED", "SECONDARY", "PROJECTION IMAGE" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
             String seriesUID = UIDUtils.createUID();
 
+            List<DicomImageElement> mediaList = new ArrayList<>();
+            for (DicomImageElement dcm : medias) {
+                mediaList.add(dcm);
+            }
+            // When building the whole series, the slab slides by one image at each step. In the view, the slab of the
+            // previous position is kept and slides when scrolling by one image.
+            Slab slab;
+            if (fullSeries) {
+                slab = new Slab(getOperation(mipType), mediaList);
+            } else if (view instanceof MipView) {
+                slab = ((MipView) view).getSlab(getOperation(mipType), mediaList);
+            } else {
+                slab = null;
+            }
+
             for (int index = minImg; index <= maxImg; index++) {
-                Iterator<DicomImageElement> iter = medias.iterator();
+                int startIndex = Math.max(0, index - extend);
+                int stopIndex = Math.min(index + extend, mediaList.size() - 1);
                 final List<ImageElement> sources = new ArrayList<>();
-                int startIndex = index - extend;
-                if (startIndex < 0) {
-                    startIndex = 0;
-                }
-                int stopIndex = index + extend;
-                int k = 0;
-                while (iter.hasNext()) {
-                    DicomImageElement dcm = iter.next();
-                    if (k >= startIndex) {
-                        sources.add(dcm);
-                    }
-
-                    if (k >= stopIndex) {
-                        break;
-                    }
-                    k++;
+                if (startIndex <= stopIndex) {
+                    sources.addAll(mediaList.subList(startIndex, stopIndex + 1));
                 }
 
                 if (sources.size() > 1) {
-                    if (fullSeries) {
-                        taskMonitor.setShowProgression(false);
+                    if (slab == null) {
+                        curImage = addCollectionOperation(mipType, sources, taskMonitor);
+                    } else {
+                        curImage = slab.getImage(startIndex, stopIndex);
                     }
-                    curImage = addCollectionOperation(mipType, sources, taskMonitor);
                 } else {
                     curImage = null;
                 }
 
-                if (fullSeries) {
-                    taskMonitor.setShowProgression(true);
-                }
-
                 final DicomImageElement dicom;
                 if (curImage != null) {
 
@@ -244,6 +244,57 @@ public class SeriesBuilder {
         }
     }
 
+    /**
+     * Slab of a stack of images which slides when the range moves forward and overlaps the previous range. Otherwise
+     * the slab is computed again from the images of the range.
+     */
+    static final class Slab {
+        private final SlidingZprojection projection;
+        private final List<DicomImageElement> images;
+        private int start = 0;
+        private int end = -1;
+
+        Slab(Operation operation, List<DicomImageElement> images) {
+            this.projection = new SlidingZprojection(operation);
+            this.images = images;
+        }
+
+        boolean isSameStack(Operation operation, List<DicomImageElement> images) {
+            return projection.getOperation().equals(operation) && this.images.equals(images);
+        }
+
+        /**
+         * @return the projection of the images from startIndex to stopIndex (inclusive)
+         */
+        synchronized PlanarImage getImage(int startIndex, int stopIndex) {
+            try {
+                if (startIndex < start || startIndex > end || stopIndex < end) {
+                    projection.clear();
+                    start = startIndex;
+                    end = startIndex - 1;
+                }
+                for (; start < startIndex; start++) {
+                    projection.removeFirst();
+                }
+                while (end < stopIndex) {
+                    end++;
+                    projection.add(images.get(end));
+                }
+                return projection.getImage();
+            } catch (RuntimeException e) {
+                // Do not reuse a partially updated slab
+                clear();
+                throw e;
+            }
+        }
+
+        synchronized void clear() {
+            projection.clear();
+            start = 0;
+            end = -1;
+        }
+    }
+
     static double getThickness(ImageElement firstDcm, ImageElement lastDcm) {
         double[] p1 = (double[]) firstDcm.getTagValue(TagW.SlicePosition);
         double[] p2 = (double[]) lastDcm.getTagValue(TagW.SlicePosition);
@@ -272,6 +323,16 @@ public class SeriesBuilder {
         return JAI.create(operation, pb2, ImageToolkit.NOCACHE_HINT);
     }
 
+    static Operation getOperation(Type mipType) {
+        if (Type.MIN.equals(mipType)) {
+            return Operation.MIN;
+        }
+        if (Type.MEAN.equals(mipType)) {
+            return Operation.MEAN;
+        }
+        return Operation.MAX;
+    }
+
     public static PlanarImage addCollectionOperation(Type mipType, List<ImageElement> sources,
         final TaskMonitor taskMonitor) {
         if (Type.MIN.equals(mipType)) {
@@ -38,6 +38,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.DataExplorerView;
 import org.weasis.core.api.explorer.ObservableEvent;
+import org.weasis.core.api.explorer.model.TreeModel;
 import org.weasis.core.api.gui.Insertable.Type;
 import org.weasis.core.api.gui.InsertableUtil;
 import org.weasis.core.api.gui.util.ActionState;
@@ -52,6 +53,7 @@ import org.weasis.core.api.image.LayoutConstraints;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.MediaSeriesGroup;
 import org.weasis.core.api.media.data.Series;
+import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.service.BundlePreferences;
 import org.weasis.core.api.util.StringUtil;
 import org.weasis.core.api.util.StringUtil.Suffix;
@@ -74,6 +76,7 @@ import org.weasis.core.ui.util.DefaultAction;
 import org.weasis.core.ui.util.PrintDialog;
 import org.weasis.core.ui.util.Toolbar;
 import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomSeries;
 import org.weasis.dicom.codec.TagD;
 import org.weasis.dicom.codec.TagD.Level;
 import org.weasis.dicom.codec.geometry.ImageOrientation;
@@ -149,6 +152,12 @@ public class MPRContainer extends ImageViewerPlugin<DicomImageElement> implement
     private volatile Thread process;
     private volatile String lastCommand;
 
+    // Volumes and series built for this container, released when closing. Guarded by volumeLock.
+    private final Object volumeLock = new Object();
+    private final List<Volume> volumes = new ArrayList<>();
+    private final List<DicomSeries> volumeSeries = new ArrayList<>();
+    private boolean closed = false;
+
     public MPRContainer() {
         this(VIEWS_1x1, null);
     }
@@ -284,6 +293,68 @@ public class MPRContainer extends ImageViewerPlugin<DicomImageElement> implement
         }
         MPRFactory.closeSeriesViewer(this);
         super.close();
+        releaseVolumes();
+    }
+
+    /**
+     * Attaches a volume to this container, it will be disposed when closing the container.
+     *
+     * @return false when the container is already closed, the volume must be disposed by the caller
+     */
+    boolean addVolume(Volume volume) {
+        synchronized (volumeLock) {
+            if (closed) {
+                return false;
+            }
+            volumes.add(volume);
+            return true;
+        }
+    }
+
+    /**
+     * Adds a series built from a volume of this container to the model. The series is removed from the model when
+     * closing the container.
+     *
+     * @return false when the container is already closed
+     */
+    boolean addVolumeSeries(DicomSeries series, TreeModel model, MediaSeriesGroup study) {
+        synchronized (volumeLock) {
+            if (closed) {
+                return false;
+            }
+            volumeSeries.add(series);
+            model.addHierarchyNode(study, series);
+            if (model instanceof DicomModel) {
+                DicomModel dicomModel = (DicomModel) model;
+                dicomModel.firePropertyChange(
+                    new ObservableEvent(ObservableEvent.BasicAction.ADD, dicomModel, null, series));
+            }
+            return true;
+        }
+    }
+
+    private void releaseVolumes() {
+        List<Volume> vols;
+        List<DicomSeries> seriesList;
+        synchronized (volumeLock) {
+            closed = true;
+            vols = new ArrayList<>(volumes);
+            seriesList = new ArrayList<>(volumeSeries);
+            volumes.clear();
+            volumeSeries.clear();
+        }
+        // The series read their images from the volumes, remove them from the model before deleting the files
+        for (DicomSeries s : seriesList) {
+            Object model = s.getTagValue(TagW.ExplorerModel);
+            if (model instanceof DicomModel) {
+                ((DicomModel) model).removeSeries(s);
+            } else {
+                s.dispose();
+            }
+        }
+        for (Volume volume : vols) {
+            volume.dispose();
+        }
     }
 
     @Override
@@ -14,11 +14,18 @@ import java.awt.Dimension;
 import java.awt.Transparency;
 import java.awt.color.ColorSpace;
 import java.awt.image.BandedSampleModel;
+import java.awt.image.BufferedImage;
 import java.awt.image.ComponentColorModel;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
 import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
 import java.awt.image.renderable.ParameterBlock;
 import java.io.File;
 import java.io.IOException;
@@ -80,6 +87,7 @@ public class RawImageIO implements DcmMediaReader {
     private final Codec codec;
     private ImageInputStream imageStream;
     private Attributes attributes;
+    private Volume.Plane plane;
 
     public RawImageIO(URI media, Codec codec) {
         this.uri = Objects.requireNonNull(media);
@@ -92,14 +100,28 @@ public class RawImageIO implements DcmMediaReader {
         this.attributes = attributes;
     }
 
+    /**
+     * Sets the plane of a volume as source of the pixel data instead of the raw file.
+     *
+     * @param plane
+     *            the plane of the volume
+     */
+    public void setVolumePlane(Volume.Plane plane) {
+        this.plane = plane;
+    }
+
     public File getDicomFile() {
         Attributes dcm = getDicomObject();
 
         DicomOutputStream out = null;
         try {
-            File file = new File(uri);
-            BulkData bdl = new BulkData(uri.toString(), 0, (int) file.length(), false);
-            dcm.setValue(Tag.PixelData, VR.OW, bdl);
+            if (plane == null) {
+                File file = new File(uri);
+                BulkData bdl = new BulkData(uri.toString(), 0, (int) file.length(), false);
+                dcm.setValue(Tag.PixelData, VR.OW, bdl);
+            } else {
+                dcm.setBytes(Tag.PixelData, VR.OW, plane.getBytes());
+            }
             File tmpFile = new File(DicomMediaIO.DICOM_EXPORT_DIR, dcm.getString(Tag.SOPInstanceUID));
             out = new DicomOutputStream(tmpFile);
             out.writeDataset(dcm.createFileMetaInformation(UID.ImplicitVRLittleEndian), dcm);
@@ -138,11 +160,16 @@ public class RawImageIO implements DcmMediaReader {
             Integer rows = TagD.getTagValue(media, Tag.Rows, Integer.class);
             Integer columns = TagD.getTagValue(media, Tag.Columns, Integer.class);
             ImageParameters h = new ImageParameters(rows, columns, allocated, sample, false);
-            // RawImageReader doesn't need to be disposed
-            ImageReader reader = initRawImageReader(imageStream = ImageIO.createImageInputStream(media.getFile()), h, 1,
-                0, false, TagD.getTagValue(media, Tag.PixelRepresentation, Integer.class));
-
-            RenderedImage buffer = reader.readAsRenderedImage(0, null);
+            int pixelRepresentation = TagD.getTagValue(media, Tag.PixelRepresentation, Integer.class);
+            RenderedImage buffer;
+            if (plane == null) {
+                // RawImageReader doesn't need to be disposed
+                ImageReader reader = initRawImageReader(
+                    imageStream = ImageIO.createImageInputStream(media.getFile()), h, 1, 0, false, pixelRepresentation);
+                buffer = reader.readAsRenderedImage(0, null);
+            } else {
+                buffer = readVolumePlane(h, pixelRepresentation);
+            }
             PlanarImage img = null;
             if (buffer != null) {
                 if (ImageUtil.isBinary(buffer.getSampleModel())) {
@@ -162,6 +189,26 @@ public class RawImageIO implements DcmMediaReader {
         return null;
     }
 
+    private RenderedImage readVolumePlane(ImageParameters h, int pixelRepresentation) throws IOException {
+        ImageTypeSpecifier type = createImageTypeSpecifier(h, false, pixelRepresentation);
+        SampleModel sm = type.getSampleModel();
+        Object data = plane.getData();
+        DataBuffer dataBuffer;
+        if (data instanceof byte[] && sm.getDataType() == DataBuffer.TYPE_BYTE) {
+            dataBuffer = new DataBufferByte((byte[]) data, ((byte[]) data).length);
+        } else if (data instanceof short[] && sm.getDataType() == DataBuffer.TYPE_SHORT) {
+            dataBuffer = new DataBufferShort((short[]) data, ((short[]) data).length);
+        } else if (data instanceof short[] && sm.getDataType() == DataBuffer.TYPE_USHORT) {
+            dataBuffer = new DataBufferUShort((short[]) data, ((short[]) data).length);
+        } else if (data instanceof int[] && sm.getDataType() == DataBuffer.TYPE_INT) {
+            dataBuffer = new DataBufferInt((int[]) data, ((int[]) data).length);
+        } else {
+            throw new IOException("The data type of the volume does not match the image"); //$NON-NLS-1$
+        }
+        WritableRaster raster = Raster.createWritableRaster(sm, dataBuffer, null);
+        return new BufferedImage(type.getColorModel(), raster, false, null);
+    }
+
     @Override
     public URI getUri() {
         return uri;
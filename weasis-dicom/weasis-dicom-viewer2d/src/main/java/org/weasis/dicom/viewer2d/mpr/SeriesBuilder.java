@@ -13,26 +13,9 @@ package org.weasis.dicom.viewer2d.mpr;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.geom.Point2D;
-import java.awt.image.BufferedImage;
-import java.awt.image.ColorModel;
-import java.awt.image.DataBuffer;
-import java.awt.image.DataBufferByte;
-import java.awt.image.DataBufferInt;
-import java.awt.image.DataBufferShort;
-import java.awt.image.DataBufferUShort;
-import java.awt.image.RenderedImage;
-import java.awt.image.SampleModel;
-import java.awt.image.WritableRaster;
 import java.awt.image.renderable.ParameterBlock;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.IntBuffer;
-import java.nio.ShortBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -43,9 +26,6 @@ import javax.imageio.IIOException;
 import javax.media.jai.Interpolation;
 import javax.media.jai.JAI;
 import javax.media.jai.PlanarImage;
-import javax.media.jai.RasterFactory;
-import javax.media.jai.RenderedOp;
-import javax.media.jai.operator.TranslateDescriptor;
 import javax.media.jai.operator.TransposeDescriptor;
 import javax.media.jai.operator.TransposeType;
 import javax.swing.JOptionPane;
@@ -57,11 +37,7 @@ import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.UID;
 import org.dcm4che3.data.VR;
-import org.dcm4che3.image.PhotometricInterpretation;
 import org.dcm4che3.util.UIDUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.weasis.core.api.explorer.ObservableEvent;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.explorer.model.TreeModel;
 import org.weasis.core.api.gui.util.ActionW;
@@ -84,12 +60,9 @@ import org.weasis.dicom.codec.geometry.GeometryOfSlice;
 import org.weasis.dicom.codec.utils.DicomMediaUtils;
 import org.weasis.dicom.explorer.DicomModel;
 import org.weasis.dicom.viewer2d.Messages;
-import org.weasis.dicom.viewer2d.RawImage;
 import org.weasis.dicom.viewer2d.mpr.MprView.SliceOrientation;
 
 public class SeriesBuilder {
-    private static final Logger LOGGER = LoggerFactory.getLogger(SeriesBuilder.class);
-
     static TagW SeriesReferences = new TagW("series.builder.refs", TagType.STRING, 2, 2); //$NON-NLS-1$
     public static final File MPR_CACHE_DIR =
         AppProperties.buildAccessibleTempDirectory(AppProperties.FILE_CACHE_DIR.getName(), "mpr"); //$NON-NLS-1$
@@ -259,46 +232,49 @@ public class SeriesBuilder {
                                 SortSeriesStack.slicePosition);
                             final Attributes attributes = ((DcmMediaReader) img.getMediaReader()).getDicomObject();
 
+                            if (!needBuild[0] && !needBuild[1]) {
+                                return;
+                            }
+                            double origPixSize = img.getPixelSize();
+
+                            /*
+                             * Write all the images of the original series stack in a single volume, the images of the
+                             * other orientations are sampled from this volume.
+                             */
+                            Iterable<DicomImageElement> medias =
+                                series.copyOfMedias(filter, SortSeriesStack.slicePosition);
+                            final double[] sPixSize = new double[1];
+                            Volume volume = buildVolume(size, medias, recView, thread, abort, sPixSize);
+                            if (volume == null) {
+                                return;
+                            }
+                            // From here the container owns the volume and deletes it when closing
+                            if (thread.isInterrupted() || !mprContainer.addVolume(volume)) {
+                                volume.dispose();
+                                return;
+                            }
+
                             for (int i = 0; i < 2; i++) {
                                 if (needBuild[i]) {
                                     final MprView mprView = recView[i];
                                     final ViewParameter viewParams = recParams[i];
 
-                                    Iterable<DicomImageElement> medias = series.copyOfMedias(filter,
-                                        viewParams.reverseSeriesOrder
-                                            ? SortSeriesStack.slicePosition.getReversOrderComparator()
-                                            : SortSeriesStack.slicePosition);
-                                    double origPixSize = img.getPixelSize();
-
-                                    RawImage[] secSeries = new RawImage[i == 0 ? height : width];
                                     /*
-                                     * Write the new image by tacking the lines (from first to last) of all the images
-                                     * of the original series stack
+                                     * Build dicom images from the planes of the volume, adapt position, orientation,
+                                     * pixel spacing, instance number and UIDs.
                                      */
-                                    double sPixSize = writeBlock(secSeries, series, medias, viewParams, mprView, thread,
-                                        abort, seriesID);
-
-                                    if (thread.isInterrupted()) {
-                                        return;
-                                    }
-                                    /*
-                                     * Reconstruct dicom files, adapt position, orientation, pixel spacing, instance
-                                     * number and UIDs.
-                                     */
-                                    final DicomSeries dicomSeries =
-                                        buildDicomSeriesFromRaw(secSeries, new Dimension(i == 0 ? width : height, size),
-                                            img, viewParams, origPixSize, sPixSize, geometry, mprView, attributes);
+                                    final DicomSeries dicomSeries = buildDicomSeriesFromVolume(volume, img, viewParams,
+                                        origPixSize, sPixSize[0], geometry, attributes);
 
                                     if (dicomSeries != null && dicomSeries.size(null) > 0) {
                                         ((DcmMediaReader) dicomSeries.getMedia(0, null, null).getMediaReader())
                                             .writeMetaData(dicomSeries);
                                         if (study != null && treeModel != null) {
                                             dicomSeries.setTag(TagW.ExplorerModel, model);
-                                            treeModel.addHierarchyNode(study, dicomSeries);
-                                            if (treeModel instanceof DicomModel) {
-                                                DicomModel dicomModel = (DicomModel) treeModel;
-                                                dicomModel.firePropertyChange(new ObservableEvent(
-                                                    ObservableEvent.BasicAction.ADD, dicomModel, null, dicomSeries));
+                                            if (!mprContainer.addVolumeSeries(dicomSeries, treeModel, study)) {
+                                                // The container has been closed and the volume released
+                                                dicomSeries.dispose();
+                                                return;
                                             }
                                         }
 
@@ -324,52 +300,14 @@ public class SeriesBuilder {
         }
     }
 
-    private static DicomSeries buildDicomSeriesFromRaw(final RawImage[] newSeries, Dimension dim, DicomImageElement img,
-        ViewParameter params, double origPixSize, double sPixSize, GeometryOfSlice geometry, final MprView view,
-        final Attributes attributes) throws Exception {
+    private static DicomSeries buildDicomSeriesFromVolume(Volume volume, DicomImageElement img,
+        ViewParameter params, double origPixSize, double sPixSize, GeometryOfSlice geometry,
+        final Attributes attributes) {
 
         int bitsAllocated = img.getBitsAllocated();
         int bitsStored = img.getBitsStored();
-        double[] pixSpacing = new double[] { sPixSize, origPixSize };
-
-        int dataType = 0;
-        ColorModel cm = null;
-        SampleModel sampleModel = null;
-        final JProgressBar bar = view.getProgressBar();
-
-        if (params.rotateOutputImg) {
-            if (bar != null) {
-                GuiExecutor.instance().execute(() -> {
-                    bar.setMaximum(newSeries.length);
-                    bar.setValue(0);
-                    // Force to reset the progress bar (substance)
-                    bar.updateUI();
-                    view.repaint();
-                });
-            }
-
-            pixSpacing = new double[] { origPixSize, sPixSize };
-
-            int samplesPerPixel = TagD.getTagValue(img, Tag.SamplesPerPixel, Integer.class);
-            boolean banded = samplesPerPixel > 1
-                && DicomMediaUtils.getIntegerFromDicomElement(attributes, Tag.PlanarConfiguration, 0) != 0;
-            int pixelRepresentation =
-                DicomMediaUtils.getIntegerFromDicomElement(attributes, Tag.PixelRepresentation, 0);
-            dataType = bitsAllocated <= 8 ? DataBuffer.TYPE_BYTE
-                : pixelRepresentation != 0 ? DataBuffer.TYPE_SHORT : DataBuffer.TYPE_USHORT;
-            if (bitsAllocated > 16 && samplesPerPixel == 1) {
-                dataType = DataBuffer.TYPE_INT;
-            }
-
-            String photometricInterpretation = TagD.getTagValue(img, Tag.PhotometricInterpretation, String.class);
-            PhotometricInterpretation pmi = PhotometricInterpretation.fromString(photometricInterpretation);
-            cm = pmi.createColorModel(bitsStored, dataType, attributes);
-            sampleModel = pmi.createSampleModel(dataType, dim.width, dim.height, samplesPerPixel, banded);
-
-            int tmp = dim.width;
-            dim.width = dim.height;
-            dim.height = tmp;
-        }
+        double[] pixSpacing =
+            params.rotateOutputImg ? new double[] { origPixSize, sPixSize } : new double[] { sPixSize, origPixSize };
 
         final int[] COPIED_ATTRS = { Tag.SpecificCharacterSet, Tag.PatientID, Tag.PatientName, Tag.PatientBirthDate,
             Tag.PatientBirthTime, Tag.PatientSex, Tag.IssuerOfPatientID, Tag.IssuerOfAccessionNumberSequence,
@@ -389,90 +327,22 @@ public class SeriesBuilder {
         cpTags.setString(Tag.ImageType, VR.CS, new String[] { "DERIVED", "SECONDARY", "MPR" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         cpTags.setString(Tag.FrameOfReferenceUID, VR.UI, params.frameOfReferenceUID);
 
-        int last = newSeries.length;
+        int last = volume.getNumberOfPlanes(params.transposeImage);
+        File dir = new File(MPR_CACHE_DIR, params.seriesUID);
         List<DicomImageElement> dcms = new ArrayList<>();
 
-        for (int i = 0; i < newSeries.length; i++) {
-            File inFile = newSeries[i].getFile();
-            if (params.rotateOutputImg) {
-
-                ByteBuffer byteBuffer = getBytesFromFile(inFile);
-                DataBuffer dataBuffer = null;
-                if (dataType == DataBuffer.TYPE_BYTE) {
-                    dataBuffer = new DataBufferByte(byteBuffer.array(), byteBuffer.limit());
-                } else if (dataType <= DataBuffer.TYPE_SHORT) {
-                    ShortBuffer sBuffer = byteBuffer.asShortBuffer();
-                    short[] data;
-                    if (sBuffer.hasArray()) {
-                        data = sBuffer.array();
-                    } else {
-                        data = new short[byteBuffer.limit() / 2];
-                        for (int k = 0; k < data.length; k++) {
-                            if (byteBuffer.hasRemaining()) {
-                                data[k] = byteBuffer.getShort();
-                            }
-                        }
-                    }
-                    dataBuffer = dataType == DataBuffer.TYPE_SHORT ? new DataBufferShort(data, data.length)
-                        : new DataBufferUShort(data, data.length);
-                } else if (dataType == DataBuffer.TYPE_INT) {
-                    IntBuffer sBuffer = byteBuffer.asIntBuffer();
-                    int[] data;
-                    if (sBuffer.hasArray()) {
-                        data = sBuffer.array();
-                    } else {
-                        data = new int[byteBuffer.limit() / 4];
-                        for (int k = 0; k < data.length; k++) {
-                            if (byteBuffer.hasRemaining()) {
-                                data[k] = byteBuffer.getInt();
-                            }
-                        }
-                    }
-                    dataBuffer = new DataBufferInt(data, data.length);
-                }
-
-                WritableRaster raster = RasterFactory.createWritableRaster(sampleModel, dataBuffer, null);
-                BufferedImage bufImg = new BufferedImage(cm, raster, false, null);
-                bufImg = getImage(bufImg, TransposeDescriptor.ROTATE_90);
-
-                dataBuffer = bufImg.getRaster().getDataBuffer();
-                if (dataBuffer instanceof DataBufferByte) {
-                    byteBuffer = ByteBuffer.wrap(((DataBufferByte) dataBuffer).getData());
-                    writToFile(inFile, byteBuffer);
-                } else if (dataBuffer instanceof DataBufferShort || dataBuffer instanceof DataBufferUShort) {
-                    short[] data = dataBuffer instanceof DataBufferShort ? ((DataBufferShort) dataBuffer).getData()
-                        : ((DataBufferUShort) dataBuffer).getData();
-
-                    byteBuffer = ByteBuffer.allocate(data.length * 2);
-                    byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-                    ShortBuffer shortBuffer = byteBuffer.asShortBuffer();
-                    shortBuffer.put(data);
-
-                    writToFile(inFile, byteBuffer);
-                } else if (dataBuffer instanceof DataBufferInt) {
-                    int[] data = ((DataBufferInt) dataBuffer).getData();
-
-                    byteBuffer = ByteBuffer.allocate(data.length * 4);
-                    byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-                    IntBuffer intBuffer = byteBuffer.asIntBuffer();
-                    intBuffer.put(data);
-
-                    writToFile(inFile, byteBuffer);
-                }
-                if (bar != null) {
-                    GuiExecutor.instance().execute(() -> {
-                        bar.setValue(bar.getValue() + 1);
-                        view.repaint();
-                    });
-                }
-            }
-            RawImageIO rawIO = new RawImageIO(inFile.toURI(), null);
+        for (int i = 0; i < last; i++) {
+            Volume.Plane plane =
+                volume.getPlane(i, params.transposeImage, params.reverseSeriesOrder, params.rotateOutputImg);
+            // Virtual file, the pixel data are read from the volume
+            RawImageIO rawIO = new RawImageIO(new File(dir, "mpr_" + (i + 1)).toURI(), null); //$NON-NLS-1$
+            rawIO.setVolumePlane(plane);
             rawIO.setBaseAttributes(cpTags);
 
             // Tags with same values for all the Series
             rawIO.setTag(TagD.get(Tag.TransferSyntaxUID), UID.ImplicitVRLittleEndian);
-            rawIO.setTag(TagD.get(Tag.Columns), dim.width);
-            rawIO.setTag(TagD.get(Tag.Rows), dim.height);
+            rawIO.setTag(TagD.get(Tag.Columns), plane.getWidth());
+            rawIO.setTag(TagD.get(Tag.Rows), plane.getHeight());
             rawIO.setTag(TagD.get(Tag.SliceThickness), origPixSize);
             rawIO.setTag(TagD.get(Tag.PixelSpacing), pixSpacing);
             rawIO.setTag(TagD.get(Tag.SeriesInstanceUID), params.seriesUID);
@@ -540,52 +410,49 @@ public class SeriesBuilder {
         return new DicomSeries(params.seriesUID, dcms, DicomModel.series.getTagView());
     }
 
-    private static double writeBlock(RawImage[] newSeries, MediaSeries<DicomImageElement> series,
-        Iterable<DicomImageElement> medias, ViewParameter params, final MprView view, Thread thread,
-        final boolean[] abort, String seriesID) throws IOException {
+    private static Volume buildVolume(int size, Iterable<DicomImageElement> medias, final MprView[] views,
+        Thread thread, final boolean[] abort, double[] sPixSize) throws IOException {
 
         // TODO should return the more frequent space!
-        final JProgressBar bar = view.getProgressBar();
+        final JProgressBar[] bars = new JProgressBar[views.length];
+        for (int i = 0; i < views.length; i++) {
+            bars[i] = views[i].getProgressBar();
+        }
+        Volume volume = null;
+        boolean complete = false;
+        File file = File.createTempFile("mpr_", ".vol", MPR_CACHE_DIR); //$NON-NLS-1$ //$NON-NLS-2$
         try {
-            File dir = new File(MPR_CACHE_DIR, params.seriesUID);
-            dir.mkdirs();
-            for (int i = 0; i < newSeries.length; i++) {
-                newSeries[i] = new RawImage(new File(dir, "mpr_" + (i + 1)));//$NON-NLS-1$
-            }
             double epsilon = 1e-3;
             double lastPos = 0.0;
             double lastSpace = 0.0;
             int index = 0;
+            int z = 0;
             Iterator<DicomImageElement> iter = medias.iterator();
-            while (iter.hasNext()) {
+            while (iter.hasNext() && z < size) {
                 if (thread.isInterrupted()) {
-                    return lastSpace;
+                    return null;
                 }
                 DicomImageElement dcm = iter.next();
                 double[] sp = (double[]) dcm.getTagValue(TagW.SlicePosition);
                 boolean validSp = sp != null && sp.length == 3;
                 if (!validSp && !abort[1]) {
-                    confirmMessage(view, Messages.getString("SeriesBuilder.space_missing"), abort); //$NON-NLS-1$
+                    confirmMessage(views[0], Messages.getString("SeriesBuilder.space_missing"), abort); //$NON-NLS-1$
                 } else if (validSp) {
                     double pos = sp[0] + sp[1] + sp[2];
                     if (index > 0) {
                         double space = Math.abs(pos - lastPos);
                         if (!abort[1]
                             && (MathUtil.isEqualToZero(space) || (index > 1 && lastSpace - space > epsilon))) {
-                            confirmMessage(view, Messages.getString("SeriesBuilder.space"), abort); //$NON-NLS-1$
+                            confirmMessage(views[0], Messages.getString("SeriesBuilder.space"), abort); //$NON-NLS-1$
                         }
                         lastSpace = space;
                     }
                     lastPos = pos;
                     index++;
-                    if (bar != null) {
-                        GuiExecutor.instance().execute(() -> {
-                            bar.setValue(bar.getValue() + 1);
-                            view.repaint();
-                        });
+                    for (int i = 0; i < views.length; i++) {
+                        updateProgressBar(bars[i], views[i]);
                     }
                 }
-                // TODO do not open more than 512 files (Limitation to open 1024 in the same time on Ubuntu)
                 PlanarImage image = dcm.getImage();
                 if (image == null) {
                     abort[0] = true;
@@ -599,91 +466,36 @@ public class SeriesBuilder {
                     pb.add(Interpolation.getInstance(Interpolation.INTERP_BILINEAR));
                     image = JAI.create("scale", pb, ImageToolkit.NOCACHE_HINT); //$NON-NLS-1$
                 }
-                writeRasterInRaw(getImage(image, params.transposeImage), newSeries);
-            }
-            return lastSpace;
-        } finally {
-            for (int i = 0; i < newSeries.length; i++) {
-                if (newSeries[i] != null) {
-                    newSeries[i].disposeOutputStream();
-                    if (abort[0]) {
-                        newSeries[i].getFile().delete();
-                    }
+                if (volume == null) {
+                    // The dimension of the volume is given by the first image (after rescaling)
+                    volume = new Volume(file, image.getWidth(), image.getHeight(), size,
+                        image.getSampleModel().getNumBands(), image.getSampleModel().getDataType());
                 }
+                volume.writeSlice(z, image);
+                z++;
             }
-        }
-    }
-
-    private static void writeRasterInRaw(BufferedImage image, RawImage[] newSeries) throws IOException {
-        if (newSeries != null && image != null && image.getHeight() == newSeries.length) {
-
-            DataBuffer dataBuffer = image.getRaster().getDataBuffer();
-            int width = image.getWidth();
-            int height = newSeries.length;
-            byte[] bytesOut;
-            if (dataBuffer instanceof DataBufferByte) {
-                bytesOut = ((DataBufferByte) dataBuffer).getData();
-                for (int j = 0; j < height; j++) {
-                    newSeries[j].getOutputStream().write(bytesOut, j * width, width);
-                }
-            } else if (dataBuffer instanceof DataBufferShort || dataBuffer instanceof DataBufferUShort) {
-                short[] data = dataBuffer instanceof DataBufferShort ? ((DataBufferShort) dataBuffer).getData()
-                    : ((DataBufferUShort) dataBuffer).getData();
-                bytesOut = new byte[data.length * 2];
-                for (int i = 0; i < data.length; i++) {
-                    bytesOut[i * 2] = (byte) (data[i] & 0xFF);
-                    bytesOut[i * 2 + 1] = (byte) ((data[i] >>> 8) & 0xFF);
-                }
-                width *= 2;
-                for (int j = 0; j < height; j++) {
-                    newSeries[j].getOutputStream().write(bytesOut, j * width, width);
-                }
-            } else if (dataBuffer instanceof DataBufferInt) {
-                int[] data = ((DataBufferInt) dataBuffer).getData();
-                bytesOut = new byte[data.length * 4];
-                for (int i = 0; i < data.length; i++) {
-                    bytesOut[i * 4] = (byte) (data[i] & 0xFF);
-                    bytesOut[i * 4 + 1] = (byte) ((data[i] >>> 8) & 0xFF);
-                    bytesOut[i * 4 + 2] = (byte) ((data[i] >>> 16) & 0xFF);
-                    bytesOut[i * 4 + 3] = (byte) ((data[i] >>> 24) & 0xFF);
-                }
-                width *= 4;
-                for (int j = 0; j < height; j++) {
-                    newSeries[j].getOutputStream().write(bytesOut, j * width, width);
+            sPixSize[0] = lastSpace;
+            complete = true;
+            return volume;
+        } finally {
+            if (!complete) {
+                // Interrupted, aborted or failed
+                if (volume == null) {
+                    FileUtil.delete(file);
+                } else {
+                    volume.dispose();
                 }
             }
         }
     }
 
-    private static BufferedImage getImage(PlanarImage source, TransposeType rotate) {
-        if (rotate == null) {
-            return source == null ? null : source.getAsBufferedImage();
-        }
-        return getRotatedImage(source, rotate);
-    }
-
-    private static BufferedImage getImage(BufferedImage source, TransposeType rotate) {
-        if (rotate == null) {
-            return source == null ? null : source;
-        }
-        return getRotatedImage(source, rotate);
-    }
-
-    private static BufferedImage getRotatedImage(RenderedImage source, TransposeType rotate) {
-        RenderedOp result;
-        if (source instanceof BufferedImage) {
-            source = PlanarImage.wrapRenderedImage(source);
+    private static void updateProgressBar(final JProgressBar bar, final MprView view) {
+        if (bar != null) {
+            GuiExecutor.instance().execute(() -> {
+                bar.setValue(bar.getValue() + 1);
+                view.repaint();
+            });
         }
-        // use Transpose operation
-        result = TransposeDescriptor.create(source, rotate, ImageToolkit.NOCACHE_HINT);
-        // Handle non square images. Translation is necessary because the transpose operator keeps the same
-        // origin (top left not the center of the image)
-        float diffw = source.getWidth() / 2.0f - result.getWidth() / 2.0f;
-        float diffh = source.getHeight() / 2.0f - result.getHeight() / 2.0f;
-        if (MathUtil.isDifferentFromZero(diffw) || MathUtil.isDifferentFromZero(diffh)) {
-            result = TranslateDescriptor.create(result, diffw, diffh, null, ImageToolkit.NOCACHE_HINT);
-        }
-        return result.getAsBufferedImage();
     }
 
     private static void rotate(Vector3d vSrc, Vector3d axis, double angle, Vector3d vDst) {
@@ -696,38 +508,6 @@ public class SeriesBuilder {
             + vSrc.z * Math.cos(angle) + (-axis.y * vSrc.x + axis.x * vSrc.y) * Math.sin(angle);
     }
 
-    public static ByteBuffer getBytesFromFile(File file) {
-        FileInputStream is = null;
-        try {
-            ByteBuffer byteBuffer = ByteBuffer.allocate((int) file.length());
-            byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            is = new FileInputStream(file);
-            FileChannel in = is.getChannel();
-            in.read(byteBuffer);
-            byteBuffer.flip();
-            return byteBuffer;
-        } catch (Exception e) {
-            LOGGER.error("Get bytes", e); //$NON-NLS-1$
-        } finally {
-            FileUtil.safeClose(is);
-        }
-        return null;
-    }
-
-    public static void writToFile(File file, ByteBuffer byteBuffer) {
-        FileOutputStream os = null;
-        try {
-            byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            os = new FileOutputStream(file);
-            FileChannel out = os.getChannel();
-            out.write(byteBuffer);
-        } catch (Exception e) {
-            LOGGER.error("Write bytes", e); //$NON-NLS-1$
-        } finally {
-            FileUtil.safeClose(os);
-        }
-    }
-
     public static void confirmMessage(final Component view, final String message, final boolean[] abort) {
         GuiExecutor.instance().invokeAndWait(() -> {
             int usrChoice = JOptionPane.showConfirmDialog(view, message + Messages.getString("SeriesBuilder.add_warn"), //$NON-NLS-1$
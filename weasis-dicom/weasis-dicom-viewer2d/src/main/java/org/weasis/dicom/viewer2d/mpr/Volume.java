@@ -0,0 +1,406 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.dicom.viewer2d.mpr;
+
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import javax.media.jai.operator.TransposeDescriptor;
+import javax.media.jai.operator.TransposeType;
+
+import org.weasis.core.api.util.FileUtil;
+
+/**
+ * Voxel volume stored in a memory-mapped file. The slices are stored one after the other (slice-major) in the order of
+ * the source stack and the samples are in little endian. The planes of the other orientations are sampled directly
+ * from the volume.
+ */
+public class Volume {
+
+    private final File file;
+    private final int width;
+    private final int height;
+    private final int depth;
+    private final int samplesPerPixel;
+    private final int dataType;
+    private final int elementSize;
+    private final int sliceElements;
+    private final int slicesPerSegment;
+    private volatile ByteBuffer[] segments;
+
+    /**
+     * @param file
+     *            the file backing the volume (deleted by {@link #dispose()} or on exit)
+     * @param width
+     *            the width of the source slices
+     * @param height
+     *            the height of the source slices
+     * @param depth
+     *            the number of slices
+     * @param samplesPerPixel
+     *            the number of samples per pixel (pixel interleaved)
+     * @param dataType
+     *            the type of the samples (TYPE_BYTE, TYPE_SHORT, TYPE_USHORT or TYPE_INT)
+     * @throws IOException
+     */
+    public Volume(File file, int width, int height, int depth, int samplesPerPixel, int dataType) throws IOException {
+        this(file, width, height, depth, samplesPerPixel, dataType, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxSegmentLength
+     *            the maximum length of a mapped segment (at least one slice)
+     */
+    Volume(File file, int width, int height, int depth, int samplesPerPixel, int dataType, long maxSegmentLength)
+        throws IOException {
+        if (width <= 0 || height <= 0 || depth <= 0 || samplesPerPixel <= 0) {
+            throw new IllegalArgumentException("Invalid volume dimension"); //$NON-NLS-1$
+        }
+        this.file = file;
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.samplesPerPixel = samplesPerPixel;
+        this.dataType = dataType;
+        this.elementSize = getElementSize(dataType);
+        this.sliceElements = width * height * samplesPerPixel;
+
+        long sliceLength = (long) sliceElements * elementSize;
+        if (sliceLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The slice is too large"); //$NON-NLS-1$
+        }
+        // A mapped buffer cannot exceed 2 GB, split the volume into segments containing entire slices
+        this.slicesPerSegment = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxSegmentLength) / sliceLength);
+        int nbSegments = (depth + slicesPerSegment - 1) / slicesPerSegment;
+        ByteBuffer[] buffers = new ByteBuffer[nbSegments];
+
+        file.deleteOnExit();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) { //$NON-NLS-1$
+            raf.setLength(sliceLength * depth);
+            FileChannel channel = raf.getChannel();
+            for (int i = 0; i < nbSegments; i++) {
+                int nbSlices = Math.min(slicesPerSegment, depth - i * slicesPerSegment);
+                // The mapping remains valid after closing the channel
+                buffers[i] = channel.map(MapMode.READ_WRITE, i * slicesPerSegment * sliceLength,
+                    nbSlices * sliceLength);
+                buffers[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        this.segments = buffers;
+    }
+
+    /**
+     * Releases the mapped segments and deletes the file. The planes of the volume cannot be read anymore.
+     */
+    public void dispose() {
+        segments = null;
+        // The mapping is released when the buffers are garbage collected, the file may be deleted only on exit when
+        // the system does not allow deleting a mapped file.
+        FileUtil.delete(file);
+    }
+
+    public boolean isDisposed() {
+        return segments == null;
+    }
+
+    int getNumberOfSegments() {
+        ByteBuffer[] buffers = segments;
+        return buffers == null ? 0 : buffers.length;
+    }
+
+    private static int getElementSize(int dataType) {
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE:
+                return 1;
+            case DataBuffer.TYPE_SHORT:
+            case DataBuffer.TYPE_USHORT:
+                return 2;
+            case DataBuffer.TYPE_INT:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Unsupported data type: " + dataType); //$NON-NLS-1$
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getDataType() {
+        return dataType;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Copies the image into the slice at the given index. The image is read tile by tile without copying the entire
+     * raster.
+     *
+     * @param z
+     *            the index of the slice
+     * @param image
+     *            the image with the dimension and the data type of the volume
+     */
+    public void writeSlice(int z, RenderedImage image) {
+        if (image.getWidth() != width || image.getHeight() != height
+            || image.getSampleModel().getNumBands() != samplesPerPixel
+            || getElementSize(image.getSampleModel().getDataType()) != elementSize) {
+            throw new IllegalArgumentException("The image does not match the volume"); //$NON-NLS-1$
+        }
+        Rectangle imgBounds = new Rectangle(image.getMinX(), image.getMinY(), width, height);
+        ByteBuffer segment = getSegment(z);
+        int sliceOffset = (z % slicesPerSegment) * sliceElements;
+
+        for (int ty = image.getMinTileY(); ty < image.getMinTileY() + image.getNumYTiles(); ty++) {
+            for (int tx = image.getMinTileX(); tx < image.getMinTileX() + image.getNumXTiles(); tx++) {
+                Raster tile = image.getTile(tx, ty);
+                Rectangle r = tile.getBounds().intersection(imgBounds);
+                if (r.isEmpty()) {
+                    continue;
+                }
+                Object data = tile.getDataElements(r.x, r.y, r.width, r.height, null);
+                int length = r.width * samplesPerPixel;
+                for (int j = 0; j < r.height; j++) {
+                    int pos = sliceOffset + ((r.y - imgBounds.y + j) * width + r.x - imgBounds.x) * samplesPerPixel;
+                    put(segment, pos, data, j * length, length);
+                }
+            }
+        }
+    }
+
+    private ByteBuffer getSegment(int z) {
+        if (z < 0 || z >= depth) {
+            throw new IndexOutOfBoundsException("Slice index: " + z); //$NON-NLS-1$
+        }
+        ByteBuffer[] buffers = segments;
+        if (buffers == null) {
+            throw new IllegalStateException("The volume has been disposed"); //$NON-NLS-1$
+        }
+        return buffers[z / slicesPerSegment];
+    }
+
+    /**
+     * @return a view of the segment by element (ByteBuffer, ShortBuffer or IntBuffer) for reading with absolute index
+     */
+    private Buffer getElementView(ByteBuffer segment) {
+        ByteBuffer buf = segment.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (elementSize == 2) {
+            return buf.asShortBuffer();
+        } else if (elementSize == 4) {
+            return buf.asIntBuffer();
+        }
+        return buf;
+    }
+
+    private static void getSamples(Buffer view, int index, Object dst, int dstPos, int length) {
+        if (view instanceof ByteBuffer) {
+            ByteBuffer b = (ByteBuffer) view;
+            byte[] d = (byte[]) dst;
+            for (int i = 0; i < length; i++) {
+                d[dstPos + i] = b.get(index + i);
+            }
+        } else if (view instanceof ShortBuffer) {
+            ShortBuffer b = (ShortBuffer) view;
+            short[] d = (short[]) dst;
+            for (int i = 0; i < length; i++) {
+                d[dstPos + i] = b.get(index + i);
+            }
+        } else {
+            IntBuffer b = (IntBuffer) view;
+            int[] d = (int[]) dst;
+            for (int i = 0; i < length; i++) {
+                d[dstPos + i] = b.get(index + i);
+            }
+        }
+    }
+
+    private void put(ByteBuffer segment, int index, Object src, int srcPos, int length) {
+        // Duplicate for having an independent position (thread-safe)
+        ByteBuffer buf = segment.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        buf.position(index * elementSize);
+        if (src instanceof byte[]) {
+            buf.put((byte[]) src, srcPos, length);
+        } else if (src instanceof short[]) {
+            buf.asShortBuffer().put((short[]) src, srcPos, length);
+        } else if (src instanceof int[]) {
+            buf.asIntBuffer().put((int[]) src, srcPos, length);
+        }
+    }
+
+    private void get(ByteBuffer segment, int index, Object dst, int dstPos, int length) {
+        ByteBuffer buf = segment.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        buf.position(index * elementSize);
+        if (dst instanceof byte[]) {
+            buf.get((byte[]) dst, dstPos, length);
+        } else if (dst instanceof short[]) {
+            buf.asShortBuffer().get((short[]) dst, dstPos, length);
+        } else if (dst instanceof int[]) {
+            buf.asIntBuffer().get((int[]) dst, dstPos, length);
+        }
+    }
+
+    private Object createArray(int length) {
+        if (elementSize == 1) {
+            return new byte[length];
+        } else if (elementSize == 2) {
+            return new short[length];
+        }
+        return new int[length];
+    }
+
+    /**
+     * @param transpose
+     *            the transposition of the source slices (null, ROTATE_90 or ROTATE_270)
+     * @return the number of planes which can be sampled with this transposition
+     */
+    public int getNumberOfPlanes(TransposeType transpose) {
+        return transpose == null ? height : width;
+    }
+
+    /**
+     * Plane made by stacking the same line of all the slices. The line is a row of the source slice after applying
+     * the transposition.
+     */
+    public Plane getPlane(int index, TransposeType transpose, boolean reverseSlices, boolean rotate) {
+        if (transpose != null && !TransposeDescriptor.ROTATE_90.equals(transpose)
+            && !TransposeDescriptor.ROTATE_270.equals(transpose)) {
+            throw new IllegalArgumentException("Unsupported transposition: " + transpose); //$NON-NLS-1$
+        }
+        if (index < 0 || index >= getNumberOfPlanes(transpose)) {
+            throw new IndexOutOfBoundsException("Plane index: " + index); //$NON-NLS-1$
+        }
+        return new Plane(index, transpose, reverseSlices, rotate);
+    }
+
+    public class Plane {
+        private final int index;
+        private final TransposeType transpose;
+        private final boolean reverseSlices;
+        private final boolean rotate;
+
+        Plane(int index, TransposeType transpose, boolean reverseSlices, boolean rotate) {
+            this.index = index;
+            this.transpose = transpose;
+            this.reverseSlices = reverseSlices;
+            this.rotate = rotate;
+        }
+
+        private int getLineLength() {
+            return transpose == null ? width : height;
+        }
+
+        /**
+         * @return the width of the plane. When rotated, each column is a line of a source slice.
+         */
+        public int getWidth() {
+            return rotate ? depth : getLineLength();
+        }
+
+        public int getHeight() {
+            return rotate ? getLineLength() : depth;
+        }
+
+        public int getDataType() {
+            return dataType;
+        }
+
+        /**
+         * @return the samples of the plane (byte[], short[] or int[] according to the data type)
+         */
+        public Object getData() {
+            int line = getLineLength();
+            int outWidth = getWidth();
+            Object data = createArray(outWidth * getHeight() * samplesPerPixel);
+            ByteBuffer lastSegment = null;
+            Buffer view = null;
+            for (int v = 0; v < depth; v++) {
+                int z = reverseSlices ? depth - 1 - v : v;
+                ByteBuffer segment = getSegment(z);
+                int sliceOffset = (z % slicesPerSegment) * sliceElements;
+                if (transpose == null && !rotate) {
+                    // The line is contiguous in the volume
+                    get(segment, sliceOffset + index * width * samplesPerPixel, data, v * line * samplesPerPixel,
+                        line * samplesPerPixel);
+                    continue;
+                }
+                if (segment != lastSegment) {
+                    // One view by segment, the samples are read with an absolute index
+                    lastSegment = segment;
+                    view = getElementView(segment);
+                }
+                for (int u = 0; u < line; u++) {
+                    int x;
+                    int y;
+                    if (transpose == null) {
+                        x = u;
+                        y = index;
+                    } else if (TransposeDescriptor.ROTATE_90.equals(transpose)) {
+                        x = index;
+                        y = height - 1 - u;
+                    } else {
+                        x = width - 1 - index;
+                        y = u;
+                    }
+                    // Rotation of 90 degrees clockwise of the stacked lines
+                    int dst = rotate ? u * outWidth + depth - 1 - v : v * outWidth + u;
+                    getSamples(view, sliceOffset + (y * width + x) * samplesPerPixel, data, dst * samplesPerPixel,
+                        samplesPerPixel);
+                }
+            }
+            return data;
+        }
+
+        /**
+         * @return the samples of the plane in little endian
+         */
+        public byte[] getBytes() {
+            Object data = getData();
+            if (data instanceof byte[]) {
+                return (byte[]) data;
+            }
+            ByteBuffer buf;
+            if (data instanceof short[]) {
+                short[] d = (short[]) data;
+                buf = ByteBuffer.allocate(d.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+                ShortBuffer sb = buf.asShortBuffer();
+                sb.put(d);
+            } else {
+                int[] d = (int[]) data;
+                buf = ByteBuffer.allocate(d.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+                IntBuffer ib = buf.asIntBuffer();
+                ib.put(d);
+            }
+            return buf.array();
+        }
+    }
+}
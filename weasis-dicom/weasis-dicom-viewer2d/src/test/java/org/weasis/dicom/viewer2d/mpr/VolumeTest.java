@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Weasis Team and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Nicolas Roduit - initial API and implementation
+ *******************************************************************************/
+package org.weasis.dicom.viewer2d.mpr;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import javax.media.jai.operator.TransposeDescriptor;
+import javax.media.jai.operator.TransposeType;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VolumeTest {
+
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 3;
+    private static final int DEPTH = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static int value(int x, int y, int z) {
+        return z * 100 + y * 10 + x;
+    }
+
+    private static BufferedImage buildSlice(int z) {
+        BufferedImage img = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_USHORT_GRAY);
+        WritableRaster raster = img.getRaster();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                raster.setSample(x, y, 0, value(x, y, z));
+            }
+        }
+        return img;
+    }
+
+    private Volume buildVolume(long maxSegmentLength) throws IOException {
+        Volume volume = new Volume(folder.newFile(), WIDTH, HEIGHT, DEPTH, 1, DataBuffer.TYPE_USHORT, maxSegmentLength);
+        for (int z = 0; z < DEPTH; z++) {
+            volume.writeSlice(z, buildSlice(z));
+        }
+        return volume;
+    }
+
+    @Test
+    public void testLayout() throws IOException {
+        Volume volume = buildVolume(Integer.MAX_VALUE);
+        Assert.assertEquals(1, volume.getNumberOfSegments());
+
+        // Slice-major order in little endian
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(volume.getFile().toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(WIDTH * HEIGHT * DEPTH * 2, buf.capacity());
+        for (int z = 0; z < DEPTH; z++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    Assert.assertEquals(value(x, y, z), buf.getShort(((z * HEIGHT + y) * WIDTH + x) * 2));
+                }
+            }
+        }
+        volume.dispose();
+    }
+
+    @Test
+    public void testSegmentSplit() throws IOException {
+        // Two slices by segment
+        Volume volume = buildVolume(WIDTH * HEIGHT * 2 * 2 + 1);
+        Volume reference = buildVolume(Integer.MAX_VALUE);
+        Assert.assertEquals(3, volume.getNumberOfSegments());
+
+        for (int i = 0; i < HEIGHT; i++) {
+            Assert.assertArrayEquals((short[]) reference.getPlane(i, null, false, false).getData(),
+                (short[]) volume.getPlane(i, null, false, false).getData());
+        }
+        TransposeType transpose = TransposeDescriptor.ROTATE_90;
+        for (int i = 0; i < WIDTH; i++) {
+            Assert.assertArrayEquals((short[]) reference.getPlane(i, transpose, true, true).getData(),
+                (short[]) volume.getPlane(i, transpose, true, true).getData());
+        }
+        volume.dispose();
+        reference.dispose();
+    }
+
+    @Test
+    public void testPlane() throws IOException {
+        Volume volume = buildVolume(Integer.MAX_VALUE);
+        Assert.assertEquals(HEIGHT, volume.getNumberOfPlanes(null));
+
+        // Same row of all the slices
+        Volume.Plane plane = volume.getPlane(1, null, false, false);
+        Assert.assertEquals(WIDTH, plane.getWidth());
+        Assert.assertEquals(DEPTH, plane.getHeight());
+        short[] data = (short[]) plane.getData();
+        for (int v = 0; v < DEPTH; v++) {
+            for (int u = 0; u < WIDTH; u++) {
+                Assert.assertEquals(value(u, 1, v), data[v * WIDTH + u]);
+            }
+        }
+
+        // Reverse order of the slices
+        data = (short[]) volume.getPlane(2, null, true, false).getData();
+        Assert.assertEquals(value(0, 2, DEPTH - 1), data[0]);
+        Assert.assertEquals(value(WIDTH - 1, 2, 0), data[data.length - 1]);
+        volume.dispose();
+    }
+
+    @Test
+    public void testTransposedPlane() throws IOException {
+        Volume volume = buildVolume(Integer.MAX_VALUE);
+        Assert.assertEquals(WIDTH, volume.getNumberOfPlanes(TransposeDescriptor.ROTATE_90));
+
+        // Column of the slices from bottom to top
+        Volume.Plane plane = volume.getPlane(1, TransposeDescriptor.ROTATE_90, false, false);
+        Assert.assertEquals(HEIGHT, plane.getWidth());
+        Assert.assertEquals(DEPTH, plane.getHeight());
+        short[] data = (short[]) plane.getData();
+        for (int v = 0; v < DEPTH; v++) {
+            for (int u = 0; u < HEIGHT; u++) {
+                Assert.assertEquals(value(1, HEIGHT - 1 - u, v), data[v * HEIGHT + u]);
+            }
+        }
+
+        // Column of the slices from top to bottom, starting from the right
+        data = (short[]) volume.getPlane(1, TransposeDescriptor.ROTATE_270, false, false).getData();
+        for (int v = 0; v < DEPTH; v++) {
+            for (int u = 0; u < HEIGHT; u++) {
+                Assert.assertEquals(value(WIDTH - 2, u, v), data[v * HEIGHT + u]);
+            }
+        }
+        volume.dispose();
+    }
+
+    @Test
+    public void testRotatedPlane() throws IOException {
+        Volume volume = buildVolume(Integer.MAX_VALUE);
+
+        // The lines are stacked as columns, the first slice on the right
+        Volume.Plane plane = volume.getPlane(0, null, false, true);
+        Assert.assertEquals(DEPTH, plane.getWidth());
+        Assert.assertEquals(WIDTH, plane.getHeight());
+        short[] data = (short[]) plane.getData();
+        for (int v = 0; v < DEPTH; v++) {
+            for (int u = 0; u < WIDTH; u++) {
+                Assert.assertEquals(value(u, 0, v), data[u * DEPTH + DEPTH - 1 - v]);
+            }
+        }
+
+        plane = volume.getPlane(2, TransposeDescriptor.ROTATE_270, true, true);
+        Assert.assertEquals(DEPTH, plane.getWidth());
+        Assert.assertEquals(HEIGHT, plane.getHeight());
+        data = (short[]) plane.getData();
+        for (int v = 0; v < DEPTH; v++) {
+            for (int u = 0; u < HEIGHT; u++) {
+                Assert.assertEquals(value(WIDTH - 3, u, DEPTH - 1 - v), data[u * DEPTH + DEPTH - 1 - v]);
+            }
+        }
+
+        // Little endian bytes of the samples
+        byte[] bytes = plane.getBytes();
+        Assert.assertEquals(data.length * 2, bytes.length);
+        Assert.assertEquals(data[1], ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getShort(2));
+        volume.dispose();
+    }
+
+    @Test
+    public void testDispose() throws IOException {
+        Volume volume = buildVolume(Integer.MAX_VALUE);
+        File file = volume.getFile();
+        Assert.assertTrue(file.exists());
+
+        volume.dispose();
+        Assert.assertTrue(volume.isDisposed());
+        Assert.assertFalse(file.exists());
+        try {
+            volume.getPlane(0, null, false, false).getData();
+            Assert.fail("The disposed volume cannot be read"); //$NON-NLS-1$
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+}